@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.grpc.client;
+
+import org.apache.bigtop.manager.common.utils.NetUtils;
+import org.apache.bigtop.manager.grpc.generated.PackageChunk;
+import org.apache.bigtop.manager.grpc.generated.PackageFetchRequest;
+import org.apache.bigtop.manager.grpc.generated.PackageTransferServiceGrpc;
+import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
+import org.apache.bigtop.manager.stack.core.tarball.PackageSource;
+import org.apache.bigtop.manager.stack.core.utils.LocalSettings;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.grpc.Context;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.StatusRuntimeException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fetch packages from the agents this host is given as package peers in the job cache, nearest first.
+ * A peer that doesn't have the package yet fetches it from its own peers or the repo before replying.
+ * <p>
+ * A peer that stalls is given up once it sends nothing for a while, so the package is fetched from the next
+ * peer or the repo instead of waiting on it.
+ */
+@Slf4j
+public class PeerPackageSource implements PackageSource, AutoCloseable {
+
+    // A peer may fetch the package from the chain above it before sending the first chunk
+    private static final long FIRST_CHUNK_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final long IDLE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final ScheduledExecutorService TIMEOUTS = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "peer-package-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    final Map<String, ManagedChannel> channels = new ConcurrentHashMap<>();
+
+    private final long firstChunkTimeoutMillis;
+
+    private final long idleTimeoutMillis;
+
+    public PeerPackageSource() {
+        this(FIRST_CHUNK_TIMEOUT_MILLIS, IDLE_TIMEOUT_MILLIS);
+    }
+
+    PeerPackageSource(long firstChunkTimeoutMillis, long idleTimeoutMillis) {
+        this.firstChunkTimeoutMillis = firstChunkTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    @Override
+    public InputStream open(String repoUrl, PackageInfo packageInfo, long offset, Set<String> visited) {
+        return open(LocalSettings.packagePeers(), repoUrl, packageInfo, offset, visited);
+    }
+
+    InputStream open(List<String> peers, String repoUrl, PackageInfo packageInfo, long offset, Set<String> visited) {
+        Set<String> chain = new LinkedHashSet<>(visited);
+        chain.add(NetUtils.getHostname());
+
+        PackageFetchRequest request = PackageFetchRequest.newBuilder()
+                .setRepoUrl(repoUrl)
+                .setName(packageInfo.getName())
+                .setChecksum(packageInfo.getChecksum())
+                .setOffset(offset)
+                .addAllVisited(chain)
+                .build();
+        for (String peer : peers) {
+            if (chain.contains(StringUtils.substringBeforeLast(peer, ":"))) {
+                continue;
+            }
+
+            // The call is cancelled through its context when the stream is closed before the end
+            Context.CancellableContext context = Context.current().withCancellation();
+            Context previous = context.attach();
+            IdleTimeout timeout = new IdleTimeout(context);
+            try {
+                Iterator<PackageChunk> chunks = PackageTransferServiceGrpc.newBlockingStub(channel(peer))
+                        .fetch(request);
+                // Fails here if the peer can't serve the package
+                timeout.start(firstChunkTimeoutMillis);
+                chunks.hasNext();
+                timeout.stop();
+                log.info("Fetching [{}] from peer [{}], offset: [{}]", packageInfo.getName(), peer, offset);
+                return new ChunkInputStream(chunks, context, timeout, idleTimeoutMillis);
+            } catch (StatusRuntimeException e) {
+                timeout.stop();
+                context.cancel(null);
+                log.warn("Peer [{}] can't serve [{}]: {}", peer, packageInfo.getName(), e.getStatus());
+            } finally {
+                context.detach(previous);
+            }
+        }
+
+        return null;
+    }
+
+    private ManagedChannel channel(String peer) {
+        return channels.compute(peer, (k, channel) -> {
+            if (channel != null && !channel.isShutdown()) {
+                return channel;
+            }
+
+            return ManagedChannelBuilder.forTarget(peer)
+                    .usePlaintext()
+                    .keepAliveTime(60, TimeUnit.SECONDS)
+                    .build();
+        });
+    }
+
+    /**
+     * Shut down the channels to the peers.
+     */
+    @Override
+    public void close() {
+        for (ManagedChannel channel : channels.values()) {
+            channel.shutdown();
+        }
+
+        channels.clear();
+    }
+
+    /**
+     * Cancels the call when the peer sends nothing for the given time, restarted before every wait on the peer.
+     */
+    private static class IdleTimeout {
+
+        private final Context.CancellableContext context;
+
+        private ScheduledFuture<?> future;
+
+        IdleTimeout(Context.CancellableContext context) {
+            this.context = context;
+        }
+
+        synchronized void start(long timeoutMillis) {
+            stop();
+            future = TIMEOUTS.schedule(
+                    () -> context.cancel(new TimeoutException("Nothing received for " + timeoutMillis + " ms")),
+                    timeoutMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+
+        synchronized void stop() {
+            if (future != null) {
+                future.cancel(false);
+                future = null;
+            }
+        }
+    }
+
+    private static class ChunkInputStream extends InputStream {
+
+        private final Iterator<PackageChunk> chunks;
+
+        private final Context.CancellableContext context;
+
+        private final IdleTimeout timeout;
+
+        private final long idleTimeoutMillis;
+
+        private InputStream current = InputStream.nullInputStream();
+
+        ChunkInputStream(
+                Iterator<PackageChunk> chunks,
+                Context.CancellableContext context,
+                IdleTimeout timeout,
+                long idleTimeoutMillis) {
+            this.chunks = chunks;
+            this.context = context;
+            this.timeout = timeout;
+            this.idleTimeoutMillis = idleTimeoutMillis;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            try {
+                int read;
+                while ((read = current.read(b, off, len)) == -1) {
+                    timeout.start(idleTimeoutMillis);
+                    boolean hasNext = chunks.hasNext();
+                    timeout.stop();
+                    if (!hasNext) {
+                        return -1;
+                    }
+
+                    current = chunks.next().getData().newInput();
+                }
+
+                return read;
+            } catch (StatusRuntimeException e) {
+                timeout.stop();
+                throw new IOException(e.getStatus().toString(), e);
+            }
+        }
+
+        @Override
+        public void close() {
+            timeout.stop();
+            context.cancel(null);
+        }
+    }
+}
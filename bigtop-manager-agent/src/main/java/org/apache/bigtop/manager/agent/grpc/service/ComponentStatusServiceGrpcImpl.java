@@ -23,6 +23,8 @@ import org.apache.bigtop.manager.common.shell.ShellResult;
 import org.apache.bigtop.manager.grpc.generated.ComponentStatusReply;
 import org.apache.bigtop.manager.grpc.generated.ComponentStatusRequest;
 import org.apache.bigtop.manager.grpc.generated.ComponentStatusServiceGrpc;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusesReply;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusesRequest;
 import org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload;
 import org.apache.bigtop.manager.stack.core.executor.StackExecutor;
 
@@ -35,22 +37,18 @@ import net.devh.boot.grpc.server.service.GrpcService;
 @GrpcService
 public class ComponentStatusServiceGrpcImpl extends ComponentStatusServiceGrpc.ComponentStatusServiceImplBase {
 
+    /**
+     * Non-zero status reported when the status check itself failed.
+     */
+    static final int UNKNOWN_STATUS = -1;
+
     @Override
     public void getComponentStatus(
             ComponentStatusRequest request, StreamObserver<ComponentStatusReply> responseObserver) {
 
         try {
-            ComponentCommandPayload payload = new ComponentCommandPayload();
-            payload.setCommand(Command.STATUS.getCode());
-            payload.setStackName(request.getStackName());
-            payload.setStackVersion(request.getStackVersion());
-            payload.setServiceName(request.getServiceName());
-            payload.setServiceUser(request.getServiceUser());
-            payload.setComponentName(request.getComponentName());
-
-            ShellResult shellResult = StackExecutor.execute(payload);
             ComponentStatusReply reply = ComponentStatusReply.newBuilder()
-                    .setStatus(shellResult.getExitCode())
+                    .setStatus(getStatus(request))
                     .build();
             responseObserver.onNext(reply);
             responseObserver.onCompleted();
@@ -60,4 +58,38 @@ public class ComponentStatusServiceGrpcImpl extends ComponentStatusServiceGrpc.C
             responseObserver.onError(status.asRuntimeException());
         }
     }
+
+    @Override
+    public void getComponentStatuses(
+            ComponentStatusesRequest request, StreamObserver<ComponentStatusesReply> responseObserver) {
+        ComponentStatusesReply.Builder builder = ComponentStatusesReply.newBuilder();
+        for (ComponentStatusRequest component : request.getComponentsList()) {
+            int status;
+            try {
+                status = getStatus(component);
+            } catch (Exception e) {
+                // One broken component should not hide the statuses of the others on the host
+                log.error("Error getting status of component [{}]", component.getComponentName(), e);
+                status = UNKNOWN_STATUS;
+            }
+
+            builder.addStatuses(ComponentStatusReply.newBuilder().setStatus(status));
+        }
+
+        responseObserver.onNext(builder.build());
+        responseObserver.onCompleted();
+    }
+
+    static int getStatus(ComponentStatusRequest request) {
+        ComponentCommandPayload payload = new ComponentCommandPayload();
+        payload.setCommand(Command.STATUS.getCode());
+        payload.setStackName(request.getStackName());
+        payload.setStackVersion(request.getStackVersion());
+        payload.setServiceName(request.getServiceName());
+        payload.setServiceUser(request.getServiceUser());
+        payload.setComponentName(request.getComponentName());
+
+        ShellResult shellResult = StackExecutor.execute(payload);
+        return shellResult.getExitCode();
+    }
 }
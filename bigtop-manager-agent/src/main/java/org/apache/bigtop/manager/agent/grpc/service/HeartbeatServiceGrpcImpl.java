@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.grpc.service;
+
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusChange;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusRequest;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatEvent;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatRequest;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatServiceGrpc;
+import org.apache.bigtop.manager.grpc.generated.HostInfoReply;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.service.GrpcService;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes the state of this host to the server over a long-lived stream opened by the server.
+ * An event is sent every interval as a liveness signal, carrying only the host info and component statuses
+ * that changed since the previous event. Usage figures like free memory or cpu load change on every sample,
+ * they are only sent along with an inventory change or every {@link #METRICS_INTERVAL} seconds.
+ */
+@Slf4j
+@GrpcService
+public class HeartbeatServiceGrpcImpl extends HeartbeatServiceGrpc.HeartbeatServiceImplBase {
+
+    static final int METRICS_INTERVAL = 60;
+
+    private final ScheduledExecutorService scheduler;
+
+    public HeartbeatServiceGrpcImpl() {
+        this(Executors.newScheduledThreadPool(
+                1,
+                new ThreadFactoryBuilder()
+                        .setNameFormat("agent-heartbeat-%d")
+                        .setDaemon(true)
+                        .build()));
+    }
+
+    HeartbeatServiceGrpcImpl(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public StreamObserver<HeartbeatRequest> connect(StreamObserver<HeartbeatEvent> responseObserver) {
+        HeartbeatSession session = new HeartbeatSession(responseObserver);
+        if (responseObserver instanceof ServerCallStreamObserver<HeartbeatEvent> serverCallStreamObserver) {
+            serverCallStreamObserver.setOnCancelHandler(session::close);
+        }
+
+        return session;
+    }
+
+    class HeartbeatSession implements StreamObserver<HeartbeatRequest> {
+
+        private final StreamObserver<HeartbeatEvent> responseObserver;
+
+        private List<ComponentStatusRequest> components = new ArrayList<>();
+
+        private final Map<String, Integer> lastStatuses = new HashMap<>();
+
+        private HostInfoReply lastHostInfo;
+
+        private int ticksSinceHostInfo;
+
+        private int interval;
+
+        private ScheduledFuture<?> future;
+
+        private boolean closed;
+
+        HeartbeatSession(StreamObserver<HeartbeatEvent> responseObserver) {
+            this.responseObserver = responseObserver;
+        }
+
+        @Override
+        public synchronized void onNext(HeartbeatRequest request) {
+            if (closed) {
+                return;
+            }
+
+            // A new watch list gets the statuses of all its components on the next event
+            components = new ArrayList<>(request.getComponentsList());
+            lastStatuses.clear();
+
+            int newInterval = Math.max(1, request.getInterval());
+            if (future == null || newInterval != interval) {
+                if (future != null) {
+                    future.cancel(false);
+                }
+
+                interval = newInterval;
+                future = scheduler.scheduleWithFixedDelay(this::tick, 0, interval, TimeUnit.SECONDS);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            log.warn("Heartbeat stream closed by server: {}", t.getMessage());
+            close();
+        }
+
+        @Override
+        public void onCompleted() {
+            close();
+            responseObserver.onCompleted();
+        }
+
+        synchronized void tick() {
+            if (closed) {
+                return;
+            }
+
+            HeartbeatEvent.Builder builder = HeartbeatEvent.newBuilder().setTimestamp(System.currentTimeMillis());
+            try {
+                HostInfoReply hostInfo = HostInfoServiceGrpcImpl.collectHostInfo();
+                ticksSinceHostInfo++;
+                if (lastHostInfo == null
+                        || !inventory(lastHostInfo).equals(inventory(hostInfo))
+                        || (ticksSinceHostInfo * interval >= METRICS_INTERVAL && !lastHostInfo.equals(hostInfo))) {
+                    builder.setHostInfo(hostInfo);
+                    lastHostInfo = hostInfo;
+                    ticksSinceHostInfo = 0;
+                }
+            } catch (Exception e) {
+                log.error("Error getting host info", e);
+            }
+
+            for (ComponentStatusRequest component : components) {
+                int status;
+                try {
+                    status = ComponentStatusServiceGrpcImpl.getStatus(component);
+                } catch (Exception e) {
+                    log.error("Error getting status of component [{}]", component.getComponentName(), e);
+                    status = ComponentStatusServiceGrpcImpl.UNKNOWN_STATUS;
+                }
+
+                Integer previous = lastStatuses.put(component.getComponentName(), status);
+                if (!Objects.equals(previous, status)) {
+                    builder.addComponentStatuses(ComponentStatusChange.newBuilder()
+                            .setServiceName(component.getServiceName())
+                            .setComponentName(component.getComponentName())
+                            .setStatus(status));
+                }
+            }
+
+            try {
+                responseObserver.onNext(builder.build());
+            } catch (Exception e) {
+                log.warn("Unable to send heartbeat: {}", e.getMessage());
+                close();
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        // Usage figures change on every sample, they alone do not make the host info worth sending right away
+        private HostInfoReply inventory(HostInfoReply hostInfo) {
+            return hostInfo.toBuilder()
+                    .clearCpuLoad()
+                    .clearProcessCpuLoad()
+                    .clearProcessCpuTime()
+                    .clearSystemLoadAverage()
+                    .clearCommittedVirtualMemorySize()
+                    .clearFreeMemorySize()
+                    .clearFreeSwapSpaceSize()
+                    .clearFreeDisk()
+                    .build();
+        }
+    }
+}
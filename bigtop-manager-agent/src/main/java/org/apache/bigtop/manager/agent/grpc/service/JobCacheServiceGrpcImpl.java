@@ -23,20 +23,27 @@ import org.apache.bigtop.manager.common.utils.JsonUtils;
 import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
 import org.apache.bigtop.manager.grpc.generated.JobCacheReply;
 import org.apache.bigtop.manager.grpc.generated.JobCacheRequest;
+import org.apache.bigtop.manager.grpc.generated.JobCacheSection;
 import org.apache.bigtop.manager.grpc.generated.JobCacheServiceGrpc;
 import org.apache.bigtop.manager.grpc.payload.JobCachePayload;
+import org.apache.bigtop.manager.grpc.utils.JobCacheUtils;
+import org.apache.bigtop.manager.stack.core.utils.LocalSettings;
 
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
 
 import static org.apache.bigtop.manager.common.constants.CacheFiles.CLUSTER_INFO;
 import static org.apache.bigtop.manager.common.constants.CacheFiles.CONFIGURATIONS_INFO;
 import static org.apache.bigtop.manager.common.constants.CacheFiles.HOSTS_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.PACKAGE_PEERS_INFO;
 import static org.apache.bigtop.manager.common.constants.CacheFiles.REPOS_INFO;
 import static org.apache.bigtop.manager.common.constants.CacheFiles.USERS_INFO;
 
@@ -44,29 +51,79 @@ import static org.apache.bigtop.manager.common.constants.CacheFiles.USERS_INFO;
 @GrpcService
 public class JobCacheServiceGrpcImpl extends JobCacheServiceGrpc.JobCacheServiceImplBase {
 
+    private static final Set<String> SECTION_NAMES =
+            Set.of(CONFIGURATIONS_INFO, HOSTS_INFO, USERS_INFO, REPOS_INFO, CLUSTER_INFO, PACKAGE_PEERS_INFO);
+
     @Override
     public void save(JobCacheRequest request, StreamObserver<JobCacheReply> responseObserver) {
         try {
-            JobCachePayload payload = JsonUtils.readFromString(request.getPayload(), JobCachePayload.class);
             String cacheDir = ProjectPathUtils.getAgentCachePath();
             Path p = Paths.get(cacheDir);
             if (!Files.exists(p)) {
                 Files.createDirectories(p);
             }
 
-            JsonUtils.writeToFile(cacheDir + CONFIGURATIONS_INFO, payload.getConfigurations());
-            JsonUtils.writeToFile(cacheDir + HOSTS_INFO, payload.getComponentHosts());
-            JsonUtils.writeToFile(cacheDir + USERS_INFO, payload.getUserInfo());
-            JsonUtils.writeToFile(cacheDir + REPOS_INFO, payload.getRepoInfo());
-            JsonUtils.writeToFile(cacheDir + CLUSTER_INFO, payload.getClusterInfo());
+            JobCacheReply.Builder builder = JobCacheReply.newBuilder();
+            if (request.getSectionsCount() == 0) {
+                savePayload(cacheDir, request.getPayload());
+            } else {
+                for (JobCacheSection section : request.getSectionsList()) {
+                    if (!saveSection(cacheDir, section)) {
+                        builder.addMissingSections(section.getName());
+                    }
+                }
+            }
+            LocalSettings.invalidate();
 
-            JobCacheReply reply = JobCacheReply.newBuilder()
-                    .setCode(MessageConstants.SUCCESS_CODE)
-                    .build();
-            responseObserver.onNext(reply);
+            int code =
+                    builder.getMissingSectionsCount() == 0 ? MessageConstants.SUCCESS_CODE : MessageConstants.FAIL_CODE;
+            responseObserver.onNext(builder.setCode(code).build());
             responseObserver.onCompleted();
         } catch (Exception e) {
             responseObserver.onError(e);
         }
     }
+
+    private void savePayload(String cacheDir, String payloadJson) {
+        JobCachePayload payload = JsonUtils.readFromString(payloadJson, JobCachePayload.class);
+        JsonUtils.writeToFile(cacheDir + CONFIGURATIONS_INFO, payload.getConfigurations());
+        JsonUtils.writeToFile(cacheDir + HOSTS_INFO, payload.getComponentHosts());
+        JsonUtils.writeToFile(cacheDir + USERS_INFO, payload.getUserInfo());
+        JsonUtils.writeToFile(cacheDir + REPOS_INFO, payload.getRepoInfo());
+        JsonUtils.writeToFile(cacheDir + CLUSTER_INFO, payload.getClusterInfo());
+        if (payload.getPackagePeers() != null) {
+            JsonUtils.writeToFile(cacheDir + PACKAGE_PEERS_INFO, payload.getPackagePeers());
+        }
+    }
+
+    /**
+     * Write the section unless the cache file already holds the same content.
+     *
+     * @return false if the section came without content and the cache file does not match its hash
+     */
+    private boolean saveSection(String cacheDir, JobCacheSection section) throws IOException {
+        if (!SECTION_NAMES.contains(section.getName())) {
+            throw new IllegalArgumentException("Unknown job cache section: " + section.getName());
+        }
+
+        Path file = Paths.get(cacheDir + section.getName());
+        if (section.getHash().equals(fileHash(file))) {
+            log.debug("Job cache section {} unchanged, skipped", section.getName());
+            return true;
+        }
+
+        if (section.getContent().isEmpty()) {
+            return false;
+        }
+
+        byte[] content = JobCacheUtils.decompress(section.getContent());
+        Path tmpFile = Paths.get(file + ".tmp");
+        Files.write(tmpFile, content);
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    private String fileHash(Path file) throws IOException {
+        return Files.exists(file) ? JobCacheUtils.hash(Files.readAllBytes(file)) : null;
+    }
 }
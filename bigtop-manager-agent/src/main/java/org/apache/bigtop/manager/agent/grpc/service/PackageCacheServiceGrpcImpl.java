@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.grpc.service;
+
+import org.apache.bigtop.manager.common.constants.MessageConstants;
+import org.apache.bigtop.manager.common.utils.Environments;
+import org.apache.bigtop.manager.grpc.generated.PackageCacheItem;
+import org.apache.bigtop.manager.grpc.generated.PackageCacheSeedReply;
+import org.apache.bigtop.manager.grpc.generated.PackageCacheSeedRequest;
+import org.apache.bigtop.manager.grpc.generated.PackageCacheServiceGrpc;
+import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
+import org.apache.bigtop.manager.stack.core.tarball.PackageCache;
+
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.service.GrpcService;
+
+@Slf4j
+@GrpcService
+public class PackageCacheServiceGrpcImpl extends PackageCacheServiceGrpc.PackageCacheServiceImplBase {
+
+    @Override
+    public void seed(PackageCacheSeedRequest request, StreamObserver<PackageCacheSeedReply> responseObserver) {
+        try {
+            int cached = 0;
+            int downloaded = 0;
+            if (!Environments.isDevMode()) {
+                for (PackageCacheItem item : request.getPackagesList()) {
+                    PackageInfo packageInfo = new PackageInfo(item.getName(), item.getChecksum());
+                    if (PackageCache.seed(request.getRepoUrl(), packageInfo)) {
+                        downloaded++;
+                    } else {
+                        cached++;
+                    }
+                }
+            }
+
+            log.info("Package cache seeded, [{}] downloaded, [{}] already cached", downloaded, cached);
+            PackageCacheSeedReply reply = PackageCacheSeedReply.newBuilder()
+                    .setCode(MessageConstants.SUCCESS_CODE)
+                    .setCached(cached)
+                    .setDownloaded(downloaded)
+                    .build();
+            responseObserver.onNext(reply);
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            log.error("Error seeding package cache", e);
+            responseObserver.onError(e);
+        }
+    }
+}
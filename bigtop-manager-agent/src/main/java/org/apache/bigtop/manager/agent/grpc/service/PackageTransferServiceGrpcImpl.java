@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.grpc.service;
+
+import org.apache.bigtop.manager.agent.grpc.client.PeerPackageSource;
+import org.apache.bigtop.manager.grpc.generated.PackageChunk;
+import org.apache.bigtop.manager.grpc.generated.PackageFetchRequest;
+import org.apache.bigtop.manager.grpc.generated.PackageTransferServiceGrpc;
+import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
+import org.apache.bigtop.manager.stack.core.tarball.PackageCache;
+
+import com.google.protobuf.ByteString;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.service.GrpcService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+
+/**
+ * Serve packages of the agent package cache to other agents, so hosts of a job download them from each
+ * other instead of all from the repo. A package not cached yet is fetched first, from this host's own peers
+ * or the repo, under the same lock as installing it so concurrent requests download it once.
+ */
+@Slf4j
+@GrpcService
+public class PackageTransferServiceGrpcImpl extends PackageTransferServiceGrpc.PackageTransferServiceImplBase {
+
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    private PeerPackageSource peerSource;
+
+    @PostConstruct
+    public void init() {
+        peerSource = new PeerPackageSource();
+        PackageCache.setPeerSource(peerSource);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        PackageCache.setPeerSource(null);
+        peerSource.close();
+    }
+
+    @Override
+    public void fetch(PackageFetchRequest request, StreamObserver<PackageChunk> responseObserver) {
+        ServerCallStreamObserver<PackageChunk> observer = (ServerCallStreamObserver<PackageChunk>) responseObserver;
+        ChunkSender sender = new ChunkSender(observer);
+        observer.setOnReadyHandler(sender);
+        observer.setOnCancelHandler(sender::close);
+        try {
+            PackageInfo packageInfo = new PackageInfo(request.getName(), request.getChecksum());
+            Path blob = PackageCache.fetch(
+                    request.getRepoUrl(), packageInfo, null, new HashSet<>(request.getVisitedList()));
+            log.info("Sending [{}] to peer, offset: [{}]", packageInfo.getName(), request.getOffset());
+            sender.open(blob, request.getOffset());
+        } catch (Exception e) {
+            log.error("Error serving package [{}]", request.getName(), e);
+            sender.close();
+            responseObserver.onError(e);
+        }
+    }
+
+    /**
+     * Send chunks only while the peer keeps up, so a slow peer doesn't get the package buffered in memory.
+     */
+    private static class ChunkSender implements Runnable {
+
+        private final ServerCallStreamObserver<PackageChunk> observer;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+
+        private FileChannel channel;
+
+        private boolean closed;
+
+        ChunkSender(ServerCallStreamObserver<PackageChunk> observer) {
+            this.observer = observer;
+        }
+
+        synchronized void open(Path blob, long offset) throws IOException {
+            if (closed) {
+                return;
+            }
+
+            channel = FileChannel.open(blob, StandardOpenOption.READ);
+            channel.position(offset);
+            run();
+        }
+
+        @Override
+        public synchronized void run() {
+            if (channel == null || closed) {
+                return;
+            }
+
+            try {
+                while (observer.isReady()) {
+                    buffer.clear();
+                    if (channel.read(buffer) == -1) {
+                        close();
+                        observer.onCompleted();
+                        return;
+                    }
+
+                    buffer.flip();
+                    observer.onNext(PackageChunk.newBuilder()
+                            .setData(ByteString.copyFrom(buffer))
+                            .build());
+                }
+            } catch (IOException e) {
+                log.error("Error reading package", e);
+                close();
+                observer.onError(e);
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    log.warn("Failed to close package: {}", e.getMessage());
+                }
+            }
+        }
+    }
+}
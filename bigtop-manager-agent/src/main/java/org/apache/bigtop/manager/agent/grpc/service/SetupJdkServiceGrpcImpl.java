@@ -62,7 +62,7 @@ public class SetupJdkServiceGrpcImpl extends SetupJdkServiceGrpc.SetupJdkService
             PackageInfo packageInfo = new PackageInfo();
             packageInfo.setName(repoInfo.getPkgName());
             packageInfo.setChecksum(repoInfo.getChecksum());
-            TarballUtils.installPackage(repoInfo.getBaseUrl(), dependenciesHome, jdkHome, packageInfo, 1);
+            TarballUtils.installPackage(repoInfo.getBaseUrl(), jdkHome, packageInfo, 1);
             LinuxFileUtils.createDirectories(jdkHome, user, user, Constants.PERMISSION_755, true);
 
             SetupJdkReply reply = SetupJdkReply.newBuilder()
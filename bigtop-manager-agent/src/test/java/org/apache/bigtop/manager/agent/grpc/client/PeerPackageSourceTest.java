@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.grpc.client;
+
+import org.apache.bigtop.manager.agent.grpc.service.PackageTransferServiceGrpcImpl;
+import org.apache.bigtop.manager.grpc.generated.PackageChunk;
+import org.apache.bigtop.manager.grpc.generated.PackageFetchRequest;
+import org.apache.bigtop.manager.grpc.generated.PackageTransferServiceGrpc;
+import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
+import org.apache.bigtop.manager.stack.core.tarball.PackageCache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.protobuf.ByteString;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PeerPackageSourceTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private String originalUserHome;
+
+    private Server server;
+
+    private final PeerPackageSource source = new PeerPackageSource();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        originalUserHome = System.getProperty("user.home");
+        System.setProperty("user.home", tempDir.toString());
+
+        server = ServerBuilder.forPort(0)
+                .addService(new PackageTransferServiceGrpcImpl())
+                .build()
+                .start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        source.close();
+        server.shutdownNow();
+        System.setProperty("user.home", originalUserHome);
+    }
+
+    @Test
+    public void testOpen() throws Exception {
+        byte[] content = new byte[3 * 1024 * 1024];
+        new Random(1).nextBytes(content);
+        String checksum = "sha-256:"
+                + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        PackageInfo packageInfo = new PackageInfo("hadoop.tar.gz", checksum);
+
+        // The peer has the package cached, it's served without going to the repo
+        Path blob = PackageCache.blobPath(packageInfo);
+        Files.createDirectories(blob.getParent());
+        Files.write(blob, content);
+
+        String peer = "127.0.0.1:" + server.getPort();
+        try (InputStream is = source.open(List.of(peer), "http://127.0.0.1:1", packageInfo, 1000, Set.of())) {
+            assertNotNull(is);
+            assertArrayEquals(Arrays.copyOfRange(content, 1000, content.length), is.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testOpenWithoutPeers() {
+        PackageInfo packageInfo = new PackageInfo("hadoop.tar.gz", "sha-256:aa");
+
+        // Peers waiting on this host and peers that can't fetch the package are skipped
+        String peer = "127.0.0.1:" + server.getPort();
+        assertNull(source.open(List.of(peer), "http://127.0.0.1:1", packageInfo, 0, Set.of("127.0.0.1")));
+        assertNull(source.open(List.of(peer), "http://127.0.0.1:1", packageInfo, 0, Set.of()));
+    }
+
+    @Test
+    public void testStalledPeer() throws Exception {
+        PackageInfo packageInfo = new PackageInfo("hadoop.tar.gz", "sha-256:aa");
+        Server stalled = ServerBuilder.forPort(0)
+                .addService(new StalledService(false))
+                .build()
+                .start();
+        Server stalledAfterFirstChunk = ServerBuilder.forPort(0)
+                .addService(new StalledService(true))
+                .build()
+                .start();
+        try (PeerPackageSource source = new PeerPackageSource(500, 500)) {
+            // Nothing sent, the next peer is tried
+            String peer = "127.0.0.1:" + stalled.getPort();
+            assertNull(source.open(List.of(peer), "http://127.0.0.1:1", packageInfo, 0, Set.of()));
+
+            // Stops sending halfway, the transfer fails so it can be resumed elsewhere
+            peer = "127.0.0.1:" + stalledAfterFirstChunk.getPort();
+            try (InputStream is = source.open(List.of(peer), "http://127.0.0.1:1", packageInfo, 0, Set.of())) {
+                assertNotNull(is);
+                assertThrows(IOException.class, is::readAllBytes);
+            }
+        } finally {
+            stalled.shutdownNow();
+            stalledAfterFirstChunk.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testClose() {
+        PackageInfo packageInfo = new PackageInfo("hadoop.tar.gz", "sha-256:aa");
+        String peer = "127.0.0.1:" + server.getPort();
+        source.open(List.of(peer), "http://127.0.0.1:1", packageInfo, 0, Set.of());
+        ManagedChannel channel = source.channels.get(peer);
+        assertNotNull(channel);
+
+        source.close();
+        assertTrue(channel.isShutdown());
+        assertTrue(source.channels.isEmpty());
+    }
+
+    /**
+     * A peer that never completes the transfer.
+     */
+    private static class StalledService extends PackageTransferServiceGrpc.PackageTransferServiceImplBase {
+
+        private final boolean sendFirstChunk;
+
+        StalledService(boolean sendFirstChunk) {
+            this.sendFirstChunk = sendFirstChunk;
+        }
+
+        @Override
+        public void fetch(PackageFetchRequest request, StreamObserver<PackageChunk> responseObserver) {
+            if (sendFirstChunk) {
+                responseObserver.onNext(PackageChunk.newBuilder()
+                        .setData(ByteString.copyFrom(new byte[1024]))
+                        .build());
+            }
+        }
+    }
+}
@@ -21,6 +21,8 @@ package org.apache.bigtop.manager.agent.grpc.service;
 import org.apache.bigtop.manager.common.shell.ShellResult;
 import org.apache.bigtop.manager.grpc.generated.ComponentStatusReply;
 import org.apache.bigtop.manager.grpc.generated.ComponentStatusRequest;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusesReply;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusesRequest;
 import org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload;
 import org.apache.bigtop.manager.stack.core.executor.StackExecutor;
 
@@ -125,4 +127,43 @@ public class ComponentStatusServiceGrpcImplTest {
             assertTrue(statusRuntimeException.getMessage().contains("Execution failed"));
         }
     }
+
+    @Test
+    public void testGetComponentStatuses() {
+        try (MockedStatic<StackExecutor> mockedStatic = mockStatic(StackExecutor.class)) {
+            ComponentStatusesRequest request = ComponentStatusesRequest.newBuilder()
+                    .addComponents(ComponentStatusRequest.newBuilder().setComponentName("Running"))
+                    .addComponents(ComponentStatusRequest.newBuilder().setComponentName("Broken"))
+                    .addComponents(ComponentStatusRequest.newBuilder().setComponentName("Stopped"))
+                    .build();
+
+            mockedStatic
+                    .when(() -> StackExecutor.execute(any(ComponentCommandPayload.class)))
+                    .thenAnswer(invocation -> {
+                        ComponentCommandPayload payload = invocation.getArgument(0);
+                        if (payload.getComponentName().equals("Broken")) {
+                            throw new RuntimeException("Execution failed");
+                        }
+
+                        ShellResult shellResult = new ShellResult();
+                        shellResult.setExitCode(payload.getComponentName().equals("Running") ? 0 : 3);
+                        return shellResult;
+                    });
+
+            StreamObserver<ComponentStatusesReply> responseObserver = mock(StreamObserver.class);
+            ArgumentCaptor<ComponentStatusesReply> captor = ArgumentCaptor.forClass(ComponentStatusesReply.class);
+
+            service.getComponentStatuses(request, responseObserver);
+
+            verify(responseObserver).onNext(captor.capture());
+            verify(responseObserver).onCompleted();
+
+            // Statuses are in request order, a failed check does not fail the others
+            ComponentStatusesReply reply = captor.getValue();
+            assertEquals(3, reply.getStatusesCount());
+            assertEquals(0, reply.getStatuses(0).getStatus());
+            assertEquals(-1, reply.getStatuses(1).getStatus());
+            assertEquals(3, reply.getStatuses(2).getStatus());
+        }
+    }
 }
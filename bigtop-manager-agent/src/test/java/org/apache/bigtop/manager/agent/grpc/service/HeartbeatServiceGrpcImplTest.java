@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.grpc.service;
+
+import org.apache.bigtop.manager.common.shell.ShellResult;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusRequest;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatEvent;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatRequest;
+import org.apache.bigtop.manager.grpc.generated.HostInfoReply;
+import org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload;
+import org.apache.bigtop.manager.stack.core.executor.StackExecutor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+
+import io.grpc.stub.StreamObserver;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class HeartbeatServiceGrpcImplTest {
+
+    // Scheduled ticks never run, ticks are driven by the tests
+    private final HeartbeatServiceGrpcImpl service = new HeartbeatServiceGrpcImpl(mock(ScheduledExecutorService.class));
+
+    private final Map<String, Integer> exitCodes = new HashMap<>();
+
+    private MockedStatic<StackExecutor> stackExecutorMockedStatic;
+
+    private MockedStatic<HostInfoServiceGrpcImpl> hostInfoMockedStatic;
+
+    private HostInfoReply hostInfo;
+
+    @BeforeEach
+    public void setUp() {
+        hostInfo = HostInfoReply.newBuilder()
+                .setHostname("host1")
+                .setTotalDisk(100L)
+                .setCpuLoad("0.1")
+                .build();
+
+        stackExecutorMockedStatic = mockStatic(StackExecutor.class);
+        stackExecutorMockedStatic
+                .when(() -> StackExecutor.execute(any(ComponentCommandPayload.class)))
+                .thenAnswer(invocation -> {
+                    ComponentCommandPayload payload = invocation.getArgument(0);
+                    ShellResult shellResult = new ShellResult();
+                    shellResult.setExitCode(exitCodes.get(payload.getComponentName()));
+                    return shellResult;
+                });
+
+        hostInfoMockedStatic = mockStatic(HostInfoServiceGrpcImpl.class);
+        hostInfoMockedStatic.when(HostInfoServiceGrpcImpl::collectHostInfo).thenAnswer(invocation -> hostInfo);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stackExecutorMockedStatic.close();
+        hostInfoMockedStatic.close();
+        service.destroy();
+    }
+
+    @Test
+    public void testTickSendsOnlyChanges() {
+        exitCodes.put("NameNode", 0);
+        exitCodes.put("DataNode", 0);
+
+        StreamObserver<HeartbeatEvent> responseObserver = mock(StreamObserver.class);
+        HeartbeatServiceGrpcImpl.HeartbeatSession session =
+                (HeartbeatServiceGrpcImpl.HeartbeatSession) service.connect(responseObserver);
+        session.onNext(HeartbeatRequest.newBuilder()
+                .setInterval(10)
+                .addComponents(component("NameNode"))
+                .addComponents(component("DataNode"))
+                .build());
+
+        HeartbeatEvent first = last(tickAndCapture(session, responseObserver));
+        assertTrue(first.hasHostInfo());
+        assertEquals(2, first.getComponentStatusesCount());
+
+        // Only the load changed and no component changed, the event is a bare heartbeat
+        hostInfo = hostInfo.toBuilder().setCpuLoad("0.9").build();
+        HeartbeatEvent second = last(tickAndCapture(session, responseObserver));
+        assertFalse(second.hasHostInfo());
+        assertEquals(0, second.getComponentStatusesCount());
+
+        exitCodes.put("DataNode", 3);
+        hostInfo = hostInfo.toBuilder().setTotalDisk(200L).build();
+        HeartbeatEvent third = last(tickAndCapture(session, responseObserver));
+        assertEquals(200L, third.getHostInfo().getTotalDisk());
+        assertEquals(1, third.getComponentStatusesCount());
+        assertEquals("DataNode", third.getComponentStatuses(0).getComponentName());
+        assertEquals(3, third.getComponentStatuses(0).getStatus());
+
+        session.onCompleted();
+        verify(responseObserver).onCompleted();
+    }
+
+    @Test
+    public void testUsageSentOnMetricsInterval() {
+        StreamObserver<HeartbeatEvent> responseObserver = mock(StreamObserver.class);
+        HeartbeatServiceGrpcImpl.HeartbeatSession session =
+                (HeartbeatServiceGrpcImpl.HeartbeatSession) service.connect(responseObserver);
+        session.onNext(HeartbeatRequest.newBuilder().setInterval(10).build());
+        assertTrue(last(tickAndCapture(session, responseObserver)).hasHostInfo());
+
+        // Free memory and disk change on every tick, they are only sent once per metrics interval
+        int ticks = HeartbeatServiceGrpcImpl.METRICS_INTERVAL / 10;
+        for (int i = 1; i < ticks; i++) {
+            hostInfo = hostInfo.toBuilder()
+                    .setFreeMemorySize(1000L + i)
+                    .setFreeDisk(50L + i)
+                    .build();
+            assertFalse(last(tickAndCapture(session, responseObserver)).hasHostInfo());
+        }
+
+        hostInfo = hostInfo.toBuilder().setFreeMemorySize(2000L).build();
+        HeartbeatEvent event = last(tickAndCapture(session, responseObserver));
+        assertEquals(2000L, event.getHostInfo().getFreeMemorySize());
+        session.close();
+    }
+
+    @Test
+    public void testNewWatchListResendsAllStatuses() {
+        exitCodes.put("NameNode", 0);
+
+        StreamObserver<HeartbeatEvent> responseObserver = mock(StreamObserver.class);
+        HeartbeatServiceGrpcImpl.HeartbeatSession session =
+                (HeartbeatServiceGrpcImpl.HeartbeatSession) service.connect(responseObserver);
+        HeartbeatRequest request = HeartbeatRequest.newBuilder()
+                .setInterval(10)
+                .addComponents(component("NameNode"))
+                .build();
+        session.onNext(request);
+
+        tickAndCapture(session, responseObserver);
+        assertEquals(0, last(tickAndCapture(session, responseObserver)).getComponentStatusesCount());
+
+        session.onNext(request);
+        assertEquals(1, last(tickAndCapture(session, responseObserver)).getComponentStatusesCount());
+        session.close();
+    }
+
+    @Test
+    public void testClosedSessionSendsNothing() {
+        StreamObserver<HeartbeatEvent> responseObserver = mock(StreamObserver.class);
+        HeartbeatServiceGrpcImpl.HeartbeatSession session =
+                (HeartbeatServiceGrpcImpl.HeartbeatSession) service.connect(responseObserver);
+
+        session.onError(new RuntimeException("Server gone"));
+        session.tick();
+
+        verify(responseObserver, times(0)).onNext(any());
+    }
+
+    private List<HeartbeatEvent> tickAndCapture(
+            HeartbeatServiceGrpcImpl.HeartbeatSession session, StreamObserver<HeartbeatEvent> responseObserver) {
+        session.tick();
+        ArgumentCaptor<HeartbeatEvent> captor = ArgumentCaptor.forClass(HeartbeatEvent.class);
+        verify(responseObserver, atLeastOnce()).onNext(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private HeartbeatEvent last(List<HeartbeatEvent> events) {
+        return events.get(events.size() - 1);
+    }
+
+    private ComponentStatusRequest component(String name) {
+        return ComponentStatusRequest.newBuilder()
+                .setServiceName("hdfs")
+                .setComponentName(name)
+                .build();
+    }
+}
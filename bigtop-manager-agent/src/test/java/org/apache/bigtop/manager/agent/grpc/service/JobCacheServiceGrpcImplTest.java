@@ -18,25 +18,38 @@
  */
 package org.apache.bigtop.manager.agent.grpc.service;
 
+import org.apache.bigtop.manager.common.constants.MessageConstants;
 import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
 import org.apache.bigtop.manager.grpc.generated.JobCacheReply;
 import org.apache.bigtop.manager.grpc.generated.JobCacheRequest;
+import org.apache.bigtop.manager.grpc.generated.JobCacheSection;
+import org.apache.bigtop.manager.grpc.utils.JobCacheUtils;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import io.grpc.stub.StreamObserver;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.apache.bigtop.manager.common.constants.CacheFiles.HOSTS_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.REPOS_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.USERS_INFO;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -116,4 +129,72 @@ public class JobCacheServiceGrpcImplTest {
             }
         }
     }
+
+    @Test
+    public void testSaveSections() throws Exception {
+        try (MockedStatic<ProjectPathUtils> mockedStatic = mockStatic(ProjectPathUtils.class)) {
+            mockedStatic.when(ProjectPathUtils::getAgentCachePath).thenReturn(cacheDirPath.toString());
+
+            byte[] users = "{\"hdfs\":\"hdfs\"}".getBytes(StandardCharsets.UTF_8);
+            byte[] repos = "[]".getBytes(StandardCharsets.UTF_8);
+            jobCacheServiceGrpcImpl.save(
+                    JobCacheRequest.newBuilder()
+                            .addSections(section(USERS_INFO, users, true))
+                            .addSections(section(REPOS_INFO, repos, true))
+                            .build(),
+                    responseObserver);
+
+            Path usersFile = cacheDirPath.resolve(USERS_INFO.substring(1));
+            assertArrayEquals(users, Files.readAllBytes(usersFile));
+            assertArrayEquals(repos, Files.readAllBytes(cacheDirPath.resolve(REPOS_INFO.substring(1))));
+
+            // Unchanged sections are not rewritten, sections without content are checked against the files
+            FileTime lastModified = FileTime.fromMillis(1000L);
+            Files.setLastModifiedTime(usersFile, lastModified);
+            byte[] newRepos = "[{\"name\":\"repo\"}]".getBytes(StandardCharsets.UTF_8);
+            jobCacheServiceGrpcImpl.save(
+                    JobCacheRequest.newBuilder()
+                            .addSections(section(USERS_INFO, users, true))
+                            .addSections(section(REPOS_INFO, newRepos, false))
+                            .addSections(section(HOSTS_INFO, users, false))
+                            .build(),
+                    responseObserver);
+
+            assertEquals(lastModified, Files.getLastModifiedTime(usersFile));
+            assertArrayEquals(repos, Files.readAllBytes(cacheDirPath.resolve(REPOS_INFO.substring(1))));
+
+            ArgumentCaptor<JobCacheReply> captor = ArgumentCaptor.forClass(JobCacheReply.class);
+            verify(responseObserver, times(2)).onNext(captor.capture());
+            assertEquals(
+                    MessageConstants.SUCCESS_CODE, captor.getAllValues().get(0).getCode());
+            assertEquals(MessageConstants.FAIL_CODE, captor.getValue().getCode());
+            assertEquals(List.of(REPOS_INFO, HOSTS_INFO), captor.getValue().getMissingSectionsList());
+        }
+    }
+
+    @Test
+    public void testSaveUnknownSection() {
+        try (MockedStatic<ProjectPathUtils> mockedStatic = mockStatic(ProjectPathUtils.class)) {
+            mockedStatic.when(ProjectPathUtils::getAgentCachePath).thenReturn(cacheDirPath.toString());
+
+            byte[] content = "{}".getBytes(StandardCharsets.UTF_8);
+            jobCacheServiceGrpcImpl.save(
+                    JobCacheRequest.newBuilder()
+                            .addSections(section("/../settings.json", content, true))
+                            .build(),
+                    responseObserver);
+
+            verify(responseObserver).onError(any(IllegalArgumentException.class));
+        }
+    }
+
+    private JobCacheSection section(String name, byte[] content, boolean withContent) {
+        JobCacheSection.Builder builder =
+                JobCacheSection.newBuilder().setName(name).setHash(JobCacheUtils.hash(content));
+        if (withContent) {
+            builder.setContent(JobCacheUtils.compress(content));
+        }
+
+        return builder.build();
+    }
 }
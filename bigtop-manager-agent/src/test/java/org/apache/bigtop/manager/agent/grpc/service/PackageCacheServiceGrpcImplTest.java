@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.grpc.service;
+
+import org.apache.bigtop.manager.common.constants.MessageConstants;
+import org.apache.bigtop.manager.grpc.generated.PackageCacheItem;
+import org.apache.bigtop.manager.grpc.generated.PackageCacheSeedReply;
+import org.apache.bigtop.manager.grpc.generated.PackageCacheSeedRequest;
+import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
+import org.apache.bigtop.manager.stack.core.exception.StackException;
+import org.apache.bigtop.manager.stack.core.tarball.PackageCache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.grpc.stub.StreamObserver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class PackageCacheServiceGrpcImplTest {
+
+    @InjectMocks
+    private PackageCacheServiceGrpcImpl service;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSeed() {
+        PackageCacheSeedRequest request = PackageCacheSeedRequest.newBuilder()
+                .setRepoUrl("http://repo")
+                .addPackages(
+                        PackageCacheItem.newBuilder().setName("hadoop.tar.gz").setChecksum("sha-256:aa"))
+                .addPackages(
+                        PackageCacheItem.newBuilder().setName("hive.tar.gz").setChecksum("sha-256:bb"))
+                .build();
+
+        try (MockedStatic<PackageCache> packageCache = mockStatic(PackageCache.class)) {
+            packageCache
+                    .when(() -> PackageCache.seed("http://repo", new PackageInfo("hadoop.tar.gz", "sha-256:aa")))
+                    .thenReturn(true);
+            packageCache
+                    .when(() -> PackageCache.seed("http://repo", new PackageInfo("hive.tar.gz", "sha-256:bb")))
+                    .thenReturn(false);
+
+            StreamObserver<PackageCacheSeedReply> responseObserver = mock(StreamObserver.class);
+            service.seed(request, responseObserver);
+
+            ArgumentCaptor<PackageCacheSeedReply> captor = ArgumentCaptor.forClass(PackageCacheSeedReply.class);
+            verify(responseObserver).onNext(captor.capture());
+            verify(responseObserver).onCompleted();
+            assertEquals(MessageConstants.SUCCESS_CODE, captor.getValue().getCode());
+            assertEquals(1, captor.getValue().getDownloaded());
+            assertEquals(1, captor.getValue().getCached());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSeedFailed() {
+        PackageCacheSeedRequest request = PackageCacheSeedRequest.newBuilder()
+                .setRepoUrl("http://repo")
+                .addPackages(
+                        PackageCacheItem.newBuilder().setName("hadoop.tar.gz").setChecksum("sha-256:aa"))
+                .build();
+
+        try (MockedStatic<PackageCache> packageCache = mockStatic(PackageCache.class)) {
+            packageCache
+                    .when(() -> PackageCache.seed(eq("http://repo"), any()))
+                    .thenThrow(new StackException("Failed to download"));
+
+            StreamObserver<PackageCacheSeedReply> responseObserver = mock(StreamObserver.class);
+            service.seed(request, responseObserver);
+
+            verify(responseObserver).onError(any(StackException.class));
+            verify(responseObserver, never()).onCompleted();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.grpc.service;
+
+import org.apache.bigtop.manager.grpc.generated.PackageChunk;
+import org.apache.bigtop.manager.grpc.generated.PackageFetchRequest;
+import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
+import org.apache.bigtop.manager.stack.core.exception.StackException;
+import org.apache.bigtop.manager.stack.core.tarball.PackageCache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PackageTransferServiceGrpcImplTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private final PackageTransferServiceGrpcImpl service = new PackageTransferServiceGrpcImpl();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFetch() throws Exception {
+        byte[] content = new byte[2 * 1024 * 1024 + 100];
+        new Random(1).nextBytes(content);
+        Path blob = tempDir.resolve("hadoop.tar.gz");
+        Files.write(blob, content);
+
+        PackageFetchRequest request = PackageFetchRequest.newBuilder()
+                .setRepoUrl("http://repo")
+                .setName("hadoop.tar.gz")
+                .setChecksum("sha-256:aa")
+                .setOffset(100)
+                .addVisited("host3")
+                .build();
+
+        try (MockedStatic<PackageCache> packageCache = mockStatic(PackageCache.class)) {
+            packageCache
+                    .when(() -> PackageCache.fetch(
+                            eq("http://repo"),
+                            eq(new PackageInfo("hadoop.tar.gz", "sha-256:aa")),
+                            isNull(),
+                            eq(Set.of("host3"))))
+                    .thenReturn(blob);
+
+            ServerCallStreamObserver<PackageChunk> responseObserver = mock(ServerCallStreamObserver.class);
+            when(responseObserver.isReady()).thenReturn(true);
+            service.fetch(request, responseObserver);
+
+            ArgumentCaptor<PackageChunk> captor = ArgumentCaptor.forClass(PackageChunk.class);
+            verify(responseObserver, times(2)).onNext(captor.capture());
+            verify(responseObserver).onCompleted();
+
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            for (PackageChunk chunk : captor.getAllValues()) {
+                chunk.getData().writeTo(received);
+            }
+            assertEquals(1024 * 1024, captor.getAllValues().get(0).getData().size());
+            assertArrayEquals(Arrays.copyOfRange(content, 100, content.length), received.toByteArray());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFetchFailed() {
+        PackageFetchRequest request = PackageFetchRequest.newBuilder()
+                .setRepoUrl("http://repo")
+                .setName("hadoop.tar.gz")
+                .setChecksum("sha-256:aa")
+                .build();
+
+        try (MockedStatic<PackageCache> packageCache = mockStatic(PackageCache.class)) {
+            packageCache
+                    .when(() -> PackageCache.fetch(any(), any(), any(), any()))
+                    .thenThrow(new StackException("Failed to download"));
+
+            ServerCallStreamObserver<PackageChunk> responseObserver = mock(ServerCallStreamObserver.class);
+            service.fetch(request, responseObserver);
+
+            verify(responseObserver).onError(any(StackException.class));
+            verify(responseObserver, never()).onNext(any());
+            verify(responseObserver, never()).onCompleted();
+        }
+    }
+}
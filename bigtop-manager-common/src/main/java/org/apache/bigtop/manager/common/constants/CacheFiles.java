@@ -54,4 +54,9 @@ public class CacheFiles {
      * components info
      */
     public static final String COMPONENTS_INFO = "/components.json";
+
+    /**
+     * peers to fetch packages from
+     */
+    public static final String PACKAGE_PEERS_INFO = "/package-peers.json";
 }
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.common.shell;
+
+/**
+ * How much of a command's stdout and stderr {@link ShellExecutor} keeps in the {@link ShellResult}.
+ */
+public enum OutputCapture {
+
+    /**
+     * Keep nothing, for commands where only the exit code matters.
+     * Without log appending the streams are discarded by the OS and never read.
+     */
+    NONE,
+
+    /**
+     * Keep the last {@link #TAIL_LINES} lines of each stream, enough for an error message.
+     */
+    TAIL,
+
+    /**
+     * Keep everything, for commands whose output is parsed.
+     */
+    FULL;
+
+    public static final int TAIL_LINES = 100;
+}
@@ -29,11 +29,20 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
@@ -47,6 +56,22 @@ import java.util.function.Consumer;
 @Slf4j
 public class ShellExecutor {
 
+    /**
+     * Reads stderr while the calling thread reads stdout, threads are reused across commands
+     */
+    private static final ExecutorService STREAM_PUMPS =
+            Executors.newCachedThreadPool(daemonThreadFactory("shell-stream-"));
+
+    /**
+     * Kills timed out commands, one thread for all of them
+     */
+    private static final ScheduledThreadPoolExecutor TIMEOUT_SCHEDULER =
+            new ScheduledThreadPoolExecutor(1, daemonThreadFactory("shell-timeout-"));
+
+    static {
+        TIMEOUT_SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+
     private final String[] command;
 
     private final File dir;
@@ -66,13 +91,16 @@ public class ShellExecutor {
      */
     private final Boolean appendLog;
 
+    /**
+     * How much of stdout and stderr to keep in the result
+     */
+    private final OutputCapture outputCapture;
+
     /**
      * Whether script timed out
      */
     private AtomicBoolean isTimeout;
 
-    private Timer timeoutTimer;
-
     /**
      * sub process used to execute the command
      */
@@ -96,13 +124,21 @@ public class ShellExecutor {
      * @param timeout    Specifies the time in milliseconds, after which the
      *                   command will be killed and the status marked as timedout.
      *                   If 0, the command will not be timed out.
+     * @param outputCapture How much of stdout and stderr to keep in the result
      */
-    private ShellExecutor(String[] execString, File dir, Map<String, String> env, long timeout, Boolean appendLog) {
+    private ShellExecutor(
+            String[] execString,
+            File dir,
+            Map<String, String> env,
+            long timeout,
+            Boolean appendLog,
+            OutputCapture outputCapture) {
         this.command = execString.clone();
         this.dir = dir;
         this.environment = env;
         this.timeoutInterval = timeout;
         this.appendLog = appendLog;
+        this.outputCapture = outputCapture;
     }
 
     /**
@@ -117,6 +153,19 @@ public class ShellExecutor {
         return execCommand(null, builderParameters, 0L, false);
     }
 
+    /**
+     * Static method to execute a shell command, keeping only part of its output.
+     *
+     * @param builderParameters shell command to execute.
+     * @param outputCapture how much of stdout and stderr to keep in the result.
+     * @return the exit code and the kept output of the executed command.
+     * @throws IOException errors
+     */
+    public static ShellResult execCommand(List<String> builderParameters, OutputCapture outputCapture)
+            throws IOException {
+        return execCommand(null, builderParameters, 0L, false, outputCapture);
+    }
+
     /**
      * Static method to execute a shell command.
      * Covers most of the simple cases for user.
@@ -159,8 +208,29 @@ public class ShellExecutor {
     public static ShellResult execCommand(
             Map<String, String> env, List<String> builderParameters, long timeout, Boolean appendLog)
             throws IOException {
+        return execCommand(env, builderParameters, timeout, appendLog, OutputCapture.FULL);
+    }
+
+    /**
+     * Static method to execute a shell command.
+     *
+     * @param env     the map of environment key=value
+     * @param builderParameters shell command to execute.
+     * @param timeout time in milliseconds after which script should be marked timeout
+     * @param appendLog append stream log to log file if true.
+     * @param outputCapture how much of stdout and stderr to keep in the result.
+     * @return the output of the executed command.
+     * @throws IOException errors
+     */
+    public static ShellResult execCommand(
+            Map<String, String> env,
+            List<String> builderParameters,
+            long timeout,
+            Boolean appendLog,
+            OutputCapture outputCapture)
+            throws IOException {
         String[] cmd = builderParameters.toArray(new String[0]);
-        ShellExecutor shellExecutor = new ShellExecutor(cmd, null, env, timeout, appendLog);
+        ShellExecutor shellExecutor = new ShellExecutor(cmd, null, env, timeout, appendLog, outputCapture);
 
         if (appendLog) {
             log.info(StringUtils.EMPTY);
@@ -195,62 +265,50 @@ public class ShellExecutor {
             builder.directory(this.dir);
         }
 
+        // nothing to keep or log, let the OS drop the output instead of reading it
+        boolean discardOutput = outputCapture == OutputCapture.NONE && !appendLog;
+        if (discardOutput) {
+            builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+            builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        }
+
         process = builder.start();
         ProcessContainer.putProcess(process);
 
+        ScheduledFuture<?> timeoutFuture = null;
         if (timeoutInterval > 0) {
-            scheduleTimeoutTimer();
-        }
-
-        // read error and input streams as this would free up the buffers
-        // free the error stream buffer
-        BufferedReader errReader = createBufferedReader(process.getErrorStream());
-        StringBuilder errMsg = new StringBuilder();
-        Thread errThread = createReaderThread(errReader, errMsg, log::error);
-
-        BufferedReader inReader = createBufferedReader(process.getInputStream());
-        StringBuilder inMsg = new StringBuilder();
-        Thread inThread = createReaderThread(inReader, inMsg, log::info);
-
-        try {
-            errThread.start();
-            inThread.start();
-        } catch (IllegalStateException ise) {
-            log.warn("Illegal while starting the error and in thread", ise);
+            timeoutFuture = TIMEOUT_SCHEDULER.schedule(this::destroyIfRunning, timeoutInterval, TimeUnit.MILLISECONDS);
         }
 
+        Output inMsg = new Output(outputCapture);
+        Output errMsg = new Output(outputCapture);
+        Future<?> errPump = null;
         try {
-            exitCode = process.waitFor();
-            try {
-                errThread.join();
-                inThread.join();
-            } catch (InterruptedException ie) {
-                log.warn("Interrupted while reading the error and in stream", ie);
+            if (!discardOutput) {
+                // read error and input streams as this would free up the buffers
+                BufferedReader errReader = createBufferedReader(process.getErrorStream());
+                errPump = STREAM_PUMPS.submit(
+                        new TaskLogThreadDecorator().wrap(() -> readStream(errReader, errMsg, log::error)));
+                readStream(createBufferedReader(process.getInputStream()), inMsg, log::info);
+
+                try {
+                    errPump.get();
+                } catch (ExecutionException e) {
+                    log.warn("Error while reading the error stream", e);
+                }
             }
 
+            exitCode = process.waitFor();
             completed.compareAndSet(false, true);
         } catch (InterruptedException ie) {
             throw new IOException(ie.toString());
         } finally {
-            if ((timeoutTimer != null) && !isTimeout.get()) {
-                timeoutTimer.cancel();
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
             }
 
-            // close the input stream
-            try {
-                inReader.close();
-            } catch (IOException ioe) {
-                log.warn("Error while closing the input stream", ioe);
-            }
-
-            if (!completed.get()) {
-                errThread.interrupt();
-            }
-
-            try {
-                errReader.close();
-            } catch (IOException ioe) {
-                log.warn("Error while closing the error stream", ioe);
+            if (errPump != null && !completed.get()) {
+                errPump.cancel(true);
             }
 
             ProcessContainer.removeProcess(process);
@@ -288,46 +346,77 @@ public class ShellExecutor {
         return new BufferedReader(new InputStreamReader(inputStream));
     }
 
-    private Thread createReaderThread(BufferedReader reader, StringBuilder msg, Consumer<String> consumer) {
-        TaskLogThreadDecorator decorator = new TaskLogThreadDecorator();
-        return decorator.decorate(() -> {
-            try {
-                String line = reader.readLine();
-                while ((line != null)) {
-                    if (appendLog) {
-                        consumer.accept(line);
-                    }
-
-                    msg.append(line);
-                    msg.append(System.lineSeparator());
-                    line = reader.readLine();
+    private void readStream(BufferedReader reader, Output msg, Consumer<String> consumer) {
+        try (reader) {
+            String line = reader.readLine();
+            while ((line != null)) {
+                if (appendLog) {
+                    consumer.accept(line);
                 }
-            } catch (IOException ioe) {
-                log.warn("Error reading the stream", ioe);
+
+                msg.append(line);
+                line = reader.readLine();
             }
-        });
+        } catch (IOException ioe) {
+            log.warn("Error reading the stream", ioe);
+        }
+    }
+
+    private void destroyIfRunning() {
+        if (process.isAlive() && !completed.get()) {
+            isTimeout.set(true);
+            process.destroy();
+        }
     }
 
-    private void scheduleTimeoutTimer() {
-        this.timeoutTimer = new Timer();
-        timeoutTimer.schedule(
-                new TimerTask() {
-
-                    @Override
-                    public void run() {
-                        try {
-                            process.exitValue();
-                        } catch (Exception e) {
-                            // Process has not terminated.
-                            // So check if it has completed
-                            // if not just destroy it.
-                            if (process != null && !completed.get()) {
-                                isTimeout.set(true);
-                                process.destroy();
-                            }
-                        }
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Lines kept from one stream of the command, according to its {@link OutputCapture}.
+     */
+    private static class Output {
+
+        private final OutputCapture capture;
+
+        private final StringBuilder full = new StringBuilder();
+
+        private final Deque<String> tail = new ArrayDeque<>();
+
+        private Output(OutputCapture capture) {
+            this.capture = capture;
+        }
+
+        private void append(String line) {
+            switch (capture) {
+                case FULL -> full.append(line).append(System.lineSeparator());
+                case TAIL -> {
+                    if (tail.size() == OutputCapture.TAIL_LINES) {
+                        tail.removeFirst();
                     }
-                },
-                timeoutInterval);
+                    tail.addLast(line);
+                }
+                case NONE -> {}
+            }
+        }
+
+        @Override
+        public String toString() {
+            if (capture != OutputCapture.TAIL) {
+                return full.toString();
+            }
+
+            StringBuilder sb = new StringBuilder();
+            for (String line : tail) {
+                sb.append(line).append(System.lineSeparator());
+            }
+            return sb.toString();
+        }
     }
 }
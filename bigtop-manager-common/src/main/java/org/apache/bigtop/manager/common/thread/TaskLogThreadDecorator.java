@@ -27,18 +27,26 @@ import jakarta.annotation.Nonnull;
 public class TaskLogThreadDecorator {
 
     public Thread decorate(@Nonnull Runnable runnable) {
+        return new Thread(wrap(runnable));
+    }
+
+    /**
+     * Carry the task id of the calling thread over to the thread that runs the returned runnable,
+     * for runnables handed to a thread pool.
+     */
+    public Runnable wrap(@Nonnull Runnable runnable) {
         String taskId = MDC.get("taskId");
         if (StringUtils.isNotBlank(taskId)) {
-            return new Thread(() -> {
+            return () -> {
                 try {
                     MDC.put("taskId", taskId);
                     runnable.run();
                 } finally {
                     MDC.clear();
                 }
-            });
+            };
         } else {
-            return new Thread(runnable);
+            return runnable;
         }
     }
 }
@@ -51,6 +51,10 @@ public class ProjectPathUtils {
         return getProjectStoreDir() + File.separator + "agent-caches";
     }
 
+    public static String getAgentPackageCachePath() {
+        return getProjectStoreDir() + File.separator + "package-caches";
+    }
+
     public static String getPromptsPath() {
         return getProjectResourcesDir() + File.separator + "prompts";
     }
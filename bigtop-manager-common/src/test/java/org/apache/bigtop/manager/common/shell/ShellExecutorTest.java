@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.common.shell;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShellExecutorTest {
+
+    private static final List<String> PRINT_500_LINES =
+            List.of("sh", "-c", "i=1; while [ $i -le 500 ]; do echo out$i; echo err$i >&2; i=$((i+1)); done");
+
+    @Test
+    void testFullCapture() throws Exception {
+        ShellResult result = ShellExecutor.execCommand(PRINT_500_LINES, OutputCapture.FULL);
+
+        assertEquals(0, result.getExitCode());
+        assertEquals(500, result.getOutput().lines().count());
+        assertEquals(500, result.getErrMsg().lines().count());
+        assertEquals(ShellExecutor.execCommand(PRINT_500_LINES).getOutput(), result.getOutput());
+    }
+
+    @Test
+    void testTailCapture() throws Exception {
+        ShellResult result = ShellExecutor.execCommand(PRINT_500_LINES, OutputCapture.TAIL);
+
+        List<String> output = result.getOutput().lines().toList();
+        assertEquals(OutputCapture.TAIL_LINES, output.size());
+        assertEquals("out401", output.get(0));
+        assertEquals("out500", output.get(output.size() - 1));
+        assertTrue(result.getErrMsg().endsWith("err500" + System.lineSeparator()));
+    }
+
+    @Test
+    void testNoCapture() throws Exception {
+        ShellResult result = ShellExecutor.execCommand(List.of("sh", "-c", "echo out; exit 3"), OutputCapture.NONE);
+
+        assertEquals(3, result.getExitCode());
+        assertEquals("", result.getOutput());
+        assertEquals("", result.getErrMsg());
+    }
+
+    @Test
+    void testTimeout() throws Exception {
+        long start = System.currentTimeMillis();
+        ShellResult result = ShellExecutor.execCommand(null, List.of("sleep", "10"), 200L, false);
+
+        assertNotEquals(0, result.getExitCode());
+        assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+}
@@ -20,6 +20,7 @@
 package org.apache.bigtop.manager.dao.repository;
 
 import org.apache.bigtop.manager.dao.sql.BaseSqlProvider;
+import org.apache.bigtop.manager.dao.sql.BatchUpdateOptions;
 
 import org.apache.ibatis.annotations.DeleteProvider;
 import org.apache.ibatis.annotations.InsertProvider;
@@ -63,23 +64,37 @@ public interface BaseDao<Entity> {
     int updateById(Entity entity);
 
     /**
-     * Partially update the entities by primary key.
+     * Partially update the entities by primary key in a single statement.
+     */
+    @UpdateProvider(type = BaseSqlProvider.class, method = "partialUpdateList")
+    int partialUpdateList(List<Entity> entities);
+
+    /**
+     * Fully update the entities by primary key in a single statement.
+     */
+    @UpdateProvider(type = BaseSqlProvider.class, method = "updateList")
+    int updateList(List<Entity> entities);
+
+    /**
+     * Partially update the entities by primary key,
+     * one statement is issued per chunk, see {@link BatchUpdateOptions#getChunkSize()}.
      */
     @Transactional
     default int partialUpdateByIds(List<Entity> entities) {
-        for (Entity entity : entities) {
-            partialUpdateById(entity);
+        for (List<Entity> chunk : BatchUpdateOptions.partition(entities)) {
+            partialUpdateList(chunk);
         }
         return entities.size();
     }
 
     /**
-     * Fully update the entities by primary key.
+     * Fully update the entities by primary key,
+     * one statement is issued per chunk, see {@link BatchUpdateOptions#getChunkSize()}.
      */
     @Transactional
     default int updateByIds(List<Entity> entities) {
-        for (Entity entity : entities) {
-            updateById(entity);
+        for (List<Entity> chunk : BatchUpdateOptions.partition(entities)) {
+            updateList(chunk);
         }
         return entities.size();
     }
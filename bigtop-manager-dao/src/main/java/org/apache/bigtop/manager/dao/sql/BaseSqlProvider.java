@@ -82,6 +82,30 @@ public class BaseSqlProvider {
         return SQLBuilder.update(tableMetaData, entity, databaseId, false);
     }
 
+    public <Entity> String partialUpdateList(List<Entity> entities, ProviderContext context) {
+        Assert.notNull(entities, "entities must not be null");
+        Assert.notEmpty(entities, "entities list must not be empty");
+
+        String databaseId = context.getDatabaseId();
+
+        Class<?> entityClass = entities.get(0).getClass();
+        TableMetaData tableMetaData = TableMetaData.forClass(entityClass);
+
+        return SQLBuilder.updateList(tableMetaData, entities, databaseId, true);
+    }
+
+    public <Entity> String updateList(List<Entity> entities, ProviderContext context) {
+        Assert.notNull(entities, "entities must not be null");
+        Assert.notEmpty(entities, "entities list must not be empty");
+
+        String databaseId = context.getDatabaseId();
+
+        Class<?> entityClass = entities.get(0).getClass();
+        TableMetaData tableMetaData = TableMetaData.forClass(entityClass);
+
+        return SQLBuilder.updateList(tableMetaData, entities, databaseId, false);
+    }
+
     public String selectById(Serializable id, ProviderContext context) {
         String databaseId = context.getDatabaseId();
 
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.dao.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Options of the multi-row update statements generated by {@link SQLBuilder#updateList}.
+ */
+public class BatchUpdateOptions {
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private static volatile int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    public static int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Set the maximum number of rows updated by a single statement, larger lists are split into chunks.
+     */
+    public static void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+
+        BatchUpdateOptions.chunkSize = chunkSize;
+    }
+
+    public static <T> List<List<T>> partition(List<T> list) {
+        int size = chunkSize;
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += size) {
+            chunks.add(list.subList(i, Math.min(i + size, list.size())));
+        }
+
+        return chunks;
+    }
+}
@@ -271,6 +271,107 @@ public class SQLBuilder {
         return sql.toString();
     }
 
+    /**
+     * Update multiple rows by primary key in one statement, each column is set by a
+     * {@code CASE pk WHEN ... THEN ... ELSE column END} expression.
+     * When partial, an entity only takes part in the columns it has a non-empty value for.
+     */
+    public static <Entity> String updateList(
+            TableMetaData tableMetaData, List<Entity> entities, String databaseId, boolean partial) {
+        if (entities == null || entities.isEmpty()) {
+            throw new IllegalArgumentException("Entities list must not be null or empty");
+        }
+
+        SQL sql = new SQL();
+        switch (DBType.toType(databaseId)) {
+            case MYSQL: {
+                buildUpdateList(sql, tableMetaData, entities, partial, DBType.MYSQL);
+                break;
+            }
+            case POSTGRESQL: {
+                buildUpdateList(sql, tableMetaData, entities, partial, DBType.POSTGRESQL);
+                break;
+            }
+            default: {
+                log.error("Unsupported data source");
+            }
+        }
+
+        return sql.toString();
+    }
+
+    private static <Entity> void buildUpdateList(
+            SQL sql, TableMetaData tableMetaData, List<Entity> entities, boolean partial, DBType dbType) {
+        Class<?> entityClass = entities.get(0).getClass();
+        Map<String, String> fieldColumnMap = tableMetaData.getFieldColumnMap();
+        String pkColumn = keywordsFormat(tableMetaData.getPkColumn(), dbType);
+        String pkProperty = tableMetaData.getPkProperty();
+
+        PropertyDescriptor pkPs = BeanUtils.getPropertyDescriptor(entityClass, pkProperty);
+        if (pkPs == null || pkPs.getReadMethod() == null) {
+            throw new IllegalArgumentException("Primary key property not readable: " + pkProperty);
+        }
+        for (Entity entity : entities) {
+            if (ReflectionUtils.invokeMethod(pkPs.getReadMethod(), entity) == null) {
+                throw new IllegalArgumentException("Primary key must not be null for batch update");
+            }
+        }
+
+        sql.UPDATE(keywordsFormat(tableMetaData.getTableName(), dbType));
+        boolean hasColumn = false;
+        for (Map.Entry<String, String> entry : fieldColumnMap.entrySet()) {
+            // Ignore primary key
+            if (Objects.equals(entry.getKey(), pkProperty)) {
+                continue;
+            }
+            PropertyDescriptor ps = BeanUtils.getPropertyDescriptor(entityClass, entry.getKey());
+            if (ps == null || ps.getReadMethod() == null) {
+                continue;
+            }
+            Field field = ReflectionUtils.findField(entityClass, entry.getKey());
+            Column column = null;
+            if (field != null) {
+                if (checkBaseField(field)) {
+                    continue;
+                }
+                column = field.getAnnotation(Column.class);
+            }
+
+            String columnName = keywordsFormat(entry.getValue(), dbType);
+            StringBuilder caseWhen = new StringBuilder();
+            for (int idx = 0; idx < entities.size(); idx++) {
+                Object value = ReflectionUtils.invokeMethod(ps.getReadMethod(), entities.get(idx));
+                if (ObjectUtils.isEmpty(value) && partial) {
+                    continue;
+                }
+                if (column != null && !column.nullable() && value == null) {
+                    continue;
+                }
+                caseWhen.append(" WHEN ")
+                        .append(getTokenParam("arg0[" + idx + "]." + pkProperty))
+                        .append(" THEN ")
+                        .append(getTokenParam("arg0[" + idx + "]." + entry.getKey()));
+            }
+            if (caseWhen.isEmpty()) {
+                continue;
+            }
+
+            sql.SET(columnName + " = CASE " + pkColumn + caseWhen + " ELSE " + columnName + " END");
+            hasColumn = true;
+        }
+
+        if (!hasColumn) {
+            throw new IllegalArgumentException("No column to update for " + tableMetaData.getTableName());
+        }
+
+        StringBuilder idStr = new StringBuilder();
+        for (int idx = 0; idx < entities.size(); idx++) {
+            idStr.append(getTokenParam("arg0[" + idx + "]." + pkProperty)).append(", ");
+        }
+        idStr.setLength(idStr.length() - 2);
+        sql.WHERE(pkColumn + " IN (" + idStr + ")");
+    }
+
     public static String selectById(TableMetaData tableMetaData, String databaseId, Serializable id) {
 
         SQL sql = new SQL();
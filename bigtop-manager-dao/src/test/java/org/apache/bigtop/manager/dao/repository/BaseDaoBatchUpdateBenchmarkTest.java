@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.dao.repository;
+
+import org.apache.bigtop.manager.dao.interceptor.AuditingInterceptor;
+import org.apache.bigtop.manager.dao.po.TaskPO;
+import org.apache.bigtop.manager.dao.sql.BatchUpdateOptions;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Compares the statements sent to an embedded database by per-row updates and by
+ * {@link BaseDao#partialUpdateByIds(List)}/{@link BaseDao#updateByIds(List)}, using the SQL generated for
+ * each supported database in the matching H2 compatibility mode.
+ */
+@Slf4j
+public class BaseDaoBatchUpdateBenchmarkTest {
+
+    private static final int ROWS = 2000;
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final StatementCounter statementCounter = new StatementCounter();
+
+    @AfterEach
+    public void tearDown() {
+        BatchUpdateOptions.setChunkSize(BatchUpdateOptions.DEFAULT_CHUNK_SIZE);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"mysql, MySQL", "postgresql, PostgreSQL"})
+    public void testPartialUpdateByIds(String databaseId, String mode) throws Exception {
+        BatchUpdateOptions.setChunkSize(CHUNK_SIZE);
+        SqlSessionFactory sqlSessionFactory = createSqlSessionFactory(databaseId, mode);
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            TaskDao taskDao = sqlSession.getMapper(TaskDao.class);
+
+            statementCounter.reset();
+            long start = System.nanoTime();
+            for (TaskPO taskPO : tasks("Processing")) {
+                taskDao.partialUpdateById(taskPO);
+            }
+            long perRowNanos = System.nanoTime() - start;
+            assertEquals(ROWS, statementCounter.get());
+
+            statementCounter.reset();
+            start = System.nanoTime();
+            taskDao.partialUpdateByIds(tasks("Successful"));
+            long batchNanos = System.nanoTime() - start;
+            assertEquals(ROWS / CHUNK_SIZE, statementCounter.get());
+
+            log.info(
+                    "[{}] partial update of {} rows: {} statements in {} ms per row, {} statements in {} ms batched",
+                    databaseId,
+                    ROWS,
+                    ROWS,
+                    perRowNanos / 1_000_000,
+                    ROWS / CHUNK_SIZE,
+                    batchNanos / 1_000_000);
+
+            for (TaskPO taskPO : taskDao.findByIds(List.of(1L, (long) ROWS / 2, (long) ROWS))) {
+                assertEquals("Successful", taskPO.getState());
+                // Columns without value are left untouched
+                assertEquals("host-" + taskPO.getId(), taskPO.getHostname());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"mysql, MySQL", "postgresql, PostgreSQL"})
+    public void testUpdateByIds(String databaseId, String mode) throws Exception {
+        BatchUpdateOptions.setChunkSize(CHUNK_SIZE);
+        SqlSessionFactory sqlSessionFactory = createSqlSessionFactory(databaseId, mode);
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            TaskDao taskDao = sqlSession.getMapper(TaskDao.class);
+
+            statementCounter.reset();
+            taskDao.updateByIds(tasks("Failed"));
+            assertEquals(ROWS / CHUNK_SIZE, statementCounter.get());
+
+            for (TaskPO taskPO : taskDao.findByIds(List.of(1L, (long) ROWS))) {
+                assertEquals("Failed", taskPO.getState());
+                // Nullable columns are cleared, non-nullable ones are kept
+                assertNull(taskPO.getHostname());
+                assertEquals("{}", taskPO.getContext());
+            }
+        }
+    }
+
+    private List<TaskPO> tasks(String state) {
+        List<TaskPO> tasks = new ArrayList<>();
+        for (long id = 1; id <= ROWS; id++) {
+            TaskPO taskPO = new TaskPO();
+            taskPO.setId(id);
+            taskPO.setState(state);
+            tasks.add(taskPO);
+        }
+        return tasks;
+    }
+
+    private SqlSessionFactory createSqlSessionFactory(String databaseId, String mode) throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + databaseId + "_" + System.nanoTime() + ";MODE=" + mode
+                + ";DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE task ("
+                    + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, name VARCHAR(255),"
+                    + " hostname VARCHAR(255), service_name VARCHAR(255), service_user VARCHAR(255),"
+                    + " component_name VARCHAR(255), command VARCHAR(255), custom_command VARCHAR(255),"
+                    + " content TEXT, context TEXT NOT NULL, state VARCHAR(255), cluster_id BIGINT,"
+                    + " job_id BIGINT, stage_id BIGINT, create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,"
+                    + " update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP, create_by BIGINT, update_by BIGINT)");
+        }
+
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO task (name, hostname, context, state) VALUES (?, ?, '{}', 'Pending')")) {
+            for (int i = 1; i <= ROWS; i++) {
+                statement.setString(1, "task-" + i);
+                statement.setString(2, "host-" + i);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+
+        Configuration configuration =
+                new Configuration(new Environment(databaseId, new JdbcTransactionFactory(), dataSource));
+        configuration.setDatabaseId(databaseId);
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.addInterceptor(new AuditingInterceptor(() -> 1L));
+        configuration.addInterceptor(statementCounter);
+        configuration.addMapper(TaskDao.class);
+        return new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    @Intercepts({
+        @Signature(
+                type = Executor.class,
+                method = "update",
+                args = {MappedStatement.class, Object.class})
+    })
+    public static class StatementCounter implements Interceptor {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            count.incrementAndGet();
+            return invocation.proceed();
+        }
+
+        public void reset() {
+            count.set(0);
+        }
+
+        public int get() {
+            return count.get();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.dao.sql;
+
+import org.apache.bigtop.manager.dao.po.TaskPO;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SQLBuilderTest {
+
+    private final TableMetaData tableMetaData = TableMetaData.forClass(TaskPO.class);
+
+    @Test
+    public void testPartialUpdateListMySQL() {
+        String sql =
+                SQLBuilder.updateList(tableMetaData, List.of(task(1L, "Successful"), task(2L, null)), "mysql", true);
+
+        String normalized = sql.replaceAll("\\s+", " ");
+        assertTrue(normalized.startsWith("UPDATE `task` SET"));
+        assertTrue(
+                normalized.contains("`state` = CASE `id` WHEN #{arg0[0].id} THEN #{arg0[0].state} ELSE `state` END"));
+        assertTrue(normalized.endsWith("WHERE (`id` IN (#{arg0[0].id}, #{arg0[1].id}))"));
+        // Columns without any value are not updated
+        assertFalse(normalized.contains("`hostname`"));
+        // Audit columns are maintained by database
+        assertFalse(normalized.contains("update_time"));
+    }
+
+    @Test
+    public void testPartialUpdateListPostgreSQL() {
+        TaskPO task1 = task(1L, "Successful");
+        task1.setHostname("host1");
+        String sql = SQLBuilder.updateList(tableMetaData, List.of(task1, task(2L, "Failed")), "postgresql", true);
+
+        String normalized = sql.replaceAll("\\s+", " ");
+        assertTrue(normalized.startsWith("UPDATE \"task\" SET"));
+        assertTrue(normalized.contains("\"state\" = CASE \"id\" WHEN #{arg0[0].id} THEN #{arg0[0].state}"
+                + " WHEN #{arg0[1].id} THEN #{arg0[1].state} ELSE \"state\" END"));
+        assertTrue(normalized.contains(
+                "\"hostname\" = CASE \"id\" WHEN #{arg0[0].id} THEN #{arg0[0].hostname} ELSE \"hostname\" END"));
+        assertTrue(normalized.endsWith("WHERE (\"id\" IN (#{arg0[0].id}, #{arg0[1].id}))"));
+    }
+
+    @Test
+    public void testUpdateListInvalid() {
+        assertThrows(
+                IllegalArgumentException.class, () -> SQLBuilder.updateList(tableMetaData, List.of(), "mysql", true));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> SQLBuilder.updateList(tableMetaData, List.of(task(null, "Failed")), "mysql", true));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> SQLBuilder.updateList(tableMetaData, List.of(task(1L, null)), "mysql", true));
+    }
+
+    private TaskPO task(Long id, String state) {
+        TaskPO taskPO = new TaskPO();
+        taskPO.setId(id);
+        taskPO.setState(state);
+        return taskPO;
+    }
+}
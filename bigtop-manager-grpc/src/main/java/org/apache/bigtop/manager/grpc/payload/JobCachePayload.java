@@ -40,4 +40,10 @@ public class JobCachePayload {
     private Map<String, Map<String, String>> configurations;
 
     private Map<String, List<String>> componentHosts;
+
+    /**
+     * Peers each host fetches packages from before the repo, the key is hostname and the values are
+     * "hostname:grpcPort" of its ancestors in the distribution tree, nearest first.
+     */
+    private Map<String, List<String>> packagePeers;
 }
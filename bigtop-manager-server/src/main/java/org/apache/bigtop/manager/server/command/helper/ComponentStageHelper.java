@@ -29,7 +29,6 @@ import org.apache.bigtop.manager.server.command.stage.ComponentStopStage;
 import org.apache.bigtop.manager.server.command.stage.Stage;
 import org.apache.bigtop.manager.server.command.stage.StageContext;
 import org.apache.bigtop.manager.server.command.task.Task;
-import org.apache.bigtop.manager.server.exception.ServerException;
 import org.apache.bigtop.manager.server.model.dto.CommandDTO;
 import org.apache.bigtop.manager.server.model.dto.ServiceDTO;
 import org.apache.bigtop.manager.server.utils.StackUtils;
@@ -128,56 +127,8 @@ public class ComponentStageHelper {
         return stageContext;
     }
 
-    private static List<String> getTodoList(List<String> componentNames, Command command) {
-        return getTodoList(componentNames, List.of(command));
-    }
-
     private static List<String> getTodoList(List<String> componentNames, List<Command> commands) {
-        try {
-            List<String> orderedList =
-                    StackUtils.DAG.getAllNodesList().isEmpty() ? new ArrayList<>() : StackUtils.DAG.topologicalSort();
-            orderedList.replaceAll(String::toUpperCase);
-            List<String> componentCommandNames = new ArrayList<>();
-            for (String componentName : componentNames) {
-                for (Command command : commands) {
-                    String name =
-                            componentName.toUpperCase() + "-" + command.name().toUpperCase();
-                    componentCommandNames.add(name);
-                }
-            }
-
-            // Re-order the commands, since order.json does not contain all commands,
-            // only contains which has dependencies, we need to add the rest to the end.
-            if (commands.size() == 1) {
-                orderedList.retainAll(componentCommandNames);
-                componentCommandNames.removeAll(orderedList);
-                orderedList.addAll(componentCommandNames);
-                return orderedList;
-            } else {
-                // TODO, order.json currently only contains start/stop dependencies of major components, the situation
-                // of commands size greater than 1 is only with init/start/prepare commands, we see this as a special
-                // situation and use special logic for it, should use a better solution in the future.
-                orderedList.retainAll(componentCommandNames);
-                componentCommandNames.removeAll(orderedList);
-
-                List<String> res = new ArrayList<>();
-                List<String> commandOrder = List.of("ADD", "CONFIGURE", "INIT", "START", "PREPARE", "CHECK");
-                for (String command : commandOrder) {
-                    List<String> filtered = componentCommandNames.stream()
-                            .filter(s -> s.endsWith(command))
-                            .toList();
-                    res.addAll(filtered);
-                    if (command.equals("START")) {
-                        res.addAll(orderedList);
-                    }
-                }
-
-                return res;
-            }
-
-        } catch (Exception e) {
-            throw new ServerException(e);
-        }
+        return StackUtils.getExecutionPlanner().plan(componentNames, commands);
     }
 
     public static void printStageDump(List<Stage> stages) {
@@ -33,10 +33,13 @@ import org.apache.bigtop.manager.dao.repository.RepoDao;
 import org.apache.bigtop.manager.dao.repository.ServiceConfigDao;
 import org.apache.bigtop.manager.grpc.generated.JobCacheReply;
 import org.apache.bigtop.manager.grpc.generated.JobCacheRequest;
+import org.apache.bigtop.manager.grpc.generated.JobCacheSection;
 import org.apache.bigtop.manager.grpc.generated.JobCacheServiceGrpc;
 import org.apache.bigtop.manager.grpc.payload.JobCachePayload;
 import org.apache.bigtop.manager.grpc.pojo.ClusterInfo;
 import org.apache.bigtop.manager.grpc.pojo.RepoInfo;
+import org.apache.bigtop.manager.grpc.utils.JobCacheUtils;
+import org.apache.bigtop.manager.server.config.CommandConfig;
 import org.apache.bigtop.manager.server.exception.ServerException;
 import org.apache.bigtop.manager.server.grpc.GrpcClient;
 import org.apache.bigtop.manager.server.holder.SpringContextHolder;
@@ -44,18 +47,38 @@ import org.apache.bigtop.manager.server.model.dto.ServiceDTO;
 import org.apache.bigtop.manager.server.model.dto.StackDTO;
 import org.apache.bigtop.manager.server.utils.StackUtils;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
+import static org.apache.bigtop.manager.common.constants.CacheFiles.CLUSTER_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.CONFIGURATIONS_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.HOSTS_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.PACKAGE_PEERS_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.REPOS_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.USERS_INFO;
 import static org.apache.bigtop.manager.common.constants.Constants.ALL_HOST_KEY;
 
+@Slf4j
 public class JobCacheHelper {
 
     private static ClusterDao clusterDao;
@@ -63,15 +86,49 @@ public class JobCacheHelper {
     private static RepoDao repoDao;
     private static HostDao hostDao;
     private static ComponentDao componentDao;
+    private static CommandConfig commandConfig;
 
     private static final AtomicBoolean INITIALIZED = new AtomicBoolean(false);
 
-    private static void initialize() {
+    // Hashes of the sections each host is known to have, the key of outer map is hostname
+    private static final Map<String, Map<String, String>> HOST_SECTION_HASHES = new ConcurrentHashMap<>();
+
+    private static final Set<Status.Code> RETRYABLE_CODES =
+            Set.of(Status.Code.UNAVAILABLE, Status.Code.DEADLINE_EXCEEDED, Status.Code.RESOURCE_EXHAUSTED);
+
+    private static final long RETRY_BACKOFF_MILLIS = 1000L;
+
+    private static Executor executor;
+
+    // Jobs may start at the same time, only one of them initializes, the fields are published by INITIALIZED
+    private static synchronized void initialize() {
+        if (INITIALIZED.get()) {
+            return;
+        }
+
         clusterDao = SpringContextHolder.getBean(ClusterDao.class);
         serviceConfigDao = SpringContextHolder.getBean(ServiceConfigDao.class);
         repoDao = SpringContextHolder.getBean(RepoDao.class);
         hostDao = SpringContextHolder.getBean(HostDao.class);
         componentDao = SpringContextHolder.getBean(ComponentDao.class);
+        commandConfig = SpringContextHolder.getBean(CommandConfig.class);
+
+        if (executor == null) {
+            // Bounds the agents receiving the job cache at the same time, the threads block on the requests
+            int threads = Math.max(1, commandConfig.getJobCache().getMaxConcurrentRequests());
+            ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                    threads,
+                    threads,
+                    60L,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("job-cache-%d")
+                            .setDaemon(true)
+                            .build());
+            threadPoolExecutor.allowCoreThreadTimeOut(true);
+            executor = threadPoolExecutor;
+        }
 
         INITIALIZED.set(true);
     }
@@ -84,25 +141,23 @@ public class JobCacheHelper {
         JobCachePayload payload = new JobCachePayload();
         genGlobalPayload(payload);
 
-        // Sort by cluster id to avoid regenerating the same cluster payload
+        // Sort by cluster id to avoid regenerating the same cluster payload,
+        // the sections of a cluster are encoded once and shared by all of its hosts
         List<HostPO> hostPOList = hostDao.findAllByHostnames(hostnames);
+        payload.setPackagePeers(
+                genPackagePeers(hostPOList, commandConfig.getJobCache().getPackageFanout()));
         hostPOList.sort(Comparator.comparing(HostPO::getClusterId));
 
+        List<JobCacheSection> sections = null;
         List<CompletableFuture<Boolean>> futures = new ArrayList<>();
         for (HostPO hostPO : hostPOList) {
-            genClusterPayload(payload, hostPO.getClusterId());
-            JobCacheRequest request = JobCacheRequest.newBuilder()
-                    .setJobId(jobId)
-                    .setPayload(JsonUtils.writeAsString(payload))
-                    .build();
-            futures.add(CompletableFuture.supplyAsync(() -> {
-                JobCacheServiceGrpc.JobCacheServiceBlockingStub stub = GrpcClient.getBlockingStub(
-                        hostPO.getHostname(),
-                        hostPO.getGrpcPort(),
-                        JobCacheServiceGrpc.JobCacheServiceBlockingStub.class);
-                JobCacheReply reply = stub.save(request);
-                return reply != null && reply.getCode() == MessageConstants.SUCCESS_CODE;
-            }));
+            if (sections == null || !Objects.equals(payload.getClusterId(), hostPO.getClusterId())) {
+                genClusterPayload(payload, hostPO.getClusterId());
+                sections = genSections(payload);
+            }
+
+            List<JobCacheSection> clusterSections = sections;
+            futures.add(CompletableFuture.supplyAsync(() -> saveJobCache(jobId, hostPO, clusterSections), executor));
         }
 
         List<Boolean> results = futures.stream()
@@ -121,6 +176,137 @@ public class JobCacheHelper {
         }
     }
 
+    /**
+     * Send the sections to the host, only with the content of the sections the host does not have yet.
+     */
+    private static Boolean saveJobCache(Long jobId, HostPO hostPO, List<JobCacheSection> sections) {
+        String hostname = hostPO.getHostname();
+        Map<String, String> knownHashes = HOST_SECTION_HASHES.getOrDefault(hostname, Map.of());
+        JobCacheRequest.Builder builder = JobCacheRequest.newBuilder().setJobId(jobId);
+        for (JobCacheSection section : sections) {
+            if (section.getHash().equals(knownHashes.get(section.getName()))) {
+                builder.addSections(section.toBuilder().clearContent());
+            } else {
+                builder.addSections(section);
+            }
+        }
+
+        boolean success = false;
+        try {
+            JobCacheServiceGrpc.JobCacheServiceBlockingStub stub = GrpcClient.getBlockingStub(
+                    hostname, hostPO.getGrpcPort(), JobCacheServiceGrpc.JobCacheServiceBlockingStub.class);
+            JobCacheReply reply = save(stub, hostname, builder.build());
+            if (reply != null && reply.getMissingSectionsCount() > 0) {
+                // The agent lost some sections, e.g. its cache dir was cleaned up, send them again with content
+                List<String> missingSections = reply.getMissingSectionsList();
+                reply = save(
+                        stub,
+                        hostname,
+                        JobCacheRequest.newBuilder()
+                                .setJobId(jobId)
+                                .addAllSections(sections.stream()
+                                        .filter(section -> missingSections.contains(section.getName()))
+                                        .toList())
+                                .build());
+            }
+
+            success = reply != null && reply.getCode() == MessageConstants.SUCCESS_CODE;
+            return success;
+        } finally {
+            if (success) {
+                HOST_SECTION_HASHES.put(
+                        hostname,
+                        sections.stream()
+                                .collect(Collectors.toMap(JobCacheSection::getName, JobCacheSection::getHash)));
+            } else {
+                HOST_SECTION_HASHES.remove(hostname);
+            }
+        }
+    }
+
+    /**
+     * Send the request with a deadline, retried when the agent is unavailable or too slow.
+     */
+    private static JobCacheReply save(
+            JobCacheServiceGrpc.JobCacheServiceBlockingStub stub, String hostname, JobCacheRequest request) {
+        CommandConfig.JobCache config = commandConfig.getJobCache();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return stub.withDeadlineAfter(config.getRequestTimeout(), TimeUnit.SECONDS)
+                        .save(request);
+            } catch (StatusRuntimeException e) {
+                if (attempt >= config.getMaxRetries()
+                        || !RETRYABLE_CODES.contains(e.getStatus().getCode())) {
+                    throw e;
+                }
+
+                log.warn("Failed to send job cache to host [{}], retrying: {}", hostname, e.getMessage());
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS * (attempt + 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Serialize each part of the payload to a section, map keys are sorted so the same content gets the same hash.
+     */
+    private static List<JobCacheSection> genSections(JobCachePayload payload) {
+        Map<String, Map<String, String>> configurations = new TreeMap<>();
+        payload.getConfigurations()
+                .forEach((serviceName, configs) -> configurations.put(serviceName, new TreeMap<>(configs)));
+
+        List<JobCacheSection> sections = new ArrayList<>();
+        sections.add(genSection(CONFIGURATIONS_INFO, configurations));
+        sections.add(genSection(HOSTS_INFO, new TreeMap<>(payload.getComponentHosts())));
+        sections.add(genSection(USERS_INFO, new TreeMap<>(payload.getUserInfo())));
+        sections.add(genSection(REPOS_INFO, payload.getRepoInfo()));
+        sections.add(genSection(CLUSTER_INFO, payload.getClusterInfo()));
+        sections.add(genSection(PACKAGE_PEERS_INFO, payload.getPackagePeers()));
+        return sections;
+    }
+
+    /**
+     * Arrange the hosts in a tree by hostname, each host fetches packages from its parent which fetches them
+     * from its own parent in turn, so only the root downloads them from the repo. The other ancestors are
+     * listed after the parent in case it's down.
+     *
+     * @return hostname -> "hostname:grpcPort" of its ancestors, nearest first
+     */
+    static Map<String, List<String>> genPackagePeers(List<HostPO> hostPOList, int fanout) {
+        Map<String, List<String>> packagePeers = new TreeMap<>();
+        if (fanout <= 0) {
+            return packagePeers;
+        }
+
+        List<HostPO> hosts = hostPOList.stream()
+                .sorted(Comparator.comparing(HostPO::getHostname))
+                .toList();
+        for (int i = 0; i < hosts.size(); i++) {
+            List<String> peers = new ArrayList<>();
+            for (int node = i; node > 0; ) {
+                node = (node - 1) / fanout;
+                peers.add(hosts.get(node).getHostname() + ":" + hosts.get(node).getGrpcPort());
+            }
+
+            packagePeers.put(hosts.get(i).getHostname(), peers);
+        }
+
+        return packagePeers;
+    }
+
+    private static JobCacheSection genSection(String name, Object content) {
+        byte[] bytes = JsonUtils.writeAsString(content).getBytes(StandardCharsets.UTF_8);
+        return JobCacheSection.newBuilder()
+                .setName(name)
+                .setHash(JobCacheUtils.hash(bytes))
+                .setContent(JobCacheUtils.compress(bytes))
+                .build();
+    }
+
     private static void genClusterPayload(JobCachePayload payload, Long clusterId) {
         if (Objects.equals(payload.getClusterId(), clusterId)) {
             return;
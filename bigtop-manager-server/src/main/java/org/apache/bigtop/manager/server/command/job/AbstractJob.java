@@ -29,19 +29,32 @@ import org.apache.bigtop.manager.dao.repository.JobDao;
 import org.apache.bigtop.manager.dao.repository.StageDao;
 import org.apache.bigtop.manager.dao.repository.TaskDao;
 import org.apache.bigtop.manager.server.command.helper.JobCacheHelper;
+import org.apache.bigtop.manager.server.command.journal.JobStateJournal;
 import org.apache.bigtop.manager.server.command.stage.Stage;
 import org.apache.bigtop.manager.server.command.stage.StageContext;
+import org.apache.bigtop.manager.server.command.stage.StageDependencyGraph;
 import org.apache.bigtop.manager.server.command.task.Task;
+import org.apache.bigtop.manager.server.config.CommandConfig;
 import org.apache.bigtop.manager.server.enums.ApiExceptionEnum;
 import org.apache.bigtop.manager.server.exception.ApiException;
+import org.apache.bigtop.manager.server.holder.SessionUserHolder;
 import org.apache.bigtop.manager.server.holder.SpringContextHolder;
+import org.apache.bigtop.manager.server.utils.StackUtils;
 
 import org.apache.commons.collections4.CollectionUtils;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 
 @Slf4j
@@ -52,6 +65,10 @@ public abstract class AbstractJob implements Job {
     protected StageDao stageDao;
     protected TaskDao taskDao;
 
+    protected JobStateJournal jobStateJournal;
+
+    protected CommandConfig commandConfig;
+
     protected JobContext jobContext;
     protected List<Stage> stages;
 
@@ -83,6 +100,9 @@ public abstract class AbstractJob implements Job {
         this.jobDao = SpringContextHolder.getBean(JobDao.class);
         this.stageDao = SpringContextHolder.getBean(StageDao.class);
         this.taskDao = SpringContextHolder.getBean(TaskDao.class);
+        this.jobStateJournal = SpringContextHolder.getBean(JobStateJournal.class);
+
+        this.commandConfig = SpringContextHolder.getBean(CommandConfig.class);
     }
 
     protected void beforeCreateStages() {
@@ -95,7 +115,7 @@ public abstract class AbstractJob implements Job {
     @Override
     public void beforeRun() {
         jobPO.setState(JobState.PROCESSING.getName());
-        jobDao.partialUpdateById(jobPO);
+        jobStateJournal.recordJob(jobPO);
     }
 
     @Override
@@ -115,15 +135,10 @@ public abstract class AbstractJob implements Job {
                     .toList();
             JobCacheHelper.sendJobCache(jobPO.getId(), hostnames);
 
-            LinkedBlockingQueue<Stage> queue = new LinkedBlockingQueue<>(stages);
-            while (!queue.isEmpty()) {
-                Stage stage = queue.poll();
-                Boolean stageSuccess = stage.run();
-
-                if (!stageSuccess) {
-                    success = false;
-                    break;
-                }
+            if (Boolean.TRUE.equals(commandConfig.getStage().getParallelExecution())) {
+                success = runStagesInParallel();
+            } else {
+                success = runStagesSequentially();
             }
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -137,38 +152,115 @@ public abstract class AbstractJob implements Job {
         }
     }
 
+    protected boolean runStagesSequentially() {
+        LinkedBlockingQueue<Stage> queue = new LinkedBlockingQueue<>(stages);
+        while (!queue.isEmpty()) {
+            Stage stage = queue.poll();
+            Boolean stageSuccess = stage.run();
+
+            if (!stageSuccess) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Run every stage as soon as all stages it depends on succeeded, see {@link StageDependencyGraph}.
+     * Once a stage failed, no more stages will be started, the running ones are waited for and
+     * the remaining stages stay pending so they can be canceled in {@link #onFailure()}.
+     */
+    protected boolean runStagesInParallel() throws Exception {
+        StageDependencyGraph graph = StageDependencyGraph.of(stages, StackUtils.getDag());
+        int parallelism =
+                Math.max(1, Math.min(stages.size(), commandConfig.getStage().getMaxConcurrentStages()));
+        ExecutorService executor = Executors.newFixedThreadPool(
+                parallelism,
+                new ThreadFactoryBuilder().setNameFormat("job-stage-%d").build());
+        CompletionService<Map.Entry<Integer, Boolean>> completionService = new ExecutorCompletionService<>(executor);
+
+        Long userId = SessionUserHolder.getUserId();
+        Set<Integer> started = new HashSet<>();
+        Set<Integer> finished = new HashSet<>();
+        boolean success = true;
+        int running = 0;
+
+        try {
+            while (true) {
+                if (success) {
+                    for (Integer index : graph.getReadyStages(started, finished)) {
+                        Stage stage = graph.getStage(index);
+                        completionService.submit(() -> {
+                            try {
+                                SessionUserHolder.setUserId(userId);
+                                return Map.entry(index, stage.run());
+                            } catch (Exception e) {
+                                log.error("Error when running stage [{}]", stage.getName(), e);
+                                return Map.entry(index, false);
+                            } finally {
+                                SessionUserHolder.clear();
+                            }
+                        });
+
+                        started.add(index);
+                        running++;
+                    }
+                }
+
+                if (running == 0) {
+                    break;
+                }
+
+                Map.Entry<Integer, Boolean> result = completionService.take().get();
+                running--;
+
+                if (Boolean.TRUE.equals(result.getValue())) {
+                    finished.add(result.getKey());
+                } else {
+                    success = false;
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        return success;
+    }
+
     @Override
     public void onSuccess() {
         JobPO jobPO = getJobPO();
         jobPO.setState(JobState.SUCCESSFUL.getName());
-        jobDao.partialUpdateById(jobPO);
+        jobStateJournal.recordJob(jobPO);
+
+        // Make sure all stage and task states are persisted before the job is seen as finished
+        jobStateJournal.flush();
     }
 
     @Override
     public void onFailure() {
         JobPO jobPO = getJobPO();
-        List<StagePO> stagePOList = new ArrayList<>();
-        List<TaskPO> taskPOList = new ArrayList<>();
-
         jobPO.setState(JobState.FAILED.getName());
 
         for (Stage stage : getStages()) {
             StagePO stagePO = stage.getStagePO();
             if (JobState.fromString(stagePO.getState()) == JobState.PENDING) {
                 stagePO.setState(JobState.CANCELED.getName());
-                stagePOList.add(stagePO);
+                jobStateJournal.recordStage(stagePO);
 
                 for (Task task : stage.getTasks()) {
                     TaskPO taskPO = task.getTaskPO();
                     taskPO.setState(JobState.CANCELED.getName());
-                    taskPOList.add(taskPO);
+                    jobStateJournal.recordTask(taskPO);
                 }
             }
         }
 
-        taskDao.partialUpdateByIds(taskPOList);
-        stageDao.partialUpdateByIds(stagePOList);
-        jobDao.partialUpdateById(jobPO);
+        jobStateJournal.recordJob(jobPO);
+
+        // Make sure all stage and task states are persisted before the job is seen as finished
+        jobStateJournal.flush();
     }
 
     @Override
@@ -184,7 +184,7 @@ public class ServiceAddJob extends AbstractServiceJob {
 
         // Persist current configs
         Map<String, String> confMap = new HashMap<>();
-        List<ServiceConfigDTO> oriConfigs = StackUtils.SERVICE_CONFIG_MAP.get(serviceName);
+        List<ServiceConfigDTO> oriConfigs = StackUtils.getServiceConfigs(serviceName);
         List<ServiceConfigDTO> newConfigs = serviceCommand.getConfigs();
         List<ServiceConfigDTO> mergedConfigs = StackConfigUtils.mergeServiceConfigs(oriConfigs, newConfigs);
         List<ServiceConfigPO> serviceConfigPOList = ServiceConfigConverter.INSTANCE.fromDTO2PO(mergedConfigs);
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.journal;
+
+import org.apache.bigtop.manager.dao.po.JobPO;
+import org.apache.bigtop.manager.dao.po.StagePO;
+import org.apache.bigtop.manager.dao.po.TaskPO;
+import org.apache.bigtop.manager.dao.repository.BaseDao;
+import org.apache.bigtop.manager.dao.repository.JobDao;
+import org.apache.bigtop.manager.dao.repository.StageDao;
+import org.apache.bigtop.manager.dao.repository.TaskDao;
+import org.apache.bigtop.manager.server.config.CommandConfig;
+
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Write-behind journal of job, stage and task state transitions.
+ * <p>
+ * Transitions are kept in memory and coalesced by id, only the latest state of each row is written.
+ * Pending states are flushed periodically as multi-row updates, see {@link BaseDao#partialUpdateByIds(List)},
+ * and can be flushed synchronously with {@link #flush()}, e.g. before a job reaches its final state.
+ * Tasks are always written before stages and stages before jobs.
+ */
+@Slf4j
+@Component
+public class JobStateJournal {
+
+    @Resource
+    private CommandConfig commandConfig;
+
+    @Resource
+    private JobDao jobDao;
+
+    @Resource
+    private StageDao stageDao;
+
+    @Resource
+    private TaskDao taskDao;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private ScheduledExecutorService flushScheduler;
+
+    private final Object lock = new Object();
+
+    /**
+     * Serializes flushes, so a synchronous flush returns only after states taken by a running flush are written.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private Map<Long, String> jobStates = new LinkedHashMap<>();
+
+    private Map<Long, String> stageStates = new LinkedHashMap<>();
+
+    private Map<Long, String> taskStates = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        long flushInterval = commandConfig.getJournal().getFlushInterval();
+        if (flushInterval > 0) {
+            flushScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("job-state-journal-%d")
+                    .build());
+            flushScheduler.scheduleWithFixedDelay(
+                    this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
+
+        Gauge.builder("job_state_journal_pending_states", this, JobStateJournal::getPendingCount)
+                .description("Number of job, stage and task states waiting to be written")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (flushScheduler != null) {
+            flushScheduler.shutdown();
+        }
+
+        flushQuietly();
+    }
+
+    public void recordJob(JobPO jobPO) {
+        record(jobStates, jobPO.getId(), jobPO.getState());
+    }
+
+    public void recordStage(StagePO stagePO) {
+        record(stageStates, stagePO.getId(), stagePO.getState());
+    }
+
+    public void recordTask(TaskPO taskPO) {
+        record(taskStates, taskPO.getId(), taskPO.getState());
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            return jobStates.size() + stageStates.size() + taskStates.size();
+        }
+    }
+
+    /**
+     * Write all pending states to database, states failed to write are kept for the next flush.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, String> jobs;
+            Map<Long, String> stages;
+            Map<Long, String> tasks;
+            synchronized (lock) {
+                jobs = jobStates;
+                stages = stageStates;
+                tasks = taskStates;
+                jobStates = new LinkedHashMap<>();
+                stageStates = new LinkedHashMap<>();
+                taskStates = new LinkedHashMap<>();
+            }
+
+            try {
+                write(taskDao, tasks, (entry) -> {
+                    TaskPO taskPO = new TaskPO();
+                    taskPO.setId(entry.getKey());
+                    taskPO.setState(entry.getValue());
+                    return taskPO;
+                });
+                write(stageDao, stages, (entry) -> {
+                    StagePO stagePO = new StagePO();
+                    stagePO.setId(entry.getKey());
+                    stagePO.setState(entry.getValue());
+                    return stagePO;
+                });
+                write(jobDao, jobs, (entry) -> {
+                    JobPO jobPO = new JobPO();
+                    jobPO.setId(entry.getKey());
+                    jobPO.setState(entry.getValue());
+                    return jobPO;
+                });
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    requeue(taskStates, tasks);
+                    requeue(stageStates, stages);
+                    requeue(jobStates, jobs);
+                }
+
+                throw e;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Error flushing job states, will retry on next flush", e);
+        }
+    }
+
+    private void record(Map<Long, String> states, Long id, String state) {
+        if (id == null || state == null) {
+            return;
+        }
+
+        synchronized (lock) {
+            // Re-insert to keep the map ordered by latest transition
+            states.remove(id);
+            states.put(id, state);
+        }
+
+        if (commandConfig.getJournal().getFlushInterval() <= 0) {
+            flush();
+        }
+    }
+
+    /**
+     * Successfully written entries are removed from the given states, so only the unwritten ones get re-queued.
+     */
+    private <T> void write(BaseDao<T> dao, Map<Long, String> states, Function<Map.Entry<Long, String>, T> converter) {
+        if (states.isEmpty()) {
+            return;
+        }
+
+        dao.partialUpdateByIds(states.entrySet().stream().map(converter).toList());
+        states.clear();
+    }
+
+    private void requeue(Map<Long, String> states, Map<Long, String> unwritten) {
+        // Newer transitions recorded during the flush win
+        for (Map.Entry<Long, String> entry : unwritten.entrySet()) {
+            states.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+    }
+}
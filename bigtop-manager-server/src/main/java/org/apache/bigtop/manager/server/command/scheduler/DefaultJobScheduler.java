@@ -19,43 +19,76 @@
 package org.apache.bigtop.manager.server.command.scheduler;
 
 import org.apache.bigtop.manager.server.command.job.Job;
+import org.apache.bigtop.manager.server.config.CommandConfig;
 import org.apache.bigtop.manager.server.holder.SessionUserHolder;
 
 import org.springframework.stereotype.Component;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 import jakarta.annotation.PostConstruct;
-import java.util.concurrent.Executor;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Runs submitted jobs on a bounded worker pool.
+ * <p>
+ * Jobs are dispatched in submission order, a job is held back while it conflicts (see {@link JobResources})
+ * with a running job or with an earlier job that is still waiting, so jobs on the same cluster service or host
+ * never overlap and keep their submission order, while unrelated jobs run in parallel up to
+ * {@link CommandConfig.Scheduler#getMaxConcurrentJobs()}.
+ */
 @Slf4j
 @Component
 public class DefaultJobScheduler implements JobScheduler {
 
-    private final LinkedBlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+    @Resource
+    private CommandConfig commandConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final Object lock = new Object();
+
+    private final LinkedList<ScheduledJob> queue = new LinkedList<>();
+
+    private final List<ScheduledJob> runningJobs = new ArrayList<>();
 
-    private final Executor executor = Executors.newSingleThreadExecutor();
+    private ExecutorService executor;
+
+    private int maxConcurrentJobs;
+
+    private Timer waitTimer;
 
     private volatile boolean running = true;
 
     @Override
     public void submit(Job job) {
         Long userId = SessionUserHolder.getUserId();
-        queue.offer(() -> {
-            try {
-                SessionUserHolder.setUserId(userId);
-                job.run();
-            } finally {
-                SessionUserHolder.clear();
-            }
-        });
+        ScheduledJob scheduledJob = new ScheduledJob(job, userId, JobResources.of(job), System.nanoTime());
+
+        synchronized (lock) {
+            queue.offer(scheduledJob);
+        }
+
+        dispatch();
     }
 
     @Override
     public void start() {
         running = true;
+        dispatch();
     }
 
     @Override
@@ -65,15 +98,98 @@ public class DefaultJobScheduler implements JobScheduler {
 
     @PostConstruct
     public void init() {
-        executor.execute(() -> {
-            while (running) {
-                try {
-                    Runnable runnable = queue.take();
-                    runnable.run();
-                } catch (InterruptedException e) {
-                    log.warn("Error when polling new job", e);
+        maxConcurrentJobs = Math.max(1, commandConfig.getScheduler().getMaxConcurrentJobs());
+        executor = Executors.newFixedThreadPool(
+                maxConcurrentJobs,
+                new ThreadFactoryBuilder().setNameFormat("job-scheduler-%d").build());
+
+        Gauge.builder("job_scheduler_queued_jobs", this, DefaultJobScheduler::getQueuedJobs)
+                .description("Number of jobs waiting to be scheduled")
+                .register(meterRegistry);
+        Gauge.builder("job_scheduler_running_jobs", this, DefaultJobScheduler::getRunningJobs)
+                .description("Number of jobs currently running")
+                .register(meterRegistry);
+        waitTimer = Timer.builder("job_scheduler_wait_time")
+                .description("Time between job submission and job start")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        executor.shutdown();
+    }
+
+    public int getQueuedJobs() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    public int getRunningJobs() {
+        synchronized (lock) {
+            return runningJobs.size();
+        }
+    }
+
+    private void dispatch() {
+        synchronized (lock) {
+            if (!running) {
+                return;
+            }
+
+            List<ScheduledJob> blocked = new ArrayList<>();
+            Iterator<ScheduledJob> iterator = queue.iterator();
+            while (iterator.hasNext() && runningJobs.size() < maxConcurrentJobs) {
+                ScheduledJob scheduledJob = iterator.next();
+                if (conflicts(scheduledJob, runningJobs) || conflicts(scheduledJob, blocked)) {
+                    blocked.add(scheduledJob);
+                    continue;
                 }
+
+                iterator.remove();
+                runningJobs.add(scheduledJob);
+                executor.execute(() -> execute(scheduledJob));
             }
-        });
+        }
+    }
+
+    private boolean conflicts(ScheduledJob scheduledJob, List<ScheduledJob> others) {
+        for (ScheduledJob other : others) {
+            if (scheduledJob.resources().conflictsWith(other.resources())) {
+                return true;
+            }
+        }
+
+        return false;
     }
+
+    private void execute(ScheduledJob scheduledJob) {
+        long startTime = System.nanoTime();
+        waitTimer.record(startTime - scheduledJob.submitTime(), TimeUnit.NANOSECONDS);
+
+        Job job = scheduledJob.job();
+        try {
+            SessionUserHolder.setUserId(scheduledJob.userId());
+            job.run();
+        } catch (Exception e) {
+            log.error("Error when running job [{}]", job.getName(), e);
+        } finally {
+            SessionUserHolder.clear();
+
+            Timer.builder("job_scheduler_run_time")
+                    .description("Time spent running a job")
+                    .tag("job", job.getName())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+
+            synchronized (lock) {
+                runningJobs.remove(scheduledJob);
+            }
+        }
+
+        dispatch();
+    }
+
+    private record ScheduledJob(Job job, Long userId, JobResources resources, long submitTime) {}
 }
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.scheduler;
+
+import org.apache.bigtop.manager.server.command.job.Job;
+import org.apache.bigtop.manager.server.command.stage.Stage;
+import org.apache.bigtop.manager.server.command.stage.StageContext;
+import org.apache.bigtop.manager.server.model.dto.CommandDTO;
+
+import org.apache.commons.collections4.CollectionUtils;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The cluster, services and hosts a job touches, collected from the {@link StageContext} of its stages.
+ * Two jobs conflict when they share a host, or when they operate on the same service of the same cluster.
+ */
+@Getter
+@ToString
+public class JobResources {
+
+    private final Long clusterId;
+
+    private final Set<String> serviceNames;
+
+    private final Set<String> hostnames;
+
+    public JobResources(Long clusterId, Set<String> serviceNames, Set<String> hostnames) {
+        this.clusterId = clusterId;
+        this.serviceNames = Collections.unmodifiableSet(serviceNames);
+        this.hostnames = Collections.unmodifiableSet(hostnames);
+    }
+
+    public static JobResources of(Job job) {
+        CommandDTO commandDTO =
+                job.getJobContext() == null ? null : job.getJobContext().getCommandDTO();
+        Long clusterId = commandDTO == null ? null : commandDTO.getClusterId();
+
+        Set<String> serviceNames = new HashSet<>();
+        Set<String> hostnames = new HashSet<>();
+        for (Stage stage : job.getStages()) {
+            StageContext stageContext = stage.getStageContext();
+            if (stageContext == null) {
+                continue;
+            }
+
+            if (clusterId == null) {
+                clusterId = stageContext.getClusterId();
+            }
+
+            if (stageContext.getServiceName() != null) {
+                serviceNames.add(stageContext.getServiceName());
+            }
+
+            if (stageContext.getHostnames() != null) {
+                hostnames.addAll(stageContext.getHostnames());
+            }
+        }
+
+        return new JobResources(clusterId, serviceNames, hostnames);
+    }
+
+    /**
+     * A job without any service or host can not be narrowed down, so it is treated as
+     * touching the whole cluster (or everything if it doesn't belong to a cluster).
+     */
+    public boolean isClusterWide() {
+        return serviceNames.isEmpty() && hostnames.isEmpty();
+    }
+
+    public boolean conflictsWith(JobResources other) {
+        if (isClusterWide() || other.isClusterWide()) {
+            return clusterId == null || other.clusterId == null || Objects.equals(clusterId, other.clusterId);
+        }
+
+        if (CollectionUtils.containsAny(hostnames, other.hostnames)) {
+            return true;
+        }
+
+        return clusterId != null
+                && Objects.equals(clusterId, other.clusterId)
+                && CollectionUtils.containsAny(serviceNames, other.serviceNames);
+    }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.bigtop.manager.server.command.stage;
 
+import org.apache.bigtop.manager.common.enums.Command;
 import org.apache.bigtop.manager.dao.po.ClusterPO;
 import org.apache.bigtop.manager.dao.po.HostPO;
 import org.apache.bigtop.manager.dao.repository.ClusterDao;
@@ -54,6 +55,11 @@ public abstract class AbstractComponentStage extends AbstractStage {
         this.clusterPO = clusterDao.findById(stageContext.getClusterId());
     }
 
+    /**
+     * The component command this stage runs, used to look up stage dependencies from the stack DAG.
+     */
+    public abstract Command getCommand();
+
     @Override
     protected String getServiceName() {
         return stageContext.getServiceName();
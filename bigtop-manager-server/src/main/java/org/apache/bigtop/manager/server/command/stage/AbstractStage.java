@@ -22,7 +22,7 @@ import org.apache.bigtop.manager.common.enums.JobState;
 import org.apache.bigtop.manager.common.utils.JsonUtils;
 import org.apache.bigtop.manager.dao.po.StagePO;
 import org.apache.bigtop.manager.dao.repository.HostDao;
-import org.apache.bigtop.manager.dao.repository.StageDao;
+import org.apache.bigtop.manager.server.command.journal.JobStateJournal;
 import org.apache.bigtop.manager.server.command.task.Task;
 import org.apache.bigtop.manager.server.enums.ApiExceptionEnum;
 import org.apache.bigtop.manager.server.exception.ApiException;
@@ -34,13 +34,13 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 public abstract class AbstractStage implements Stage {
 
-    protected StageDao stageDao;
     protected HostDao hostDao;
+    protected StageTaskExecutor stageTaskExecutor;
+    protected JobStateJournal jobStateJournal;
 
     protected StageContext stageContext;
     protected List<Task> tasks;
@@ -68,8 +68,9 @@ public abstract class AbstractStage implements Stage {
     }
 
     protected void injectBeans() {
-        this.stageDao = SpringContextHolder.getBean(StageDao.class);
         this.hostDao = SpringContextHolder.getBean(HostDao.class);
+        this.stageTaskExecutor = SpringContextHolder.getBean(StageTaskExecutor.class);
+        this.jobStateJournal = SpringContextHolder.getBean(JobStateJournal.class);
     }
 
     protected abstract void beforeCreateTasks();
@@ -87,7 +88,7 @@ public abstract class AbstractStage implements Stage {
     @Override
     public void beforeRun() {
         stagePO.setState(JobState.PROCESSING.getName());
-        stageDao.partialUpdateById(stagePO);
+        jobStateJournal.recordStage(stagePO);
     }
 
     @Override
@@ -97,21 +98,7 @@ public abstract class AbstractStage implements Stage {
         try {
             beforeRun();
 
-            List<CompletableFuture<Boolean>> futures = new ArrayList<>();
-            for (Task task : tasks) {
-                futures.add(CompletableFuture.supplyAsync(task::run));
-            }
-
-            List<Boolean> taskResults = futures.stream()
-                    .map((future) -> {
-                        try {
-                            return future.get();
-                        } catch (Exception e) {
-                            log.error("stage failed,", e);
-                            return false;
-                        }
-                    })
-                    .toList();
+            List<Boolean> taskResults = stageTaskExecutor.execute(tasks);
 
             allTaskSuccess = taskResults.stream().allMatch(Boolean::booleanValue);
         } catch (Exception e) {
@@ -132,14 +119,14 @@ public abstract class AbstractStage implements Stage {
     public void onSuccess() {
         StagePO stagePO = getStagePO();
         stagePO.setState(JobState.SUCCESSFUL.getName());
-        stageDao.partialUpdateById(stagePO);
+        jobStateJournal.recordStage(stagePO);
     }
 
     @Override
     public void onFailure() {
         StagePO stagePO = getStagePO();
         stagePO.setState(JobState.FAILED.getName());
-        stageDao.partialUpdateById(stagePO);
+        jobStateJournal.recordStage(stagePO);
     }
 
     @Override
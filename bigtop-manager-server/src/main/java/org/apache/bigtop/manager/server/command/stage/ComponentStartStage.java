@@ -18,6 +18,7 @@
  */
 package org.apache.bigtop.manager.server.command.stage;
 
+import org.apache.bigtop.manager.common.enums.Command;
 import org.apache.bigtop.manager.server.command.task.ComponentStartTask;
 import org.apache.bigtop.manager.server.command.task.Task;
 import org.apache.bigtop.manager.server.utils.StackUtils;
@@ -33,6 +34,11 @@ public class ComponentStartStage extends AbstractComponentStage {
         return new ComponentStartTask(createTaskContext(hostname));
     }
 
+    @Override
+    public Command getCommand() {
+        return Command.START;
+    }
+
     @Override
     public String getName() {
         return "Start "
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.stage;
+
+import org.apache.bigtop.manager.server.stack.dag.ComponentCommandWrapper;
+import org.apache.bigtop.manager.server.stack.dag.DAG;
+import org.apache.bigtop.manager.server.stack.dag.DagGraphEdge;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Dependencies between the stages of a job, the stage list is expected to be in a valid sequential order.
+ * <p>
+ * A stage depends on an earlier stage when:
+ * <ul>
+ *   <li>either of them is not a component stage (e.g. host check), these act as barriers</li>
+ *   <li>they run different commands, so phases like configure -> start keep their order</li>
+ *   <li>they run on the same component</li>
+ *   <li>the stack DAG has a path between their role commands</li>
+ * </ul>
+ * Stages of the same command without a DAG path, e.g. start ZooKeeper and start Grafana, are independent.
+ */
+public class StageDependencyGraph {
+
+    private final List<Stage> stages;
+
+    private final List<Set<Integer>> dependencies;
+
+    private StageDependencyGraph(List<Stage> stages, List<Set<Integer>> dependencies) {
+        this.stages = stages;
+        this.dependencies = dependencies;
+    }
+
+    public static StageDependencyGraph of(List<Stage> stages, DAG<String, ComponentCommandWrapper, DagGraphEdge> dag) {
+        List<Set<Integer>> dependencies = new ArrayList<>();
+        for (int i = 0; i < stages.size(); i++) {
+            Set<Integer> stageDependencies = new HashSet<>();
+            for (int j = 0; j < i; j++) {
+                if (dependsOn(stages.get(i), stages.get(j), dag)) {
+                    stageDependencies.add(j);
+                }
+            }
+
+            dependencies.add(Collections.unmodifiableSet(stageDependencies));
+        }
+
+        return new StageDependencyGraph(stages, dependencies);
+    }
+
+    private static boolean dependsOn(
+            Stage stage, Stage previous, DAG<String, ComponentCommandWrapper, DagGraphEdge> dag) {
+        if (!(stage instanceof AbstractComponentStage current) || !(previous instanceof AbstractComponentStage prev)) {
+            return true;
+        }
+
+        if (current.getCommand() != prev.getCommand()) {
+            return true;
+        }
+
+        String currentComponent = current.getStageContext().getComponentName();
+        String previousComponent = prev.getStageContext().getComponentName();
+        if (Objects.equals(currentComponent, previousComponent)) {
+            return true;
+        }
+
+        String currentNode = currentComponent + "-" + current.getCommand().name();
+        String previousNode = previousComponent + "-" + prev.getCommand().name();
+        return dag.containsPath(previousNode, currentNode);
+    }
+
+    public int size() {
+        return stages.size();
+    }
+
+    public Stage getStage(int index) {
+        return stages.get(index);
+    }
+
+    /**
+     * Get indexes of the stages which must succeed before the given stage can run.
+     *
+     * @param index stage index
+     * @return indexes of the stages it depends on
+     */
+    public Set<Integer> getDependencies(int index) {
+        return dependencies.get(index);
+    }
+
+    /**
+     * Get indexes of the stages which are not started yet and have all dependencies finished, in stage order.
+     *
+     * @param started indexes of stages already started
+     * @param finished indexes of stages finished successfully
+     * @return indexes of the stages ready to run
+     */
+    public List<Integer> getReadyStages(Set<Integer> started, Set<Integer> finished) {
+        List<Integer> ready = new ArrayList<>();
+        for (int i = 0; i < stages.size(); i++) {
+            if (!started.contains(i) && finished.containsAll(dependencies.get(i))) {
+                ready.add(i);
+            }
+        }
+
+        return ready;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.stage;
+
+import org.apache.bigtop.manager.server.command.task.Task;
+import org.apache.bigtop.manager.server.config.CommandConfig;
+import org.apache.bigtop.manager.server.holder.SessionUserHolder;
+
+import org.apache.commons.lang3.StringUtils;
+
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.grpc.Context;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the tasks of a stage on a dedicated bounded thread pool instead of the common ForkJoinPool.
+ * <p>
+ * The number of tasks of one stage running at the same time and the timeout of the agent requests
+ * they send can be limited, see {@link CommandConfig.Stage}.
+ */
+@Slf4j
+@Component
+public class StageTaskExecutor {
+
+    @Resource
+    private CommandConfig commandConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    private ScheduledExecutorService deadlineScheduler;
+
+    private final AtomicInteger activeTasks = new AtomicInteger();
+
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, commandConfig.getStage().getTaskExecutorThreads());
+        executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("stage-task-%d").build());
+        executor.allowCoreThreadTimeOut(true);
+        deadlineScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("stage-task-deadline-%d")
+                .build());
+
+        Gauge.builder("stage_task_active_tasks", activeTasks, AtomicInteger::get)
+                .description("Number of stage tasks currently running")
+                .register(meterRegistry);
+        Gauge.builder("stage_task_queued_tasks", queuedTasks, AtomicInteger::get)
+                .description("Number of stage tasks waiting to run")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+        deadlineScheduler.shutdown();
+    }
+
+    /**
+     * Run the tasks and wait for all of them.
+     *
+     * @param tasks tasks of a stage
+     * @return the result of each task, in the same order as the given tasks
+     */
+    public List<Boolean> execute(List<Task> tasks) {
+        Semaphore semaphore = new Semaphore(getParallelism(tasks.size()));
+        Long userId = SessionUserHolder.getUserId();
+
+        queuedTasks.addAndGet(tasks.size());
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        try {
+            for (Task task : tasks) {
+                semaphore.acquire();
+                futures.add(CompletableFuture.supplyAsync(() -> runTask(task, userId), executor)
+                        .whenComplete((result, e) -> semaphore.release()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted when submitting stage tasks", e);
+        } finally {
+            // Tasks never submitted because of an interruption
+            queuedTasks.addAndGet(futures.size() - tasks.size());
+        }
+
+        List<Boolean> results = new ArrayList<>();
+        for (CompletableFuture<Boolean> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (Exception e) {
+                log.error("Error when running task", e);
+                results.add(false);
+            }
+        }
+
+        for (int i = futures.size(); i < tasks.size(); i++) {
+            results.add(false);
+        }
+
+        return results;
+    }
+
+    protected int getParallelism(int taskCount) {
+        String taskParallelism = commandConfig.getStage().getTaskParallelism();
+        if (StringUtils.isBlank(taskParallelism) || taskCount == 0) {
+            return Math.max(1, taskCount);
+        }
+
+        String value = taskParallelism.trim();
+        int parallelism;
+        if (value.endsWith("%")) {
+            double percentage =
+                    Double.parseDouble(value.substring(0, value.length() - 1).trim());
+            parallelism = (int) Math.ceil(taskCount * percentage / 100);
+        } else {
+            parallelism = Integer.parseInt(value);
+        }
+
+        return Math.max(1, Math.min(parallelism, taskCount));
+    }
+
+    private Boolean runTask(Task task, Long userId) {
+        queuedTasks.decrementAndGet();
+        activeTasks.incrementAndGet();
+
+        long timeout = commandConfig.getStage().getTaskTimeout();
+        // Agent requests sent by the task inherit the deadline from the current gRPC context
+        Context.CancellableContext context = timeout > 0
+                ? Context.current().withDeadlineAfter(timeout, TimeUnit.SECONDS, deadlineScheduler)
+                : Context.current().withCancellation();
+        try {
+            SessionUserHolder.setUserId(userId);
+            return context.call(task::run);
+        } catch (Exception e) {
+            log.error("Error when running task [{}]", task.getName(), e);
+            return false;
+        } finally {
+            context.cancel(null);
+            SessionUserHolder.clear();
+            activeTasks.decrementAndGet();
+        }
+    }
+}
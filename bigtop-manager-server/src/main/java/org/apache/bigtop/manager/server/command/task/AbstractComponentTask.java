@@ -103,7 +103,7 @@ public abstract class AbstractComponentTask extends AbstractTask {
 
         List<TemplateInfo> templateInfos = new ArrayList<>();
         for (TemplateDTO templateDTO : templateDTOList) {
-            String content = StackUtils.SERVICE_TEMPLATE_MAP.get(serviceName).get(templateDTO.getSrc());
+            String content = StackUtils.getServiceTemplates(serviceName).get(templateDTO.getSrc());
 
             TemplateInfo templateInfo = new TemplateInfo();
             templateInfo.setSrc(templateDTO.getSrc());
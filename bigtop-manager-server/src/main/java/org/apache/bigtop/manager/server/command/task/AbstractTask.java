@@ -24,7 +24,7 @@ import org.apache.bigtop.manager.common.utils.JsonUtils;
 import org.apache.bigtop.manager.dao.po.HostPO;
 import org.apache.bigtop.manager.dao.po.TaskPO;
 import org.apache.bigtop.manager.dao.repository.HostDao;
-import org.apache.bigtop.manager.dao.repository.TaskDao;
+import org.apache.bigtop.manager.server.command.journal.JobStateJournal;
 import org.apache.bigtop.manager.server.holder.SpringContextHolder;
 
 import lombok.extern.slf4j.Slf4j;
@@ -34,7 +34,7 @@ public abstract class AbstractTask implements Task {
 
     protected HostDao hostDao;
 
-    protected TaskDao taskDao;
+    protected JobStateJournal jobStateJournal;
 
     protected TaskContext taskContext;
 
@@ -51,7 +51,7 @@ public abstract class AbstractTask implements Task {
 
     protected void injectBeans() {
         this.hostDao = SpringContextHolder.getBean(HostDao.class);
-        this.taskDao = SpringContextHolder.getBean(TaskDao.class);
+        this.jobStateJournal = SpringContextHolder.getBean(JobStateJournal.class);
     }
 
     protected abstract Command getCommand();
@@ -63,7 +63,7 @@ public abstract class AbstractTask implements Task {
     @Override
     public void beforeRun() {
         taskPO.setState(JobState.PROCESSING.getName());
-        taskDao.partialUpdateById(taskPO);
+        jobStateJournal.recordTask(taskPO);
     }
 
     @Override
@@ -96,14 +96,14 @@ public abstract class AbstractTask implements Task {
     public void onSuccess() {
         TaskPO taskPO = getTaskPO();
         taskPO.setState(JobState.SUCCESSFUL.getName());
-        taskDao.partialUpdateById(taskPO);
+        jobStateJournal.recordTask(taskPO);
     }
 
     @Override
     public void onFailure() {
         TaskPO taskPO = getTaskPO();
         taskPO.setState(JobState.FAILED.getName());
-        taskDao.partialUpdateById(taskPO);
+        jobStateJournal.recordTask(taskPO);
     }
 
     @Override
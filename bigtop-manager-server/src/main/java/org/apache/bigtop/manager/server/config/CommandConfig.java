@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Tuning options for the command execution engine (job scheduler, stages and tasks).
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "bigtop.manager.command")
+public class CommandConfig {
+
+    private Scheduler scheduler = new Scheduler();
+
+    private Stage stage = new Stage();
+
+    private Journal journal = new Journal();
+
+    private JobCache jobCache = new JobCache();
+
+    @Data
+    public static class Scheduler {
+
+        /**
+         * Maximum number of jobs running at the same time.
+         * Jobs touching the same cluster service or host are always serialized,
+         * the default value 1 runs every job sequentially in submission order.
+         */
+        private Integer maxConcurrentJobs = 1;
+    }
+
+    @Data
+    public static class Stage {
+
+        /**
+         * Whether to run the stages of a job by their dependency graph instead of one by one,
+         * stages without dependencies between each other (see stack order.json) will run at the same time.
+         */
+        private Boolean parallelExecution = false;
+
+        /**
+         * Maximum number of stages of a single job running at the same time.
+         */
+        private Integer maxConcurrentStages = 10;
+
+        /**
+         * Number of threads shared by all stages to run tasks, each task blocks on an agent request.
+         */
+        private Integer taskExecutorThreads = 100;
+
+        /**
+         * Maximum number of tasks of a single stage running at the same time, either an absolute number or a
+         * percentage of the stage hosts like "10%". Tasks are started in a rolling way, a new one starts as soon
+         * as a previous one finished. Empty means all tasks of the stage start at once.
+         */
+        private String taskParallelism = "";
+
+        /**
+         * Timeout in seconds of the agent requests sent by a single task, 0 means no timeout.
+         */
+        private Long taskTimeout = 0L;
+    }
+
+    @Data
+    public static class Journal {
+
+        /**
+         * Interval in milliseconds to write pending job, stage and task states to database,
+         * 0 writes every state transition immediately. Final states are always written before a job finishes.
+         */
+        private Long flushInterval = 1000L;
+    }
+
+    @Data
+    public static class JobCache {
+
+        /**
+         * Maximum number of agents receiving the job cache at the same time.
+         */
+        private Integer maxConcurrentRequests = 50;
+
+        /**
+         * Timeout in seconds of a single agent request sending the job cache.
+         */
+        private Long requestTimeout = 30L;
+
+        /**
+         * Times a request is sent again when the agent is unavailable or does not reply in time.
+         */
+        private Integer maxRetries = 2;
+
+        /**
+         * Number of hosts each agent serves packages to. The hosts of a job fetch packages from each other
+         * along a tree of this fanout, so only the root host downloads them from the repo. 0 disables it.
+         */
+        private Integer packageFanout = 4;
+    }
+}
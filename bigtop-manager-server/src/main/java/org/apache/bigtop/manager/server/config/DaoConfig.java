@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.config;
+
+import org.apache.bigtop.manager.dao.sql.BatchUpdateOptions;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Tuning options for the data access layer.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "bigtop.manager.dao")
+public class DaoConfig {
+
+    /**
+     * Maximum number of rows updated by a single statement in batch updates, larger lists are split into chunks.
+     */
+    private Integer batchChunkSize = BatchUpdateOptions.DEFAULT_CHUNK_SIZE;
+
+    @PostConstruct
+    public void init() {
+        BatchUpdateOptions.setChunkSize(batchChunkSize);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        BatchUpdateOptions.setChunkSize(BatchUpdateOptions.DEFAULT_CHUNK_SIZE);
+    }
+}
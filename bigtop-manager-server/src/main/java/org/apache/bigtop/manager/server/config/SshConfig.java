@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Options of the ssh connections used to set up agents on new hosts.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "bigtop.manager.ssh")
+public class SshConfig {
+
+    /**
+     * Maximum number of hosts the agent is set up on at the same time.
+     */
+    private Integer maxConcurrentHosts = 50;
+
+    /**
+     * Maximum number of hosts checked for ssh connectivity at the same time.
+     */
+    private Integer maxConcurrentChecks = 100;
+
+    /**
+     * Timeout in seconds of connecting to and authenticating with a host, and of the connectivity check command.
+     */
+    private Integer connectTimeout = 10;
+
+    /**
+     * Seconds an unused session to a host is kept open before it's closed,
+     * commands sent to the same host within this time reuse the session instead of logging in again.
+     */
+    private Integer sessionIdleTimeout = 300;
+
+    /**
+     * Path of a local agent tarball pushed to hosts over sftp while setting up the agent, so hosts don't
+     * download it from the agent repo. Empty means hosts download it.
+     */
+    private String agentTarball = "";
+}
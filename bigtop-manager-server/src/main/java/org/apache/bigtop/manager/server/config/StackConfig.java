@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Options of the stack definitions loaded by the server.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "bigtop.manager.stack")
+public class StackConfig {
+
+    /**
+     * Whether to watch the stack folder and load the stacks again once any file in it changes,
+     * changed stacks take effect for new requests and jobs without restarting the server.
+     */
+    private Boolean hotReload = false;
+
+    /**
+     * Seconds between two checks of the stack folder.
+     */
+    private Integer reloadInterval = 30;
+}
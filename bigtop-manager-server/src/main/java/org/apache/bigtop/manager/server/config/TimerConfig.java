@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Tuning options for the timers collecting data from agents.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "bigtop.manager.timer")
+public class TimerConfig {
+
+    /**
+     * Maximum number of agents requested at the same time by a single timer.
+     */
+    private Integer maxConcurrentRequests = 50;
+
+    /**
+     * Timeout in seconds of a single agent request, a slow agent does not hold up the other hosts.
+     */
+    private Long requestTimeout = 10L;
+
+    /**
+     * Seconds between two writes of a host whose free memory or disk changed alone,
+     * these counters move on every request and would otherwise rewrite every host each time.
+     */
+    private Long usageInterval = 300L;
+
+    private Heartbeat heartbeat = new Heartbeat();
+
+    @Data
+    public static class Heartbeat {
+
+        /**
+         * Keep a heartbeat stream open to every agent, the timers then use the pushed state of live hosts
+         * instead of requesting them.
+         */
+        private Boolean enabled = false;
+
+        /**
+         * Seconds between two heartbeats of an agent, also how often broken streams are reopened.
+         */
+        private Integer interval = 10;
+
+        /**
+         * Missed heartbeats after which a host is no longer live and is requested again by the timers.
+         */
+        private Integer missedHeartbeats = 3;
+    }
+}
@@ -39,6 +39,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -120,6 +121,13 @@ public class HostController {
         return ResponseEntity.success(hostService.checkConnection(hostDTO));
     }
 
+    @Operation(summary = "Check connection stream", description = "Check connection for hosts, stream per host results")
+    @PostMapping("/check-connection/stream")
+    public SseEmitter checkConnectionStream(@RequestBody @Validated HostReq hostReq) {
+        HostDTO hostDTO = HostConverter.INSTANCE.fromReq2DTO(hostReq);
+        return hostService.checkConnectionStream(hostDTO);
+    }
+
     @Operation(summary = "Install dependencies", description = "Install dependencies on a host")
     @PostMapping("/install-dependencies")
     public ResponseEntity<Boolean> installDependencies(@RequestBody @Validated List<HostReq> hostReqs) {
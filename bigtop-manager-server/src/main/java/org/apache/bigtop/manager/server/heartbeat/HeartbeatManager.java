@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.heartbeat;
+
+import org.apache.bigtop.manager.dao.po.ComponentPO;
+import org.apache.bigtop.manager.dao.po.HostPO;
+import org.apache.bigtop.manager.dao.query.ComponentQuery;
+import org.apache.bigtop.manager.dao.repository.ComponentDao;
+import org.apache.bigtop.manager.dao.repository.HostDao;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusRequest;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatEvent;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatRequest;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatServiceGrpc;
+import org.apache.bigtop.manager.server.config.TimerConfig;
+import org.apache.bigtop.manager.server.grpc.GrpcClient;
+import org.apache.bigtop.manager.server.timer.ComponentStatusTimer;
+import org.apache.bigtop.manager.server.utils.ClusterUtils;
+
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps one heartbeat stream open to every agent, the pushed events are kept in {@link HostStateCache}.
+ * The stream is opened by the server as the agents host the gRPC services, each cycle reopens the broken
+ * streams and sends the new watch list to the agents whose components changed.
+ */
+@Slf4j
+@Component
+public class HeartbeatManager {
+
+    @Resource
+    private ComponentDao componentDao;
+
+    @Resource
+    private HostDao hostDao;
+
+    @Resource
+    private TimerConfig timerConfig;
+
+    @Resource
+    private HostStateCache hostStateCache;
+
+    private ExecutorService executor;
+
+    private final Map<String, HeartbeatStream> streams = new ConcurrentHashMap<>();
+
+    // Hosts whose stream is being opened, opening may block until the channel is ready
+    private final Set<String> openingHosts = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, timerConfig.getMaxConcurrentRequests());
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("heartbeat-%d").build());
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        executor = threadPoolExecutor;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        streams.values().forEach(HeartbeatStream::close);
+        executor.shutdownNow();
+    }
+
+    @Async
+    @Scheduled(fixedDelayString = "${bigtop.manager.timer.heartbeat.interval:10}", timeUnit = TimeUnit.SECONDS)
+    public void execute() {
+        if (!timerConfig.getHeartbeat().getEnabled()) {
+            return;
+        }
+
+        Map<Long, List<ComponentStatusRequest>> watchLists = componentDao.findByQuery(new ComponentQuery()).stream()
+                .filter(ComponentStatusTimer::needStatusCheck)
+                .collect(Collectors.groupingBy(
+                        ComponentPO::getHostId,
+                        Collectors.mapping(ComponentStatusTimer::toStatusRequest, Collectors.toList())));
+
+        for (HostPO hostPO : hostDao.findAll()) {
+            if (ClusterUtils.isNoneCluster(hostPO.getClusterId())) {
+                continue;
+            }
+
+            List<ComponentStatusRequest> components = watchLists.getOrDefault(hostPO.getId(), List.of());
+            HeartbeatStream stream = streams.get(hostPO.getHostname());
+            if (stream != null) {
+                stream.watch(components);
+            } else if (openingHosts.add(hostPO.getHostname())) {
+                executor.execute(() -> open(hostPO, components));
+            }
+        }
+    }
+
+    private void open(HostPO hostPO, List<ComponentStatusRequest> components) {
+        String hostname = hostPO.getHostname();
+        HeartbeatStream stream = new HeartbeatStream(hostname);
+        try {
+            HeartbeatServiceGrpc.HeartbeatServiceStub stub = GrpcClient.getAsyncStub(
+                    hostname, hostPO.getGrpcPort(), HeartbeatServiceGrpc.HeartbeatServiceStub.class);
+            hostStateCache.onConnected(hostname);
+            streams.put(hostname, stream);
+            stream.start(stub, components);
+        } catch (Exception e) {
+            log.warn("Unable to open heartbeat stream to host [{}]: {}", hostname, e.getMessage());
+            stream.disconnected();
+        } finally {
+            openingHosts.remove(hostname);
+        }
+    }
+
+    class HeartbeatStream implements StreamObserver<HeartbeatEvent> {
+
+        private final String hostname;
+
+        private StreamObserver<HeartbeatRequest> requestObserver;
+
+        private List<ComponentStatusRequest> components;
+
+        HeartbeatStream(String hostname) {
+            this.hostname = hostname;
+        }
+
+        synchronized void start(
+                HeartbeatServiceGrpc.HeartbeatServiceStub stub, List<ComponentStatusRequest> components) {
+            requestObserver = stub.connect(this);
+            send(components);
+        }
+
+        /**
+         * Send the watch list to the agent if it changed since the last one sent.
+         */
+        synchronized void watch(List<ComponentStatusRequest> components) {
+            if (requestObserver != null && !components.equals(this.components)) {
+                send(components);
+            }
+        }
+
+        synchronized void close() {
+            if (requestObserver != null) {
+                try {
+                    requestObserver.onCompleted();
+                } catch (Exception e) {
+                    log.debug("Error ignored when closing heartbeat stream to host [{}]", hostname, e);
+                }
+            }
+        }
+
+        @Override
+        public void onNext(HeartbeatEvent event) {
+            hostStateCache.onEvent(hostname, event);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            log.warn("Heartbeat stream to host [{}] broken: {}", hostname, t.getMessage());
+            disconnected();
+        }
+
+        @Override
+        public void onCompleted() {
+            disconnected();
+        }
+
+        private void send(List<ComponentStatusRequest> components) {
+            this.components = components;
+            requestObserver.onNext(HeartbeatRequest.newBuilder()
+                    .setInterval(timerConfig.getHeartbeat().getInterval())
+                    .addAllComponents(components)
+                    .build());
+        }
+
+        // A late callback of a replaced stream must not mark the new one as disconnected
+        private void disconnected() {
+            if (streams.remove(hostname, this)) {
+                hostStateCache.onDisconnected(hostname);
+            }
+        }
+    }
+}
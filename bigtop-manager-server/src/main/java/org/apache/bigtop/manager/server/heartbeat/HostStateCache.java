@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.heartbeat;
+
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusChange;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatEvent;
+import org.apache.bigtop.manager.grpc.generated.HostInfoReply;
+import org.apache.bigtop.manager.server.config.TimerConfig;
+
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+import jakarta.annotation.Resource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latest state pushed by each agent over its heartbeat stream, keyed by hostname.
+ */
+@Component
+public class HostStateCache {
+
+    @Resource
+    private TimerConfig timerConfig;
+
+    private final Map<String, HostState> states = new ConcurrentHashMap<>();
+
+    public void onConnected(String hostname) {
+        HostState state = new HostState();
+        state.setConnected(true);
+        states.put(hostname, state);
+    }
+
+    public void onEvent(String hostname, HeartbeatEvent event) {
+        HostState state = states.computeIfAbsent(hostname, k -> new HostState());
+        synchronized (state) {
+            state.setLastHeartbeat(System.currentTimeMillis());
+            if (event.hasHostInfo()) {
+                state.setHostInfo(event.getHostInfo());
+            }
+
+            for (ComponentStatusChange change : event.getComponentStatusesList()) {
+                state.getComponentStatuses().put(change.getComponentName(), change.getStatus());
+            }
+        }
+    }
+
+    public void onDisconnected(String hostname) {
+        HostState state = states.get(hostname);
+        if (state != null) {
+            state.setConnected(false);
+        }
+    }
+
+    /**
+     * Whether the host is connected and sent a heartbeat recently enough for its pushed state to be trusted.
+     */
+    public boolean isLive(String hostname) {
+        HostState state = states.get(hostname);
+        if (state == null || !state.isConnected() || state.getLastHeartbeat() == 0) {
+            return false;
+        }
+
+        TimerConfig.Heartbeat heartbeat = timerConfig.getHeartbeat();
+        long maxAge = TimeUnit.SECONDS.toMillis((long) heartbeat.getInterval() * heartbeat.getMissedHeartbeats());
+        return System.currentTimeMillis() - state.getLastHeartbeat() <= maxAge;
+    }
+
+    /**
+     * @return the last host info pushed by a live host, or null
+     */
+    public HostInfoReply getHostInfo(String hostname) {
+        return isLive(hostname) ? states.get(hostname).getHostInfo() : null;
+    }
+
+    /**
+     * @return the last status pushed by a live host for the component, or null if not watched yet
+     */
+    public Integer getComponentStatus(String hostname, String componentName) {
+        return isLive(hostname) ? states.get(hostname).getComponentStatuses().get(componentName) : null;
+    }
+
+    @Data
+    public static class HostState {
+
+        private volatile boolean connected;
+
+        private volatile long lastHeartbeat;
+
+        private volatile HostInfoReply hostInfo;
+
+        private final Map<String, Integer> componentStatuses = new ConcurrentHashMap<>();
+    }
+}
@@ -43,7 +43,8 @@ public class StackMcpTool implements McpTool {
     public List<StackVO> listStacks() {
         List<StackVO> stackVOList = new ArrayList<>();
 
-        for (Map.Entry<StackDTO, List<ServiceDTO>> entry : StackUtils.STACK_SERVICE_MAP.entrySet()) {
+        for (Map.Entry<StackDTO, List<ServiceDTO>> entry :
+                StackUtils.getStackServiceMap().entrySet()) {
             StackDTO stackDTO = entry.getKey();
             List<ServiceDTO> serviceDTOList = entry.getValue();
 
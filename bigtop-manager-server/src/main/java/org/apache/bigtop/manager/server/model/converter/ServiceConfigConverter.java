@@ -55,4 +55,8 @@ public interface ServiceConfigConverter {
     ServiceConfigVO fromPO2VO(ServiceConfigPO serviceConfigPO);
 
     List<ServiceConfigVO> fromPO2VO(List<ServiceConfigPO> serviceConfigPOList);
+
+    ServiceConfigVO fromDTO2VO(ServiceConfigDTO serviceConfigDTO);
+
+    List<ServiceConfigVO> fromDTO2VO(List<ServiceConfigDTO> serviceConfigDTOList);
 }
@@ -30,4 +30,6 @@ public class InstalledStatusVO {
     private InstalledStatusEnum status;
 
     private String message;
+
+    private String output;
 }
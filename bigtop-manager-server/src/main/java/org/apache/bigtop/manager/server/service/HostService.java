@@ -21,10 +21,13 @@ package org.apache.bigtop.manager.server.service;
 import org.apache.bigtop.manager.dao.query.HostQuery;
 import org.apache.bigtop.manager.server.model.dto.HostDTO;
 import org.apache.bigtop.manager.server.model.vo.ComponentVO;
+import org.apache.bigtop.manager.server.model.vo.HostConnectionVO;
 import org.apache.bigtop.manager.server.model.vo.HostVO;
 import org.apache.bigtop.manager.server.model.vo.InstalledStatusVO;
 import org.apache.bigtop.manager.server.model.vo.PageVO;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
 import java.util.List;
 
 public interface HostService {
@@ -88,6 +91,15 @@ public interface HostService {
      */
     Boolean checkConnection(HostDTO hostDTO);
 
+    /**
+     * Check hosts connection, the result of each host is sent as a {@link HostConnectionVO} event as soon as
+     * it's known, and the stream completes once all hosts are checked.
+     *
+     * @param hostDTO host infos
+     * @return per host results
+     */
+    SseEmitter checkConnectionStream(HostDTO hostDTO);
+
     /**
      * Install dependencies
      *
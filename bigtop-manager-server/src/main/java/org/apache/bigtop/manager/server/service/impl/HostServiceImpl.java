@@ -21,7 +21,6 @@ package org.apache.bigtop.manager.server.service.impl;
 import org.apache.bigtop.manager.common.constants.MessageConstants;
 import org.apache.bigtop.manager.common.shell.ShellResult;
 import org.apache.bigtop.manager.common.utils.InstanceUtils;
-import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
 import org.apache.bigtop.manager.dao.po.ComponentPO;
 import org.apache.bigtop.manager.dao.po.HostPO;
 import org.apache.bigtop.manager.dao.query.ComponentQuery;
@@ -29,9 +28,11 @@ import org.apache.bigtop.manager.dao.query.HostQuery;
 import org.apache.bigtop.manager.dao.repository.ComponentDao;
 import org.apache.bigtop.manager.dao.repository.HostDao;
 import org.apache.bigtop.manager.dao.repository.RepoDao;
+import org.apache.bigtop.manager.server.config.SshConfig;
 import org.apache.bigtop.manager.server.enums.ApiExceptionEnum;
 import org.apache.bigtop.manager.server.enums.HealthyStatusEnum;
 import org.apache.bigtop.manager.server.enums.HostAuthTypeEnum;
+import org.apache.bigtop.manager.server.enums.HostConnectionStatusEnum;
 import org.apache.bigtop.manager.server.enums.InstalledStatusEnum;
 import org.apache.bigtop.manager.server.exception.ApiException;
 import org.apache.bigtop.manager.server.model.converter.ComponentConverter;
@@ -39,35 +40,40 @@ import org.apache.bigtop.manager.server.model.converter.HostConverter;
 import org.apache.bigtop.manager.server.model.dto.HostDTO;
 import org.apache.bigtop.manager.server.model.query.PageQuery;
 import org.apache.bigtop.manager.server.model.vo.ComponentVO;
+import org.apache.bigtop.manager.server.model.vo.HostConnectionVO;
 import org.apache.bigtop.manager.server.model.vo.HostVO;
 import org.apache.bigtop.manager.server.model.vo.InstalledStatusVO;
 import org.apache.bigtop.manager.server.model.vo.PageVO;
 import org.apache.bigtop.manager.server.service.HostService;
+import org.apache.bigtop.manager.server.ssh.AgentFileTransfer;
+import org.apache.bigtop.manager.server.ssh.HostConnectionChecker;
+import org.apache.bigtop.manager.server.ssh.SshSessionManager;
 import org.apache.bigtop.manager.server.utils.PageUtils;
-import org.apache.bigtop.manager.server.utils.RemoteSSHUtils;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -83,14 +89,43 @@ public class HostServiceImpl implements HostService {
     @Resource
     private RepoDao repoDao;
 
+    @Resource
+    private SshConfig sshConfig;
+
+    @Resource
+    private SshSessionManager sshSessionManager;
+
+    @Resource
+    private HostConnectionChecker hostConnectionChecker;
+
+    @Resource
+    private AgentFileTransfer agentFileTransfer;
+
     private final List<InstalledStatusVO> installedStatus = new CopyOnWriteArrayList<>();
 
-    private final ExecutorService executorService = Executors.newFixedThreadPool(5);
+    private ExecutorService executorService;
 
     private static final Integer DEFAULT_GRPC_PORT = 8835;
     private static final Integer DEFAULT_SSH_PORT = 22;
     private static final String DEFAULT_AGENT_DIR = "/opt";
 
+    /**
+     * Only the tail of the setup output is kept for each host
+     */
+    private static final int MAX_OUTPUT_LENGTH = 64 * 1024;
+
+    @PostConstruct
+    public void init() {
+        executorService = Executors.newFixedThreadPool(
+                Math.max(1, sshConfig.getMaxConcurrentHosts()),
+                new ThreadFactoryBuilder().setNameFormat("host-setup-%d").build());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executorService.shutdown();
+    }
+
     @Override
     public PageVO<HostVO> list(HostQuery hostQuery) {
         PageQuery pageQuery = PageUtils.getPageQuery();
@@ -208,30 +243,56 @@ public class HostServiceImpl implements HostService {
 
     @Override
     public Boolean checkConnection(HostDTO hostDTO) {
-        String command = "hostname";
-        for (String hostname : hostDTO.getHostnames()) {
-            try {
-                ShellResult result = execCommandOnRemoteHost(hostDTO, hostname, command);
-                if (result.getExitCode() != 0) {
-                    log.error("Unable to connect to host, hostname: {}, msg: {}", hostname, result.getErrMsg());
-                    throw new ApiException(ApiExceptionEnum.HOST_UNABLE_TO_CONNECT, hostname);
-                } else {
-                    log.info("Successfully connected to host, hostname: {}, res: {}", hostname, result.getOutput());
-                }
-            } catch (Exception e) {
-                log.error("Unable to connect to host, hostname: {}", hostname, e);
-                throw new ApiException(ApiExceptionEnum.HOST_UNABLE_TO_CONNECT, hostname);
-            }
+        setDefaultValues(hostDTO);
+        List<String> unreachableHostnames = hostConnectionChecker.check(hostDTO, null).join().stream()
+                .filter(result -> result.getStatus() != HostConnectionStatusEnum.REACHABLE)
+                .map(HostConnectionVO::getHostname)
+                .toList();
+        if (!unreachableHostnames.isEmpty()) {
+            throw new ApiException(ApiExceptionEnum.HOST_UNABLE_TO_CONNECT, String.join(",", unreachableHostnames));
         }
 
         return true;
     }
 
+    @Override
+    public SseEmitter checkConnectionStream(HostDTO hostDTO) {
+        setDefaultValues(hostDTO);
+        SseEmitter emitter = new SseEmitter(0L);
+        hostConnectionChecker
+                .check(hostDTO, result -> {
+                    try {
+                        emitter.send(result);
+                    } catch (Exception e) {
+                        log.warn("Unable to send connection result, hostname: {}", result.getHostname(), e);
+                    }
+                })
+                .whenComplete((results, throwable) -> {
+                    if (throwable == null) {
+                        emitter.complete();
+                    } else {
+                        emitter.completeWithError(throwable);
+                    }
+                });
+
+        return emitter;
+    }
+
     @Override
     public Boolean installDependencies(List<HostDTO> hostDTOList) {
         // Clear cache list
         installedStatus.clear();
 
+        // Read the agent script once for all hosts
+        byte[] setupScript = null;
+        String readError = null;
+        try {
+            setupScript = agentFileTransfer.readSetupScript();
+        } catch (IOException e) {
+            log.error("Unable to read agent script", e);
+            readError = e.getMessage();
+        }
+
         for (HostDTO hostDTO : hostDTOList) {
             setDefaultValues(hostDTO);
             for (String hostname : hostDTO.getHostnames()) {
@@ -240,10 +301,17 @@ public class HostServiceImpl implements HostService {
                 installedStatusVO.setStatus(InstalledStatusEnum.INSTALLING);
                 installedStatus.add(installedStatusVO);
 
+                if (setupScript == null) {
+                    installedStatusVO.setStatus(InstalledStatusEnum.FAILED);
+                    installedStatusVO.setMessage(readError);
+                    continue;
+                }
+
                 // Async install dependencies
+                byte[] script = setupScript;
                 executorService.submit(() -> {
                     try {
-                        installDependencies(hostDTO, hostname, installedStatusVO);
+                        installDependencies(hostDTO, hostname, installedStatusVO, script);
                     } catch (Exception e) {
                         log.error("Unable to install dependencies on host, hostname: {}", hostname, e);
                         installedStatusVO.setStatus(InstalledStatusEnum.FAILED);
@@ -272,32 +340,38 @@ public class HostServiceImpl implements HostService {
         return true;
     }
 
-    public void installDependencies(HostDTO hostDTO, String hostname, InstalledStatusVO installedStatusVO) {
+    public void installDependencies(
+            HostDTO hostDTO, String hostname, InstalledStatusVO installedStatusVO, byte[] setupScript) {
         String path = hostDTO.getAgentDir();
         String repoUrl = repoDao.findByName("agent").getBaseUrl();
         int grpcPort = hostDTO.getGrpcPort();
+        Consumer<String> outputConsumer = line -> appendOutput(installedStatusVO, line);
 
-        String command;
         try {
-            String script = ProjectPathUtils.getServerScriptPath() + File.separator + "setup-agent.sh";
-            String content = Files.readString(Path.of(script));
-            command = "cat << 'EOF' > ./setup-agent.sh\n" + content + "\nEOF\n" + "chmod +x ./setup-agent.sh";
-            ShellResult result = execCommandOnRemoteHost(hostDTO, hostname, command);
-            if (result.getExitCode() != MessageConstants.SUCCESS_CODE) {
-                log.error("Unable to write agent script, hostname: {}, msg: {}", hostname, result);
-                installedStatusVO.setStatus(InstalledStatusEnum.FAILED);
-                installedStatusVO.setMessage(result.getErrMsg());
-                return;
-            }
-        } catch (IOException e) {
-            log.error("Unable to write agent script, hostname: {}, msg: {}", hostname, e.getMessage());
+            agentFileTransfer.pushSetupScript(hostDTO, hostname, setupScript);
+        } catch (Exception e) {
+            log.error("Unable to write agent script, hostname: {}", hostname, e);
+            installedStatusVO.setStatus(InstalledStatusEnum.FAILED);
+            installedStatusVO.setMessage(e.getMessage());
+            return;
+        }
+
+        String checksum;
+        try {
+            checksum = agentFileTransfer.pushAgentTarball(hostDTO, hostname, outputConsumer);
+        } catch (Exception e) {
+            log.error("Unable to push agent tarball, hostname: {}", hostname, e);
             installedStatusVO.setStatus(InstalledStatusEnum.FAILED);
             installedStatusVO.setMessage(e.getMessage());
             return;
         }
 
-        command = "./setup-agent.sh " + path + " " + repoUrl + " " + grpcPort;
-        ShellResult result = execCommandOnRemoteHost(hostDTO, hostname, command);
+        String command = "./" + AgentFileTransfer.SETUP_SCRIPT + " " + path + " " + repoUrl + " " + grpcPort;
+        if (checksum != null) {
+            command += " SHA-256 " + checksum;
+        }
+
+        ShellResult result = execCommandOnRemoteHost(hostDTO, hostname, command, outputConsumer);
         if (result.getExitCode() != MessageConstants.SUCCESS_CODE) {
             log.error("Unable to setup agent, hostname: {}, msg: {}", hostname, result);
             installedStatusVO.setStatus(InstalledStatusEnum.FAILED);
@@ -308,29 +382,27 @@ public class HostServiceImpl implements HostService {
         installedStatusVO.setStatus(InstalledStatusEnum.SUCCESS);
     }
 
-    private ShellResult execCommandOnRemoteHost(HostDTO hostDTO, String hostname, String command) {
-        HostAuthTypeEnum authType = HostAuthTypeEnum.fromCode(hostDTO.getAuthType());
+    private ShellResult execCommandOnRemoteHost(
+            HostDTO hostDTO, String hostname, String command, Consumer<String> outputConsumer) {
         try {
-            return switch (authType) {
-                case PASSWORD -> RemoteSSHUtils.executeCommand(
-                        hostname, hostDTO.getSshPort(), hostDTO.getSshUser(), hostDTO.getSshPassword(), command);
-                case KEY -> RemoteSSHUtils.executeCommand(
-                        hostname,
-                        hostDTO.getSshPort(),
-                        hostDTO.getSshUser(),
-                        hostDTO.getSshKeyFilename(),
-                        hostDTO.getSshKeyString(),
-                        hostDTO.getSshKeyPassword(),
-                        command);
-                case NO_AUTH -> RemoteSSHUtils.executeCommand(
-                        hostname, hostDTO.getSshPort(), hostDTO.getSshUser(), command);
-            };
+            return sshSessionManager.execute(hostDTO, hostname, command, outputConsumer);
         } catch (Exception e) {
             log.error("Unable to exec command on host, hostname: {}, command: {}", hostname, command, e);
             throw new RuntimeException(e);
         }
     }
 
+    private void appendOutput(InstalledStatusVO installedStatusVO, String line) {
+        synchronized (installedStatusVO) {
+            String output = StringUtils.defaultString(installedStatusVO.getOutput()) + line + "\n";
+            if (output.length() > MAX_OUTPUT_LENGTH) {
+                output = output.substring(output.length() - MAX_OUTPUT_LENGTH);
+            }
+
+            installedStatusVO.setOutput(output);
+        }
+    }
+
     private void setDefaultValues(HostDTO hostDTO) {
         if (hostDTO == null) {
             return;
@@ -31,6 +31,7 @@ import org.apache.bigtop.manager.server.command.factory.JobFactories;
 import org.apache.bigtop.manager.server.command.factory.JobFactory;
 import org.apache.bigtop.manager.server.command.job.Job;
 import org.apache.bigtop.manager.server.command.job.JobContext;
+import org.apache.bigtop.manager.server.command.journal.JobStateJournal;
 import org.apache.bigtop.manager.server.command.scheduler.JobScheduler;
 import org.apache.bigtop.manager.server.command.stage.Stage;
 import org.apache.bigtop.manager.server.command.task.Task;
@@ -74,6 +75,9 @@ public class JobServiceImpl implements JobService {
     @Resource
     private JobScheduler jobScheduler;
 
+    @Resource
+    private JobStateJournal jobStateJournal;
+
     @Override
     public PageVO<JobVO> jobs(Long clusterId) {
         PageQuery pageQuery = PageUtils.getPageQuery();
@@ -186,15 +190,16 @@ public class JobServiceImpl implements JobService {
         for (StagePO stagePO : stageDao.findByJobId(jobPO.getId())) {
             for (TaskPO taskPO : taskDao.findByStageId(stagePO.getId())) {
                 taskPO.setState(JobState.PENDING.getName());
-                taskDao.partialUpdateById(taskPO);
+                jobStateJournal.recordTask(taskPO);
             }
 
             stagePO.setState(JobState.PENDING.getName());
-            stageDao.partialUpdateById(stagePO);
+            jobStateJournal.recordStage(stagePO);
         }
 
         jobPO.setState(JobState.PENDING.getName());
-        jobDao.partialUpdateById(jobPO);
+        jobStateJournal.recordJob(jobPO);
+        jobStateJournal.flush();
     }
 
     private Job recreateJob(JobPO jobPO) {
@@ -22,12 +22,14 @@ import org.apache.bigtop.manager.dao.po.ServicePO;
 import org.apache.bigtop.manager.dao.repository.ClusterDao;
 import org.apache.bigtop.manager.dao.repository.ServiceDao;
 import org.apache.bigtop.manager.server.model.converter.ClusterConverter;
+import org.apache.bigtop.manager.server.model.converter.ServiceConfigConverter;
 import org.apache.bigtop.manager.server.model.converter.ServiceConverter;
 import org.apache.bigtop.manager.server.model.converter.StackConverter;
 import org.apache.bigtop.manager.server.model.dto.ServiceDTO;
 import org.apache.bigtop.manager.server.model.dto.StackDTO;
 import org.apache.bigtop.manager.server.model.vo.ClusterVO;
 import org.apache.bigtop.manager.server.model.vo.ServiceClusterVO;
+import org.apache.bigtop.manager.server.model.vo.ServiceVO;
 import org.apache.bigtop.manager.server.model.vo.StackVO;
 import org.apache.bigtop.manager.server.service.StackService;
 import org.apache.bigtop.manager.server.utils.StackUtils;
@@ -59,15 +61,20 @@ public class StackServiceImpl implements StackService {
     public List<StackVO> list() {
         List<StackVO> stackVOList = new ArrayList<>();
 
-        for (Map.Entry<StackDTO, List<ServiceDTO>> entry : StackUtils.STACK_SERVICE_MAP.entrySet()) {
+        for (Map.Entry<StackDTO, List<ServiceDTO>> entry :
+                StackUtils.getStackServiceMap().entrySet()) {
             StackDTO stackDTO = entry.getKey();
             List<ServiceDTO> serviceDTOList = entry.getValue();
-            for (ServiceDTO serviceDTO : serviceDTOList) {
-                serviceDTO.setConfigs(StackUtils.SERVICE_CONFIG_MAP.get(serviceDTO.getName()));
+
+            // Stack services are shared, configs are only set on the returned objects
+            List<ServiceVO> serviceVOList = ServiceConverter.INSTANCE.fromDTO2VO(serviceDTOList);
+            for (ServiceVO serviceVO : serviceVOList) {
+                serviceVO.setConfigs(
+                        ServiceConfigConverter.INSTANCE.fromDTO2VO(StackUtils.getServiceConfigs(serviceVO.getName())));
             }
 
             StackVO stackVO = StackConverter.INSTANCE.fromDTO2VO(stackDTO);
-            stackVO.setServices(ServiceConverter.INSTANCE.fromDTO2VO(serviceDTOList));
+            stackVO.setServices(serviceVOList);
             stackVOList.add(stackVO);
         }
 
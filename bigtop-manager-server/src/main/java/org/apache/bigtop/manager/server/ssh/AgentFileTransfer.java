@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.ssh;
+
+import org.apache.bigtop.manager.common.constants.MessageConstants;
+import org.apache.bigtop.manager.common.shell.ShellResult;
+import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
+import org.apache.bigtop.manager.server.config.SshConfig;
+import org.apache.bigtop.manager.server.model.dto.HostDTO;
+
+import org.apache.commons.lang3.StringUtils;
+
+import org.springframework.stereotype.Component;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import lombok.extern.slf4j.Slf4j;
+
+import jakarta.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.function.Consumer;
+
+/**
+ * Pushes the files needed to set up the agent to hosts over sftp, on the sessions of {@link SshSessionManager}.
+ * <p>
+ * The agent tarball is only pushed if {@link SshConfig#getAgentTarball()} is set, otherwise hosts download
+ * it from the agent repo as before.
+ */
+@Slf4j
+@Component
+public class AgentFileTransfer {
+
+    public static final String SETUP_SCRIPT = "setup-agent.sh";
+
+    private static final String AGENT_TARBALL = "bigtop-manager-agent.tar.gz";
+
+    @Resource
+    private SshConfig sshConfig;
+
+    @Resource
+    private SshSessionManager sshSessionManager;
+
+    private volatile TarballChecksum tarballChecksum;
+
+    public byte[] readSetupScript() throws IOException {
+        return Files.readAllBytes(Path.of(ProjectPathUtils.getServerScriptPath(), SETUP_SCRIPT));
+    }
+
+    /**
+     * Write the setup script to the home directory of the ssh user.
+     */
+    public void pushSetupScript(HostDTO hostDTO, String hostname, byte[] setupScript) throws Exception {
+        sshSessionManager.upload(hostDTO, hostname, new ByteArrayInputStream(setupScript), SETUP_SCRIPT, 0755);
+    }
+
+    /**
+     * Write the local agent tarball to the agent dir of the host, unless the host already has the same one.
+     * The tarball is uploaded next to the target first and only moved in place once its SHA-256 matches.
+     *
+     * @param progressConsumer receives a line for every step, can be null
+     * @return SHA-256 of the tarball on the host, null if no local tarball is configured
+     */
+    public String pushAgentTarball(HostDTO hostDTO, String hostname, Consumer<String> progressConsumer)
+            throws Exception {
+        if (StringUtils.isBlank(sshConfig.getAgentTarball())) {
+            return null;
+        }
+
+        Path tarball = Path.of(sshConfig.getAgentTarball());
+        String checksum = checksum(tarball);
+        String remotePath = hostDTO.getAgentDir() + "/" + AGENT_TARBALL;
+        if (checksum.equals(remoteChecksum(hostDTO, hostname, remotePath))) {
+            progress(progressConsumer, "Agent tarball already on host: " + remotePath);
+            return checksum;
+        }
+
+        String partPath = remotePath + ".part";
+        progress(progressConsumer, "Pushing agent tarball to host: " + remotePath);
+        try (InputStream inputStream = Files.newInputStream(tarball)) {
+            sshSessionManager.upload(hostDTO, hostname, inputStream, partPath, 0644);
+        }
+
+        String uploadedChecksum = remoteChecksum(hostDTO, hostname, partPath);
+        if (!checksum.equals(uploadedChecksum)) {
+            exec(hostDTO, hostname, "rm -f " + quote(partPath));
+            throw new IOException("Checksum mismatch of agent tarball pushed to host, expected SHA-256=" + checksum
+                    + ", found=" + uploadedChecksum);
+        }
+
+        exec(hostDTO, hostname, "mv -f " + quote(partPath) + " " + quote(remotePath));
+        progress(progressConsumer, "Pushed agent tarball to host, SHA-256=" + checksum);
+        return checksum;
+    }
+
+    private String remoteChecksum(HostDTO hostDTO, String hostname, String remotePath) throws Exception {
+        ShellResult result =
+                sshSessionManager.execute(hostDTO, hostname, "sha256sum " + quote(remotePath) + " 2>/dev/null", null);
+        if (result.getExitCode() != MessageConstants.SUCCESS_CODE) {
+            return null;
+        }
+
+        return StringUtils.substringBefore(result.getOutput().trim(), " ");
+    }
+
+    private void exec(HostDTO hostDTO, String hostname, String command) throws Exception {
+        ShellResult result = sshSessionManager.execute(hostDTO, hostname, command, null);
+        if (result.getExitCode() != MessageConstants.SUCCESS_CODE) {
+            throw new IOException("Unable to exec command on host: " + command + ", msg: " + result.getErrMsg());
+        }
+    }
+
+    /**
+     * SHA-256 of the local tarball, only hashed again once the file changes
+     */
+    private String checksum(Path tarball) throws IOException {
+        long size = Files.size(tarball);
+        FileTime lastModified = Files.getLastModifiedTime(tarball);
+        TarballChecksum cached = tarballChecksum;
+        if (cached != null
+                && cached.path().equals(tarball)
+                && cached.size() == size
+                && cached.lastModified().equals(lastModified)) {
+            return cached.checksum();
+        }
+
+        String checksum = MoreFiles.asByteSource(tarball).hash(Hashing.sha256()).toString();
+        tarballChecksum = new TarballChecksum(tarball, size, lastModified, checksum);
+        return checksum;
+    }
+
+    private void progress(Consumer<String> progressConsumer, String line) {
+        if (progressConsumer != null) {
+            progressConsumer.accept(line);
+        }
+    }
+
+    private static String quote(String path) {
+        return "'" + path.replace("'", "'\\''") + "'";
+    }
+
+    private record TarballChecksum(Path path, long size, FileTime lastModified, String checksum) {}
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.ssh;
+
+import org.apache.bigtop.manager.common.constants.MessageConstants;
+import org.apache.bigtop.manager.common.shell.ShellResult;
+import org.apache.bigtop.manager.server.config.SshConfig;
+import org.apache.bigtop.manager.server.enums.HostConnectionStatusEnum;
+import org.apache.bigtop.manager.server.model.dto.HostDTO;
+import org.apache.bigtop.manager.server.model.vo.HostConnectionVO;
+
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Checks whether hosts can be reached over ssh, at most {@link SshConfig#getMaxConcurrentChecks()} hosts
+ * at the same time.
+ * <p>
+ * Every host gets its own result, reachable hosts keep their session open in {@link SshSessionManager}
+ * so setting up the agent on them right after doesn't log in again.
+ */
+@Slf4j
+@Component
+public class HostConnectionChecker {
+
+    private static final String CHECK_COMMAND = "hostname";
+
+    @Resource
+    private SshConfig sshConfig;
+
+    @Resource
+    private SshSessionManager sshSessionManager;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(
+                Math.max(1, sshConfig.getMaxConcurrentChecks()),
+                new ThreadFactoryBuilder().setNameFormat("host-check-%d").build());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Check all hostnames of the host dto.
+     *
+     * @param resultConsumer receives the result of each host as soon as it's known, can be null
+     * @return results of all hosts in the order of the hostnames
+     */
+    public CompletableFuture<List<HostConnectionVO>> check(HostDTO hostDTO, Consumer<HostConnectionVO> resultConsumer) {
+        List<CompletableFuture<HostConnectionVO>> futures = new ArrayList<>();
+        for (String hostname : hostDTO.getHostnames()) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> {
+                        HostConnectionVO result = check(hostDTO, hostname);
+                        if (resultConsumer != null) {
+                            resultConsumer.accept(result);
+                        }
+
+                        return result;
+                    },
+                    executor));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream().map(CompletableFuture::join).toList());
+    }
+
+    private HostConnectionVO check(HostDTO hostDTO, String hostname) {
+        HostConnectionVO result = new HostConnectionVO();
+        result.setHostname(hostname);
+
+        long start = System.nanoTime();
+        try {
+            long timeout = TimeUnit.SECONDS.toMillis(sshConfig.getConnectTimeout());
+            ShellResult shellResult = sshSessionManager.execute(hostDTO, hostname, CHECK_COMMAND, null, timeout);
+            if (shellResult.getExitCode() == MessageConstants.SUCCESS_CODE) {
+                result.setStatus(HostConnectionStatusEnum.REACHABLE);
+            } else {
+                result.setStatus(HostConnectionStatusEnum.FAILED);
+                result.setMessage(shellResult.getErrMsg());
+            }
+        } catch (SshAuthException e) {
+            result.setStatus(HostConnectionStatusEnum.AUTH_FAILED);
+            result.setMessage(e.getMessage());
+        } catch (TimeoutException e) {
+            result.setStatus(HostConnectionStatusEnum.TIMEOUT);
+            result.setMessage(e.getMessage());
+        } catch (Exception e) {
+            result.setStatus(HostConnectionStatusEnum.FAILED);
+            result.setMessage(e.getMessage());
+        }
+
+        result.setLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (result.getStatus() == HostConnectionStatusEnum.REACHABLE) {
+            log.info("Successfully connected to host, hostname: {}, latency: {} ms", hostname, result.getLatency());
+        } else {
+            log.error(
+                    "Unable to connect to host, hostname: {}, status: {}, msg: {}",
+                    hostname,
+                    result.getStatus(),
+                    result.getMessage());
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.ssh;
+
+import org.apache.bigtop.manager.common.shell.ShellResult;
+import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
+import org.apache.bigtop.manager.server.config.SshConfig;
+import org.apache.bigtop.manager.server.enums.HostAuthTypeEnum;
+import org.apache.bigtop.manager.server.model.dto.HostDTO;
+import org.apache.bigtop.manager.server.utils.RemoteSSHUtils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sshd.client.SshClient;
+import org.apache.sshd.client.future.AuthFuture;
+import org.apache.sshd.client.future.ConnectFuture;
+import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.common.SshException;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Runs commands on and uploads files to hosts over ssh through a single started {@link SshClient}.
+ * <p>
+ * One authenticated session is kept per host, user and credentials, every command or upload opens its own
+ * exec or sftp channel on it, so setting up a host only connects and logs in once. Sessions no command or
+ * upload used for {@link SshConfig#getSessionIdleTimeout()} seconds are closed, sessions in use are never
+ * closed however long their commands stay quiet.
+ */
+@Slf4j
+@Component
+public class SshSessionManager {
+
+    @Resource
+    private SshConfig sshConfig;
+
+    private SshClient client;
+
+    private final Map<SessionKey, PooledSession> sessions = new ConcurrentHashMap<>();
+
+    private final Map<SessionKey, CompletableFuture<PooledSession>> connecting = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        client = SshClient.setUpDefaultClient();
+        client.start();
+    }
+
+    /**
+     * Close the sessions not used by any command or upload for the idle timeout.
+     */
+    @Scheduled(fixedDelay = 30, timeUnit = TimeUnit.SECONDS)
+    public void evictIdleSessions() {
+        long idleNanos = TimeUnit.SECONDS.toNanos(sshConfig.getSessionIdleTimeout());
+        for (Map.Entry<SessionKey, PooledSession> entry : sessions.entrySet()) {
+            PooledSession pooled = entry.getValue();
+            if (pooled.evictIfIdle(idleNanos)) {
+                sessions.remove(entry.getKey(), pooled);
+                pooled.session().close(false);
+                log.info(
+                        "Closed idle ssh session to host, hostname: {}",
+                        entry.getKey().hostname());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        sessions.clear();
+        client.stop();
+    }
+
+    /**
+     * Run a command on the host with the ssh user and credentials of the host dto.
+     *
+     * @param outputConsumer receives every output line of the command as soon as it arrives, can be null
+     */
+    public ShellResult execute(HostDTO hostDTO, String hostname, String command, Consumer<String> outputConsumer)
+            throws Exception {
+        return execute(hostDTO, hostname, command, outputConsumer, 0L);
+    }
+
+    /**
+     * Run a command on the host with the ssh user and credentials of the host dto.
+     * <p>
+     * Connecting and logging in fail with a {@link TimeoutException} after {@link SshConfig#getConnectTimeout()}
+     * seconds each, and with a {@link SshAuthException} if the host refuses the credentials.
+     *
+     * @param outputConsumer receives every output line of the command as soon as it arrives, can be null
+     * @param timeoutMillis time the command may run, 0 means no timeout
+     */
+    public ShellResult execute(
+            HostDTO hostDTO, String hostname, String command, Consumer<String> outputConsumer, long timeoutMillis)
+            throws Exception {
+        PooledSession pooled = borrow(hostDTO, hostname);
+        try {
+            return RemoteSSHUtils.execute(pooled.session(), command, outputConsumer, timeoutMillis);
+        } finally {
+            pooled.release();
+        }
+    }
+
+    /**
+     * Write the content to a file on the host over sftp, see {@link RemoteSSHUtils#upload}.
+     */
+    public void upload(HostDTO hostDTO, String hostname, InputStream content, String remotePath, int permissions)
+            throws Exception {
+        PooledSession pooled = borrow(hostDTO, hostname);
+        try {
+            RemoteSSHUtils.upload(pooled.session(), content, remotePath, permissions);
+        } finally {
+            pooled.release();
+        }
+    }
+
+    public int getOpenSessions() {
+        return sessions.size();
+    }
+
+    private PooledSession borrow(HostDTO hostDTO, String hostname) throws Exception {
+        SessionKey key = SessionKey.of(hostDTO, hostname);
+        while (true) {
+            PooledSession pooled = sessions.get(key);
+            if (pooled != null && pooled.tryBorrow()) {
+                return pooled;
+            }
+
+            // Only one thread connects to the same host, the others wait and borrow its session
+            CompletableFuture<PooledSession> future = new CompletableFuture<>();
+            CompletableFuture<PooledSession> pending = connecting.putIfAbsent(key, future);
+            if (pending != null) {
+                try {
+                    pending.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+
+                continue;
+            }
+
+            try {
+                pooled = sessions.get(key);
+                if (pooled == null || !pooled.tryBorrow()) {
+                    pooled = new PooledSession(connect(hostDTO, hostname));
+                    pooled.tryBorrow();
+                    sessions.put(key, pooled);
+
+                    PooledSession connected = pooled;
+                    pooled.session().addCloseFutureListener(f -> sessions.remove(key, connected));
+                }
+
+                future.complete(pooled);
+                return pooled;
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                connecting.remove(key, future);
+            }
+        }
+    }
+
+    private ClientSession connect(HostDTO hostDTO, String hostname) throws Exception {
+        long timeout = TimeUnit.SECONDS.toMillis(sshConfig.getConnectTimeout());
+        ConnectFuture connectFuture = client.connect(hostDTO.getSshUser(), hostname, hostDTO.getSshPort());
+        if (!connectFuture.await(timeout)) {
+            connectFuture.cancel();
+            throw new TimeoutException("Unable to connect to " + hostname + " in " + timeout + " ms");
+        }
+
+        if (connectFuture.getException() != null) {
+            Throwable cause = connectFuture.getException();
+            throw new SshException("Unable to connect to " + hostname + ": " + cause.getMessage(), cause);
+        }
+
+        ClientSession session = connectFuture.getSession();
+        try {
+            switch (HostAuthTypeEnum.fromCode(hostDTO.getAuthType())) {
+                case PASSWORD -> session.addPasswordIdentity(hostDTO.getSshPassword());
+                case KEY -> {
+                    String keyPath = StringUtils.isEmpty(hostDTO.getSshKeyFilename())
+                            ? null
+                            : ProjectPathUtils.getKeyStorePath() + File.separator + hostDTO.getSshKeyFilename();
+                    for (KeyPair keyPair : RemoteSSHUtils.loadKeyPairs(
+                            keyPath, hostDTO.getSshKeyString(), hostDTO.getSshKeyPassword())) {
+                        session.addPublicKeyIdentity(keyPair);
+                    }
+                }
+                case NO_AUTH -> {}
+            }
+
+            AuthFuture authFuture = session.auth();
+            if (!authFuture.await(timeout)) {
+                throw new TimeoutException("Unable to log in to " + hostname + " in " + timeout + " ms");
+            }
+
+            if (!authFuture.isSuccess()) {
+                throw new SshAuthException(
+                        "Unable to log in to " + hostname + " as " + hostDTO.getSshUser(), authFuture.getException());
+            }
+
+            log.info("Opened ssh session to host, hostname: {}", hostname);
+            return session;
+        } catch (Exception e) {
+            session.close(true);
+            throw e;
+        }
+    }
+
+    /**
+     * A session with the number of commands and uploads using it, and when the last one finished
+     */
+    private static final class PooledSession {
+
+        private final ClientSession session;
+
+        private int borrowers;
+
+        private long lastReleased = System.nanoTime();
+
+        private boolean evicted;
+
+        private PooledSession(ClientSession session) {
+            this.session = session;
+        }
+
+        private ClientSession session() {
+            return session;
+        }
+
+        private synchronized boolean tryBorrow() {
+            if (evicted || !session.isOpen()) {
+                return false;
+            }
+
+            borrowers++;
+            return true;
+        }
+
+        private synchronized void release() {
+            borrowers--;
+            lastReleased = System.nanoTime();
+        }
+
+        private synchronized boolean evictIfIdle(long idleNanos) {
+            if (!evicted && borrowers == 0 && System.nanoTime() - lastReleased >= idleNanos) {
+                evicted = true;
+                return true;
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Sessions are only shared by commands with the same credentials, which are kept as a digest.
+     */
+    private record SessionKey(String hostname, Integer port, String user, String credentials) {
+
+        private static SessionKey of(HostDTO hostDTO, String hostname) {
+            Hasher hasher = Hashing.sha256().newHasher();
+            hasher.putInt(hostDTO.getAuthType());
+            for (String value : new String[] {
+                hostDTO.getSshPassword(),
+                hostDTO.getSshKeyFilename(),
+                hostDTO.getSshKeyString(),
+                hostDTO.getSshKeyPassword()
+            }) {
+                hasher.putString(StringUtils.defaultString(value), StandardCharsets.UTF_8)
+                        .putByte((byte) 0);
+            }
+
+            return new SessionKey(
+                    hostname,
+                    hostDTO.getSshPort(),
+                    hostDTO.getSshUser(),
+                    hasher.hash().toString());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.stack;
+
+import org.apache.bigtop.manager.server.model.dto.ComponentDTO;
+import org.apache.bigtop.manager.server.model.dto.ServiceConfigDTO;
+import org.apache.bigtop.manager.server.model.dto.ServiceDTO;
+import org.apache.bigtop.manager.server.model.dto.StackDTO;
+import org.apache.bigtop.manager.server.stack.dag.ComponentCommandWrapper;
+import org.apache.bigtop.manager.server.stack.dag.DAG;
+import org.apache.bigtop.manager.server.stack.dag.DagGraphEdge;
+import org.apache.bigtop.manager.server.stack.dag.ExecutionPlanner;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A parsed snapshot of all stacks, indexed by service and component name.
+ * <p>
+ * A registry is never modified once built, a reload builds a new one which replaces this one as a whole,
+ * so readers always see the stacks of a single parse. The DTOs are shared by all readers and must be
+ * copied before being changed.
+ */
+@Slf4j
+@Getter
+public class StackRegistry {
+
+    public static final StackRegistry EMPTY = new StackRegistry(Map.of(), Map.of(), Map.of(), new DAG<>(), 0L);
+
+    private final Map<StackDTO, List<ServiceDTO>> stackServices;
+
+    /**
+     * Service name -> configurations in the stack
+     */
+    private final Map<String, List<ServiceConfigDTO>> serviceConfigs;
+
+    /**
+     * Service name -> template file name -> content
+     */
+    private final Map<String, Map<String, String>> serviceTemplates;
+
+    /**
+     * Role command dependencies of all stacks, see order.json of each service
+     */
+    private final DAG<String, ComponentCommandWrapper, DagGraphEdge> dag;
+
+    /**
+     * Orders role commands by {@link #dag}
+     */
+    private final ExecutionPlanner executionPlanner;
+
+    /**
+     * Of the stack files this registry is parsed from, changes when any of them changes
+     */
+    private final long fingerprint;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<String, StackDTO> serviceStacks;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<String, ServiceDTO> services;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<String, ComponentDTO> components;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<String, ServiceDTO> componentServices;
+
+    public StackRegistry(
+            Map<StackDTO, List<ServiceDTO>> stackServices,
+            Map<String, List<ServiceConfigDTO>> serviceConfigs,
+            Map<String, Map<String, String>> serviceTemplates,
+            DAG<String, ComponentCommandWrapper, DagGraphEdge> dag,
+            long fingerprint) {
+        Map<StackDTO, List<ServiceDTO>> stackServicesCopy = new LinkedHashMap<>();
+        stackServices.forEach(
+                (stackDTO, serviceDTOList) -> stackServicesCopy.put(stackDTO, List.copyOf(serviceDTOList)));
+        Map<String, Map<String, String>> serviceTemplatesCopy = new HashMap<>();
+        serviceTemplates.forEach(
+                (serviceName, templates) -> serviceTemplatesCopy.put(serviceName, Map.copyOf(templates)));
+        Map<String, List<ServiceConfigDTO>> serviceConfigsCopy = new HashMap<>();
+        serviceConfigs.forEach((serviceName, configs) -> serviceConfigsCopy.put(serviceName, List.copyOf(configs)));
+
+        this.stackServices = Collections.unmodifiableMap(stackServicesCopy);
+        this.serviceConfigs = Collections.unmodifiableMap(serviceConfigsCopy);
+        this.serviceTemplates = Collections.unmodifiableMap(serviceTemplatesCopy);
+        this.dag = dag;
+        this.executionPlanner = new ExecutionPlanner(dag);
+        this.fingerprint = fingerprint;
+
+        Map<String, StackDTO> serviceStackIndex = new HashMap<>();
+        Map<String, ServiceDTO> serviceIndex = new HashMap<>();
+        Map<String, ComponentDTO> componentIndex = new HashMap<>();
+        Map<String, ServiceDTO> componentServiceIndex = new HashMap<>();
+        this.stackServices.forEach((stackDTO, serviceDTOList) -> {
+            for (ServiceDTO serviceDTO : serviceDTOList) {
+                if (serviceIndex.putIfAbsent(serviceDTO.getName(), serviceDTO) != null) {
+                    log.warn(
+                            "Service [{}] is defined in more than one stack, using the first one",
+                            serviceDTO.getName());
+                    continue;
+                }
+
+                serviceStackIndex.put(serviceDTO.getName(), stackDTO);
+                for (ComponentDTO componentDTO : serviceDTO.getComponents()) {
+                    if (componentIndex.putIfAbsent(componentDTO.getName(), componentDTO) == null) {
+                        componentServiceIndex.put(componentDTO.getName(), serviceDTO);
+                    } else {
+                        log.warn(
+                                "Component [{}] is defined in more than one service, using the first one",
+                                componentDTO.getName());
+                    }
+                }
+            }
+        });
+
+        this.serviceStacks = Map.copyOf(serviceStackIndex);
+        this.services = Map.copyOf(serviceIndex);
+        this.components = Map.copyOf(componentIndex);
+        this.componentServices = Map.copyOf(componentServiceIndex);
+    }
+
+    /**
+     * @return the stack of the service, or null if no stack has it
+     */
+    public StackDTO getServiceStack(String serviceName) {
+        return serviceStacks.get(serviceName);
+    }
+
+    public ServiceDTO getService(String serviceName) {
+        return services.get(serviceName);
+    }
+
+    public ComponentDTO getComponent(String componentName) {
+        return components.get(componentName);
+    }
+
+    public ServiceDTO getServiceByComponentName(String componentName) {
+        return componentServices.get(componentName);
+    }
+}
@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -303,6 +304,45 @@ public class DAG<Node, NodeInfo, EdgeInfo> {
         }
     }
 
+    /**
+     * whether there is a path from the origin node to the destination node, direct or through other nodes
+     *
+     * @param fromNode node of origin
+     * @param toNode node of destination
+     * @return true if toNode can be reached from fromNode
+     */
+    public boolean containsPath(Node fromNode, Node toNode) {
+        lock.readLock().lock();
+
+        try {
+            if (!nodesMap.containsKey(fromNode) || !nodesMap.containsKey(toNode)) {
+                return false;
+            }
+
+            Set<Node> visited = new HashSet<>();
+            Queue<Node> queue = new LinkedList<>();
+            queue.add(fromNode);
+
+            while (!queue.isEmpty()) {
+                Node key = queue.poll();
+
+                for (Node subsequentNode : getNeighborNodes(key, edgesMap)) {
+                    if (subsequentNode.equals(toNode)) {
+                        return true;
+                    }
+
+                    if (visited.add(subsequentNode)) {
+                        queue.add(subsequentNode);
+                    }
+                }
+            }
+
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     /**
      * whether the graph has a ring
      *
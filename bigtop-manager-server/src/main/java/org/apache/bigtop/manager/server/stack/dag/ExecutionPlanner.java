@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.stack.dag;
+
+import org.apache.bigtop.manager.common.enums.Command;
+import org.apache.bigtop.manager.server.exception.ServerException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Orders the role commands of a job by the stack DAG, which is sorted once when the stacks are parsed.
+ * <p>
+ * Each role command in the DAG gets its rank in the topological order, a plan then only sorts the requested
+ * role commands by rank. Plans are cached by the requested components and commands, the planner is part of a
+ * {@link org.apache.bigtop.manager.server.stack.StackRegistry} so reloaded stacks start with an empty cache.
+ */
+public class ExecutionPlanner {
+
+    // order.json only has start/stop dependencies, other commands of several ones run in this order around them
+    private static final List<Command> COMMAND_ORDER =
+            List.of(Command.ADD, Command.CONFIGURE, Command.INIT, Command.START, Command.PREPARE, Command.CHECK);
+
+    private static final int MAX_CACHED_PLANS = 1024;
+
+    /**
+     * Upper-cased role command, e.g. ZOOKEEPER_SERVER-START -> position in the topological order of the DAG
+     */
+    private final Map<String, Integer> ranks;
+
+    private final Map<PlanKey, List<String>> plans = new ConcurrentHashMap<>();
+
+    public ExecutionPlanner(DAG<String, ComponentCommandWrapper, DagGraphEdge> dag) {
+        List<String> order;
+        try {
+            order = dag.getAllNodesList().isEmpty() ? List.of() : dag.topologicalSort();
+        } catch (Exception e) {
+            throw new ServerException(e);
+        }
+
+        Map<String, Integer> ranks = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            ranks.putIfAbsent(order.get(i).toUpperCase(), i);
+        }
+
+        this.ranks = Map.copyOf(ranks);
+    }
+
+    /**
+     * Role commands to run for the components, like COMPONENT-COMMAND in upper case.
+     * Role commands in the DAG come in its order, the others in the order of the components.
+     * With more than one command, the others are grouped by command and the DAG ones run in place of START.
+     */
+    public List<String> plan(List<String> componentNames, List<Command> commands) {
+        PlanKey key = new PlanKey(List.copyOf(componentNames), List.copyOf(commands));
+        List<String> plan = plans.get(key);
+        if (plan == null) {
+            plan = compute(key.componentNames(), key.commands());
+            if (plans.size() >= MAX_CACHED_PLANS) {
+                plans.clear();
+            }
+
+            plans.put(key, plan);
+        }
+
+        return plan;
+    }
+
+    private List<String> compute(List<String> componentNames, List<Command> commands) {
+        Set<String> ordered = new LinkedHashSet<>();
+        Map<Command, List<String>> others = new HashMap<>();
+        for (String componentName : componentNames) {
+            for (Command command : commands) {
+                String name = componentName.toUpperCase() + "-" + command.name();
+                if (ranks.containsKey(name)) {
+                    ordered.add(name);
+                } else {
+                    others.computeIfAbsent(command, k -> new ArrayList<>()).add(name);
+                }
+            }
+        }
+
+        List<String> sorted = new ArrayList<>(ordered);
+        sorted.sort(Comparator.comparingInt(ranks::get));
+
+        List<String> plan = new ArrayList<>(sorted.size() + componentNames.size() * commands.size());
+        if (commands.size() == 1) {
+            plan.addAll(sorted);
+            plan.addAll(others.getOrDefault(commands.get(0), List.of()));
+        } else {
+            for (Command command : COMMAND_ORDER) {
+                plan.addAll(others.getOrDefault(command, List.of()));
+                if (command == Command.START) {
+                    plan.addAll(sorted);
+                }
+            }
+        }
+
+        return List.copyOf(plan);
+    }
+
+    private record PlanKey(List<String> componentNames, List<Command> commands) {}
+}
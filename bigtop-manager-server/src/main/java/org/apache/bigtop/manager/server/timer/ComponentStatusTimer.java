@@ -23,14 +23,18 @@ import org.apache.bigtop.manager.common.utils.CaseUtils;
 import org.apache.bigtop.manager.dao.po.ComponentPO;
 import org.apache.bigtop.manager.dao.po.HostPO;
 import org.apache.bigtop.manager.dao.po.ServicePO;
+import org.apache.bigtop.manager.dao.query.ComponentQuery;
 import org.apache.bigtop.manager.dao.repository.ComponentDao;
 import org.apache.bigtop.manager.dao.repository.HostDao;
 import org.apache.bigtop.manager.dao.repository.ServiceDao;
-import org.apache.bigtop.manager.grpc.generated.ComponentStatusReply;
 import org.apache.bigtop.manager.grpc.generated.ComponentStatusRequest;
 import org.apache.bigtop.manager.grpc.generated.ComponentStatusServiceGrpc;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusesReply;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusesRequest;
+import org.apache.bigtop.manager.server.config.TimerConfig;
 import org.apache.bigtop.manager.server.enums.HealthyStatusEnum;
 import org.apache.bigtop.manager.server.grpc.GrpcClient;
+import org.apache.bigtop.manager.server.heartbeat.HostStateCache;
 import org.apache.bigtop.manager.server.model.dto.ComponentDTO;
 import org.apache.bigtop.manager.server.utils.StackUtils;
 
@@ -38,15 +42,28 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Refreshes the status of all components, each host is requested once per cycle for all of its components.
+ * Hosts are requested concurrently with a deadline, see {@link TimerConfig}.
+ */
 @Slf4j
 @Component
 public class ComponentStatusTimer {
@@ -60,51 +77,79 @@ public class ComponentStatusTimer {
     @Resource
     private HostDao hostDao;
 
+    @Resource
+    private TimerConfig timerConfig;
+
+    @Resource
+    private HostStateCache hostStateCache;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, timerConfig.getMaxConcurrentRequests());
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("component-status-%d").build());
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        executor = threadPoolExecutor;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
     @Async
     @Scheduled(fixedDelay = 30, timeUnit = TimeUnit.SECONDS)
     public void execute() {
-        List<ComponentPO> componentPOList = componentDao.findAll();
-        for (ComponentPO componentPO : componentPOList) {
-            ComponentDTO componentDTO = StackUtils.getComponentDTO(componentPO.getName());
-            String category = componentDTO.getCategory();
-            if (HealthyStatusEnum.fromCode(componentPO.getStatus()) == HealthyStatusEnum.UNKNOWN
-                    || category.equals(ComponentCategories.CLIENT)) {
+        // Components with their service and stack details in one query
+        List<ComponentPO> componentPOList = componentDao.findByQuery(new ComponentQuery());
+        Map<Long, HostPO> hostPOMap =
+                hostDao.findAll().stream().collect(Collectors.toMap(HostPO::getId, Function.identity()));
+        Map<Long, Integer> previousStatuses = componentPOList.stream()
+                .filter(componentPO -> componentPO.getStatus() != null)
+                .collect(Collectors.toMap(ComponentPO::getId, ComponentPO::getStatus));
+
+        Map<Long, List<ComponentPO>> hostComponentsMap = componentPOList.stream()
+                .filter(ComponentStatusTimer::needStatusCheck)
+                .collect(Collectors.groupingBy(ComponentPO::getHostId));
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Map.Entry<Long, List<ComponentPO>> entry : hostComponentsMap.entrySet()) {
+            HostPO hostPO = hostPOMap.get(entry.getKey());
+            if (hostPO == null) {
                 continue;
             }
 
-            ComponentPO componentDetailsPO = componentDao.findDetailsById(componentPO.getId());
-            HostPO hostPO = hostDao.findById(componentPO.getHostId());
-            ComponentStatusRequest request = ComponentStatusRequest.newBuilder()
-                    .setStackName(
-                            CaseUtils.toLowerCase(componentDetailsPO.getStack().split("-")[0]))
-                    .setStackVersion(componentDetailsPO.getStack().split("-")[1])
-                    .setServiceName(componentDetailsPO.getServiceName())
-                    .setServiceUser(componentDetailsPO.getServiceUser())
-                    .setComponentName(componentDetailsPO.getName())
-                    .build();
-            ComponentStatusServiceGrpc.ComponentStatusServiceBlockingStub blockingStub = GrpcClient.getBlockingStub(
-                    hostPO.getHostname(),
-                    hostPO.getGrpcPort(),
-                    ComponentStatusServiceGrpc.ComponentStatusServiceBlockingStub.class);
-            ComponentStatusReply reply = blockingStub.getComponentStatus(request);
+            futures.add(CompletableFuture.runAsync(() -> refreshHostComponents(hostPO, entry.getValue()), executor));
+        }
 
-            // Status 0 means the service is running
-            if (reply.getStatus() == 0) {
-                componentPO.setStatus(HealthyStatusEnum.HEALTHY.getCode());
-            } else {
-                componentPO.setStatus(HealthyStatusEnum.UNHEALTHY.getCode());
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        // Only write the components whose status changed
+        List<ComponentPO> changedComponents = new ArrayList<>();
+        for (ComponentPO componentPO : componentPOList) {
+            if (!Objects.equals(previousStatuses.get(componentPO.getId()), componentPO.getStatus())) {
+                ComponentPO changed = new ComponentPO();
+                changed.setId(componentPO.getId());
+                changed.setStatus(componentPO.getStatus());
+                changedComponents.add(changed);
             }
         }
 
-        componentDao.partialUpdateByIds(componentPOList);
+        componentDao.partialUpdateByIds(changedComponents);
 
         // Update services
         Map<Long, List<ComponentPO>> componentPOMap =
                 componentPOList.stream().collect(Collectors.groupingBy(ComponentPO::getServiceId));
+        List<ServicePO> servicePOList = new ArrayList<>();
         for (Map.Entry<Long, List<ComponentPO>> entry : componentPOMap.entrySet()) {
             Long serviceId = entry.getKey();
             List<ComponentPO> components = entry.getValue();
-            ServicePO servicePO = serviceDao.findById(serviceId);
             boolean hasUnknownComponent = components.stream()
                     .anyMatch(component -> Objects.equals(component.getStatus(), HealthyStatusEnum.UNKNOWN.getCode()));
             if (hasUnknownComponent) {
@@ -115,6 +160,8 @@ public class ComponentStatusTimer {
                     .filter(component -> Objects.equals(component.getStatus(), HealthyStatusEnum.HEALTHY.getCode()))
                     .toList();
 
+            ServicePO servicePO = new ServicePO();
+            servicePO.setId(serviceId);
             if (healthyComponents.size() == components.size()) {
                 servicePO.setStatus(HealthyStatusEnum.HEALTHY.getCode());
                 servicePO.setRestartFlag(false);
@@ -123,7 +170,88 @@ public class ComponentStatusTimer {
                 servicePO.setRestartFlag(true);
             }
 
-            serviceDao.partialUpdateById(servicePO);
+            servicePOList.add(servicePO);
+        }
+
+        serviceDao.partialUpdateByIds(servicePOList);
+    }
+
+    public static boolean needStatusCheck(ComponentPO componentPO) {
+        ComponentDTO componentDTO = StackUtils.getComponentDTO(componentPO.getName());
+        String category = componentDTO.getCategory();
+        return HealthyStatusEnum.fromCode(componentPO.getStatus()) != HealthyStatusEnum.UNKNOWN
+                && !category.equals(ComponentCategories.CLIENT);
+    }
+
+    public static ComponentStatusRequest toStatusRequest(ComponentPO componentPO) {
+        return ComponentStatusRequest.newBuilder()
+                .setStackName(CaseUtils.toLowerCase(componentPO.getStack().split("-")[0]))
+                .setStackVersion(componentPO.getStack().split("-")[1])
+                .setServiceName(componentPO.getServiceName())
+                .setServiceUser(componentPO.getServiceUser())
+                .setComponentName(componentPO.getName())
+                .build();
+    }
+
+    /**
+     * Request the statuses of all given components on the host, the statuses are left as is if the host fails to reply.
+     * The statuses pushed over the heartbeat stream are used instead when the host is live and pushed them all.
+     */
+    private void refreshHostComponents(HostPO hostPO, List<ComponentPO> components) {
+        if (timerConfig.getHeartbeat().getEnabled()) {
+            List<Integer> pushedStatuses = new ArrayList<>();
+            for (ComponentPO componentPO : components) {
+                pushedStatuses.add(hostStateCache.getComponentStatus(hostPO.getHostname(), componentPO.getName()));
+            }
+
+            if (!pushedStatuses.contains(null)) {
+                for (int i = 0; i < components.size(); i++) {
+                    setStatus(components.get(i), pushedStatuses.get(i));
+                }
+
+                return;
+            }
+        }
+
+        ComponentStatusesRequest.Builder builder = ComponentStatusesRequest.newBuilder();
+        for (ComponentPO componentPO : components) {
+            builder.addComponents(toStatusRequest(componentPO));
+        }
+
+        ComponentStatusesReply reply;
+        try {
+            ComponentStatusServiceGrpc.ComponentStatusServiceBlockingStub blockingStub = GrpcClient.getBlockingStub(
+                    hostPO.getHostname(),
+                    hostPO.getGrpcPort(),
+                    ComponentStatusServiceGrpc.ComponentStatusServiceBlockingStub.class);
+            reply = blockingStub
+                    .withDeadlineAfter(timerConfig.getRequestTimeout(), TimeUnit.SECONDS)
+                    .getComponentStatuses(builder.build());
+        } catch (Exception e) {
+            log.warn("Unable to get component statuses from host [{}]: {}", hostPO.getHostname(), e.getMessage());
+            return;
+        }
+
+        if (reply.getStatusesCount() != components.size()) {
+            log.warn(
+                    "Host [{}] replied {} statuses for {} components, ignored",
+                    hostPO.getHostname(),
+                    reply.getStatusesCount(),
+                    components.size());
+            return;
+        }
+
+        for (int i = 0; i < components.size(); i++) {
+            setStatus(components.get(i), reply.getStatuses(i).getStatus());
+        }
+    }
+
+    private void setStatus(ComponentPO componentPO, int status) {
+        // Status 0 means the service is running
+        if (status == 0) {
+            componentPO.setStatus(HealthyStatusEnum.HEALTHY.getCode());
+        } else {
+            componentPO.setStatus(HealthyStatusEnum.UNHEALTHY.getCode());
         }
     }
 }
@@ -23,20 +23,44 @@ import org.apache.bigtop.manager.dao.repository.HostDao;
 import org.apache.bigtop.manager.grpc.generated.HostInfoReply;
 import org.apache.bigtop.manager.grpc.generated.HostInfoRequest;
 import org.apache.bigtop.manager.grpc.generated.HostInfoServiceGrpc;
+import org.apache.bigtop.manager.server.config.TimerConfig;
 import org.apache.bigtop.manager.server.enums.HealthyStatusEnum;
 import org.apache.bigtop.manager.server.grpc.GrpcClient;
+import org.apache.bigtop.manager.server.heartbeat.HostStateCache;
 import org.apache.bigtop.manager.server.utils.ClusterUtils;
 
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ObjectUtils;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+/**
+ * Collects host info from all agents concurrently with a deadline, see {@link TimerConfig}.
+ * Only the hosts whose info differs from the stored one are written back, free memory and disk
+ * changing alone are written at most once per {@link TimerConfig#getUsageInterval()}.
+ * When the heartbeat is enabled, the info pushed by live hosts is used instead of requesting them.
+ */
 @Slf4j
 @Component
 public class HostInfoTimer {
@@ -44,43 +68,146 @@ public class HostInfoTimer {
     @Resource
     private HostDao hostDao;
 
+    @Resource
+    private TimerConfig timerConfig;
+
+    @Resource
+    private HostStateCache hostStateCache;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private ExecutorService executor;
+
+    /**
+     * Host id to the nano time its free memory and disk were last written.
+     */
+    private final Map<Long, Long> usageWrittenAt = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, timerConfig.getMaxConcurrentRequests());
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("host-info-%d").build());
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        executor = threadPoolExecutor;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
     @Async
     @Scheduled(fixedDelay = 30, timeUnit = TimeUnit.SECONDS)
     public void execute() {
         List<HostPO> hostPOList = hostDao.findAll();
+        Set<Long> hostIds = hostPOList.stream().map(HostPO::getId).collect(Collectors.toSet());
+        usageWrittenAt.keySet().retainAll(hostIds);
+
+        List<CompletableFuture<HostPO>> futures = new ArrayList<>();
         for (HostPO hostPO : hostPOList) {
-            getHostInfo(hostPO);
+            if (ClusterUtils.isNoneCluster(hostPO.getClusterId())) {
+                continue;
+            }
+
+            futures.add(CompletableFuture.supplyAsync(() -> getHostInfo(hostPO), executor));
         }
-    }
 
-    private void getHostInfo(HostPO hostPO) {
-        if (ClusterUtils.isNoneCluster(hostPO.getClusterId())) {
-            return;
+        List<HostPO> changedHosts = new ArrayList<>();
+        for (CompletableFuture<HostPO> future : futures) {
+            HostPO hostPO = future.join();
+            if (hostPO != null) {
+                changedHosts.add(hostPO);
+            }
         }
 
+        hostDao.partialUpdateByIds(changedHosts);
+    }
+
+    /**
+     * Collect the info of the host.
+     *
+     * @param hostPO last known state of the host
+     * @return the collected info to write, or null if nothing changed
+     */
+    private HostPO getHostInfo(HostPO hostPO) {
         String hostname = hostPO.getHostname();
         Integer grpcPort = hostPO.getGrpcPort();
+        HostPO collected = new HostPO();
+        collected.setId(hostPO.getId());
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "success";
         try {
-            HostInfoServiceGrpc.HostInfoServiceBlockingStub stub = GrpcClient.getBlockingStub(
-                    hostname, grpcPort, HostInfoServiceGrpc.HostInfoServiceBlockingStub.class);
-            HostInfoReply reply = stub.getHostInfo(HostInfoRequest.newBuilder().build());
-
-            hostPO.setArch(reply.getArch());
-            hostPO.setAvailableProcessors(reply.getAvailableProcessors());
-            hostPO.setIpv4(reply.getIpv4());
-            hostPO.setIpv6(reply.getIpv6());
-            hostPO.setOs(reply.getOs());
-            hostPO.setFreeMemorySize(reply.getFreeMemorySize());
-            hostPO.setTotalMemorySize(reply.getTotalMemorySize());
-            hostPO.setFreeDisk(reply.getFreeDisk());
-            hostPO.setTotalDisk(reply.getTotalDisk());
-            hostPO.setStatus(HealthyStatusEnum.HEALTHY.getCode());
+            // Live hosts already pushed their info over the heartbeat stream
+            HostInfoReply reply = timerConfig.getHeartbeat().getEnabled() ? hostStateCache.getHostInfo(hostname) : null;
+            if (reply == null) {
+                HostInfoServiceGrpc.HostInfoServiceBlockingStub stub = GrpcClient.getBlockingStub(
+                        hostname, grpcPort, HostInfoServiceGrpc.HostInfoServiceBlockingStub.class);
+                reply = stub.withDeadlineAfter(timerConfig.getRequestTimeout(), TimeUnit.SECONDS)
+                        .getHostInfo(HostInfoRequest.newBuilder().build());
+            }
+
+            collected.setArch(reply.getArch());
+            collected.setAvailableProcessors(reply.getAvailableProcessors());
+            collected.setIpv4(reply.getIpv4());
+            collected.setIpv6(reply.getIpv6());
+            collected.setOs(reply.getOs());
+            collected.setFreeMemorySize(reply.getFreeMemorySize());
+            collected.setTotalMemorySize(reply.getTotalMemorySize());
+            collected.setFreeDisk(reply.getFreeDisk());
+            collected.setTotalDisk(reply.getTotalDisk());
+            collected.setStatus(HealthyStatusEnum.HEALTHY.getCode());
         } catch (Exception e) {
-            hostPO.setStatus(HealthyStatusEnum.UNHEALTHY.getCode());
-            hostPO.setErrInfo(e.toString());
+            result = "failure";
+            collected.setStatus(HealthyStatusEnum.UNHEALTHY.getCode());
+            collected.setErrInfo(e.toString());
             log.error("Error getting host info for {}", hostname, e);
+        } finally {
+            long nanos = sample.stop(Timer.builder("host_info_collect_time")
+                    .description("Time to collect the info of a single host")
+                    .tag("result", result)
+                    .register(meterRegistry));
+            log.debug("Collected host info for {} in {} ms", hostname, TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+
+        long now = System.nanoTime();
+        Long writtenAt = usageWrittenAt.get(hostPO.getId());
+        boolean usageDue =
+                writtenAt == null || now - writtenAt >= TimeUnit.SECONDS.toNanos(timerConfig.getUsageInterval());
+        if (isChanged(hostPO, collected) || (usageDue && isUsageChanged(hostPO, collected))) {
+            usageWrittenAt.put(hostPO.getId(), now);
+            return collected;
         }
 
-        hostDao.partialUpdateById(hostPO);
+        return null;
+    }
+
+    private boolean isChanged(HostPO hostPO, HostPO collected) {
+        return differs(hostPO.getStatus(), collected.getStatus())
+                || differs(hostPO.getErrInfo(), collected.getErrInfo())
+                || differs(hostPO.getArch(), collected.getArch())
+                || differs(hostPO.getAvailableProcessors(), collected.getAvailableProcessors())
+                || differs(hostPO.getIpv4(), collected.getIpv4())
+                || differs(hostPO.getIpv6(), collected.getIpv6())
+                || differs(hostPO.getOs(), collected.getOs())
+                || differs(hostPO.getTotalMemorySize(), collected.getTotalMemorySize())
+                || differs(hostPO.getTotalDisk(), collected.getTotalDisk());
+    }
+
+    private boolean isUsageChanged(HostPO hostPO, HostPO collected) {
+        return differs(hostPO.getFreeMemorySize(), collected.getFreeMemorySize())
+                || differs(hostPO.getFreeDisk(), collected.getFreeDisk());
+    }
+
+    // Empty values are skipped by partial update, so they never count as a change
+    private boolean differs(Object stored, Object collected) {
+        return !ObjectUtils.isEmpty(collected) && !Objects.equals(stored, collected);
     }
 }
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.timer;
+
+import org.apache.bigtop.manager.server.config.StackConfig;
+import org.apache.bigtop.manager.server.utils.StackUtils;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+import jakarta.annotation.Resource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the stacks again when the stack folder changed, see {@link StackConfig}.
+ */
+@Slf4j
+@Component
+public class StackReloadTimer {
+
+    @Resource
+    private StackConfig stackConfig;
+
+    @Scheduled(fixedDelayString = "${bigtop.manager.stack.reload-interval:30}", timeUnit = TimeUnit.SECONDS)
+    public void execute() {
+        if (!stackConfig.getHotReload()) {
+            return;
+        }
+
+        try {
+            StackUtils.reloadStack();
+        } catch (Exception e) {
+            log.error("Error checking stack folder", e);
+        }
+    }
+}
@@ -19,109 +19,157 @@
 package org.apache.bigtop.manager.server.utils;
 
 import org.apache.bigtop.manager.common.shell.ShellResult;
-import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.sshd.client.SshClient;
-import org.apache.sshd.client.auth.password.PasswordIdentityProvider;
 import org.apache.sshd.client.channel.ClientChannel;
 import org.apache.sshd.client.channel.ClientChannelEvent;
 import org.apache.sshd.client.session.ClientSession;
 import org.apache.sshd.common.config.keys.FilePasswordProvider;
 import org.apache.sshd.common.config.keys.loader.KeyPairResourceLoader;
-import org.apache.sshd.common.keyprovider.KeyIdentityProvider;
 import org.apache.sshd.common.util.security.SecurityUtils;
+import org.apache.sshd.sftp.client.SftpClient;
+import org.apache.sshd.sftp.client.SftpClientFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 public class RemoteSSHUtils {
 
-    public static ShellResult executeCommand(String host, Integer port, String user, String command) throws Exception {
-        try (SshClient client = getSshClient()) {
-            return run(client, host, port, user, command);
-        }
-    }
-
-    public static ShellResult executeCommand(String host, Integer port, String user, String password, String command)
+    /**
+     * Run a command over a new exec channel of an authenticated session, the session stays open.
+     *
+     * @param outputConsumer receives every line of stdout and stderr as soon as it arrives, can be null
+     */
+    public static ShellResult execute(ClientSession session, String command, Consumer<String> outputConsumer)
             throws Exception {
-        try (SshClient client = getSshClient(password)) {
-            return run(client, host, port, user, command);
-        }
+        return execute(session, command, outputConsumer, 0L);
     }
 
-    public static ShellResult executeCommand(
-            String host,
-            Integer port,
-            String user,
-            String keyFilename,
-            String keyString,
-            String keyPassword,
-            String command)
+    /**
+     * Run a command over a new exec channel of an authenticated session, the session stays open.
+     *
+     * @param outputConsumer receives every line of stdout and stderr as soon as it arrives, can be null
+     * @param timeoutMillis the channel is closed and a {@link TimeoutException} thrown if the command
+     *                      doesn't finish in time, 0 means no timeout
+     */
+    public static ShellResult execute(
+            ClientSession session, String command, Consumer<String> outputConsumer, long timeoutMillis)
             throws Exception {
-        String keyPath = StringUtils.isEmpty(keyFilename)
-                ? null
-                : ProjectPathUtils.getKeyStorePath() + File.separator + keyFilename;
-        try (SshClient client = getSshClient(keyPath, keyString, keyPassword)) {
-            return run(client, host, port, user, command);
+        try (LineOutputStream responseStream = new LineOutputStream(outputConsumer);
+                LineOutputStream errStream = new LineOutputStream(outputConsumer);
+                ClientChannel channel = session.createExecChannel(command)) {
+            channel.setOut(responseStream);
+            channel.setErr(errStream);
+            channel.open().verify(10, TimeUnit.SECONDS);
+            Set<ClientChannelEvent> events = channel.waitFor(EnumSet.of(ClientChannelEvent.CLOSED), timeoutMillis);
+            if (events.contains(ClientChannelEvent.TIMEOUT)) {
+                channel.close(true);
+                throw new TimeoutException("Command not finished in " + timeoutMillis + " ms: " + command);
+            }
+
+            responseStream.flushLine();
+            errStream.flushLine();
+            String res = responseStream.toString();
+            String err = errStream.toString();
+            return new ShellResult(channel.getExitStatus(), res, err);
         }
     }
 
-    public static ShellResult run(SshClient client, String host, Integer port, String user, String command)
+    /**
+     * Write the content to a file over a new sftp channel of an authenticated session, relative paths are
+     * resolved against the home directory of the ssh user and parent directories must exist.
+     *
+     * @param permissions posix permissions of the file, like 0755
+     */
+    public static void upload(ClientSession session, InputStream content, String remotePath, int permissions)
             throws Exception {
-        client.start();
-        try (ClientSession session =
-                client.connect(user, host, port).verify(10, TimeUnit.SECONDS).getSession()) {
-            session.auth().verify(10, TimeUnit.SECONDS);
-            try (ByteArrayOutputStream responseStream = new ByteArrayOutputStream();
-                    ByteArrayOutputStream errStream = new ByteArrayOutputStream();
-                    ClientChannel channel = session.createExecChannel(command)) {
-                channel.setOut(responseStream);
-                channel.setErr(errStream);
-                channel.open().verify(10, TimeUnit.SECONDS);
-                channel.waitFor(EnumSet.of(ClientChannelEvent.CLOSED), 0);
-                String res = responseStream.toString();
-                String err = errStream.toString();
-                return new ShellResult(channel.getExitStatus(), res, err);
+        try (SftpClient sftpClient = SftpClientFactory.instance().createSftpClient(session)) {
+            try (OutputStream outputStream = sftpClient.write(remotePath)) {
+                content.transferTo(outputStream);
             }
-        } finally {
-            client.stop();
-        }
-    }
 
-    public static SshClient getSshClient() {
-        return SshClient.setUpDefaultClient();
-    }
-
-    public static SshClient getSshClient(String password) {
-        SshClient client = SshClient.setUpDefaultClient();
-        client.setPasswordIdentityProvider(PasswordIdentityProvider.wrapPasswords(password));
-        return client;
+            sftpClient.setStat(remotePath, new SftpClient.Attributes().perms(permissions));
+        }
     }
 
-    public static SshClient getSshClient(String keyPath, String keyString, String keyPassword) throws Exception {
-        SshClient client = SshClient.setUpDefaultClient();
+    public static Collection<KeyPair> loadKeyPairs(String keyPath, String keyString, String keyPassword)
+            throws Exception {
         KeyPairResourceLoader loader = SecurityUtils.getKeyPairResourceParser();
         FilePasswordProvider passwordProvider = null;
         if (StringUtils.isNotBlank(keyPassword)) {
             passwordProvider = FilePasswordProvider.of(keyPassword);
         }
 
-        Collection<KeyPair> keys = null;
         if (StringUtils.isNotBlank(keyPath)) {
-            keys = loader.loadKeyPairs(null, new File(keyPath).toPath(), passwordProvider);
+            return loader.loadKeyPairs(null, new File(keyPath).toPath(), passwordProvider);
         } else {
             InputStream keyStream = new ByteArrayInputStream(keyString.getBytes(StandardCharsets.UTF_8));
-            keys = loader.loadKeyPairs(null, () -> "keyStringResource", passwordProvider, keyStream);
+            return loader.loadKeyPairs(null, () -> "keyStringResource", passwordProvider, keyStream);
+        }
+    }
+
+    /**
+     * Keeps everything written, and hands every complete line to the consumer.
+     */
+    private static class LineOutputStream extends OutputStream {
+
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        private final Consumer<String> lineConsumer;
+
+        private LineOutputStream(Consumer<String> lineConsumer) {
+            this.lineConsumer = lineConsumer;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            content.write(b);
+            if (lineConsumer == null) {
+                return;
+            }
+
+            if (b == '\n') {
+                flushLine();
+            } else {
+                line.write(b);
+            }
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            if (lineConsumer == null) {
+                content.write(b, off, len);
+                return;
+            }
+
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+
+        private synchronized void flushLine() {
+            if (lineConsumer != null && line.size() > 0) {
+                lineConsumer.accept(line.toString(StandardCharsets.UTF_8));
+                line.reset();
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            return content.toString(StandardCharsets.UTF_8);
         }
-        client.setKeyIdentityProvider(KeyIdentityProvider.wrapKeyPairs(keys));
-        return client;
     }
 }
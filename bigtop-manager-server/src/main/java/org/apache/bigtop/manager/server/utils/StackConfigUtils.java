@@ -160,7 +160,10 @@ public class StackConfigUtils {
         for (ServiceConfigDTO config : configs) {
             Map<String, PropertyDTO> innerMap = new HashMap<>();
             for (PropertyDTO property : config.getProperties()) {
-                innerMap.put(property.getName(), property);
+                // Copied since the merge changes values, the original ones may be shared stack properties
+                PropertyDTO copy = new PropertyDTO();
+                BeanUtils.copyProperties(property, copy);
+                innerMap.put(property.getName(), copy);
             }
 
             outerMap.put(config.getName(), innerMap);
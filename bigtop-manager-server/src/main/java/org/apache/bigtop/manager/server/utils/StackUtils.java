@@ -32,9 +32,11 @@ import org.apache.bigtop.manager.server.model.dto.PropertyDTO;
 import org.apache.bigtop.manager.server.model.dto.ServiceConfigDTO;
 import org.apache.bigtop.manager.server.model.dto.ServiceDTO;
 import org.apache.bigtop.manager.server.model.dto.StackDTO;
+import org.apache.bigtop.manager.server.stack.StackRegistry;
 import org.apache.bigtop.manager.server.stack.dag.ComponentCommandWrapper;
 import org.apache.bigtop.manager.server.stack.dag.DAG;
 import org.apache.bigtop.manager.server.stack.dag.DagGraphEdge;
+import org.apache.bigtop.manager.server.stack.dag.ExecutionPlanner;
 import org.apache.bigtop.manager.server.stack.model.ServiceModel;
 import org.apache.bigtop.manager.server.stack.xml.ServiceMetainfoXml;
 
@@ -46,11 +48,16 @@ import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Slf4j
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -70,13 +77,7 @@ public class StackUtils {
 
     private static final String DEPENDENCY_FILE_NAME = "order.json";
 
-    public static final Map<String, List<ServiceConfigDTO>> SERVICE_CONFIG_MAP = new HashMap<>();
-
-    public static final Map<String, Map<String, String>> SERVICE_TEMPLATE_MAP = new HashMap<>();
-
-    public static final Map<StackDTO, List<ServiceDTO>> STACK_SERVICE_MAP = new HashMap<>();
-
-    public static final DAG<String, ComponentCommandWrapper, DagGraphEdge> DAG = new DAG<>();
+    private static volatile StackRegistry registry = StackRegistry.EMPTY;
 
     private static boolean parsed = false;
 
@@ -85,47 +86,134 @@ public class StackUtils {
             return;
         }
 
+        registry = loadRegistry();
+        parsed = true;
+    }
+
+    /**
+     * Parse the stacks again if any of their files changed since they were parsed, the new stacks replace
+     * the current ones at once. The current ones are kept if the new ones can't be parsed.
+     *
+     * @return true if the stacks are reloaded
+     */
+    public static synchronized boolean reloadStack() {
+        if (parsed && stackFingerprint(loadStacksFolder()) == registry.getFingerprint()) {
+            return false;
+        }
+
+        try {
+            registry = loadRegistry();
+            parsed = true;
+            log.info("Stacks reloaded: {}", registry.getStackServices().keySet());
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to reload stacks, keeping the current ones", e);
+            return false;
+        }
+    }
+
+    public static StackRegistry getRegistry() {
+        return registry;
+    }
+
+    private static StackRegistry loadRegistry() {
         File stacksFolder = loadStacksFolder();
+        long fingerprint = stackFingerprint(stacksFolder);
         File[] stackFolders = Optional.ofNullable(stacksFolder.listFiles()).orElse(new File[0]);
 
+        StackParser parser = new StackParser();
         for (File stackFolder : stackFolders) {
             String stackName = stackFolder.getName();
             File[] versionFolders = Optional.ofNullable(stackFolder.listFiles()).orElse(new File[0]);
 
             for (File versionFolder : versionFolders) {
                 String stackVersion = versionFolder.getName();
-                parseService(new StackDTO(stackName, stackVersion), versionFolder);
+                parser.parseService(new StackDTO(stackName, stackVersion), versionFolder);
             }
         }
 
-        parsed = true;
+        return new StackRegistry(
+                parser.stackServices, parser.serviceConfigs, parser.serviceTemplates, parser.dag, fingerprint);
     }
 
     /**
-     * Parse service file to generate service model
-     *
-     * @param stackDTO stackDTO
-     * @return service model {@link ServiceModel}
+     * Path, size and modification time of every file under the stacks folder, hashed together.
+     */
+    private static long stackFingerprint(File stacksFolder) {
+        try (Stream<Path> stream = Files.walk(stacksFolder.toPath())) {
+            long fingerprint = 1L;
+            for (Path path : stream.filter(Files::isRegularFile).sorted().toList()) {
+                fingerprint = 31 * fingerprint + path.hashCode();
+                fingerprint = 31 * fingerprint + Files.size(path);
+                fingerprint = 31 * fingerprint + Files.getLastModifiedTime(path).toMillis();
+            }
+            return fingerprint;
+        } catch (IOException e) {
+            throw new ServerException("Failed to list stack folder: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Collects the parsed stacks until they are published as a {@link StackRegistry}.
      */
-    public static void parseService(StackDTO stackDTO, File versionFolder) {
-        File[] files = new File(versionFolder.getAbsolutePath(), SERVICES_FOLDER_NAME).listFiles();
-        List<ServiceDTO> services = new ArrayList<>();
+    private static class StackParser {
 
-        if (files != null) {
-            for (File file : files) {
-                log.info("parsing service: {}", file.getName());
+        private final Map<StackDTO, List<ServiceDTO>> stackServices = new LinkedHashMap<>();
 
-                ServiceDTO serviceDTO = parseServiceMetaInfo(file);
-                services.add(serviceDTO);
+        private final Map<String, List<ServiceConfigDTO>> serviceConfigs = new HashMap<>();
 
-                parseServiceConfigurations(file, serviceDTO.getName());
-                parseServiceTemplates(file, serviceDTO.getName());
+        private final Map<String, Map<String, String>> serviceTemplates = new HashMap<>();
 
-                parseDag(file);
+        private final DAG<String, ComponentCommandWrapper, DagGraphEdge> dag = new DAG<>();
+
+        /**
+         * Parse service file to generate service model
+         *
+         * @param stackDTO stackDTO
+         */
+        private void parseService(StackDTO stackDTO, File versionFolder) {
+            File[] files = new File(versionFolder.getAbsolutePath(), SERVICES_FOLDER_NAME).listFiles();
+            List<ServiceDTO> services = new ArrayList<>();
+
+            if (files != null) {
+                for (File file : files) {
+                    log.info("parsing service: {}", file.getName());
+
+                    ServiceDTO serviceDTO = parseServiceMetaInfo(file);
+                    services.add(serviceDTO);
+
+                    serviceConfigs.put(serviceDTO.getName(), parseServiceConfigurations(file));
+                    serviceTemplates.put(serviceDTO.getName(), parseServiceTemplates(file));
+
+                    parseDag(file);
+                }
             }
+
+            stackServices.put(stackDTO, services);
         }
 
-        STACK_SERVICE_MAP.put(stackDTO, services);
+        private void parseDag(File file) {
+            File dependencyFile = new File(file.getAbsolutePath(), DEPENDENCY_FILE_NAME);
+            if (dependencyFile.exists()) {
+                Map<String, List<String>> dependencyMapByFile = JsonUtils.readFromFile(dependencyFile);
+                for (Map.Entry<String, List<String>> entry : dependencyMapByFile.entrySet()) {
+                    String blocked = entry.getKey().split(ROLE_COMMAND_SPLIT)[0].toLowerCase()
+                            + ROLE_COMMAND_SPLIT
+                            + entry.getKey().split(ROLE_COMMAND_SPLIT)[1];
+                    List<String> blockers = entry.getValue().stream()
+                            .map(x -> x.split(ROLE_COMMAND_SPLIT)[0].toLowerCase()
+                                    + ROLE_COMMAND_SPLIT
+                                    + x.split(ROLE_COMMAND_SPLIT)[1])
+                            .toList();
+
+                    dag.addNodeIfAbsent(blocked, getCommandWrapper(blocked));
+                    for (String blocker : blockers) {
+                        dag.addNodeIfAbsent(blocker, getCommandWrapper(blocker));
+                        dag.addEdge(blocker, blocked, new DagGraphEdge(blocker, blocked), false);
+                    }
+                }
+            }
+        }
     }
 
     private static ServiceDTO parseServiceMetaInfo(File file) {
@@ -137,7 +225,7 @@ public class StackUtils {
         return serviceDTO;
     }
 
-    private static void parseServiceConfigurations(File file, String serviceName) {
+    private static List<ServiceConfigDTO> parseServiceConfigurations(File file) {
         List<ServiceConfigDTO> configs = new ArrayList<>();
         File configFolder = new File(file.getAbsolutePath(), CONFIGURATION_FOLDER);
         if (configFolder.exists()) {
@@ -158,43 +246,20 @@ public class StackUtils {
             }
         }
 
-        SERVICE_CONFIG_MAP.put(serviceName, configs);
+        return configs;
     }
 
-    private static void parseServiceTemplates(File file, String serviceName) {
+    private static Map<String, String> parseServiceTemplates(File file) {
+        Map<String, String> templates = new HashMap<>();
         File templateFolder = new File(file.getAbsolutePath(), TEMPLATE_FOLDER);
         if (templateFolder.exists()) {
             for (File templateFile :
                     Optional.ofNullable(templateFolder.listFiles()).orElse(new File[0])) {
-                String filename = templateFile.getName();
-                String content = FileUtils.readFile2Str(templateFile);
-                Map<String, String> map = SERVICE_TEMPLATE_MAP.computeIfAbsent(serviceName, k -> new HashMap<>());
-                map.put(filename, content);
+                templates.put(templateFile.getName(), FileUtils.readFile2Str(templateFile));
             }
         }
-    }
 
-    private static void parseDag(File file) {
-        File dependencyFile = new File(file.getAbsolutePath(), DEPENDENCY_FILE_NAME);
-        if (dependencyFile.exists()) {
-            Map<String, List<String>> dependencyMapByFile = JsonUtils.readFromFile(dependencyFile);
-            for (Map.Entry<String, List<String>> entry : dependencyMapByFile.entrySet()) {
-                String blocked = entry.getKey().split(ROLE_COMMAND_SPLIT)[0].toLowerCase()
-                        + ROLE_COMMAND_SPLIT
-                        + entry.getKey().split(ROLE_COMMAND_SPLIT)[1];
-                List<String> blockers = entry.getValue().stream()
-                        .map(x -> x.split(ROLE_COMMAND_SPLIT)[0].toLowerCase()
-                                + ROLE_COMMAND_SPLIT
-                                + x.split(ROLE_COMMAND_SPLIT)[1])
-                        .toList();
-
-                DAG.addNodeIfAbsent(blocked, getCommandWrapper(blocked));
-                for (String blocker : blockers) {
-                    DAG.addNodeIfAbsent(blocker, getCommandWrapper(blocker));
-                    DAG.addEdge(blocker, blocked, new DagGraphEdge(blocker, blocked), false);
-                }
-            }
-        }
+        return templates;
     }
 
     private static ComponentCommandWrapper getCommandWrapper(String roleCommand) {
@@ -228,23 +293,24 @@ public class StackUtils {
     }
 
     public static List<StackDTO> getAllStacks() {
-        return new ArrayList<>(STACK_SERVICE_MAP.keySet());
+        return new ArrayList<>(registry.getStackServices().keySet());
+    }
+
+    public static Map<StackDTO, List<ServiceDTO>> getStackServiceMap() {
+        return registry.getStackServices();
     }
 
     public static StackDTO getServiceStack(String serviceName) {
-        for (Map.Entry<StackDTO, List<ServiceDTO>> entry : STACK_SERVICE_MAP.entrySet()) {
-            for (ServiceDTO serviceDTO : entry.getValue()) {
-                if (serviceDTO.getName().equals(serviceName)) {
-                    return entry.getKey();
-                }
-            }
+        StackDTO stackDTO = registry.getServiceStack(serviceName);
+        if (stackDTO == null) {
+            throw new ServerException("Service not found: " + serviceName);
         }
 
-        throw new ServerException("Service not found: " + serviceName);
+        return stackDTO;
     }
 
     public static List<ServiceDTO> getServiceDTOList(StackDTO stackDTO) {
-        List<ServiceDTO> serviceDTOList = STACK_SERVICE_MAP.get(stackDTO);
+        List<ServiceDTO> serviceDTOList = registry.getStackServices().get(stackDTO);
         if (serviceDTOList == null) {
             throw new ServerException("Stack not found: " + stackDTO);
         }
@@ -253,43 +319,46 @@ public class StackUtils {
     }
 
     public static ServiceDTO getServiceDTO(String serviceName) {
-        for (Map.Entry<StackDTO, List<ServiceDTO>> entry : STACK_SERVICE_MAP.entrySet()) {
-            for (ServiceDTO serviceDTO : entry.getValue()) {
-                if (serviceDTO.getName().equals(serviceName)) {
-                    return serviceDTO;
-                }
-            }
+        ServiceDTO serviceDTO = registry.getService(serviceName);
+        if (serviceDTO == null) {
+            throw new ServerException("Service not found: " + serviceName);
         }
 
-        throw new ServerException("Service not found: " + serviceName);
+        return serviceDTO;
+    }
+
+    public static List<ServiceConfigDTO> getServiceConfigs(String serviceName) {
+        return registry.getServiceConfigs().get(serviceName);
+    }
+
+    public static Map<String, String> getServiceTemplates(String serviceName) {
+        return registry.getServiceTemplates().getOrDefault(serviceName, Map.of());
+    }
+
+    public static DAG<String, ComponentCommandWrapper, DagGraphEdge> getDag() {
+        return registry.getDag();
+    }
+
+    public static ExecutionPlanner getExecutionPlanner() {
+        return registry.getExecutionPlanner();
     }
 
     public static ComponentDTO getComponentDTO(String componentName) {
-        for (Map.Entry<StackDTO, List<ServiceDTO>> entry : STACK_SERVICE_MAP.entrySet()) {
-            for (ServiceDTO serviceDTO : entry.getValue()) {
-                for (ComponentDTO componentDTO : serviceDTO.getComponents()) {
-                    if (componentDTO.getName().equals(componentName)) {
-                        return componentDTO;
-                    }
-                }
-            }
+        ComponentDTO componentDTO = registry.getComponent(componentName);
+        if (componentDTO == null) {
+            throw new ServerException("Component not found: " + componentName);
         }
 
-        throw new ServerException("Component not found: " + componentName);
+        return componentDTO;
     }
 
     public static ServiceDTO getServiceDTOByComponentName(String componentName) {
-        for (Map.Entry<StackDTO, List<ServiceDTO>> entry : STACK_SERVICE_MAP.entrySet()) {
-            for (ServiceDTO serviceDTO : entry.getValue()) {
-                for (ComponentDTO componentDTO : serviceDTO.getComponents()) {
-                    if (componentDTO.getName().equals(componentName)) {
-                        return serviceDTO;
-                    }
-                }
-            }
+        ServiceDTO serviceDTO = registry.getServiceByComponentName(componentName);
+        if (serviceDTO == null) {
+            throw new ServerException("Service not found by component name: " + componentName);
         }
 
-        throw new ServerException("Service not found by component name: " + componentName);
+        return serviceDTO;
     }
 
     public static Boolean isServerComponent(String componentName) {
@@ -29,7 +29,8 @@ USER=$(whoami)
 GROUP=$(id -gn)
 
 info() {
-    echo $1 >> setup-agent.log 2>&1
+    # Also on stdout, which the server shows while the agent is being set up
+    echo $1 | tee -a setup-agent.log
 }
 
 error () {
@@ -77,16 +78,17 @@ validate_checksum() {
 
 # File handling with validation
 handle_tar_file() {
-    # Validate existing file
+    # Validate existing file, it may have been pushed by the server
     if [ -f "$TAR_FILE" ]; then
-        if [ -n "$CHECK_ALG" ]; then
-            validate_checksum "$TAR_FILE" || {
-                info "Removing invalid file: $TAR_FILE"
-                rm -f "$TAR_FILE"
-            }
-        else
+        if [ -z "$CHECK_ALG" ]; then
             info "Using existing file: $TAR_FILE"
             return 0
+        elif validate_checksum "$TAR_FILE"; then
+            info "Using existing file with valid checksum: $TAR_FILE"
+            return 0
+        else
+            info "Removing invalid file: $TAR_FILE"
+            rm -f "$TAR_FILE"
         fi
     fi
 
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.helper;
+
+import org.apache.bigtop.manager.common.constants.MessageConstants;
+import org.apache.bigtop.manager.common.utils.JsonUtils;
+import org.apache.bigtop.manager.dao.po.ClusterPO;
+import org.apache.bigtop.manager.dao.po.HostPO;
+import org.apache.bigtop.manager.dao.po.ServiceConfigPO;
+import org.apache.bigtop.manager.dao.repository.ClusterDao;
+import org.apache.bigtop.manager.dao.repository.ComponentDao;
+import org.apache.bigtop.manager.dao.repository.HostDao;
+import org.apache.bigtop.manager.dao.repository.RepoDao;
+import org.apache.bigtop.manager.dao.repository.ServiceConfigDao;
+import org.apache.bigtop.manager.grpc.generated.JobCacheReply;
+import org.apache.bigtop.manager.grpc.generated.JobCacheServiceGrpc;
+import org.apache.bigtop.manager.grpc.payload.JobCachePayload;
+import org.apache.bigtop.manager.server.config.CommandConfig;
+import org.apache.bigtop.manager.server.grpc.GrpcClient;
+import org.apache.bigtop.manager.server.holder.SpringContextHolder;
+import org.apache.bigtop.manager.server.utils.StackUtils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.sun.management.ThreadMXBean;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures time and allocation of sending the job cache of a cluster with large configurations to 1000 hosts,
+ * compared with serializing the whole payload to json for every host.
+ */
+@Slf4j
+public class JobCacheHelperBenchmarkTest {
+
+    private static final int HOSTS = 1000;
+
+    private static final int SERVICES = 10;
+
+    private static final int CONFIGS_PER_SERVICE = 5;
+
+    private static final int PROPERTIES_PER_CONFIG = 50;
+
+    private final ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private MockedStatic<SpringContextHolder> springContextHolderMockedStatic;
+
+    private MockedStatic<GrpcClient> grpcClientMockedStatic;
+
+    private MockedStatic<StackUtils> stackUtilsMockedStatic;
+
+    private List<ServiceConfigPO> serviceConfigPOList;
+
+    private List<String> hostnames;
+
+    private Executor originalExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        serviceConfigPOList = new ArrayList<>();
+        for (int i = 0; i < SERVICES; i++) {
+            for (int j = 0; j < CONFIGS_PER_SERVICE; j++) {
+                List<Map<String, Object>> properties = new ArrayList<>();
+                for (int k = 0; k < PROPERTIES_PER_CONFIG; k++) {
+                    properties.add(Map.of(
+                            "name",
+                            "service" + i + ".config" + j + ".property" + k,
+                            "value",
+                            "/data/" + i + "/" + j + "/" + k + "/value-of-a-rather-long-property"));
+                }
+
+                ServiceConfigPO serviceConfigPO = new ServiceConfigPO();
+                serviceConfigPO.setServiceName("service" + i);
+                serviceConfigPO.setName("config" + j);
+                serviceConfigPO.setPropertiesJson(JsonUtils.writeAsString(properties));
+                serviceConfigPOList.add(serviceConfigPO);
+            }
+        }
+
+        hostnames = new ArrayList<>();
+        List<HostPO> hostPOList = new ArrayList<>();
+        for (int i = 0; i < HOSTS; i++) {
+            HostPO hostPO = new HostPO();
+            hostPO.setHostname("host" + i);
+            hostPO.setClusterId(1L);
+            hostPO.setGrpcPort(8835);
+            hostPOList.add(hostPO);
+            hostnames.add(hostPO.getHostname());
+        }
+
+        ClusterDao clusterDao = mock(ClusterDao.class);
+        ServiceConfigDao serviceConfigDao = mock(ServiceConfigDao.class);
+        HostDao hostDao = mock(HostDao.class);
+        ClusterPO clusterPO = new ClusterPO();
+        clusterPO.setName("cluster1");
+        when(clusterDao.findById(1L)).thenReturn(clusterPO);
+        when(serviceConfigDao.findByClusterId(anyLong())).thenReturn(List.of());
+        when(serviceConfigDao.findByClusterId(1L)).thenReturn(serviceConfigPOList);
+        when(hostDao.findAll()).thenReturn(hostPOList);
+        when(hostDao.findAllByHostnames(any())).thenAnswer(invocation -> {
+            List<String> names = invocation.getArgument(0);
+            return new ArrayList<>(hostPOList.subList(0, names.size()));
+        });
+
+        springContextHolderMockedStatic = mockStatic(SpringContextHolder.class);
+        when(SpringContextHolder.getBean(ClusterDao.class)).thenReturn(clusterDao);
+        when(SpringContextHolder.getBean(ServiceConfigDao.class)).thenReturn(serviceConfigDao);
+        when(SpringContextHolder.getBean(RepoDao.class)).thenReturn(mock(RepoDao.class));
+        when(SpringContextHolder.getBean(HostDao.class)).thenReturn(hostDao);
+        when(SpringContextHolder.getBean(ComponentDao.class)).thenReturn(mock(ComponentDao.class));
+        when(SpringContextHolder.getBean(CommandConfig.class)).thenReturn(new CommandConfig());
+
+        stackUtilsMockedStatic = mockStatic(StackUtils.class);
+        stackUtilsMockedStatic.when(StackUtils::getAllStacks).thenReturn(List.of());
+
+        JobCacheServiceGrpc.JobCacheServiceBlockingStub stub =
+                mock(JobCacheServiceGrpc.JobCacheServiceBlockingStub.class);
+        JobCacheReply reply = JobCacheReply.newBuilder()
+                .setCode(MessageConstants.SUCCESS_CODE)
+                .build();
+        when(stub.withDeadlineAfter(30L, TimeUnit.SECONDS)).thenReturn(stub);
+        when(stub.save(any())).thenAnswer(invocation -> {
+            requests.incrementAndGet();
+            return reply;
+        });
+        grpcClientMockedStatic = mockStatic(GrpcClient.class);
+        grpcClientMockedStatic
+                .when(() -> GrpcClient.getBlockingStub(
+                        any(), anyInt(), eq(JobCacheServiceGrpc.JobCacheServiceBlockingStub.class)))
+                .thenReturn(stub);
+
+        // Everything runs on the current thread so its allocated bytes cover the whole fan-out
+        originalExecutor = (Executor) ReflectionTestUtils.getField(JobCacheHelper.class, "executor");
+        ReflectionTestUtils.setField(JobCacheHelper.class, "executor", MoreExecutors.directExecutor());
+        ((AtomicBoolean) ReflectionTestUtils.getField(JobCacheHelper.class, "INITIALIZED")).set(false);
+        ((Map<?, ?>) ReflectionTestUtils.getField(JobCacheHelper.class, "HOST_SECTION_HASHES")).clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReflectionTestUtils.setField(JobCacheHelper.class, "executor", originalExecutor);
+        ((AtomicBoolean) ReflectionTestUtils.getField(JobCacheHelper.class, "INITIALIZED")).set(false);
+        ((Map<?, ?>) ReflectionTestUtils.getField(JobCacheHelper.class, "HOST_SECTION_HASHES")).clear();
+        springContextHolderMockedStatic.close();
+        grpcClientMockedStatic.close();
+        stackUtilsMockedStatic.close();
+    }
+
+    @Test
+    public void testSendJobCache() {
+        // Warm up serializers and mocks
+        JobCacheHelper.sendJobCache(0L, hostnames.subList(0, 10));
+        ((Map<?, ?>) ReflectionTestUtils.getField(JobCacheHelper.class, "HOST_SECTION_HASHES")).clear();
+
+        long[] perHostJson = measure(this::serializePerHost);
+        long[] firstJob = measure(() -> JobCacheHelper.sendJobCache(1L, hostnames));
+        long[] nextJob = measure(() -> JobCacheHelper.sendJobCache(2L, hostnames));
+
+        log.info(
+                "Job cache for {} hosts: json per host {} ms / {} MB, first job {} ms / {} MB, next job {} ms / {} MB",
+                HOSTS,
+                perHostJson[0],
+                perHostJson[1] >> 20,
+                firstJob[0],
+                firstJob[1] >> 20,
+                nextJob[0],
+                nextJob[1] >> 20);
+
+        assertEquals(10 + 2 * HOSTS, requests.get());
+        // Encoding once per cluster allocates a fraction of encoding once per host
+        assertTrue(firstJob[1] * 5 < perHostJson[1]);
+        assertTrue(nextJob[1] * 5 < perHostJson[1]);
+    }
+
+    /**
+     * What the job cache used to cost, the whole payload serialized to a json string for each host.
+     */
+    private void serializePerHost() {
+        Map<String, Map<String, String>> configurations = new HashMap<>();
+        for (ServiceConfigPO serviceConfigPO : serviceConfigPOList) {
+            configurations
+                    .computeIfAbsent(serviceConfigPO.getServiceName(), k -> new HashMap<>())
+                    .put(serviceConfigPO.getName(), serviceConfigPO.getPropertiesJson());
+        }
+
+        JobCachePayload payload = new JobCachePayload();
+        payload.setClusterId(1L);
+        payload.setConfigurations(configurations);
+        payload.setComponentHosts(Map.of("all", hostnames));
+        for (int i = 0; i < HOSTS; i++) {
+            JsonUtils.writeAsString(payload);
+        }
+    }
+
+    /**
+     * @return elapsed milliseconds and bytes allocated by the current thread
+     */
+    private long[] measure(Runnable runnable) {
+        long allocatedBytes = threadMXBean.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        runnable.run();
+        return new long[] {
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+            threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBytes
+        };
+    }
+}
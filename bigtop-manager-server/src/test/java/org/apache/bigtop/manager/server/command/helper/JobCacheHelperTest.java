@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.helper;
+
+import org.apache.bigtop.manager.common.constants.MessageConstants;
+import org.apache.bigtop.manager.dao.po.ClusterPO;
+import org.apache.bigtop.manager.dao.po.HostPO;
+import org.apache.bigtop.manager.dao.po.ServiceConfigPO;
+import org.apache.bigtop.manager.dao.repository.ClusterDao;
+import org.apache.bigtop.manager.dao.repository.ComponentDao;
+import org.apache.bigtop.manager.dao.repository.HostDao;
+import org.apache.bigtop.manager.dao.repository.RepoDao;
+import org.apache.bigtop.manager.dao.repository.ServiceConfigDao;
+import org.apache.bigtop.manager.grpc.generated.JobCacheReply;
+import org.apache.bigtop.manager.grpc.generated.JobCacheRequest;
+import org.apache.bigtop.manager.grpc.generated.JobCacheSection;
+import org.apache.bigtop.manager.grpc.generated.JobCacheServiceGrpc;
+import org.apache.bigtop.manager.grpc.utils.JobCacheUtils;
+import org.apache.bigtop.manager.server.config.CommandConfig;
+import org.apache.bigtop.manager.server.exception.ServerException;
+import org.apache.bigtop.manager.server.grpc.GrpcClient;
+import org.apache.bigtop.manager.server.holder.SpringContextHolder;
+import org.apache.bigtop.manager.server.utils.StackUtils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.apache.bigtop.manager.common.constants.CacheFiles.CONFIGURATIONS_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.PACKAGE_PEERS_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.USERS_INFO;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JobCacheHelperTest {
+
+    private MockedStatic<SpringContextHolder> springContextHolderMockedStatic;
+
+    private MockedStatic<GrpcClient> grpcClientMockedStatic;
+
+    private MockedStatic<StackUtils> stackUtilsMockedStatic;
+
+    private ServiceConfigDao serviceConfigDao;
+
+    private JobCacheServiceGrpc.JobCacheServiceBlockingStub stub;
+
+    private Executor originalExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        ClusterDao clusterDao = mock(ClusterDao.class);
+        serviceConfigDao = mock(ServiceConfigDao.class);
+        RepoDao repoDao = mock(RepoDao.class);
+        HostDao hostDao = mock(HostDao.class);
+        ComponentDao componentDao = mock(ComponentDao.class);
+
+        springContextHolderMockedStatic = mockStatic(SpringContextHolder.class);
+        when(SpringContextHolder.getBean(ClusterDao.class)).thenReturn(clusterDao);
+        when(SpringContextHolder.getBean(ServiceConfigDao.class)).thenReturn(serviceConfigDao);
+        when(SpringContextHolder.getBean(RepoDao.class)).thenReturn(repoDao);
+        when(SpringContextHolder.getBean(HostDao.class)).thenReturn(hostDao);
+        when(SpringContextHolder.getBean(ComponentDao.class)).thenReturn(componentDao);
+        when(SpringContextHolder.getBean(CommandConfig.class)).thenReturn(new CommandConfig());
+
+        stackUtilsMockedStatic = mockStatic(StackUtils.class);
+        stackUtilsMockedStatic.when(StackUtils::getAllStacks).thenReturn(List.of());
+
+        ClusterPO clusterPO = new ClusterPO();
+        clusterPO.setName("cluster1");
+        when(clusterDao.findById(1L)).thenReturn(clusterPO);
+        when(hostDao.findAll()).thenReturn(List.of(host("host1"), host("host2")));
+        when(hostDao.findAllByHostnames(any())).thenAnswer(invocation -> {
+            List<String> hostnames = invocation.getArgument(0);
+            return new ArrayList<>(hostnames.stream().map(this::host).toList());
+        });
+        when(serviceConfigDao.findByClusterId(anyLong())).thenReturn(List.of());
+        when(serviceConfigDao.findByClusterId(1L)).thenReturn(List.of(serviceConfig("v1")));
+
+        stub = mock(JobCacheServiceGrpc.JobCacheServiceBlockingStub.class);
+        when(stub.withDeadlineAfter(30L, TimeUnit.SECONDS)).thenReturn(stub);
+        when(stub.save(any())).thenReturn(reply());
+        grpcClientMockedStatic = mockStatic(GrpcClient.class);
+        grpcClientMockedStatic
+                .when(() -> GrpcClient.getBlockingStub(
+                        any(), anyInt(), eq(JobCacheServiceGrpc.JobCacheServiceBlockingStub.class)))
+                .thenReturn(stub);
+
+        // Static mocks only work on the current thread
+        originalExecutor = (Executor) ReflectionTestUtils.getField(JobCacheHelper.class, "executor");
+        ReflectionTestUtils.setField(JobCacheHelper.class, "executor", MoreExecutors.directExecutor());
+        ((AtomicBoolean) ReflectionTestUtils.getField(JobCacheHelper.class, "INITIALIZED")).set(false);
+        ((Map<?, ?>) ReflectionTestUtils.getField(JobCacheHelper.class, "HOST_SECTION_HASHES")).clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReflectionTestUtils.setField(JobCacheHelper.class, "executor", originalExecutor);
+        ((AtomicBoolean) ReflectionTestUtils.getField(JobCacheHelper.class, "INITIALIZED")).set(false);
+        ((Map<?, ?>) ReflectionTestUtils.getField(JobCacheHelper.class, "HOST_SECTION_HASHES")).clear();
+        springContextHolderMockedStatic.close();
+        grpcClientMockedStatic.close();
+        stackUtilsMockedStatic.close();
+    }
+
+    @Test
+    public void testOnlyChangedSectionsAreSent() {
+        JobCacheHelper.sendJobCache(1L, List.of("host1", "host2"));
+
+        // First job sends the content of all sections
+        ArgumentCaptor<JobCacheRequest> captor = ArgumentCaptor.forClass(JobCacheRequest.class);
+        verify(stub, times(2)).save(captor.capture());
+        JobCacheRequest first = captor.getValue();
+        assertEquals(6, first.getSectionsCount());
+        assertTrue(first.getSectionsList().stream()
+                .noneMatch(section -> section.getContent().isEmpty()));
+        String configurations = new String(
+                JobCacheUtils.decompress(section(first, CONFIGURATIONS_INFO).getContent()), StandardCharsets.UTF_8);
+        assertEquals("{\"hdfs\":{\"core-site\":\"{\\\"fs.defaultFS\\\":\\\"v1\\\"}\"}}", configurations);
+
+        // Nothing changed, only hashes are sent
+        JobCacheHelper.sendJobCache(2L, List.of("host1", "host2"));
+        verify(stub, times(4)).save(captor.capture());
+        JobCacheRequest second = captor.getValue();
+        assertEquals(6, second.getSectionsCount());
+        assertTrue(second.getSectionsList().stream()
+                .allMatch(section -> section.getContent().isEmpty()));
+        assertEquals(
+                section(first, USERS_INFO).getHash(),
+                section(second, USERS_INFO).getHash());
+
+        // Only the changed configurations are sent with content
+        when(serviceConfigDao.findByClusterId(1L)).thenReturn(List.of(serviceConfig("v2")));
+        JobCacheHelper.sendJobCache(3L, List.of("host1", "host2"));
+        verify(stub, times(6)).save(captor.capture());
+        JobCacheRequest third = captor.getValue();
+        assertFalse(section(third, CONFIGURATIONS_INFO).getContent().isEmpty());
+        assertTrue(section(third, USERS_INFO).getContent().isEmpty());
+    }
+
+    @Test
+    public void testMissingSectionsAreResent() {
+        JobCacheHelper.sendJobCache(1L, List.of("host1", "host2"));
+
+        // The agent lost its users cache
+        when(stub.save(any()))
+                .thenReturn(JobCacheReply.newBuilder()
+                        .setCode(MessageConstants.FAIL_CODE)
+                        .addMissingSections(USERS_INFO)
+                        .build())
+                .thenReturn(reply());
+        JobCacheHelper.sendJobCache(2L, List.of("host1"));
+
+        ArgumentCaptor<JobCacheRequest> captor = ArgumentCaptor.forClass(JobCacheRequest.class);
+        verify(stub, times(4)).save(captor.capture());
+        JobCacheRequest retry = captor.getValue();
+        assertEquals(1, retry.getSectionsCount());
+        assertEquals(USERS_INFO, retry.getSections(0).getName());
+        assertFalse(retry.getSections(0).getContent().isEmpty());
+    }
+
+    @Test
+    public void testFailedHostGetsFullContentNextTime() {
+        when(stub.save(any()))
+                .thenReturn(JobCacheReply.newBuilder()
+                        .setCode(MessageConstants.FAIL_CODE)
+                        .build());
+        assertThrows(ServerException.class, () -> JobCacheHelper.sendJobCache(1L, List.of("host1", "host2")));
+
+        when(stub.save(any())).thenReturn(reply());
+        JobCacheHelper.sendJobCache(2L, List.of("host1", "host2"));
+
+        ArgumentCaptor<JobCacheRequest> captor = ArgumentCaptor.forClass(JobCacheRequest.class);
+        verify(stub, times(4)).save(captor.capture());
+        assertTrue(captor.getValue().getSectionsList().stream()
+                .noneMatch(section -> section.getContent().isEmpty()));
+    }
+
+    @Test
+    public void testUnavailableHostIsRetried() {
+        when(stub.save(any()))
+                .thenThrow(Status.UNAVAILABLE.asRuntimeException())
+                .thenReturn(reply());
+        JobCacheHelper.sendJobCache(1L, List.of("host1"));
+        verify(stub, times(2)).save(any());
+
+        // Non transient errors and hosts still failing after all retries fail the job
+        doThrow(Status.INVALID_ARGUMENT.asRuntimeException()).when(stub).save(any());
+        assertThrows(ServerException.class, () -> JobCacheHelper.sendJobCache(2L, List.of("host1")));
+        verify(stub, times(3)).save(any());
+
+        CommandConfig commandConfig = new CommandConfig();
+        commandConfig.getJobCache().setMaxRetries(0);
+        ReflectionTestUtils.setField(JobCacheHelper.class, "commandConfig", commandConfig);
+        doThrow(Status.DEADLINE_EXCEEDED.asRuntimeException()).when(stub).save(any());
+        assertThrows(ServerException.class, () -> JobCacheHelper.sendJobCache(3L, List.of("host1")));
+        verify(stub, times(4)).save(any());
+    }
+
+    @Test
+    public void testPackagePeersTree() {
+        List<HostPO> hosts = new ArrayList<>();
+        for (int i = 6; i >= 0; i--) {
+            hosts.add(host("host" + i));
+        }
+
+        Map<String, List<String>> packagePeers = JobCacheHelper.genPackagePeers(hosts, 2);
+        assertEquals(List.of(), packagePeers.get("host0"));
+        assertEquals(List.of("host0:8835"), packagePeers.get("host1"));
+        assertEquals(List.of("host0:8835"), packagePeers.get("host2"));
+        assertEquals(List.of("host1:8835", "host0:8835"), packagePeers.get("host3"));
+        assertEquals(List.of("host2:8835", "host0:8835"), packagePeers.get("host6"));
+
+        assertTrue(JobCacheHelper.genPackagePeers(hosts, 0).isEmpty());
+    }
+
+    @Test
+    public void testPackagePeersAreSent() {
+        JobCacheHelper.sendJobCache(1L, List.of("host2", "host1"));
+
+        ArgumentCaptor<JobCacheRequest> captor = ArgumentCaptor.forClass(JobCacheRequest.class);
+        verify(stub, times(2)).save(captor.capture());
+        String packagePeers = new String(
+                JobCacheUtils.decompress(
+                        section(captor.getValue(), PACKAGE_PEERS_INFO).getContent()),
+                StandardCharsets.UTF_8);
+        assertEquals("{\"host1\":[],\"host2\":[\"host1:8835\"]}", packagePeers);
+    }
+
+    private JobCacheSection section(JobCacheRequest request, String name) {
+        return request.getSectionsList().stream()
+                .filter(section -> section.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private JobCacheReply reply() {
+        return JobCacheReply.newBuilder().setCode(MessageConstants.SUCCESS_CODE).build();
+    }
+
+    private ServiceConfigPO serviceConfig(String value) {
+        ServiceConfigPO serviceConfigPO = new ServiceConfigPO();
+        serviceConfigPO.setServiceName("hdfs");
+        serviceConfigPO.setName("core-site");
+        serviceConfigPO.setPropertiesJson("[{\"name\":\"fs.defaultFS\",\"value\":\"" + value + "\"}]");
+        return serviceConfigPO;
+    }
+
+    private HostPO host(String hostname) {
+        HostPO hostPO = new HostPO();
+        hostPO.setHostname(hostname);
+        hostPO.setClusterId(1L);
+        hostPO.setGrpcPort(8835);
+        return hostPO;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.journal;
+
+import org.apache.bigtop.manager.dao.po.JobPO;
+import org.apache.bigtop.manager.dao.po.StagePO;
+import org.apache.bigtop.manager.dao.po.TaskPO;
+import org.apache.bigtop.manager.dao.repository.JobDao;
+import org.apache.bigtop.manager.dao.repository.StageDao;
+import org.apache.bigtop.manager.dao.repository.TaskDao;
+import org.apache.bigtop.manager.server.config.CommandConfig;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JobStateJournalTest {
+
+    private JobStateJournal jobStateJournal;
+
+    private CommandConfig commandConfig;
+
+    private JobDao jobDao;
+
+    private StageDao stageDao;
+
+    private TaskDao taskDao;
+
+    @BeforeEach
+    public void setUp() {
+        commandConfig = new CommandConfig();
+        // Disable periodic flush, flushes are triggered by tests
+        commandConfig.getJournal().setFlushInterval(60_000L);
+        jobDao = mock(JobDao.class);
+        stageDao = mock(StageDao.class);
+        taskDao = mock(TaskDao.class);
+
+        jobStateJournal = new JobStateJournal();
+        ReflectionTestUtils.setField(jobStateJournal, "commandConfig", commandConfig);
+        ReflectionTestUtils.setField(jobStateJournal, "jobDao", jobDao);
+        ReflectionTestUtils.setField(jobStateJournal, "stageDao", stageDao);
+        ReflectionTestUtils.setField(jobStateJournal, "taskDao", taskDao);
+        ReflectionTestUtils.setField(jobStateJournal, "meterRegistry", new SimpleMeterRegistry());
+        jobStateJournal.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jobStateJournal.destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlushCoalescesTransitions() {
+        jobStateJournal.recordTask(task(1L, "Processing"));
+        jobStateJournal.recordTask(task(2L, "Processing"));
+        jobStateJournal.recordTask(task(1L, "Successful"));
+        assertEquals(2, jobStateJournal.getPendingCount());
+
+        jobStateJournal.flush();
+
+        ArgumentCaptor<List<TaskPO>> captor = ArgumentCaptor.forClass(List.class);
+        verify(taskDao, times(1)).partialUpdateByIds(captor.capture());
+        List<TaskPO> written = captor.getValue();
+        assertEquals(2, written.size());
+        assertEquals(2L, written.get(0).getId());
+        assertEquals("Processing", written.get(0).getState());
+        assertEquals(1L, written.get(1).getId());
+        assertEquals("Successful", written.get(1).getState());
+        // Only id and state are written
+        assertNull(written.get(1).getContext());
+        assertEquals(0, jobStateJournal.getPendingCount());
+
+        verify(stageDao, never()).partialUpdateByIds(anyList());
+        verify(jobDao, never()).partialUpdateByIds(anyList());
+    }
+
+    @Test
+    public void testFlushOrder() {
+        jobStateJournal.recordJob(job(1L, "Successful"));
+        jobStateJournal.recordStage(stage(1L, "Successful"));
+        for (long i = 1; i <= 5; i++) {
+            jobStateJournal.recordTask(task(i, "Successful"));
+        }
+
+        jobStateJournal.flush();
+
+        InOrder inOrder = inOrder(taskDao, stageDao, jobDao);
+        inOrder.verify(taskDao).partialUpdateByIds(anyList());
+        inOrder.verify(stageDao).partialUpdateByIds(anyList());
+        inOrder.verify(jobDao).partialUpdateByIds(anyList());
+    }
+
+    @Test
+    public void testFailedFlushIsRetried() {
+        when(taskDao.partialUpdateByIds(any())).thenThrow(new RuntimeException("test"));
+        jobStateJournal.recordTask(task(1L, "Processing"));
+        jobStateJournal.recordJob(job(1L, "Processing"));
+
+        assertThrows(RuntimeException.class, () -> jobStateJournal.flush());
+        assertEquals(2, jobStateJournal.getPendingCount());
+
+        // Newer transition recorded before the retry wins
+        jobStateJournal.recordTask(task(1L, "Failed"));
+        doReturn(1).when(taskDao).partialUpdateByIds(any());
+        jobStateJournal.flush();
+
+        assertEquals(0, jobStateJournal.getPendingCount());
+        verify(jobDao, times(1)).partialUpdateByIds(anyList());
+    }
+
+    @Test
+    public void testWriteThrough() {
+        commandConfig.getJournal().setFlushInterval(0L);
+
+        jobStateJournal.recordTask(task(1L, "Processing"));
+        jobStateJournal.recordTask(task(1L, "Successful"));
+
+        verify(taskDao, times(2)).partialUpdateByIds(anyList());
+        assertEquals(0, jobStateJournal.getPendingCount());
+    }
+
+    @Test
+    public void testIgnoreUnsavedRows() {
+        jobStateJournal.recordTask(task(null, "Processing"));
+
+        assertEquals(0, jobStateJournal.getPendingCount());
+    }
+
+    private TaskPO task(Long id, String state) {
+        TaskPO taskPO = new TaskPO();
+        taskPO.setId(id);
+        taskPO.setState(state);
+        taskPO.setContext("{}");
+        return taskPO;
+    }
+
+    private StagePO stage(Long id, String state) {
+        StagePO stagePO = new StagePO();
+        stagePO.setId(id);
+        stagePO.setState(state);
+        return stagePO;
+    }
+
+    private JobPO job(Long id, String state) {
+        JobPO jobPO = new JobPO();
+        jobPO.setId(id);
+        jobPO.setState(state);
+        return jobPO;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.scheduler;
+
+import org.apache.bigtop.manager.server.command.job.Job;
+import org.apache.bigtop.manager.server.command.job.JobContext;
+import org.apache.bigtop.manager.server.command.stage.Stage;
+import org.apache.bigtop.manager.server.command.stage.StageContext;
+import org.apache.bigtop.manager.server.config.CommandConfig;
+import org.apache.bigtop.manager.server.model.dto.CommandDTO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DefaultJobSchedulerTest {
+
+    private DefaultJobScheduler scheduler;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.destroy();
+    }
+
+    @Test
+    public void testIndependentJobsRunConcurrently() throws Exception {
+        initScheduler(2);
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        Job job1 = mockJob(1L, "hdfs", List.of("host1"), started, release);
+        Job job2 = mockJob(2L, "hdfs", List.of("host2"), started, release);
+
+        scheduler.submit(job1);
+        scheduler.submit(job2);
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(2, scheduler.getRunningJobs());
+        release.countDown();
+    }
+
+    @Test
+    public void testConflictingJobsAreSerialized() throws Exception {
+        initScheduler(2);
+
+        CountDownLatch release1 = new CountDownLatch(1);
+        CountDownLatch started1 = new CountDownLatch(1);
+        CountDownLatch release2 = new CountDownLatch(0);
+        CountDownLatch started2 = new CountDownLatch(1);
+        Job job1 = mockJob(1L, "hdfs", List.of("host1"), started1, release1);
+        Job job2 = mockJob(1L, "yarn", List.of("host1"), started2, release2);
+
+        scheduler.submit(job1);
+        scheduler.submit(job2);
+
+        assertTrue(started1.await(5, TimeUnit.SECONDS));
+        assertFalse(started2.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, scheduler.getRunningJobs());
+        assertEquals(1, scheduler.getQueuedJobs());
+
+        release1.countDown();
+        assertTrue(started2.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testBlockedJobKeepsSubmissionOrder() throws Exception {
+        initScheduler(3);
+
+        CountDownLatch release1 = new CountDownLatch(1);
+        CountDownLatch started1 = new CountDownLatch(1);
+        CountDownLatch started2 = new CountDownLatch(1);
+        CountDownLatch started3 = new CountDownLatch(1);
+        Job job1 = mockJob(1L, "hdfs", List.of("host1"), started1, release1);
+        Job job2 = mockJob(1L, "yarn", List.of("host1", "host2"), started2, new CountDownLatch(0));
+        Job job3 = mockJob(1L, "hive", List.of("host2"), started3, new CountDownLatch(0));
+
+        scheduler.submit(job1);
+        scheduler.submit(job2);
+        scheduler.submit(job3);
+
+        // job3 doesn't conflict with the running job1, but it must wait for the earlier job2
+        assertTrue(started1.await(5, TimeUnit.SECONDS));
+        assertFalse(started3.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(2, scheduler.getQueuedJobs());
+
+        release1.countDown();
+        assertTrue(started2.await(5, TimeUnit.SECONDS));
+        assertTrue(started3.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStopAndStart() throws Exception {
+        initScheduler(1);
+
+        CountDownLatch started = new CountDownLatch(1);
+        Job job = mockJob(1L, "hdfs", List.of("host1"), started, new CountDownLatch(0));
+
+        scheduler.stop();
+        scheduler.submit(job);
+        assertFalse(started.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, scheduler.getQueuedJobs());
+
+        scheduler.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        initScheduler(1);
+
+        CountDownLatch started = new CountDownLatch(1);
+        Job job = mockJob(1L, "hdfs", List.of("host1"), started, new CountDownLatch(0));
+        scheduler.submit(job);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertNotNull(meterRegistry.find("job_scheduler_queued_jobs").gauge());
+        assertNotNull(meterRegistry.find("job_scheduler_running_jobs").gauge());
+        assertNotNull(meterRegistry.find("job_scheduler_wait_time").timer());
+    }
+
+    private void initScheduler(int maxConcurrentJobs) {
+        CommandConfig commandConfig = new CommandConfig();
+        commandConfig.getScheduler().setMaxConcurrentJobs(maxConcurrentJobs);
+        meterRegistry = new SimpleMeterRegistry();
+
+        scheduler = new DefaultJobScheduler();
+        ReflectionTestUtils.setField(scheduler, "commandConfig", commandConfig);
+        ReflectionTestUtils.setField(scheduler, "meterRegistry", meterRegistry);
+        scheduler.init();
+    }
+
+    private Job mockJob(
+            Long clusterId,
+            String serviceName,
+            List<String> hostnames,
+            CountDownLatch started,
+            CountDownLatch release) {
+        CommandDTO commandDTO = new CommandDTO();
+        commandDTO.setClusterId(clusterId);
+        JobContext jobContext = new JobContext();
+        jobContext.setCommandDTO(commandDTO);
+
+        StageContext stageContext = new StageContext();
+        stageContext.setClusterId(clusterId);
+        stageContext.setServiceName(serviceName);
+        stageContext.setHostnames(hostnames);
+        Stage stage = mock(Stage.class);
+        when(stage.getStageContext()).thenReturn(stageContext);
+
+        Job job = mock(Job.class);
+        when(job.getName()).thenReturn("Test job");
+        when(job.getJobContext()).thenReturn(jobContext);
+        when(job.getStages()).thenReturn(List.of(stage));
+        doAnswer(invocation -> {
+                    started.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return null;
+                })
+                .when(job)
+                .run();
+        return job;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JobResourcesTest {
+
+    @Test
+    public void testSameHostConflicts() {
+        JobResources r1 = new JobResources(1L, Set.of("hdfs"), Set.of("host1", "host2"));
+        JobResources r2 = new JobResources(2L, Set.of("yarn"), Set.of("host2"));
+        assertTrue(r1.conflictsWith(r2));
+        assertTrue(r2.conflictsWith(r1));
+    }
+
+    @Test
+    public void testSameClusterServiceConflicts() {
+        JobResources r1 = new JobResources(1L, Set.of("hdfs"), Set.of("host1"));
+        JobResources r2 = new JobResources(1L, Set.of("hdfs", "yarn"), Set.of("host2"));
+        assertTrue(r1.conflictsWith(r2));
+    }
+
+    @Test
+    public void testIndependentJobs() {
+        JobResources r1 = new JobResources(1L, Set.of("hdfs"), Set.of("host1"));
+        JobResources r2 = new JobResources(1L, Set.of("yarn"), Set.of("host2"));
+        JobResources r3 = new JobResources(2L, Set.of("hdfs"), Set.of("host3"));
+        assertFalse(r1.conflictsWith(r2));
+        assertFalse(r1.conflictsWith(r3));
+    }
+
+    @Test
+    public void testClusterWideJob() {
+        JobResources clusterWide = new JobResources(1L, Set.of(), Set.of());
+        JobResources sameCluster = new JobResources(1L, Set.of("hdfs"), Set.of("host1"));
+        JobResources otherCluster = new JobResources(2L, Set.of("hdfs"), Set.of("host2"));
+        JobResources noCluster = new JobResources(null, Set.of(), Set.of("host3"));
+        assertTrue(clusterWide.isClusterWide());
+        assertTrue(clusterWide.conflictsWith(sameCluster));
+        assertFalse(clusterWide.conflictsWith(otherCluster));
+        assertTrue(clusterWide.conflictsWith(noCluster));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.stage;
+
+import org.apache.bigtop.manager.common.enums.Command;
+import org.apache.bigtop.manager.server.stack.dag.ComponentCommandWrapper;
+import org.apache.bigtop.manager.server.stack.dag.DAG;
+import org.apache.bigtop.manager.server.stack.dag.DagGraphEdge;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StageDependencyGraphTest {
+
+    private DAG<String, ComponentCommandWrapper, DagGraphEdge> dag;
+
+    @BeforeEach
+    public void setUp() {
+        dag = new DAG<>();
+        addEdge("zookeeper_server-START", "kafka_broker-START");
+        addEdge("kafka_broker-START", "some_consumer-START");
+    }
+
+    @Test
+    public void testIndependentStagesHaveNoDependencies() {
+        Stage zookeeper = mockComponentStage(ComponentStartStage.class, "zookeeper_server", Command.START);
+        Stage grafana = mockComponentStage(ComponentStartStage.class, "grafana", Command.START);
+
+        StageDependencyGraph graph = StageDependencyGraph.of(List.of(zookeeper, grafana), dag);
+
+        assertTrue(graph.getDependencies(1).isEmpty());
+        assertEquals(List.of(0, 1), graph.getReadyStages(Set.of(), Set.of()));
+    }
+
+    @Test
+    public void testDagPathCreatesDependency() {
+        Stage zookeeper = mockComponentStage(ComponentStartStage.class, "zookeeper_server", Command.START);
+        Stage grafana = mockComponentStage(ComponentStartStage.class, "grafana", Command.START);
+        Stage consumer = mockComponentStage(ComponentStartStage.class, "some_consumer", Command.START);
+
+        // kafka_broker is not part of the job, but the transitive dependency must be respected
+        StageDependencyGraph graph = StageDependencyGraph.of(List.of(zookeeper, grafana, consumer), dag);
+
+        assertEquals(Set.of(0), graph.getDependencies(2));
+        assertEquals(List.of(0, 1), graph.getReadyStages(Set.of(), Set.of()));
+        assertEquals(List.of(2), graph.getReadyStages(Set.of(0, 1), Set.of(0)));
+    }
+
+    @Test
+    public void testDifferentCommandsAndSameComponentAreOrdered() {
+        Stage configure = mockComponentStage(ComponentConfigureStage.class, "grafana", Command.CONFIGURE);
+        Stage startZookeeper = mockComponentStage(ComponentStartStage.class, "zookeeper_server", Command.START);
+        Stage stopGrafana = mockComponentStage(ComponentStopStage.class, "grafana", Command.STOP);
+        Stage startGrafana = mockComponentStage(ComponentStartStage.class, "grafana", Command.START);
+
+        StageDependencyGraph graph =
+                StageDependencyGraph.of(List.of(configure, startZookeeper, stopGrafana, startGrafana), dag);
+
+        assertEquals(Set.of(0), graph.getDependencies(1));
+        assertEquals(Set.of(0, 1), graph.getDependencies(2));
+        assertEquals(Set.of(0, 2), graph.getDependencies(3));
+    }
+
+    @Test
+    public void testNonComponentStageIsBarrier() {
+        Stage hostCheck = mock(HostCheckStage.class);
+        Stage zookeeper = mockComponentStage(ComponentStartStage.class, "zookeeper_server", Command.START);
+        Stage grafana = mockComponentStage(ComponentStartStage.class, "grafana", Command.START);
+
+        StageDependencyGraph graph = StageDependencyGraph.of(List.of(hostCheck, zookeeper, grafana), dag);
+
+        assertEquals(Set.of(0), graph.getDependencies(1));
+        assertEquals(Set.of(0), graph.getDependencies(2));
+        assertEquals(List.of(0), graph.getReadyStages(Set.of(), Set.of()));
+        assertEquals(List.of(1, 2), graph.getReadyStages(Set.of(0), Set.of(0)));
+    }
+
+    private void addEdge(String from, String to) {
+        dag.addNodeIfAbsent(from, null);
+        dag.addNodeIfAbsent(to, null);
+        dag.addEdge(from, to, new DagGraphEdge(from, to), false);
+    }
+
+    private Stage mockComponentStage(Class<? extends AbstractComponentStage> clazz, String component, Command command) {
+        StageContext stageContext = new StageContext();
+        stageContext.setComponentName(component);
+
+        AbstractComponentStage stage = mock(clazz);
+        when(stage.getStageContext()).thenReturn(stageContext);
+        when(stage.getCommand()).thenReturn(command);
+        return stage;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.stage;
+
+import org.apache.bigtop.manager.server.command.task.Task;
+import org.apache.bigtop.manager.server.config.CommandConfig;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.grpc.Context;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StageTaskExecutorTest {
+
+    private StageTaskExecutor stageTaskExecutor;
+
+    private CommandConfig commandConfig;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        commandConfig = new CommandConfig();
+        commandConfig.getStage().setTaskExecutorThreads(8);
+        meterRegistry = new SimpleMeterRegistry();
+
+        stageTaskExecutor = new StageTaskExecutor();
+        ReflectionTestUtils.setField(stageTaskExecutor, "commandConfig", commandConfig);
+        ReflectionTestUtils.setField(stageTaskExecutor, "meterRegistry", meterRegistry);
+        stageTaskExecutor.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stageTaskExecutor.destroy();
+    }
+
+    @Test
+    public void testExecute() {
+        Task task1 = mock(Task.class);
+        Task task2 = mock(Task.class);
+        Task task3 = mock(Task.class);
+        when(task1.run()).thenReturn(true);
+        when(task2.run()).thenReturn(false);
+        when(task3.run()).thenThrow(new RuntimeException("test"));
+
+        List<Boolean> results = stageTaskExecutor.execute(List.of(task1, task2, task3));
+
+        assertEquals(List.of(true, false, false), results);
+        assertNotNull(meterRegistry.find("stage_task_active_tasks").gauge());
+        assertEquals(0, meterRegistry.find("stage_task_queued_tasks").gauge().value());
+    }
+
+    @Test
+    public void testGetParallelism() {
+        assertEquals(30, stageTaskExecutor.getParallelism(30));
+
+        commandConfig.getStage().setTaskParallelism("10%");
+        assertEquals(30, stageTaskExecutor.getParallelism(300));
+        assertEquals(1, stageTaskExecutor.getParallelism(5));
+
+        commandConfig.getStage().setTaskParallelism("20");
+        assertEquals(20, stageTaskExecutor.getParallelism(300));
+        assertEquals(5, stageTaskExecutor.getParallelism(5));
+    }
+
+    @Test
+    public void testRollingParallelism() {
+        commandConfig.getStage().setTaskParallelism("2");
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Task task = mock(Task.class);
+            when(task.run()).thenAnswer(invocation -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                running.decrementAndGet();
+                return true;
+            });
+            tasks.add(task);
+        }
+
+        List<Boolean> results = stageTaskExecutor.execute(tasks);
+
+        assertEquals(10, results.size());
+        assertTrue(results.stream().allMatch(Boolean::booleanValue));
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void testTaskTimeout() {
+        commandConfig.getStage().setTaskTimeout(1L);
+
+        Task task = mock(Task.class);
+        when(task.run()).thenAnswer(invocation -> {
+            // Agent requests of the task would fail with DEADLINE_EXCEEDED
+            assertNotNull(Context.current().getDeadline());
+            return !Context.current().getDeadline().isExpired();
+        });
+
+        assertTrue(stageTaskExecutor.execute(List.of(task)).get(0));
+
+        commandConfig.getStage().setTaskTimeout(0L);
+        Task taskWithoutTimeout = mock(Task.class);
+        when(taskWithoutTimeout.run())
+                .thenAnswer(invocation -> Context.current().getDeadline() == null);
+        assertTrue(stageTaskExecutor.execute(List.of(taskWithoutTimeout)).get(0));
+    }
+}
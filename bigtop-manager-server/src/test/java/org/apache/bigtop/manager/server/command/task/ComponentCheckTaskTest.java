@@ -24,7 +24,7 @@ import org.apache.bigtop.manager.dao.po.ComponentPO;
 import org.apache.bigtop.manager.dao.po.TaskPO;
 import org.apache.bigtop.manager.dao.repository.ComponentDao;
 import org.apache.bigtop.manager.dao.repository.HostDao;
-import org.apache.bigtop.manager.dao.repository.TaskDao;
+import org.apache.bigtop.manager.server.command.journal.JobStateJournal;
 import org.apache.bigtop.manager.server.holder.SpringContextHolder;
 
 import org.junit.jupiter.api.AfterEach;
@@ -60,7 +60,7 @@ public class ComponentCheckTaskTest {
     private HostDao hostDao;
 
     @Mock
-    private TaskDao taskDao;
+    private JobStateJournal jobStateJournal;
 
     @Mock
     private ComponentDao componentDao;
@@ -77,7 +77,7 @@ public class ComponentCheckTaskTest {
     public void setUp() {
         springContextHolderMockedStatic = mockStatic(SpringContextHolder.class);
         when(SpringContextHolder.getBean(HostDao.class)).thenReturn(hostDao);
-        when(SpringContextHolder.getBean(TaskDao.class)).thenReturn(taskDao);
+        when(SpringContextHolder.getBean(JobStateJournal.class)).thenReturn(jobStateJournal);
         when(SpringContextHolder.getBean(ComponentDao.class)).thenReturn(componentDao);
 
         componentCheckTask = mock(ComponentCheckTask.class);
@@ -125,7 +125,7 @@ public class ComponentCheckTaskTest {
         when(componentDao.findByQuery(any())).thenReturn(componentPOS);
 
         componentCheckTask.onSuccess();
-        verify(taskDao, times(1)).partialUpdateById(any());
+        verify(jobStateJournal, times(1)).recordTask(any());
         verify(componentDao, times(1)).partialUpdateById(any());
     }
 
@@ -137,7 +137,7 @@ public class ComponentCheckTaskTest {
         when(componentDao.findByQuery(any())).thenReturn(componentPOS);
 
         componentCheckTask.onFailure();
-        verify(taskDao, times(1)).partialUpdateById(any());
+        verify(jobStateJournal, times(1)).recordTask(any());
         verify(componentDao, times(1)).partialUpdateById(any());
     }
 
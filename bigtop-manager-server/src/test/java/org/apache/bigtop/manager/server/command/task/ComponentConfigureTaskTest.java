@@ -23,7 +23,7 @@ import org.apache.bigtop.manager.common.utils.JsonUtils;
 import org.apache.bigtop.manager.dao.po.TaskPO;
 import org.apache.bigtop.manager.dao.repository.ComponentDao;
 import org.apache.bigtop.manager.dao.repository.HostDao;
-import org.apache.bigtop.manager.dao.repository.TaskDao;
+import org.apache.bigtop.manager.server.command.journal.JobStateJournal;
 import org.apache.bigtop.manager.server.holder.SpringContextHolder;
 
 import org.junit.jupiter.api.AfterEach;
@@ -55,7 +55,7 @@ public class ComponentConfigureTaskTest {
     private HostDao hostDao;
 
     @Mock
-    private TaskDao taskDao;
+    private JobStateJournal jobStateJournal;
 
     @Mock
     private ComponentDao componentDao;
@@ -72,7 +72,7 @@ public class ComponentConfigureTaskTest {
     public void setUp() {
         springContextHolderMockedStatic = mockStatic(SpringContextHolder.class);
         when(SpringContextHolder.getBean(HostDao.class)).thenReturn(hostDao);
-        when(SpringContextHolder.getBean(TaskDao.class)).thenReturn(taskDao);
+        when(SpringContextHolder.getBean(JobStateJournal.class)).thenReturn(jobStateJournal);
         when(SpringContextHolder.getBean(ComponentDao.class)).thenReturn(componentDao);
 
         componentConfigureTask = mock(ComponentConfigureTask.class);
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.heartbeat;
+
+import org.apache.bigtop.manager.common.constants.ComponentCategories;
+import org.apache.bigtop.manager.dao.po.ComponentPO;
+import org.apache.bigtop.manager.dao.po.HostPO;
+import org.apache.bigtop.manager.dao.repository.ComponentDao;
+import org.apache.bigtop.manager.dao.repository.HostDao;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusChange;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatEvent;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatRequest;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatServiceGrpc;
+import org.apache.bigtop.manager.server.config.TimerConfig;
+import org.apache.bigtop.manager.server.enums.HealthyStatusEnum;
+import org.apache.bigtop.manager.server.grpc.GrpcClient;
+import org.apache.bigtop.manager.server.model.dto.ComponentDTO;
+import org.apache.bigtop.manager.server.utils.StackUtils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+public class HeartbeatManagerTest {
+
+    private HeartbeatManager heartbeatManager;
+
+    private HostStateCache hostStateCache;
+
+    private ComponentDao componentDao;
+
+    private HostDao hostDao;
+
+    private HeartbeatServiceGrpc.HeartbeatServiceStub stub;
+
+    private StreamObserver<HeartbeatRequest> requestObserver;
+
+    private final List<StreamObserver<HeartbeatEvent>> responseObservers = new ArrayList<>();
+
+    private MockedStatic<GrpcClient> grpcClientMockedStatic;
+
+    private MockedStatic<StackUtils> stackUtilsMockedStatic;
+
+    @BeforeEach
+    public void setUp() {
+        componentDao = mock(ComponentDao.class);
+        hostDao = mock(HostDao.class);
+        TimerConfig timerConfig = new TimerConfig();
+        timerConfig.getHeartbeat().setEnabled(true);
+        hostStateCache = new HostStateCache();
+        ReflectionTestUtils.setField(hostStateCache, "timerConfig", timerConfig);
+
+        heartbeatManager = new HeartbeatManager();
+        ReflectionTestUtils.setField(heartbeatManager, "componentDao", componentDao);
+        ReflectionTestUtils.setField(heartbeatManager, "hostDao", hostDao);
+        ReflectionTestUtils.setField(heartbeatManager, "timerConfig", timerConfig);
+        ReflectionTestUtils.setField(heartbeatManager, "hostStateCache", hostStateCache);
+        heartbeatManager.init();
+        // Static mocks only work on the current thread
+        heartbeatManager.destroy();
+        ReflectionTestUtils.setField(heartbeatManager, "executor", MoreExecutors.newDirectExecutorService());
+
+        stub = mock(HeartbeatServiceGrpc.HeartbeatServiceStub.class);
+        requestObserver = mock(StreamObserver.class);
+        when(stub.connect(any())).thenAnswer(invocation -> {
+            responseObservers.add(invocation.getArgument(0));
+            return requestObserver;
+        });
+
+        grpcClientMockedStatic = mockStatic(GrpcClient.class);
+        grpcClientMockedStatic
+                .when(() -> GrpcClient.getAsyncStub(eq("host1"), anyInt(), any()))
+                .thenReturn(stub);
+        stackUtilsMockedStatic = mockStatic(StackUtils.class);
+        stackUtilsMockedStatic
+                .when(() -> StackUtils.getComponentDTO(anyString()))
+                .thenAnswer(invocation -> {
+                    ComponentDTO componentDTO = new ComponentDTO();
+                    componentDTO.setCategory(
+                            invocation.getArgument(0).equals("client") ? ComponentCategories.CLIENT : "server");
+                    return componentDTO;
+                });
+
+        when(hostDao.findAll()).thenReturn(List.of(host()));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        grpcClientMockedStatic.close();
+        stackUtilsMockedStatic.close();
+        heartbeatManager.destroy();
+    }
+
+    @Test
+    public void testWatchListIsSentOnlyWhenChanged() {
+        when(componentDao.findByQuery(any())).thenReturn(List.of(component("server1"), component("client")));
+
+        heartbeatManager.execute();
+        heartbeatManager.execute();
+
+        // One stream for the host, the client component is not watched
+        verify(stub, times(1)).connect(any());
+        ArgumentCaptor<HeartbeatRequest> captor = ArgumentCaptor.forClass(HeartbeatRequest.class);
+        verify(requestObserver, times(1)).onNext(captor.capture());
+        assertEquals(10, captor.getValue().getInterval());
+        assertEquals(1, captor.getValue().getComponentsCount());
+        assertEquals("server1", captor.getValue().getComponents(0).getComponentName());
+
+        when(componentDao.findByQuery(any())).thenReturn(List.of(component("server1"), component("server2")));
+        heartbeatManager.execute();
+
+        verify(requestObserver, times(2)).onNext(captor.capture());
+        assertEquals(2, captor.getValue().getComponentsCount());
+    }
+
+    @Test
+    public void testEventsFeedCacheAndBrokenStreamIsReopened() {
+        when(componentDao.findByQuery(any())).thenReturn(List.of(component("server1")));
+
+        heartbeatManager.execute();
+        responseObservers
+                .get(0)
+                .onNext(HeartbeatEvent.newBuilder()
+                        .addComponentStatuses(ComponentStatusChange.newBuilder()
+                                .setComponentName("server1")
+                                .setStatus(0))
+                        .build());
+
+        assertTrue(hostStateCache.isLive("host1"));
+        assertEquals(0, hostStateCache.getComponentStatus("host1", "server1"));
+
+        responseObservers.get(0).onError(Status.UNAVAILABLE.asRuntimeException());
+        assertFalse(hostStateCache.isLive("host1"));
+
+        heartbeatManager.execute();
+        verify(stub, times(2)).connect(any());
+
+        // A late callback of the broken stream does not affect the new one
+        responseObservers.get(1).onNext(HeartbeatEvent.newBuilder().build());
+        responseObservers.get(0).onCompleted();
+        assertTrue(hostStateCache.isLive("host1"));
+    }
+
+    @Test
+    public void testDisabled() {
+        TimerConfig timerConfig = new TimerConfig();
+        ReflectionTestUtils.setField(heartbeatManager, "timerConfig", timerConfig);
+
+        heartbeatManager.execute();
+
+        verify(stub, never()).connect(any());
+    }
+
+    private ComponentPO component(String name) {
+        ComponentPO componentPO = new ComponentPO();
+        componentPO.setName(name);
+        componentPO.setHostId(1L);
+        componentPO.setStatus(HealthyStatusEnum.HEALTHY.getCode());
+        componentPO.setStack("Bigtop-3.3.0");
+        componentPO.setServiceName("service");
+        componentPO.setServiceUser("user");
+        return componentPO;
+    }
+
+    private HostPO host() {
+        HostPO hostPO = new HostPO();
+        hostPO.setId(1L);
+        hostPO.setClusterId(1L);
+        hostPO.setHostname("host1");
+        hostPO.setGrpcPort(8835);
+        return hostPO;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.heartbeat;
+
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusChange;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatEvent;
+import org.apache.bigtop.manager.grpc.generated.HostInfoReply;
+import org.apache.bigtop.manager.server.config.TimerConfig;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HostStateCacheTest {
+
+    private HostStateCache hostStateCache;
+
+    @BeforeEach
+    public void setUp() {
+        hostStateCache = new HostStateCache();
+        ReflectionTestUtils.setField(hostStateCache, "timerConfig", new TimerConfig());
+    }
+
+    @Test
+    public void testEventsAreMerged() {
+        hostStateCache.onConnected("host1");
+        // Connected but no heartbeat received yet
+        assertFalse(hostStateCache.isLive("host1"));
+
+        hostStateCache.onEvent(
+                "host1",
+                HeartbeatEvent.newBuilder()
+                        .setHostInfo(HostInfoReply.newBuilder().setTotalDisk(100L))
+                        .addComponentStatuses(status("NameNode", 0))
+                        .addComponentStatuses(status("DataNode", 0))
+                        .build());
+        hostStateCache.onEvent(
+                "host1",
+                HeartbeatEvent.newBuilder()
+                        .addComponentStatuses(status("DataNode", 3))
+                        .build());
+
+        assertTrue(hostStateCache.isLive("host1"));
+        assertEquals(100L, hostStateCache.getHostInfo("host1").getTotalDisk());
+        assertEquals(0, hostStateCache.getComponentStatus("host1", "NameNode"));
+        assertEquals(3, hostStateCache.getComponentStatus("host1", "DataNode"));
+        assertNull(hostStateCache.getComponentStatus("host1", "SecondaryNameNode"));
+    }
+
+    @Test
+    public void testDisconnectedHostIsNotLive() {
+        hostStateCache.onConnected("host1");
+        hostStateCache.onEvent(
+                "host1",
+                HeartbeatEvent.newBuilder()
+                        .addComponentStatuses(status("NameNode", 0))
+                        .build());
+
+        hostStateCache.onDisconnected("host1");
+
+        assertFalse(hostStateCache.isLive("host1"));
+        assertNull(hostStateCache.getComponentStatus("host1", "NameNode"));
+        assertFalse(hostStateCache.isLive("host2"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMissedHeartbeats() {
+        hostStateCache.onConnected("host1");
+        hostStateCache.onEvent("host1", HeartbeatEvent.newBuilder().build());
+
+        // 3 heartbeats of 10 seconds missed
+        Map<String, HostStateCache.HostState> states =
+                (Map<String, HostStateCache.HostState>) ReflectionTestUtils.getField(hostStateCache, "states");
+        states.get("host1").setLastHeartbeat(System.currentTimeMillis() - 31_000L);
+
+        assertFalse(hostStateCache.isLive("host1"));
+        assertNull(hostStateCache.getHostInfo("host1"));
+    }
+
+    private ComponentStatusChange status(String componentName, int status) {
+        return ComponentStatusChange.newBuilder()
+                .setComponentName(componentName)
+                .setStatus(status)
+                .build();
+    }
+}
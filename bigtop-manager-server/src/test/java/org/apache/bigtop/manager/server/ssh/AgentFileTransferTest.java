@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.ssh;
+
+import org.apache.bigtop.manager.server.config.SshConfig;
+import org.apache.bigtop.manager.server.enums.HostAuthTypeEnum;
+import org.apache.bigtop.manager.server.model.dto.HostDTO;
+
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.command.AbstractCommandSupport;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.sftp.server.SftpSubsystemFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AgentFileTransferTest {
+
+    private static final String PASSWORD = "secret";
+
+    @TempDir
+    private Path tempDir;
+
+    private Path hostDir;
+
+    private SshServer server;
+
+    private SshConfig sshConfig;
+
+    private SshSessionManager sshSessionManager;
+
+    private AgentFileTransfer agentFileTransfer;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        hostDir = Files.createDirectories(tempDir.resolve("host"));
+        Files.createDirectories(hostDir.resolve("opt"));
+
+        server = SshServer.setUpDefaultServer();
+        server.setPort(0);
+        server.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+        server.setPasswordAuthenticator((username, password, session) -> PASSWORD.equals(password));
+        server.setFileSystemFactory(new VirtualFileSystemFactory(hostDir));
+        server.setSubsystemFactories(List.of(new SftpSubsystemFactory()));
+        server.setCommandFactory((channel, command) -> new ShellCommand(command));
+        server.start();
+
+        sshConfig = new SshConfig();
+
+        sshSessionManager = new SshSessionManager();
+        ReflectionTestUtils.setField(sshSessionManager, "sshConfig", sshConfig);
+        sshSessionManager.init();
+
+        agentFileTransfer = new AgentFileTransfer();
+        ReflectionTestUtils.setField(agentFileTransfer, "sshConfig", sshConfig);
+        ReflectionTestUtils.setField(agentFileTransfer, "sshSessionManager", sshSessionManager);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        sshSessionManager.destroy();
+        server.stop(true);
+    }
+
+    @Test
+    public void testPushSetupScript() throws Exception {
+        byte[] script = "#!/bin/bash\necho setup\n".getBytes(StandardCharsets.UTF_8);
+        agentFileTransfer.pushSetupScript(hostDTO(), "localhost", script);
+
+        Path pushed = hostDir.resolve(AgentFileTransfer.SETUP_SCRIPT);
+        assertArrayEquals(script, Files.readAllBytes(pushed));
+        assertTrue(Files.getPosixFilePermissions(pushed).contains(PosixFilePermission.OWNER_EXECUTE));
+    }
+
+    @Test
+    public void testNoAgentTarball() throws Exception {
+        assertNull(agentFileTransfer.pushAgentTarball(hostDTO(), "localhost", null));
+        assertFalse(Files.exists(hostDir.resolve("opt/bigtop-manager-agent.tar.gz")));
+    }
+
+    @Test
+    public void testPushAgentTarball() throws Exception {
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        Path tarball = tempDir.resolve("bigtop-manager-agent.tar.gz");
+        Files.write(tarball, content);
+        sshConfig.setAgentTarball(tarball.toString());
+
+        List<String> progress = new ArrayList<>();
+        String checksum = agentFileTransfer.pushAgentTarball(hostDTO(), "localhost", progress::add);
+
+        assertEquals(Hashing.sha256().hashBytes(content).toString(), checksum);
+        Path pushed = hostDir.resolve("opt/bigtop-manager-agent.tar.gz");
+        assertArrayEquals(content, Files.readAllBytes(pushed));
+        assertFalse(Files.exists(hostDir.resolve("opt/bigtop-manager-agent.tar.gz.part")));
+        assertTrue(progress.get(progress.size() - 1).startsWith("Pushed agent tarball"));
+
+        // Same tarball already on the host
+        progress.clear();
+        assertEquals(checksum, agentFileTransfer.pushAgentTarball(hostDTO(), "localhost", progress::add));
+        assertEquals(1, progress.size());
+        assertTrue(progress.get(0).startsWith("Agent tarball already on host"));
+    }
+
+    private HostDTO hostDTO() {
+        HostDTO hostDTO = new HostDTO();
+        hostDTO.setSshUser("root");
+        hostDTO.setSshPort(server.getPort());
+        hostDTO.setAuthType(HostAuthTypeEnum.PASSWORD.getCode());
+        hostDTO.setSshPassword(PASSWORD);
+        hostDTO.setAgentDir("opt");
+        return hostDTO;
+    }
+
+    /**
+     * Runs the command with sh in the host dir, which is also the root of the sftp file system
+     */
+    private class ShellCommand extends AbstractCommandSupport {
+
+        private ShellCommand(String command) {
+            super(command, null);
+        }
+
+        @Override
+        public void run() {
+            try {
+                Process process = new ProcessBuilder("/bin/sh", "-c", getCommand())
+                        .directory(hostDir.toFile())
+                        .start();
+                process.getInputStream().transferTo(getOutputStream());
+                process.getErrorStream().transferTo(getErrorStream());
+                getOutputStream().flush();
+                getErrorStream().flush();
+                onExit(process.waitFor());
+            } catch (Exception e) {
+                onExit(-1, e.getMessage());
+            }
+        }
+    }
+}
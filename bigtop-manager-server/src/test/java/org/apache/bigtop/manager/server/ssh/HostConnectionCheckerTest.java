@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.ssh;
+
+import org.apache.bigtop.manager.server.config.SshConfig;
+import org.apache.bigtop.manager.server.enums.HostAuthTypeEnum;
+import org.apache.bigtop.manager.server.enums.HostConnectionStatusEnum;
+import org.apache.bigtop.manager.server.model.dto.HostDTO;
+import org.apache.bigtop.manager.server.model.vo.HostConnectionVO;
+
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.command.AbstractCommandSupport;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class HostConnectionCheckerTest {
+
+    private static final String PASSWORD = "secret";
+
+    private volatile long commandDelay = 0;
+
+    private SshServer server;
+
+    private SshSessionManager sshSessionManager;
+
+    private HostConnectionChecker hostConnectionChecker;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = SshServer.setUpDefaultServer();
+        server.setPort(0);
+        server.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+        server.setPasswordAuthenticator((username, password, session) -> PASSWORD.equals(password));
+        server.setCommandFactory((channel, command) -> new HostnameCommand(command));
+        server.start();
+
+        SshConfig sshConfig = new SshConfig();
+        sshConfig.setConnectTimeout(1);
+
+        sshSessionManager = new SshSessionManager();
+        ReflectionTestUtils.setField(sshSessionManager, "sshConfig", sshConfig);
+        sshSessionManager.init();
+
+        hostConnectionChecker = new HostConnectionChecker();
+        ReflectionTestUtils.setField(hostConnectionChecker, "sshConfig", sshConfig);
+        ReflectionTestUtils.setField(hostConnectionChecker, "sshSessionManager", sshSessionManager);
+        hostConnectionChecker.init();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        hostConnectionChecker.destroy();
+        sshSessionManager.destroy();
+        server.stop(true);
+    }
+
+    @Test
+    public void testReachable() {
+        List<HostConnectionVO> received = new CopyOnWriteArrayList<>();
+        List<HostConnectionVO> results = hostConnectionChecker
+                .check(hostDTO(PASSWORD, List.of("localhost", "127.0.0.1")), received::add)
+                .join();
+
+        assertEquals(2, results.size());
+        assertEquals(2, received.size());
+        assertEquals("localhost", results.get(0).getHostname());
+        assertEquals("127.0.0.1", results.get(1).getHostname());
+        for (HostConnectionVO result : results) {
+            assertEquals(HostConnectionStatusEnum.REACHABLE, result.getStatus());
+            assertNotNull(result.getLatency());
+        }
+
+        // Sessions stay open for setting up the agent
+        assertEquals(2, sshSessionManager.getOpenSessions());
+    }
+
+    @Test
+    public void testAuthFailed() {
+        List<HostConnectionVO> results = hostConnectionChecker
+                .check(hostDTO("wrong", List.of("localhost")), null)
+                .join();
+
+        assertEquals(HostConnectionStatusEnum.AUTH_FAILED, results.get(0).getStatus());
+    }
+
+    @Test
+    public void testTimeout() {
+        commandDelay = 3000;
+        List<HostConnectionVO> results = hostConnectionChecker
+                .check(hostDTO(PASSWORD, List.of("localhost")), null)
+                .join();
+
+        assertEquals(HostConnectionStatusEnum.TIMEOUT, results.get(0).getStatus());
+    }
+
+    @Test
+    public void testConnectionRefused() throws Exception {
+        HostDTO hostDTO = hostDTO(PASSWORD, List.of("localhost"));
+        server.stop(true);
+
+        List<HostConnectionVO> results =
+                hostConnectionChecker.check(hostDTO, null).join();
+
+        assertEquals(HostConnectionStatusEnum.FAILED, results.get(0).getStatus());
+    }
+
+    private HostDTO hostDTO(String password, List<String> hostnames) {
+        HostDTO hostDTO = new HostDTO();
+        hostDTO.setHostnames(hostnames);
+        hostDTO.setSshUser("root");
+        hostDTO.setSshPort(server.getPort());
+        hostDTO.setAuthType(HostAuthTypeEnum.PASSWORD.getCode());
+        hostDTO.setSshPassword(password);
+        return hostDTO;
+    }
+
+    private class HostnameCommand extends AbstractCommandSupport {
+
+        private HostnameCommand(String command) {
+            super(command, null);
+        }
+
+        @Override
+        public void run() {
+            try {
+                Thread.sleep(commandDelay);
+                getOutputStream().write("localhost\n".getBytes(StandardCharsets.UTF_8));
+                getOutputStream().flush();
+                onExit(0);
+            } catch (Exception e) {
+                onExit(-1, e.getMessage());
+            }
+        }
+    }
+}
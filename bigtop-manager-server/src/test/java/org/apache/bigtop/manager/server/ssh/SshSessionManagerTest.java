@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.ssh;
+
+import org.apache.bigtop.manager.common.shell.ShellResult;
+import org.apache.bigtop.manager.server.config.SshConfig;
+import org.apache.bigtop.manager.server.enums.HostAuthTypeEnum;
+import org.apache.bigtop.manager.server.model.dto.HostDTO;
+
+import org.apache.sshd.common.session.Session;
+import org.apache.sshd.common.session.SessionListener;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.command.AbstractCommandSupport;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SshSessionManagerTest {
+
+    private static final String PASSWORD = "secret";
+
+    private final AtomicInteger serverSessions = new AtomicInteger();
+
+    private SshServer server;
+
+    private SshConfig sshConfig;
+
+    private SshSessionManager sshSessionManager;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = SshServer.setUpDefaultServer();
+        server.setPort(0);
+        server.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+        server.setPasswordAuthenticator((username, password, session) -> PASSWORD.equals(password));
+        server.setCommandFactory((channel, command) -> new EchoCommand(command));
+        server.addSessionListener(new SessionListener() {
+            @Override
+            public void sessionCreated(Session session) {
+                serverSessions.incrementAndGet();
+            }
+        });
+        server.start();
+
+        sshConfig = new SshConfig();
+        sshSessionManager = new SshSessionManager();
+        ReflectionTestUtils.setField(sshSessionManager, "sshConfig", sshConfig);
+        sshSessionManager.init();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        sshSessionManager.destroy();
+        server.stop(true);
+    }
+
+    @Test
+    public void testCommandsShareSession() throws Exception {
+        HostDTO hostDTO = hostDTO(PASSWORD);
+
+        List<String> lines = new ArrayList<>();
+        ShellResult result = sshSessionManager.execute(hostDTO, "localhost", "first\nsecond", lines::add);
+        assertEquals(0, result.getExitCode());
+        assertEquals("first\nsecond\n", result.getOutput());
+        assertEquals(List.of("first", "second"), lines);
+
+        result = sshSessionManager.execute(hostDTO, "localhost", "fail", null);
+        assertEquals(1, result.getExitCode());
+        assertEquals("fail\n", result.getErrMsg());
+
+        assertEquals(1, serverSessions.get());
+        assertEquals(1, sshSessionManager.getOpenSessions());
+    }
+
+    @Test
+    public void testConcurrentCommandsConnectOnce() throws Exception {
+        HostDTO hostDTO = hostDTO(PASSWORD);
+        List<String> lines = new CopyOnWriteArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ShellResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String command = "command-" + i;
+                futures.add(
+                        executor.submit(() -> sshSessionManager.execute(hostDTO, "localhost", command, lines::add)));
+            }
+
+            for (Future<ShellResult> future : futures) {
+                assertEquals(0, future.get().getExitCode());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(8, lines.size());
+        assertEquals(1, serverSessions.get());
+    }
+
+    @Test
+    public void testOtherCredentialsUseOtherSession() throws Exception {
+        sshSessionManager.execute(hostDTO(PASSWORD), "localhost", "command", null);
+        assertThrows(Exception.class, () -> sshSessionManager.execute(hostDTO("wrong"), "localhost", "command", null));
+
+        assertEquals(2, serverSessions.get());
+        assertEquals(1, sshSessionManager.getOpenSessions());
+    }
+
+    @Test
+    public void testIdleSessionsEvicted() throws Exception {
+        HostDTO hostDTO = hostDTO(PASSWORD);
+        sshSessionManager.execute(hostDTO, "localhost", "command", null);
+
+        // Used within the idle timeout
+        sshSessionManager.evictIdleSessions();
+        assertEquals(1, sshSessionManager.getOpenSessions());
+
+        ReflectionTestUtils.setField(sshConfig, "sessionIdleTimeout", 0);
+        sshSessionManager.evictIdleSessions();
+        assertEquals(0, sshSessionManager.getOpenSessions());
+
+        // A new session is opened for the next command
+        assertEquals(
+                0,
+                sshSessionManager.execute(hostDTO, "localhost", "command", null).getExitCode());
+        assertEquals(2, serverSessions.get());
+    }
+
+    @Test
+    public void testSessionInUseNotEvicted() throws Exception {
+        HostDTO hostDTO = hostDTO(PASSWORD);
+        ReflectionTestUtils.setField(sshConfig, "sessionIdleTimeout", 0);
+
+        // The command stays quiet while the sessions are checked
+        ShellResult result = sshSessionManager.execute(hostDTO, "localhost", "evict", null);
+
+        assertEquals(0, result.getExitCode());
+        assertEquals(1, sshSessionManager.getOpenSessions());
+        assertEquals(1, serverSessions.get());
+    }
+
+    private HostDTO hostDTO(String password) {
+        HostDTO hostDTO = new HostDTO();
+        hostDTO.setSshUser("root");
+        hostDTO.setSshPort(server.getPort());
+        hostDTO.setAuthType(HostAuthTypeEnum.PASSWORD.getCode());
+        hostDTO.setSshPassword(password);
+        return hostDTO;
+    }
+
+    /**
+     * Writes the command back, to stderr with exit code 1 if the command is "fail",
+     * the "evict" command evicts the idle sessions while it runs
+     */
+    private class EchoCommand extends AbstractCommandSupport {
+
+        private EchoCommand(String command) {
+            super(command, null);
+        }
+
+        @Override
+        public void run() {
+            try {
+                if ("evict".equals(getCommand())) {
+                    sshSessionManager.evictIdleSessions();
+                }
+
+                boolean fail = "fail".equals(getCommand());
+                byte[] bytes = (getCommand() + "\n").getBytes(StandardCharsets.UTF_8);
+                if (fail) {
+                    getErrorStream().write(bytes);
+                    getErrorStream().flush();
+                } else {
+                    getOutputStream().write(bytes);
+                    getOutputStream().flush();
+                }
+
+                onExit(fail ? 1 : 0);
+            } catch (Exception e) {
+                onExit(-1, e.getMessage());
+            }
+        }
+    }
+}
@@ -154,6 +154,22 @@ class DAGTest {
         assertEquals(Collections.singletonList("B"), new LinkedList<>(dag.getSubsequentNodes("A")));
     }
 
+    // Test whether a path exists between two nodes
+    @Test
+    void testContainsPath() {
+        dag.addNodeIfAbsent("A", "Node A");
+        dag.addNodeIfAbsent("B", "Node B");
+        dag.addNodeIfAbsent("C", "Node C");
+        dag.addNodeIfAbsent("D", "Node D");
+        dag.addEdge("A", "B");
+        dag.addEdge("B", "C");
+        assertTrue(dag.containsPath("A", "B"));
+        assertTrue(dag.containsPath("A", "C"));
+        assertFalse(dag.containsPath("C", "A"));
+        assertFalse(dag.containsPath("A", "D"));
+        assertFalse(dag.containsPath("A", "E"));
+    }
+
     // Test getting the indegree of a node
     @Test
     void testGetIndegree() {
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.stack.dag;
+
+import org.apache.bigtop.manager.common.enums.Command;
+import org.apache.bigtop.manager.common.utils.Environments;
+import org.apache.bigtop.manager.server.model.dto.ComponentDTO;
+import org.apache.bigtop.manager.server.model.dto.ServiceDTO;
+import org.apache.bigtop.manager.server.model.dto.StackDTO;
+import org.apache.bigtop.manager.server.utils.StackUtils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures planning the stop and start stages of restarting every component of all stacks,
+ * compared with sorting the whole DAG and filtering it for every plan. The plans must match, the timings
+ * are only logged since they depend on the machine running the test.
+ */
+@Slf4j
+public class ExecutionPlannerBenchmarkTest {
+
+    private static final int ITERATIONS = 2000;
+
+    private MockedStatic<Environments> environmentsMockedStatic;
+
+    private List<String> componentNames;
+
+    @BeforeEach
+    public void setUp() {
+        environmentsMockedStatic = mockStatic(Environments.class);
+        when(Environments.isDevMode()).thenReturn(true);
+        StackUtils.parseStack();
+
+        componentNames = new ArrayList<>();
+        for (StackDTO stackDTO : StackUtils.getAllStacks()) {
+            for (ServiceDTO serviceDTO : StackUtils.getServiceDTOList(stackDTO)) {
+                for (ComponentDTO componentDTO : serviceDTO.getComponents()) {
+                    componentNames.add(componentDTO.getName());
+                }
+            }
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        environmentsMockedStatic.close();
+    }
+
+    @Test
+    public void testRestartPlan() throws Exception {
+        DAG<String, ComponentCommandWrapper, DagGraphEdge> dag = StackUtils.getDag();
+
+        long start = System.nanoTime();
+        ExecutionPlanner planner = new ExecutionPlanner(dag);
+        long compile = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<String> stopPlan = planner.plan(componentNames, List.of(Command.STOP));
+        List<String> startPlan = planner.plan(componentNames, List.of(Command.START));
+        long firstPlan = System.nanoTime() - start;
+
+        // Same order as sorting the DAG for every plan
+        assertEquals(sortAndFilter(dag, componentNames, Command.STOP), stopPlan);
+        assertEquals(sortAndFilter(dag, componentNames, Command.START), startPlan);
+        assertEquals(componentNames.size(), startPlan.size());
+
+        long sortAndFilter = measure(() -> {
+            sortAndFilter(dag, componentNames, Command.STOP);
+            sortAndFilter(dag, componentNames, Command.START);
+        });
+        long cachedPlan = measure(() -> {
+            planner.plan(componentNames, List.of(Command.STOP));
+            planner.plan(componentNames, List.of(Command.START));
+        });
+
+        log.info(
+                "Restart plan of {} components ({} DAG nodes): sort and filter {} us, compile {} us, "
+                        + "first plan {} us, cached plan {} us",
+                componentNames.size(),
+                dag.getNodesCount(),
+                sortAndFilter,
+                TimeUnit.NANOSECONDS.toMicros(compile),
+                TimeUnit.NANOSECONDS.toMicros(firstPlan),
+                cachedPlan);
+    }
+
+    /**
+     * How stages used to be ordered, the whole DAG sorted and filtered by the requested role commands.
+     */
+    private List<String> sortAndFilter(
+            DAG<String, ComponentCommandWrapper, DagGraphEdge> dag, List<String> componentNames, Command command) {
+        try {
+            List<String> orderedList = dag.topologicalSort();
+            orderedList.replaceAll(String::toUpperCase);
+            List<String> componentCommandNames = new ArrayList<>();
+            for (String componentName : componentNames) {
+                componentCommandNames.add(componentName.toUpperCase() + "-" + command.name());
+            }
+
+            orderedList.retainAll(componentCommandNames);
+            componentCommandNames.removeAll(orderedList);
+            orderedList.addAll(componentCommandNames);
+            return orderedList;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return average microseconds of a run after warming up
+     */
+    private long measure(Runnable runnable) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            runnable.run();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            runnable.run();
+        }
+
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) / ITERATIONS;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.stack.dag;
+
+import org.apache.bigtop.manager.common.enums.Command;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ExecutionPlannerTest {
+
+    private ExecutionPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        DAG<String, ComponentCommandWrapper, DagGraphEdge> dag = new DAG<>();
+        // zookeeper_server-START -> namenode-START -> datanode-START, datanode-STOP -> namenode-STOP
+        addEdge(dag, "zookeeper_server-START", "namenode-START");
+        addEdge(dag, "namenode-START", "datanode-START");
+        addEdge(dag, "datanode-STOP", "namenode-STOP");
+        planner = new ExecutionPlanner(dag);
+    }
+
+    @Test
+    void testSingleCommand() {
+        // DAG order first, then the rest in the order of the components
+        assertEquals(
+                List.of("ZOOKEEPER_SERVER-START", "NAMENODE-START", "DATANODE-START", "HIVE-START", "KAFKA-START"),
+                planner.plan(
+                        List.of("hive", "datanode", "kafka", "namenode", "zookeeper_server"), List.of(Command.START)));
+        assertEquals(
+                List.of("DATANODE-STOP", "NAMENODE-STOP", "ZOOKEEPER_SERVER-STOP"),
+                planner.plan(List.of("zookeeper_server", "namenode", "datanode"), List.of(Command.STOP)));
+        assertEquals(List.of(), planner.plan(List.of(), List.of(Command.START)));
+    }
+
+    @Test
+    void testSeveralCommands() {
+        assertEquals(
+                List.of(
+                        "HIVE-ADD",
+                        "NAMENODE-ADD",
+                        "HIVE-INIT",
+                        "NAMENODE-INIT",
+                        "HIVE-START",
+                        "NAMENODE-START",
+                        "HIVE-CHECK",
+                        "NAMENODE-CHECK"),
+                planner.plan(
+                        List.of("hive", "namenode"), List.of(Command.ADD, Command.INIT, Command.START, Command.CHECK)));
+    }
+
+    @Test
+    void testPlansAreCached() {
+        List<String> plan = planner.plan(List.of("datanode", "namenode"), List.of(Command.START));
+        assertSame(plan, planner.plan(List.of("datanode", "namenode"), List.of(Command.START)));
+        assertEquals(List.of("NAMENODE-START", "DATANODE-START"), plan);
+    }
+
+    @Test
+    void testEmptyDag() {
+        ExecutionPlanner emptyPlanner = new ExecutionPlanner(new DAG<>());
+        assertEquals(List.of("B-START", "A-START"), emptyPlanner.plan(List.of("b", "a"), List.of(Command.START)));
+    }
+
+    private void addEdge(DAG<String, ComponentCommandWrapper, DagGraphEdge> dag, String blocker, String blocked) {
+        dag.addNodeIfAbsent(blocker, wrapper(blocker));
+        dag.addNodeIfAbsent(blocked, wrapper(blocked));
+        dag.addEdge(blocker, blocked, new DagGraphEdge(blocker, blocked), false);
+    }
+
+    private ComponentCommandWrapper wrapper(String roleCommand) {
+        String[] split = roleCommand.split("-");
+        return new ComponentCommandWrapper(split[0], Command.valueOf(split[1]));
+    }
+}
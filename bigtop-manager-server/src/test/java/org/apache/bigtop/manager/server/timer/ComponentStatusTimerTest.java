@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.timer;
+
+import org.apache.bigtop.manager.common.constants.ComponentCategories;
+import org.apache.bigtop.manager.dao.po.ComponentPO;
+import org.apache.bigtop.manager.dao.po.HostPO;
+import org.apache.bigtop.manager.dao.po.ServicePO;
+import org.apache.bigtop.manager.dao.repository.ComponentDao;
+import org.apache.bigtop.manager.dao.repository.HostDao;
+import org.apache.bigtop.manager.dao.repository.ServiceDao;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusReply;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusServiceGrpc;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusesReply;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusesRequest;
+import org.apache.bigtop.manager.server.config.TimerConfig;
+import org.apache.bigtop.manager.server.enums.HealthyStatusEnum;
+import org.apache.bigtop.manager.server.grpc.GrpcClient;
+import org.apache.bigtop.manager.server.heartbeat.HostStateCache;
+import org.apache.bigtop.manager.server.model.dto.ComponentDTO;
+import org.apache.bigtop.manager.server.utils.StackUtils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Status;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+public class ComponentStatusTimerTest {
+
+    private ComponentStatusTimer componentStatusTimer;
+
+    private ComponentDao componentDao;
+
+    private ServiceDao serviceDao;
+
+    private HostDao hostDao;
+
+    private MockedStatic<GrpcClient> grpcClientMockedStatic;
+
+    private MockedStatic<StackUtils> stackUtilsMockedStatic;
+
+    @BeforeEach
+    public void setUp() {
+        componentDao = mock(ComponentDao.class);
+        serviceDao = mock(ServiceDao.class);
+        hostDao = mock(HostDao.class);
+
+        componentStatusTimer = new ComponentStatusTimer();
+        ReflectionTestUtils.setField(componentStatusTimer, "componentDao", componentDao);
+        ReflectionTestUtils.setField(componentStatusTimer, "serviceDao", serviceDao);
+        ReflectionTestUtils.setField(componentStatusTimer, "hostDao", hostDao);
+        ReflectionTestUtils.setField(componentStatusTimer, "timerConfig", new TimerConfig());
+        componentStatusTimer.init();
+        // Static mocks only work on the current thread
+        componentStatusTimer.destroy();
+        ReflectionTestUtils.setField(componentStatusTimer, "executor", MoreExecutors.newDirectExecutorService());
+
+        grpcClientMockedStatic = mockStatic(GrpcClient.class);
+        stackUtilsMockedStatic = mockStatic(StackUtils.class);
+        stackUtilsMockedStatic
+                .when(() -> StackUtils.getComponentDTO(anyString()))
+                .thenAnswer(invocation -> {
+                    ComponentDTO componentDTO = new ComponentDTO();
+                    componentDTO.setCategory(
+                            invocation.getArgument(0).equals("client") ? ComponentCategories.CLIENT : "server");
+                    return componentDTO;
+                });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        grpcClientMockedStatic.close();
+        stackUtilsMockedStatic.close();
+        componentStatusTimer.destroy();
+    }
+
+    @Test
+    public void testExecute() {
+        // host1 has two components checked in one request, host2 does not reply
+        ComponentPO server1 = component(1L, "server1", 1L, 10L, HealthyStatusEnum.UNHEALTHY);
+        ComponentPO server2 = component(2L, "server2", 1L, 10L, HealthyStatusEnum.HEALTHY);
+        ComponentPO client = component(3L, "client", 1L, 10L, HealthyStatusEnum.HEALTHY);
+        ComponentPO server3 = component(4L, "server3", 2L, 20L, HealthyStatusEnum.HEALTHY);
+        when(componentDao.findByQuery(any())).thenReturn(List.of(server1, server2, client, server3));
+        when(hostDao.findAll()).thenReturn(List.of(host(1L, "host1"), host(2L, "host2")));
+
+        ComponentStatusServiceGrpc.ComponentStatusServiceBlockingStub stub1 =
+                mock(ComponentStatusServiceGrpc.ComponentStatusServiceBlockingStub.class);
+        when(stub1.withDeadlineAfter(10L, TimeUnit.SECONDS)).thenReturn(stub1);
+        when(stub1.getComponentStatuses(any()))
+                .thenReturn(ComponentStatusesReply.newBuilder()
+                        .addStatuses(ComponentStatusReply.newBuilder().setStatus(0))
+                        .addStatuses(ComponentStatusReply.newBuilder().setStatus(0))
+                        .build());
+        ComponentStatusServiceGrpc.ComponentStatusServiceBlockingStub stub2 =
+                mock(ComponentStatusServiceGrpc.ComponentStatusServiceBlockingStub.class);
+        when(stub2.withDeadlineAfter(10L, TimeUnit.SECONDS)).thenReturn(stub2);
+        when(stub2.getComponentStatuses(any())).thenThrow(Status.DEADLINE_EXCEEDED.asRuntimeException());
+        grpcClientMockedStatic
+                .when(() -> GrpcClient.getBlockingStub(eq("host1"), anyInt(), any()))
+                .thenReturn(stub1);
+        grpcClientMockedStatic
+                .when(() -> GrpcClient.getBlockingStub(eq("host2"), anyInt(), any()))
+                .thenReturn(stub2);
+
+        componentStatusTimer.execute();
+
+        ArgumentCaptor<ComponentStatusesRequest> requestCaptor =
+                ArgumentCaptor.forClass(ComponentStatusesRequest.class);
+        verify(stub1).getComponentStatuses(requestCaptor.capture());
+        assertEquals(2, requestCaptor.getValue().getComponentsCount());
+        assertEquals("bigtop", requestCaptor.getValue().getComponents(0).getStackName());
+        assertEquals("3.3.0", requestCaptor.getValue().getComponents(0).getStackVersion());
+
+        // Only the component whose status changed is written
+        ArgumentCaptor<List<ComponentPO>> componentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(componentDao).partialUpdateByIds(componentCaptor.capture());
+        assertEquals(1, componentCaptor.getValue().size());
+        assertEquals(1L, componentCaptor.getValue().get(0).getId());
+        assertEquals(
+                HealthyStatusEnum.HEALTHY.getCode(),
+                componentCaptor.getValue().get(0).getStatus());
+
+        ArgumentCaptor<List<ServicePO>> serviceCaptor = ArgumentCaptor.forClass(List.class);
+        verify(serviceDao).partialUpdateByIds(serviceCaptor.capture());
+        assertEquals(2, serviceCaptor.getValue().size());
+        for (ServicePO servicePO : serviceCaptor.getValue()) {
+            assertEquals(HealthyStatusEnum.HEALTHY.getCode(), servicePO.getStatus());
+        }
+    }
+
+    @Test
+    public void testExecuteWithHeartbeat() {
+        TimerConfig timerConfig = new TimerConfig();
+        timerConfig.getHeartbeat().setEnabled(true);
+        HostStateCache hostStateCache = mock(HostStateCache.class);
+        ReflectionTestUtils.setField(componentStatusTimer, "timerConfig", timerConfig);
+        ReflectionTestUtils.setField(componentStatusTimer, "hostStateCache", hostStateCache);
+
+        // host1 is live and pushed its statuses, host2 did not push any so it is requested
+        ComponentPO server1 = component(1L, "server1", 1L, 10L, HealthyStatusEnum.HEALTHY);
+        ComponentPO server2 = component(2L, "server2", 2L, 10L, HealthyStatusEnum.UNHEALTHY);
+        when(componentDao.findByQuery(any())).thenReturn(List.of(server1, server2));
+        when(hostDao.findAll()).thenReturn(List.of(host(1L, "host1"), host(2L, "host2")));
+        when(hostStateCache.getComponentStatus("host1", "server1")).thenReturn(3);
+
+        ComponentStatusServiceGrpc.ComponentStatusServiceBlockingStub stub2 =
+                mock(ComponentStatusServiceGrpc.ComponentStatusServiceBlockingStub.class);
+        when(stub2.withDeadlineAfter(10L, TimeUnit.SECONDS)).thenReturn(stub2);
+        when(stub2.getComponentStatuses(any()))
+                .thenReturn(ComponentStatusesReply.newBuilder()
+                        .addStatuses(ComponentStatusReply.newBuilder().setStatus(0))
+                        .build());
+        grpcClientMockedStatic
+                .when(() -> GrpcClient.getBlockingStub(eq("host2"), anyInt(), any()))
+                .thenReturn(stub2);
+
+        componentStatusTimer.execute();
+
+        grpcClientMockedStatic.verify(() -> GrpcClient.getBlockingStub(eq("host1"), anyInt(), any()), never());
+        assertEquals(HealthyStatusEnum.UNHEALTHY.getCode(), server1.getStatus());
+        assertEquals(HealthyStatusEnum.HEALTHY.getCode(), server2.getStatus());
+    }
+
+    private ComponentPO component(Long id, String name, Long hostId, Long serviceId, HealthyStatusEnum status) {
+        ComponentPO componentPO = new ComponentPO();
+        componentPO.setId(id);
+        componentPO.setName(name);
+        componentPO.setHostId(hostId);
+        componentPO.setServiceId(serviceId);
+        componentPO.setStatus(status.getCode());
+        componentPO.setStack("Bigtop-3.3.0");
+        componentPO.setServiceName("service" + serviceId);
+        componentPO.setServiceUser("user");
+        return componentPO;
+    }
+
+    private HostPO host(Long id, String hostname) {
+        HostPO hostPO = new HostPO();
+        hostPO.setId(id);
+        hostPO.setHostname(hostname);
+        hostPO.setGrpcPort(8835);
+        return hostPO;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.timer;
+
+import org.apache.bigtop.manager.dao.po.HostPO;
+import org.apache.bigtop.manager.dao.repository.HostDao;
+import org.apache.bigtop.manager.grpc.generated.HostInfoReply;
+import org.apache.bigtop.manager.grpc.generated.HostInfoServiceGrpc;
+import org.apache.bigtop.manager.server.config.TimerConfig;
+import org.apache.bigtop.manager.server.enums.HealthyStatusEnum;
+import org.apache.bigtop.manager.server.grpc.GrpcClient;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HostInfoTimerTest {
+
+    private HostInfoTimer hostInfoTimer;
+
+    private HostDao hostDao;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private MockedStatic<GrpcClient> grpcClientMockedStatic;
+
+    @BeforeEach
+    public void setUp() {
+        hostDao = mock(HostDao.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        hostInfoTimer = new HostInfoTimer();
+        ReflectionTestUtils.setField(hostInfoTimer, "hostDao", hostDao);
+        ReflectionTestUtils.setField(hostInfoTimer, "timerConfig", new TimerConfig());
+        ReflectionTestUtils.setField(hostInfoTimer, "meterRegistry", meterRegistry);
+        hostInfoTimer.init();
+        // Static mocks only work on the current thread
+        hostInfoTimer.destroy();
+        ReflectionTestUtils.setField(hostInfoTimer, "executor", MoreExecutors.newDirectExecutorService());
+
+        grpcClientMockedStatic = mockStatic(GrpcClient.class);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        grpcClientMockedStatic.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExecute() {
+        HostInfoReply reply = HostInfoReply.newBuilder()
+                .setArch("x86_64")
+                .setOs("rocky")
+                .setAvailableProcessors(8)
+                .setFreeMemorySize(1024)
+                .setTotalMemorySize(4096)
+                .setFreeDisk(100)
+                .setTotalDisk(200)
+                .build();
+        HostPO unchanged = host(1L, "host1", 1L, 1024L);
+        HostPO changed = host(2L, "host2", 1L, 2048L);
+        HostPO unreachable = host(3L, "host3", 1L, 1024L);
+        HostPO noneCluster = host(4L, "host4", 0L, 1024L);
+        when(hostDao.findAll()).thenReturn(List.of(unchanged, changed, unreachable, noneCluster));
+
+        HostInfoServiceGrpc.HostInfoServiceBlockingStub stub =
+                mock(HostInfoServiceGrpc.HostInfoServiceBlockingStub.class);
+        when(stub.withDeadlineAfter(10L, TimeUnit.SECONDS)).thenReturn(stub);
+        when(stub.getHostInfo(any())).thenReturn(reply);
+        HostInfoServiceGrpc.HostInfoServiceBlockingStub failedStub =
+                mock(HostInfoServiceGrpc.HostInfoServiceBlockingStub.class);
+        when(failedStub.withDeadlineAfter(10L, TimeUnit.SECONDS)).thenReturn(failedStub);
+        when(failedStub.getHostInfo(any())).thenThrow(Status.DEADLINE_EXCEEDED.asRuntimeException());
+        grpcClientMockedStatic
+                .when(() -> GrpcClient.getBlockingStub(any(), anyInt(), any()))
+                .thenReturn(stub);
+        grpcClientMockedStatic
+                .when(() -> GrpcClient.getBlockingStub(eq("host3"), anyInt(), any()))
+                .thenReturn(failedStub);
+
+        hostInfoTimer.execute();
+
+        ArgumentCaptor<List<HostPO>> captor = ArgumentCaptor.forClass(List.class);
+        verify(hostDao).partialUpdateByIds(captor.capture());
+        List<HostPO> written = captor.getValue();
+        assertEquals(2, written.size());
+        assertEquals(2L, written.get(0).getId());
+        assertEquals(1024L, written.get(0).getFreeMemorySize());
+        // Only collected fields are written
+        assertNull(written.get(0).getHostname());
+        assertEquals(3L, written.get(1).getId());
+        assertEquals(HealthyStatusEnum.UNHEALTHY.getCode(), written.get(1).getStatus());
+
+        assertEquals(
+                2,
+                meterRegistry
+                        .get("host_info_collect_time")
+                        .tag("result", "success")
+                        .timer()
+                        .count());
+        assertEquals(
+                1,
+                meterRegistry
+                        .get("host_info_collect_time")
+                        .tag("result", "failure")
+                        .timer()
+                        .count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testOnlyFreeMemoryChanged() {
+        TimerConfig timerConfig = new TimerConfig();
+        ReflectionTestUtils.setField(hostInfoTimer, "timerConfig", timerConfig);
+        HostInfoReply reply = HostInfoReply.newBuilder()
+                .setArch("x86_64")
+                .setOs("rocky")
+                .setAvailableProcessors(8)
+                .setFreeMemorySize(1024)
+                .setTotalMemorySize(4096)
+                .setFreeDisk(100)
+                .setTotalDisk(200)
+                .build();
+        when(hostDao.findAll()).thenReturn(List.of(host(1L, "host1", 1L, 2048L)));
+
+        HostInfoServiceGrpc.HostInfoServiceBlockingStub stub =
+                mock(HostInfoServiceGrpc.HostInfoServiceBlockingStub.class);
+        when(stub.withDeadlineAfter(10L, TimeUnit.SECONDS)).thenReturn(stub);
+        when(stub.getHostInfo(any())).thenReturn(reply);
+        grpcClientMockedStatic
+                .when(() -> GrpcClient.getBlockingStub(any(), anyInt(), any()))
+                .thenReturn(stub);
+
+        // First collection writes the usage, the next ones wait for the usage interval
+        hostInfoTimer.execute();
+        hostInfoTimer.execute();
+        timerConfig.setUsageInterval(0L);
+        hostInfoTimer.execute();
+
+        ArgumentCaptor<List<HostPO>> captor = ArgumentCaptor.forClass(List.class);
+        verify(hostDao, times(3)).partialUpdateByIds(captor.capture());
+        List<List<HostPO>> written = captor.getAllValues();
+        assertEquals(1, written.get(0).size());
+        assertEquals(1024L, written.get(0).get(0).getFreeMemorySize());
+        assertTrue(written.get(1).isEmpty());
+        assertEquals(1, written.get(2).size());
+    }
+
+    private HostPO host(Long id, String hostname, Long clusterId, Long freeMemorySize) {
+        HostPO hostPO = new HostPO();
+        hostPO.setId(id);
+        hostPO.setHostname(hostname);
+        hostPO.setGrpcPort(8835);
+        hostPO.setClusterId(clusterId);
+        hostPO.setArch("x86_64");
+        hostPO.setOs("rocky");
+        hostPO.setAvailableProcessors(8);
+        hostPO.setFreeMemorySize(freeMemorySize);
+        hostPO.setTotalMemorySize(4096L);
+        hostPO.setFreeDisk(100L);
+        hostPO.setTotalDisk(200L);
+        hostPO.setStatus(HealthyStatusEnum.HEALTHY.getCode());
+        return hostPO;
+    }
+}
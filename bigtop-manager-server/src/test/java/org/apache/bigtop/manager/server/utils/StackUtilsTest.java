@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.utils;
+
+import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
+import org.apache.bigtop.manager.server.exception.ServerException;
+import org.apache.bigtop.manager.server.model.dto.StackDTO;
+import org.apache.bigtop.manager.server.stack.StackRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mockStatic;
+
+public class StackUtilsTest {
+
+    private static final Path SERVICES = Path.of("src/main/resources/stacks/bigtop/3.3.0/services");
+
+    @TempDir
+    private Path tempDir;
+
+    private Path services;
+
+    private MockedStatic<ProjectPathUtils> projectPathUtilsMockedStatic;
+
+    private Object originalRegistry;
+
+    private Object originalParsed;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        services = tempDir.resolve("bigtop/3.3.0/services");
+        copyService("zookeeper");
+
+        projectPathUtilsMockedStatic = mockStatic(ProjectPathUtils.class);
+        projectPathUtilsMockedStatic.when(ProjectPathUtils::getServerStackPath).thenReturn(tempDir.toString());
+
+        // Other tests share the stacks parsed from the resources
+        originalRegistry = ReflectionTestUtils.getField(StackUtils.class, "registry");
+        originalParsed = ReflectionTestUtils.getField(StackUtils.class, "parsed");
+        ReflectionTestUtils.setField(StackUtils.class, "parsed", false);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReflectionTestUtils.setField(StackUtils.class, "registry", originalRegistry);
+        ReflectionTestUtils.setField(StackUtils.class, "parsed", originalParsed);
+        projectPathUtilsMockedStatic.close();
+    }
+
+    @Test
+    public void testLookups() {
+        StackUtils.parseStack();
+
+        StackDTO stackDTO = new StackDTO("bigtop", "3.3.0");
+        assertEquals(stackDTO, StackUtils.getServiceStack("zookeeper"));
+        assertEquals("zookeeper", StackUtils.getServiceDTO("zookeeper").getName());
+        assertEquals(
+                "zookeeper_server",
+                StackUtils.getComponentDTO("zookeeper_server").getName());
+        assertEquals(
+                "zookeeper",
+                StackUtils.getServiceDTOByComponentName("zookeeper_client").getName());
+        assertEquals(1, StackUtils.getServiceDTOList(stackDTO).size());
+        assertFalse(StackUtils.getServiceConfigs("zookeeper").isEmpty());
+        assertFalse(StackUtils.getDag().getAllNodesList().isEmpty());
+
+        assertThrows(ServerException.class, () -> StackUtils.getServiceDTO("kafka"));
+        assertThrows(ServerException.class, () -> StackUtils.getComponentDTO("kafka_broker"));
+        assertThrows(ServerException.class, () -> StackUtils.getServiceDTOByComponentName("kafka_broker"));
+
+        StackRegistry registry = StackUtils.getRegistry();
+        assertThrows(UnsupportedOperationException.class, () -> registry.getStackServices()
+                .clear());
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> registry.getServiceConfigs().get("zookeeper").clear());
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        StackUtils.parseStack();
+        StackRegistry registry = StackUtils.getRegistry();
+
+        // Nothing changed
+        assertFalse(StackUtils.reloadStack());
+        assertSame(registry, StackUtils.getRegistry());
+
+        copyService("kafka");
+        assertTrue(StackUtils.reloadStack());
+        assertEquals(
+                "kafka", StackUtils.getServiceDTOByComponentName("kafka_broker").getName());
+        assertEquals(
+                2, StackUtils.getServiceDTOList(new StackDTO("bigtop", "3.3.0")).size());
+
+        // Snapshots taken before are not changed by a reload
+        assertNull(registry.getService("kafka"));
+
+        // A broken stack keeps the current one
+        Files.createDirectories(services.resolve("broken"));
+        Files.writeString(services.resolve("broken/metainfo.xml"), "<metainfo>");
+        StackRegistry reloaded = StackUtils.getRegistry();
+        assertFalse(StackUtils.reloadStack());
+        assertSame(reloaded, StackUtils.getRegistry());
+        assertEquals("kafka", StackUtils.getServiceDTO("kafka").getName());
+    }
+
+    private void copyService(String serviceName) throws Exception {
+        Path source = SERVICES.resolve(serviceName);
+        try (Stream<Path> stream = Files.walk(source)) {
+            for (Path path : stream.toList()) {
+                Path target = services.resolve(serviceName)
+                        .resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(path, target);
+                }
+            }
+        }
+    }
+}
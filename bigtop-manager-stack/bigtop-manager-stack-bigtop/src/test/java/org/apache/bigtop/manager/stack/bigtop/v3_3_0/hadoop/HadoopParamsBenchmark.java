@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.bigtop.v3_3_0.hadoop;
+
+import org.apache.bigtop.manager.common.constants.CacheFiles;
+import org.apache.bigtop.manager.common.utils.JsonUtils;
+import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
+import org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload;
+import org.apache.bigtop.manager.grpc.pojo.ClusterInfo;
+import org.apache.bigtop.manager.stack.core.utils.LocalSettings;
+
+import org.apache.commons.io.FileUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building {@link HadoopParams} with its global params from the agent cache files.
+ * {@code cached=false} drops the parsed files before every operation, which is what each call paid before.
+ * <p>
+ * Run {@link #main(String[])} from the IDE, the cache files are written to a temporary user home.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HadoopParamsBenchmark {
+
+    private static final String[] CONFIG_TYPES = {
+        "core-site",
+        "hdfs-site",
+        "yarn-site",
+        "mapred-site",
+        "hadoop-policy",
+        "hdfs-log4j",
+        "yarn-log4j",
+        "hadoop-env",
+        "yarn-env",
+        "mapred-env",
+        "hadoop.conf",
+        "workers"
+    };
+
+    @Param({"true", "false"})
+    private boolean cached;
+
+    private Path userHome;
+
+    private String originalUserHome;
+
+    private ComponentCommandPayload payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        originalUserHome = System.getProperty("user.home");
+        userHome = Files.createTempDirectory("hadoop-params-benchmark");
+        System.setProperty("user.home", userHome.toString());
+
+        String cacheDir = ProjectPathUtils.getAgentCachePath();
+        Files.createDirectories(Path.of(cacheDir));
+
+        // Hadoop plus a few neighbours, as a cluster-wide configurations file holds every service
+        Map<String, Map<String, String>> configurations = new HashMap<>();
+        for (String service : List.of("hadoop", "hive", "hbase", "spark", "zookeeper", "kafka")) {
+            Map<String, String> types = new HashMap<>();
+            for (String type : CONFIG_TYPES) {
+                types.put(type, JsonUtils.writeAsString(properties(type)));
+            }
+            configurations.put(service, types);
+        }
+        JsonUtils.writeToFile(cacheDir + CacheFiles.CONFIGURATIONS_INFO, configurations);
+
+        Map<String, List<String>> hosts = new HashMap<>();
+        hosts.put("namenode", List.of("host-1"));
+        hosts.put("resourcemanager", List.of("host-2"));
+        hosts.put("datanode", List.of("host-1", "host-2", "host-3"));
+        JsonUtils.writeToFile(cacheDir + CacheFiles.HOSTS_INFO, hosts);
+
+        ClusterInfo clusterInfo = new ClusterInfo();
+        clusterInfo.setName("benchmark");
+        clusterInfo.setUserGroup("hadoop");
+        clusterInfo.setRootDir("/opt/bigtop");
+        JsonUtils.writeToFile(cacheDir + CacheFiles.CLUSTER_INFO, clusterInfo);
+
+        payload = new ComponentCommandPayload();
+        payload.setServiceName("hadoop");
+        payload.setServiceUser("hadoop");
+        payload.setComponentName("namenode");
+    }
+
+    @Setup(Level.Invocation)
+    public void resetCache() {
+        if (!cached) {
+            LocalSettings.invalidate();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        LocalSettings.invalidate();
+        System.setProperty("user.home", originalUserHome);
+        FileUtils.deleteDirectory(userHome.toFile());
+    }
+
+    @Benchmark
+    public Map<String, Object> construct() {
+        HadoopParams params = new HadoopParams(payload);
+        params.initGlobalParams();
+        return params.getGlobalParamsMap();
+    }
+
+    private static Map<String, Object> properties(String type) {
+        Map<String, Object> properties = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            properties.put(type + ".property." + i, "${hadoop_home}/value-" + i);
+        }
+
+        properties.put("fs.defaultFS", "hdfs://localhost:8020");
+        properties.put("dfs.namenode.rpc-address", "0.0.0.0:8020");
+        properties.put("dfs.datanode.https.address", "0.0.0.0:9865");
+        properties.put("dfs.namenode.https-address", "0.0.0.0:9871");
+        properties.put("dfs.datanode.data.dir", "/hadoop/dfs/data");
+        properties.put("dfs.namenode.name.dir", "/hadoop/dfs/name");
+        properties.put("yarn.nodemanager.log-dirs", "/hadoop/yarn/log");
+        properties.put("yarn.nodemanager.local-dirs", "/hadoop/yarn/local");
+        properties.put("content", "# " + type);
+        return properties;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(HadoopParamsBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.core.executor;
+
+import org.apache.bigtop.manager.common.shell.ShellResult;
+import org.apache.bigtop.manager.common.utils.CaseUtils;
+import org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload;
+import org.apache.bigtop.manager.stack.core.exception.StackException;
+import org.apache.bigtop.manager.stack.core.spi.param.Params;
+import org.apache.bigtop.manager.stack.core.spi.script.Script;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dispatch table of script commands and params constructors, resolved once from the loaded SPIs
+ * so executing a command does not look up methods or constructors reflectively.
+ */
+@Slf4j
+public class CommandDispatcher {
+
+    private static final MethodType COMMAND_TYPE = MethodType.methodType(ShellResult.class, Params.class);
+
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Params.class, ComponentCommandPayload.class);
+
+    /**
+     * Command name as sent by the server, e.g. rebalance_hdfs, to the script method name
+     */
+    private static final Map<String, String> METHOD_NAMES = new ConcurrentHashMap<>();
+
+    /**
+     * Component name -> script method name -> handle bound to the script instance
+     */
+    private final Map<String, Map<String, MethodHandle>> commands = new HashMap<>();
+
+    /**
+     * Service name -> handle of the params constructor taking the payload
+     */
+    private final Map<String, MethodHandle> factories = new HashMap<>();
+
+    public CommandDispatcher(Map<String, Script> scriptMap, Map<String, Params> paramsMap) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Map.Entry<String, Script> entry : scriptMap.entrySet()) {
+            commands.put(entry.getKey(), resolveCommands(lookup, entry.getValue()));
+        }
+
+        for (Map.Entry<String, Params> entry : paramsMap.entrySet()) {
+            Class<?> paramsClass = entry.getValue().getClass();
+            try {
+                MethodHandle constructor = lookup.findConstructor(
+                        paramsClass, MethodType.methodType(void.class, ComponentCommandPayload.class));
+                factories.put(entry.getKey(), constructor.asType(FACTORY_TYPE));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                log.warn("Cannot resolve constructor of {}", paramsClass, e);
+            }
+        }
+    }
+
+    /**
+     * Find the handle of a command on the component script, it takes {@link Params} and returns {@link ShellResult}.
+     */
+    public MethodHandle getCommand(String componentName, String command) {
+        String methodName = METHOD_NAMES.computeIfAbsent(
+                command, k -> CaseUtils.toCamelCase(k, CaseUtils.SEPARATOR_UNDERSCORE, false));
+        MethodHandle handle =
+                commands.getOrDefault(componentName, Collections.emptyMap()).get(methodName);
+        if (handle == null) {
+            throw new StackException("Cannot find command {0} for component: {1}", command, componentName);
+        }
+
+        return handle;
+    }
+
+    public ShellResult invoke(MethodHandle command, Params params) throws Exception {
+        try {
+            return (ShellResult) command.invokeExact(params);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new StackException(e);
+        }
+    }
+
+    public Params createParams(ComponentCommandPayload payload) throws Exception {
+        MethodHandle factory = factories.get(payload.getServiceName());
+        if (factory == null) {
+            throw new StackException("Cannot find params for service: {0}", payload.getServiceName());
+        }
+
+        Params params;
+        try {
+            params = (Params) factory.invokeExact(payload);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new StackException(e);
+        }
+
+        params.initGlobalParams();
+        return params;
+    }
+
+    private static Map<String, MethodHandle> resolveCommands(MethodHandles.Lookup lookup, Script script) {
+        Map<String, MethodHandle> handles = new HashMap<>();
+        for (Method method : script.getClass().getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())
+                    || method.getParameterCount() != 1
+                    || method.getParameterTypes()[0] != Params.class
+                    || !ShellResult.class.isAssignableFrom(method.getReturnType())) {
+                continue;
+            }
+
+            try {
+                MethodHandle handle = lookup.unreflect(method).bindTo(script).asType(COMMAND_TYPE);
+                handles.put(method.getName(), handle);
+            } catch (IllegalAccessException e) {
+                log.warn("Cannot resolve command {} of {}", method.getName(), script.getClass(), e);
+            }
+        }
+
+        return Collections.unmodifiableMap(handles);
+    }
+}
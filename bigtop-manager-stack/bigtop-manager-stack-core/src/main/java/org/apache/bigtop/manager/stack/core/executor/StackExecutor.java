@@ -21,7 +21,6 @@ package org.apache.bigtop.manager.stack.core.executor;
 import org.apache.bigtop.manager.common.constants.MessageConstants;
 import org.apache.bigtop.manager.common.enums.Command;
 import org.apache.bigtop.manager.common.shell.ShellResult;
-import org.apache.bigtop.manager.common.utils.CaseUtils;
 import org.apache.bigtop.manager.common.utils.Environments;
 import org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload;
 import org.apache.bigtop.manager.stack.core.exception.StackException;
@@ -29,11 +28,13 @@ import org.apache.bigtop.manager.stack.core.spi.PrioritySPIFactory;
 import org.apache.bigtop.manager.stack.core.spi.hook.Hook;
 import org.apache.bigtop.manager.stack.core.spi.param.Params;
 import org.apache.bigtop.manager.stack.core.spi.script.Script;
+import org.apache.bigtop.manager.stack.core.utils.LocalSettings;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 public class StackExecutor {
@@ -44,6 +45,14 @@ public class StackExecutor {
 
     private static final Map<String, Hook> HOOK_MAP = new PrioritySPIFactory<>(Hook.class).getSPIMap();
 
+    private static final CommandDispatcher DISPATCHER = new CommandDispatcher(SCRIPT_MAP, PARAMS_MAP);
+
+    /**
+     * Params used by status checks, keyed by service, component and service user,
+     * rebuilt when the payload or the local settings they were built from change
+     */
+    private static final Map<String, StatusParams> STATUS_PARAMS = new ConcurrentHashMap<>();
+
     private static Script getCommandScript(org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload payload) {
         String componentName = payload.getComponentName();
         Script script = SCRIPT_MAP.get(componentName);
@@ -74,24 +83,21 @@ public class StackExecutor {
                     ? payload.getCustomCommand()
                     : payload.getCommand();
             Script script = getCommandScript(payload);
+            if (Command.STATUS.getCode().equalsIgnoreCase(command)) {
+                return status(script, payload);
+            }
 
-            String methodName = CaseUtils.toCamelCase(command, CaseUtils.SEPARATOR_UNDERSCORE, false);
-            Method method = script.getClass().getMethod(methodName, Params.class);
+            MethodHandle method = DISPATCHER.getCommand(payload.getComponentName(), command);
 
-            Params params = PARAMS_MAP
-                    .get(payload.getServiceName())
-                    .getClass()
-                    .getDeclaredConstructor(ComponentCommandPayload.class)
-                    .newInstance(payload);
-            params.initGlobalParams();
+            Params params = DISPATCHER.createParams(payload);
             if (Environments.isDevMode()) {
-                log.info("Executing {}::{} on dev mode", script.getName(), method.getName());
+                log.info("Executing {}::{} on dev mode", script.getName(), command);
                 return ShellResult.success();
             } else {
                 runBeforeHook(command, params);
 
-                log.info("Executing {}::{}", script.getName(), method.getName());
-                ShellResult result = (ShellResult) method.invoke(script, params);
+                log.info("Executing {}::{}", script.getName(), command);
+                ShellResult result = DISPATCHER.invoke(method, params);
                 if (result.getExitCode() != MessageConstants.SUCCESS_CODE) {
                     log.error("Error executing script: {}", result.getErrMsg());
                 }
@@ -105,4 +111,28 @@ public class StackExecutor {
             return ShellResult.fail();
         }
     }
+
+    /**
+     * Status is polled for every component, it goes straight to the script without hooks,
+     * reusing Params as long as the payload and the local settings they were built from are unchanged.
+     */
+    private static ShellResult status(Script script, ComponentCommandPayload payload) throws Exception {
+        if (Environments.isDevMode()) {
+            return ShellResult.success();
+        }
+
+        long stamp = LocalSettings.stamp();
+        String key = payload.getServiceName() + ":" + payload.getComponentName() + ":" + payload.getServiceUser();
+        StatusParams statusParams = STATUS_PARAMS.get(key);
+        if (statusParams == null
+                || statusParams.stamp() != stamp
+                || !statusParams.payload().equals(payload)) {
+            statusParams = new StatusParams(stamp, payload, DISPATCHER.createParams(payload));
+            STATUS_PARAMS.put(key, statusParams);
+        }
+
+        return script.status(statusParams.params());
+    }
+
+    private record StatusParams(long stamp, ComponentCommandPayload payload, Params params) {}
 }
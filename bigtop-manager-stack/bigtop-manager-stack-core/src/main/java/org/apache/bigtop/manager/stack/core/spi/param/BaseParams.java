@@ -31,6 +31,9 @@ import org.apache.bigtop.manager.stack.core.utils.LocalSettings;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.text.MessageFormat;
 import java.util.ArrayList;
@@ -46,11 +49,32 @@ public abstract class BaseParams implements Params {
 
     private boolean globalParamsResolved = false;
 
-    private static int CURRENT_RESOLVING_DEPTH = 0;
-    private static final int MAX_RECURSION_DEPTH = 5;
-
     public static final String LIMITS_CONF_DIR = "/etc/security/limits.d";
 
+    /**
+     * {@link GlobalParams} methods declared by each params class, resolved once per class
+     */
+    private static final ClassValue<List<GlobalParamsMethod>> GLOBAL_PARAMS_METHODS = new ClassValue<>() {
+        @Override
+        protected List<GlobalParamsMethod> computeValue(Class<?> type) {
+            MethodType methodType = MethodType.methodType(Map.class, BaseParams.class);
+            List<GlobalParamsMethod> methods = new ArrayList<>();
+            for (Method declaredMethod : type.getDeclaredMethods()) {
+                if (declaredMethod.isAnnotationPresent(GlobalParams.class) && declaredMethod.getParameterCount() == 0) {
+                    try {
+                        MethodHandle handle =
+                                MethodHandles.lookup().unreflect(declaredMethod).asType(methodType);
+                        methods.add(new GlobalParamsMethod(declaredMethod, handle));
+                    } catch (Exception e) {
+                        log.warn("Get {} Params error", declaredMethod, e);
+                    }
+                }
+            }
+
+            return List.copyOf(methods);
+        }
+    };
+
     protected ComponentCommandPayload payload;
 
     protected BaseParams(ComponentCommandPayload payload) {
@@ -69,7 +93,7 @@ public abstract class BaseParams implements Params {
 
     public Object getGlobalParam(String key) {
         if (!globalParamsResolved) {
-            recursivelyResolveGlobalParams();
+            resolveGlobalParams();
         }
 
         return globalParamsMap.get(key);
@@ -77,7 +101,7 @@ public abstract class BaseParams implements Params {
 
     public Map<String, Object> getGlobalParamsMap() {
         if (!globalParamsResolved) {
-            recursivelyResolveGlobalParams();
+            resolveGlobalParams();
         }
 
         return globalParamsMap;
@@ -86,65 +110,24 @@ public abstract class BaseParams implements Params {
     @SuppressWarnings("unchecked")
     public void initGlobalParams() {
         // Global Parameters Injection
-        Method[] declaredMethods = this.getClass().getDeclaredMethods();
-        for (Method declaredMethod : declaredMethods) {
+        for (GlobalParamsMethod globalParamsMethod : GLOBAL_PARAMS_METHODS.get(this.getClass())) {
             try {
-                if (declaredMethod.isAnnotationPresent(GlobalParams.class) && declaredMethod.getParameterCount() == 0) {
-                    Map<String, Object> invoke = (Map<String, Object>) declaredMethod.invoke(this);
-                    globalParamsMap.putAll(invoke);
-                }
-            } catch (Exception e) {
-                log.warn("Get {} Params error", declaredMethod, e);
+                Map<String, Object> invoke =
+                        (Map<String, Object>) globalParamsMethod.handle().invokeExact(this);
+                globalParamsMap.putAll(invoke);
+            } catch (Throwable e) {
+                log.warn("Get {} Params error", globalParamsMethod.method(), e);
             }
         }
 
         globalParamsMap.remove("content");
 
-        recursivelyResolveGlobalParams();
-        globalParamsResolved = true;
+        resolveGlobalParams();
     }
 
-    private void recursivelyResolveGlobalParams() {
-        CURRENT_RESOLVING_DEPTH++;
-        boolean allResolved = true;
-        for (Map.Entry<String, Object> entry : globalParamsMap.entrySet()) {
-            if (entry.getValue() instanceof String value) {
-                while (value.contains("${") && value.contains("}")) {
-                    allResolved = false;
-                    int start = -1, end = -1;
-                    for (int i = 0; i < value.length(); i++) {
-                        if (value.startsWith("${", i)) {
-                            start = i;
-                        } else if (value.charAt(i) == '}') {
-                            end = i;
-                            break;
-                        }
-                    }
-                    if (start != -1 && end != -1) {
-                        String key = value.substring(start + 2, end);
-                        Object resolvedValue = globalParamsMap.get(key);
-                        if (resolvedValue != null) {
-                            value = value.substring(0, start) + resolvedValue + value.substring(end + 1);
-                            entry.setValue(value);
-                        } else {
-                            // Log a warning if the key is not found
-                            log.warn("Parameter '{}' not found for replacement in '{}'", key, entry.getKey());
-                            break;
-                        }
-                    }
-                }
-            }
-        }
-
-        if (!allResolved) {
-            if (CURRENT_RESOLVING_DEPTH >= MAX_RECURSION_DEPTH) {
-                CURRENT_RESOLVING_DEPTH = 0;
-            } else {
-                recursivelyResolveGlobalParams();
-            }
-        } else {
-            CURRENT_RESOLVING_DEPTH = 0;
-        }
+    private void resolveGlobalParams() {
+        PlaceholderResolver.resolve(globalParamsMap);
+        globalParamsResolved = true;
     }
 
     public String hostname() {
@@ -209,4 +192,6 @@ public abstract class BaseParams implements Params {
     public String serviceHome() {
         return MessageFormat.format("{0}/{1}", stackHome(), getServiceName());
     }
+
+    private record GlobalParamsMethod(Method method, MethodHandle handle) {}
 }
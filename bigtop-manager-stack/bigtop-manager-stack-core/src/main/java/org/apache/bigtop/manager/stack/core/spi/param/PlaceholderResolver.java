@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.core.spi.param;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves ${key} placeholders between the values of a params map.
+ * <p>
+ * Every value is parsed once, references are resolved depth first and memoized, so the whole map
+ * takes a single pass. Placeholders can be nested, like ${${prefix}_dir}, unknown keys and circular
+ * references are left as they are. A resolver holds no shared state, so concurrent commands can
+ * each resolve their own params.
+ */
+@Slf4j
+public class PlaceholderResolver {
+
+    private static final String PREFIX = "${";
+
+    private static final char SUFFIX = '}';
+
+    private final Map<String, Object> params;
+
+    private final Map<String, Object> resolved = new HashMap<>();
+
+    private final Set<String> resolving = new HashSet<>();
+
+    private PlaceholderResolver(Map<String, Object> params) {
+        this.params = params;
+    }
+
+    /**
+     * Replace placeholders in all string values of the map in place.
+     */
+    public static void resolve(Map<String, Object> params) {
+        PlaceholderResolver resolver = new PlaceholderResolver(params);
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : params.entrySet()) {
+            if (entry.getValue() instanceof String value && value.contains(PREFIX)) {
+                keys.add(entry.getKey());
+            }
+        }
+
+        for (String key : keys) {
+            resolver.resolveKey(key);
+        }
+
+        for (String key : keys) {
+            params.put(key, resolver.resolved.get(key));
+        }
+    }
+
+    private Object resolveKey(String key) {
+        if (resolved.containsKey(key)) {
+            return resolved.get(key);
+        }
+
+        Object value = params.get(key);
+        if (!(value instanceof String template) || !template.contains(PREFIX)) {
+            return value;
+        }
+
+        if (!resolving.add(key)) {
+            log.warn("Circular reference found when resolving parameter '{}'", key);
+            return null;
+        }
+
+        String result = render(parse(template), key);
+        resolving.remove(key);
+        resolved.put(key, result);
+        return result;
+    }
+
+    private String render(List<Object> parts, String owner) {
+        StringBuilder sb = new StringBuilder();
+        for (Object part : parts) {
+            if (part instanceof Placeholder placeholder) {
+                String key = render(placeholder.parts(), owner);
+                Object value = resolveKey(key);
+                if (value == null) {
+                    if (!params.containsKey(key)) {
+                        log.warn("Parameter '{}' not found for replacement in '{}'", key, owner);
+                    }
+
+                    sb.append(PREFIX).append(key).append(SUFFIX);
+                } else {
+                    sb.append(value);
+                }
+            } else {
+                sb.append(part);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Split a value into literal strings and placeholders, a ${ without its closing brace stays literal.
+     */
+    private static List<Object> parse(String template) {
+        Deque<List<Object>> parents = new ArrayDeque<>();
+        List<Object> current = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < template.length()) {
+            if (template.startsWith(PREFIX, i)) {
+                flush(literal, current);
+                parents.push(current);
+                current = new ArrayList<>();
+                i += PREFIX.length();
+            } else if (template.charAt(i) == SUFFIX && !parents.isEmpty()) {
+                flush(literal, current);
+                Placeholder placeholder = new Placeholder(current);
+                current = parents.pop();
+                current.add(placeholder);
+                i++;
+            } else {
+                literal.append(template.charAt(i));
+                i++;
+            }
+        }
+
+        flush(literal, current);
+        while (!parents.isEmpty()) {
+            List<Object> parent = parents.pop();
+            parent.add(PREFIX);
+            parent.addAll(current);
+            current = parent;
+        }
+
+        return current;
+    }
+
+    private static void flush(StringBuilder literal, List<Object> parts) {
+        if (!literal.isEmpty()) {
+            parts.add(literal.toString());
+            literal.setLength(0);
+        }
+    }
+
+    private record Placeholder(List<Object> parts) {}
+}
@@ -63,7 +63,7 @@ public abstract class AbstractScript implements Script {
 
         for (PackageInfo packageInfo : packages) {
             Integer skipLevels = Integer.parseInt(properties.getProperty(PROPERTY_KEY_SKIP_LEVELS, "0"));
-            TarballUtils.installPackage(repo.getBaseUrl(), stackHome, serviceHome, packageInfo, skipLevels);
+            TarballUtils.installPackage(repo.getBaseUrl(), serviceHome, packageInfo, skipLevels);
 
             // Dir already created by TarballUtils, this changes the owner and permission for the service home
             LinuxFileUtils.createDirectories(
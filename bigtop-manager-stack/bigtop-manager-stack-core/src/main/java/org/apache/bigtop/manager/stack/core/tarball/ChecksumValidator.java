@@ -21,35 +21,43 @@ package org.apache.bigtop.manager.stack.core.tarball;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.security.MessageDigest;
 
 @Slf4j
 public class ChecksumValidator {
 
+    public static final int BUFFER_SIZE = 1024 * 1024;
+
     public static boolean validateChecksum(String algorithm, String value, File file) {
-        try {
+        try (InputStream is = Files.newInputStream(file.toPath())) {
             MessageDigest digest = MessageDigest.getInstance(algorithm.toUpperCase());
-            FileInputStream fis = new FileInputStream(file);
-            byte[] byteArray = new byte[1024];
+            byte[] byteArray = new byte[BUFFER_SIZE];
             int bytesCount;
 
-            while ((bytesCount = fis.read(byteArray)) != -1) {
+            while ((bytesCount = is.read(byteArray)) != -1) {
                 digest.update(byteArray, 0, bytesCount);
             }
-            fis.close();
-
-            byte[] bytes = digest.digest();
-            StringBuilder sb = new StringBuilder();
-            for (byte b : bytes) {
-                sb.append(String.format("%02x", b));
-            }
 
-            String calculatedChecksum = sb.toString();
-            return calculatedChecksum.equalsIgnoreCase(value);
+            return matches(digest, value);
         } catch (Exception e) {
             log.error("Error while validating checksum", e);
             return false;
         }
     }
+
+    /**
+     * Compare the digest of everything fed so far with the expected hex value, the digest is reset afterwards.
+     */
+    public static boolean matches(MessageDigest digest, String value) {
+        byte[] bytes = digest.digest();
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+
+        String calculatedChecksum = sb.toString();
+        return calculatedChecksum.equalsIgnoreCase(value);
+    }
 }
@@ -22,17 +22,35 @@ import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
 import org.apache.bigtop.manager.grpc.pojo.RepoInfo;
 import org.apache.bigtop.manager.stack.core.exception.StackException;
 
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.input.TeeInputStream;
+
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.function.Consumer;
 
 @Slf4j
 public class FileDownloader {
 
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final String PART_SUFFIX = ".part";
+
     public static void download(String saveDir, RepoInfo repoInfo) {
         PackageInfo packageInfo = new PackageInfo();
         packageInfo.setName(repoInfo.getPkgName());
@@ -42,43 +60,55 @@ public class FileDownloader {
         download(remoteUrl, saveDir, packageInfo);
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     public static void download(String remoteUrl, String saveDir, PackageInfo packageInfo) {
+        download(remoteUrl, saveDir, packageInfo, null);
+    }
+
+    /**
+     * Download the package and validate its checksum while it's being written.
+     * <p>
+     * The consumer, if not null, reads the content as it arrives, e.g. to extract it on the fly,
+     * and it's called again with the whole content when an attempt is retried.
+     * Interrupted downloads are kept as a part file and resumed with a range request.
+     */
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    public static void download(
+            String remoteUrl, String saveDir, PackageInfo packageInfo, Consumer<InputStream> consumer) {
         File localFile = new File(saveDir + File.separator + packageInfo.getName());
         String algorithm = packageInfo.getChecksum().split(":")[0];
         String checksum = packageInfo.getChecksum().split(":")[1];
 
         if (localFile.exists()) {
             log.info("File [{}] exists, validating checksum", localFile.getAbsolutePath());
-        } else {
-            log.info("Downloading [{}] to [{}]", remoteUrl, saveDir);
-            download(remoteUrl, saveDir);
-        }
+            if (consumeFile(localFile, algorithm, checksum, consumer)) {
+                log.info("Checksum validate successfully for [{}]", localFile.getAbsolutePath());
+                return;
+            }
 
-        boolean validateChecksum = ChecksumValidator.validateChecksum(algorithm, checksum, localFile);
-        if (!validateChecksum) {
             log.warn("Invalid checksum for [{}], re-downloading...", localFile.getAbsolutePath());
             localFile.delete();
-            download(remoteUrl, saveDir);
-        }
-
-        validateChecksum = ChecksumValidator.validateChecksum(algorithm, checksum, localFile);
-        if (!validateChecksum) {
-            log.error("Invalid checksum for [{}], exiting...", localFile.getAbsolutePath());
-            throw new StackException("Invalid checksum for " + localFile.getAbsolutePath());
+        } else {
+            log.info("Downloading [{}] to [{}]", remoteUrl, saveDir);
         }
 
+        download(remoteUrl, localFile, algorithm, checksum, consumer);
         log.info("Checksum validate successfully for [{}]", localFile.getAbsolutePath());
     }
 
     public static void download(String remoteUrl, String saveDir) {
+        String fileName = remoteUrl.substring(remoteUrl.lastIndexOf("/") + 1);
+        download(remoteUrl, new File(saveDir + File.separator + fileName), null, null, null);
+    }
+
+    private static void download(
+            String remoteUrl, File localFile, String algorithm, String checksum, Consumer<InputStream> consumer) {
         int i = 1;
         while (true) {
-            Boolean downloaded = downloadFile(remoteUrl, saveDir);
+            Boolean downloaded = downloadFile(remoteUrl, localFile, algorithm, checksum, consumer);
             if (downloaded) {
                 break;
             } else {
-                if (i == 3) {
+                if (i == MAX_ATTEMPTS) {
                     log.error("Failed to download [{}], exiting...", remoteUrl);
                     throw new StackException("Failed to download " + remoteUrl);
                 } else {
@@ -90,40 +120,86 @@ public class FileDownloader {
         }
     }
 
+    private static boolean consumeFile(File file, String algorithm, String checksum, Consumer<InputStream> consumer) {
+        if (consumer == null) {
+            return ChecksumValidator.validateChecksum(algorithm, checksum, file);
+        }
+
+        try (DigestInputStream is = new DigestInputStream(
+                Files.newInputStream(file.toPath()), MessageDigest.getInstance(algorithm.toUpperCase()))) {
+            consumer.accept(new ConsumerInputStream(is));
+            drain(is);
+            return ChecksumValidator.matches(is.getMessageDigest(), checksum);
+        } catch (Exception e) {
+            log.error("Error while reading [{}]", file.getAbsolutePath(), e);
+            return false;
+        }
+    }
+
     @SuppressWarnings("ResultOfMethodCallIgnored")
-    private static Boolean downloadFile(String fileUrl, String saveDir) {
+    private static Boolean downloadFile(
+            String fileUrl, File localFile, String algorithm, String checksum, Consumer<InputStream> consumer) {
+        Path partPath = Path.of(localFile.getPath() + PART_SUFFIX);
         HttpURLConnection httpConn = null;
         try {
-            URL url = new URL(fileUrl);
-            httpConn = (HttpURLConnection) url.openConnection();
-            int responseCode = httpConn.getResponseCode();
+            // A part file without progress was written by a single connection, keep resuming it that way
+            boolean singlePart = Files.exists(partPath) && !Files.exists(SegmentedDownloader.progressPath(partPath));
+            long length = singlePart ? -1 : SegmentedDownloader.probe(fileUrl);
+            int segments = SegmentedDownloader.segments(length);
+            if (segments > 1) {
+                return downloadSegments(fileUrl, localFile, partPath, length, segments, algorithm, checksum, consumer);
+            } else if (!singlePart && Files.deleteIfExists(SegmentedDownloader.progressPath(partPath))) {
+                // Segments were preallocated, the part file has holes and can't be resumed from its end
+                Files.deleteIfExists(partPath);
+            }
 
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                String fileName = fileUrl.substring(fileUrl.lastIndexOf("/") + 1);
-                InputStream inputStream = httpConn.getInputStream();
-                String saveFilePath = saveDir + File.separator + fileName;
+            long offset = Files.exists(partPath) ? Files.size(partPath) : 0;
 
-                if (!new File(saveDir).exists()) {
-                    new File(saveDir).mkdirs();
-                }
+            URL url = new URL(fileUrl);
+            httpConn = (HttpURLConnection) url.openConnection();
+            if (offset > 0) {
+                httpConn.setRequestProperty("Range", "bytes=" + offset + "-");
+            }
 
-                FileOutputStream outputStream = new FileOutputStream(saveFilePath);
+            int responseCode = httpConn.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_PARTIAL && offset > 0) {
+                log.info("Resuming [{}] from byte [{}]", fileUrl, offset);
+            } else if (responseCode == HttpURLConnection.HTTP_OK) {
+                offset = 0;
+            } else {
+                log.info("No file to download. Server replied HTTP code: [{}]", responseCode);
+                // The part file can't be resumed, e.g. it is already complete but corrupted
+                Files.deleteIfExists(partPath);
+                return false;
+            }
 
-                int bytesRead = -1;
-                byte[] buffer = new byte[4096];
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
+            Files.createDirectories(partPath.getParent());
+            MessageDigest digest = algorithm == null ? null : MessageDigest.getInstance(algorithm.toUpperCase());
+            try (FileChannel channel = FileChannel.open(
+                            partPath,
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE,
+                            offset > 0 ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+                    InputStream body =
+                            new TeeInputStream(httpConn.getInputStream(), Channels.newOutputStream(channel));
+                    InputStream content = offset > 0 ? resume(partPath, offset, body) : body;
+                    InputStream is = digest == null ? content : new DigestInputStream(content, digest)) {
+                if (consumer != null) {
+                    consumer.accept(new ConsumerInputStream(is));
                 }
 
-                outputStream.close();
-                inputStream.close();
+                drain(is);
+            }
 
-                log.info("File downloaded: [{}]", saveFilePath);
-                return true;
-            } else {
-                log.info("No file to download. Server replied HTTP code: [{}]", responseCode);
+            if (digest != null && !ChecksumValidator.matches(digest, checksum)) {
+                log.warn("Invalid checksum for [{}]", localFile.getAbsolutePath());
+                Files.deleteIfExists(partPath);
                 return false;
             }
+
+            Files.move(partPath, localFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            log.info("File downloaded: [{}]", localFile.getAbsolutePath());
+            return true;
         } catch (Exception e) {
             log.error("Error downloading file: {}", e.getMessage());
             return false;
@@ -133,4 +209,74 @@ public class FileDownloader {
             }
         }
     }
+
+    /**
+     * Large files are fetched over several connections, the consumer then reads the completed file while
+     * it's checksummed, which is still a single read.
+     */
+    private static Boolean downloadSegments(
+            String fileUrl,
+            File localFile,
+            Path partPath,
+            long length,
+            int segments,
+            String algorithm,
+            String checksum,
+            Consumer<InputStream> consumer)
+            throws IOException {
+        log.info("Downloading [{}] bytes from [{}] over [{}] connections", length, fileUrl, segments);
+        SegmentedDownloader.download(fileUrl, partPath, length, segments);
+
+        if (algorithm != null && !consumeFile(partPath.toFile(), algorithm, checksum, consumer)) {
+            log.warn("Invalid checksum for [{}]", localFile.getAbsolutePath());
+            Files.deleteIfExists(partPath);
+            return false;
+        }
+
+        Files.move(partPath, localFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        log.info("File downloaded: [{}]", localFile.getAbsolutePath());
+        return true;
+    }
+
+    /**
+     * The bytes already in the part file followed by the rest of the response, the part file is appended
+     * while it's being read so the existing bytes are bounded.
+     */
+    private static InputStream resume(Path partPath, long offset, InputStream body) throws IOException {
+        InputStream existing = BoundedInputStream.builder()
+                .setInputStream(Files.newInputStream(partPath))
+                .setMaxCount(offset)
+                .get();
+        return new SequenceInputStream(existing, body);
+    }
+
+    private static void drain(InputStream is) throws IOException {
+        byte[] buffer = new byte[ChecksumValidator.BUFFER_SIZE];
+        while (is.read(buffer) != -1) {
+            // Read till the end so the whole content is written and digested
+        }
+    }
+
+    /**
+     * What the consumer reads: skipped bytes are read so they still get written and digested,
+     * and closing it leaves the rest of the content to be drained.
+     */
+    private static class ConsumerInputStream extends FilterInputStream {
+
+        ConsumerInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(n, ChecksumValidator.BUFFER_SIZE)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public void close() {
+            // The downloader closes the underlying stream
+        }
+    }
 }
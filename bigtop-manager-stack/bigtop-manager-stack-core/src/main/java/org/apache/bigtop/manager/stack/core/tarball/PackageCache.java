@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.core.tarball;
+
+import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
+import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
+import org.apache.bigtop.manager.stack.core.exception.StackException;
+
+import org.apache.commons.lang3.StringUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Packages downloaded by the agent, stored by checksum so every service and stack installing the same
+ * tarball shares one copy, and a wiped service home is reinstalled without downloading again.
+ * <p>
+ * Blobs live at {@code <cache>/<algorithm>/<checksum>/<name>}, the least recently used ones are removed
+ * once the cache grows over the size set by the PACKAGE_CACHE_MAX_SIZE_MB environment variable.
+ * Packages missing are fetched from the {@link PackageSource} of the peers first, then from the repo.
+ */
+@Slf4j
+public class PackageCache {
+
+    private static final long DEFAULT_MAX_SIZE_MB = 20 * 1024;
+
+    private static final String PEER_PART_SUFFIX = ".peer.part";
+
+    private static final int MAX_PEER_ATTEMPTS = 3;
+
+    /**
+     * Blob path to the lock of its downloads and eviction, dropped once the blob is gone.
+     */
+    static final Map<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private static volatile PackageSource peerSource;
+
+    /**
+     * Set where packages are fetched from before the repo, the agent sets it to the peers of its host.
+     */
+    public static void setPeerSource(PackageSource source) {
+        peerSource = source;
+    }
+
+    /**
+     * Download the package into the cache unless it's there, validating its checksum.
+     * The consumer, if not null, reads the content while it's being downloaded or validated.
+     *
+     * @return the cached package
+     */
+    public static Path fetch(String repoUrl, PackageInfo packageInfo, Consumer<InputStream> consumer) {
+        return fetch(repoUrl, packageInfo, consumer, Set.of());
+    }
+
+    /**
+     * Same as {@link #fetch(String, PackageInfo, Consumer)}, the package is fetched from the peers first,
+     * and the repo is only used if none of them has it or it doesn't match its checksum.
+     *
+     * @param visited hosts waiting on this one for the package, they are not asked for it
+     */
+    public static Path fetch(
+            String repoUrl, PackageInfo packageInfo, Consumer<InputStream> consumer, Set<String> visited) {
+        Path blob = blobPath(packageInfo);
+        String remoteUrl = repoUrl + File.separator + packageInfo.getName();
+        locked(blob, () -> {
+            if (!Files.exists(blob)) {
+                fetchFromPeers(repoUrl, packageInfo, blob, visited);
+            }
+
+            // Validates the package got from a peer, or downloads it from the repo
+            FileDownloader.download(remoteUrl, blob.getParent().toString(), packageInfo, consumer);
+            touch(blob);
+            return null;
+        });
+
+        evict();
+        return blob;
+    }
+
+    /**
+     * Download the package ahead of installing it, nothing is done if it's already cached.
+     *
+     * @return true if the package was downloaded
+     */
+    public static boolean seed(String repoUrl, PackageInfo packageInfo) {
+        if (Files.exists(blobPath(packageInfo))) {
+            touch(blobPath(packageInfo));
+            return false;
+        }
+
+        fetch(repoUrl, packageInfo, null);
+        return true;
+    }
+
+    /**
+     * Copy the package from the peer source, resuming from what's received when a peer drops.
+     */
+    private static void fetchFromPeers(String repoUrl, PackageInfo packageInfo, Path blob, Set<String> visited) {
+        PackageSource source = peerSource;
+        if (source == null) {
+            return;
+        }
+
+        Path part = Path.of(blob + PEER_PART_SUFFIX);
+        for (int attempt = 1; attempt <= MAX_PEER_ATTEMPTS; attempt++) {
+            try {
+                Files.createDirectories(part.getParent());
+                long offset = Files.exists(part) ? Files.size(part) : 0;
+                try (InputStream is = source.open(repoUrl, packageInfo, offset, visited)) {
+                    if (is == null) {
+                        break;
+                    }
+
+                    try (OutputStream os =
+                            Files.newOutputStream(part, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                        is.transferTo(os);
+                    }
+                }
+
+                Files.move(part, blob, StandardCopyOption.REPLACE_EXISTING);
+                log.info("Fetched [{}] from peers", packageInfo.getName());
+                return;
+            } catch (IOException e) {
+                log.warn(
+                        "Failed to fetch [{}] from peers: {}, attempt: {}",
+                        packageInfo.getName(),
+                        e.getMessage(),
+                        attempt);
+            }
+        }
+
+        try {
+            Files.deleteIfExists(part);
+        } catch (IOException e) {
+            log.warn("Failed to delete [{}]: {}", part, e.getMessage());
+        }
+    }
+
+    public static Path blobPath(PackageInfo packageInfo) {
+        String[] checksum = packageInfo.getChecksum().split(":");
+        if (checksum.length != 2 || !isPathSegment(checksum[0]) || !isPathSegment(checksum[1])) {
+            throw new StackException(
+                    "Invalid checksum of package {0}: {1}", packageInfo.getName(), packageInfo.getChecksum());
+        }
+
+        if (!isPathSegment(packageInfo.getName())) {
+            throw new StackException("Invalid package name: {0}", packageInfo.getName());
+        }
+
+        return Path.of(
+                ProjectPathUtils.getAgentPackageCachePath(),
+                checksum[0].toLowerCase(),
+                checksum[1].toLowerCase(),
+                packageInfo.getName());
+    }
+
+    /**
+     * Remove least recently used packages until the cache fits in its size.
+     */
+    public static void evict() {
+        evict(Path.of(ProjectPathUtils.getAgentPackageCachePath()), maxSize());
+    }
+
+    static void evict(Path cacheDir, long maxSize) {
+        if (!Files.isDirectory(cacheDir)) {
+            return;
+        }
+
+        List<Blob> blobs = new ArrayList<>();
+        try (Stream<Path> stream = Files.walk(cacheDir)) {
+            for (Path path : stream.filter(PackageCache::isBlob).toList()) {
+                blobs.add(new Blob(path, Files.size(path), Files.getLastModifiedTime(path)));
+            }
+        } catch (IOException e) {
+            log.warn("Failed to list package cache [{}]: {}", cacheDir, e.getMessage());
+            return;
+        }
+
+        long size = blobs.stream().mapToLong(Blob::size).sum();
+        if (size <= maxSize) {
+            return;
+        }
+
+        blobs.sort(Comparator.comparing(Blob::lastUsed));
+        for (Blob blob : blobs) {
+            if (size <= maxSize) {
+                break;
+            }
+
+            // The newest one is kept even if it's over the size by itself, it was just used
+            if (blob == blobs.get(blobs.size() - 1)) {
+                break;
+            }
+
+            boolean evicted = locked(blob.path(), () -> {
+                try {
+                    Files.deleteIfExists(blob.path());
+                    log.info("Evicted [{}] from package cache", blob.path());
+                    deleteIfEmpty(blob.path().getParent());
+                    return true;
+                } catch (IOException e) {
+                    log.warn("Failed to evict [{}]: {}", blob.path(), e.getMessage());
+                    return false;
+                }
+            });
+            if (evicted) {
+                size -= blob.size();
+            }
+        }
+    }
+
+    /**
+     * Run the action holding the lock of the blob, the lock is dropped afterwards if the blob doesn't exist,
+     * so the locks don't outlive the blobs evicted or failed to download.
+     */
+    private static <T> T locked(Path blob, Supplier<T> action) {
+        String key = blob.toString();
+        while (true) {
+            Object lock = LOCKS.computeIfAbsent(key, k -> new Object());
+            synchronized (lock) {
+                // Dropped while waiting for it, the current holder of the key is the one to take
+                if (LOCKS.get(key) != lock) {
+                    continue;
+                }
+
+                try {
+                    return action.get();
+                } finally {
+                    if (!Files.exists(blob)) {
+                        LOCKS.remove(key, lock);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A single non-empty name that can't leave its directory.
+     */
+    private static boolean isPathSegment(String name) {
+        return StringUtils.isNotBlank(name)
+                && !StringUtils.containsAny(name, '/', '\\')
+                && !name.equals(".")
+                && !name.equals("..");
+    }
+
+    /**
+     * Downloads in progress are not counted, they become blobs once their checksum is validated.
+     */
+    private static boolean isBlob(Path path) {
+        String name = path.getFileName().toString();
+        return Files.isRegularFile(path)
+                && !name.endsWith(".part")
+                && !name.endsWith(SegmentedDownloader.PROGRESS_SUFFIX)
+                && !name.endsWith(".tmp");
+    }
+
+    private static void deleteIfEmpty(Path dir) {
+        try (Stream<Path> stream = Files.list(dir)) {
+            if (stream.findAny().isEmpty()) {
+                Files.deleteIfExists(dir);
+            }
+        } catch (IOException e) {
+            // Another package with the same checksum or a download just started in it
+        }
+    }
+
+    private static void touch(Path blob) {
+        try {
+            Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.warn("Failed to touch [{}]: {}", blob, e.getMessage());
+        }
+    }
+
+    private static long maxSize() {
+        String maxSize = System.getenv("PACKAGE_CACHE_MAX_SIZE_MB");
+        long mb = StringUtils.isNumeric(maxSize) ? Long.parseLong(maxSize) : DEFAULT_MAX_SIZE_MB;
+        return mb * 1024 * 1024;
+    }
+
+    private record Blob(Path path, long size, FileTime lastUsed) {}
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.core.tarball;
+
+import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+/**
+ * Where {@link PackageCache} gets packages from before the repo, e.g. other agents that already have them.
+ */
+public interface PackageSource {
+
+    /**
+     * Open the content of the package, starting at the offset.
+     *
+     * @param repoUrl the repo the source falls back to if it doesn't have the package yet
+     * @param visited hosts waiting on this one for the package, they are not asked for it
+     * @return the content, or null if the package is not available from this source
+     */
+    InputStream open(String repoUrl, PackageInfo packageInfo, long offset, Set<String> visited) throws IOException;
+}
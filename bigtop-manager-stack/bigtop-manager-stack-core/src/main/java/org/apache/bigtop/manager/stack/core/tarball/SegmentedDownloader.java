@@ -0,0 +1,400 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.core.tarball;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Downloads a file over several connections, each fetching a byte range into its position of a preallocated file.
+ * <p>
+ * Progress of every segment is saved next to the file, so an interrupted download continues where each segment
+ * stopped. The content is not validated here, the caller checks the checksum of the completed file.
+ */
+@Slf4j
+public class SegmentedDownloader {
+
+    public static final int DEFAULT_SEGMENTS = 4;
+
+    /**
+     * Smaller files are not worth the extra connections
+     */
+    public static final long MIN_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+    public static final String PROGRESS_SUFFIX = ".progress";
+
+    private static final int MAX_SEGMENT_ATTEMPTS = 3;
+
+    /**
+     * Progress is saved every time a segment has written this many bytes
+     */
+    private static final long SAVE_INTERVAL = 4 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 30 * 1000;
+
+    /**
+     * A stalled connection fails its segment instead of hanging the whole download
+     */
+    private static final int READ_TIMEOUT_MILLIS = 60 * 1000;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private static final ExecutorService SEGMENT_FETCHERS = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "segment-fetcher-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Get the size of the remote file if the server accepts byte ranges, otherwise -1.
+     */
+    public static long probe(String fileUrl) {
+        HttpURLConnection httpConn = null;
+        try {
+            httpConn = (HttpURLConnection) new URL(fileUrl).openConnection();
+            httpConn.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            httpConn.setReadTimeout(READ_TIMEOUT_MILLIS);
+            httpConn.setRequestMethod("HEAD");
+            if (httpConn.getResponseCode() != HttpURLConnection.HTTP_OK
+                    || !"bytes".equalsIgnoreCase(httpConn.getHeaderField("Accept-Ranges"))) {
+                return -1;
+            }
+
+            return httpConn.getContentLengthLong();
+        } catch (Exception e) {
+            log.warn("Failed to probe [{}]: {}", fileUrl, e.getMessage());
+            return -1;
+        } finally {
+            if (httpConn != null) {
+                httpConn.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Number of segments worth using for a file of the given size, 1 means a single connection.
+     */
+    public static int segments(long length) {
+        if (length <= 0) {
+            return 1;
+        }
+
+        return (int) Math.max(1, Math.min(DEFAULT_SEGMENTS, length / MIN_SEGMENT_SIZE));
+    }
+
+    public static Path progressPath(Path partPath) {
+        return Path.of(partPath + PROGRESS_SUFFIX);
+    }
+
+    /**
+     * Download the file into the part file, resuming from the saved progress if it is for the same length.
+     */
+    public static void download(String fileUrl, Path partPath, long length, int segmentCount) throws IOException {
+        Path progressPath = progressPath(partPath);
+        Progress progress = Progress.load(progressPath, length);
+        if (progress == null || !Files.exists(partPath) || Files.size(partPath) != length) {
+            progress = Progress.create(length, segmentCount);
+            Files.createDirectories(partPath.getParent());
+            try (FileChannel channel = FileChannel.open(
+                    partPath,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                // Preallocate, segments write at their own positions
+                channel.write(ByteBuffer.wrap(new byte[1]), length - 1);
+            }
+        } else {
+            log.info("Resuming [{}] from [{}] of [{}] bytes", fileUrl, progress.written(), length);
+        }
+
+        progress.save(progressPath);
+        try (FileChannel channel = FileChannel.open(partPath, StandardOpenOption.WRITE)) {
+            Cancellation cancellation = new Cancellation();
+            List<Future<?>> fetches = new ArrayList<>();
+            for (Segment segment : progress.segments()) {
+                if (!segment.isDone()) {
+                    Progress current = progress;
+                    fetches.add(SEGMENT_FETCHERS.submit(() -> {
+                        fetch(fileUrl, channel, segment, current, progressPath, cancellation);
+                        return null;
+                    }));
+                }
+            }
+
+            try {
+                for (Future<?> fetch : fetches) {
+                    fetch.get();
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                // The other segments must stop before the channel is closed and the caller retries the same file
+                cancellation.cancel();
+                awaitAll(fetches);
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ioe ? ioe : new IOException(e.getCause());
+        } finally {
+            progress.save(progressPath);
+        }
+
+        Files.deleteIfExists(progressPath);
+    }
+
+    /**
+     * Wait for every fetch to end, whatever its result.
+     */
+    private static void awaitAll(List<Future<?>> fetches) {
+        boolean interrupted = false;
+        for (Future<?> fetch : fetches) {
+            while (true) {
+                try {
+                    fetch.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    break;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void fetch(
+            String fileUrl,
+            FileChannel channel,
+            Segment segment,
+            Progress progress,
+            Path progressPath,
+            Cancellation cancellation)
+            throws IOException {
+        for (int i = 1; ; i++) {
+            try {
+                fetchRange(fileUrl, channel, segment, progress, progressPath, cancellation);
+                return;
+            } catch (IOException e) {
+                if (i == MAX_SEGMENT_ATTEMPTS || cancellation.isCancelled()) {
+                    throw e;
+                }
+
+                log.warn(
+                        "Failed to fetch bytes [{}-{}] of [{}], retrying...: {}",
+                        segment.position(),
+                        segment.end,
+                        fileUrl,
+                        e.getMessage());
+            }
+        }
+    }
+
+    private static void fetchRange(
+            String fileUrl,
+            FileChannel channel,
+            Segment segment,
+            Progress progress,
+            Path progressPath,
+            Cancellation cancellation)
+            throws IOException {
+        HttpURLConnection httpConn = (HttpURLConnection) new URL(fileUrl).openConnection();
+        cancellation.register(httpConn);
+        try {
+            httpConn.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            httpConn.setReadTimeout(READ_TIMEOUT_MILLIS);
+            httpConn.setRequestProperty("Range", "bytes=" + segment.position() + "-" + segment.end);
+            int responseCode = httpConn.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_PARTIAL) {
+                throw new IOException("Range request not served, HTTP code: " + responseCode);
+            }
+
+            long unsaved = 0;
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream is = httpConn.getInputStream()) {
+                int n;
+                while (!segment.isDone()
+                        && !cancellation.isCancelled()
+                        && (n = is.read(buffer, 0, (int) Math.min(buffer.length, segment.remaining()))) != -1) {
+                    ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, n);
+                    long position = segment.position();
+                    while (byteBuffer.hasRemaining()) {
+                        position += channel.write(byteBuffer, position);
+                    }
+
+                    segment.written.addAndGet(n);
+                    unsaved += n;
+                    if (unsaved >= SAVE_INTERVAL) {
+                        progress.save(progressPath);
+                        unsaved = 0;
+                    }
+                }
+            }
+
+            if (!segment.isDone()) {
+                throw new IOException("Connection closed at byte " + segment.position());
+            }
+        } finally {
+            cancellation.unregister(httpConn);
+            httpConn.disconnect();
+        }
+    }
+
+    /**
+     * Stops the segments of a download once one of them failed, by disconnecting their open connections.
+     */
+    private static class Cancellation {
+
+        private final Set<HttpURLConnection> connections = ConcurrentHashMap.newKeySet();
+
+        private volatile boolean cancelled;
+
+        void register(HttpURLConnection httpConn) throws IOException {
+            connections.add(httpConn);
+            if (cancelled) {
+                unregister(httpConn);
+                throw new IOException("Download cancelled");
+            }
+        }
+
+        void unregister(HttpURLConnection httpConn) {
+            connections.remove(httpConn);
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        void cancel() {
+            cancelled = true;
+            for (HttpURLConnection httpConn : connections) {
+                httpConn.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Bytes [start, end] of the file, of which the first written bytes are done.
+     */
+    private record Segment(long start, long end, AtomicLong written) {
+
+        long position() {
+            return start + written.get();
+        }
+
+        long remaining() {
+            return end - position() + 1;
+        }
+
+        boolean isDone() {
+            return remaining() <= 0;
+        }
+    }
+
+    /**
+     * Saved as the file length on the first line, then one "start end written" line per segment.
+     */
+    private record Progress(long length, List<Segment> segments) {
+
+        static Progress create(long length, int segmentCount) {
+            List<Segment> segments = new ArrayList<>();
+            long size = length / segmentCount;
+            for (int i = 0; i < segmentCount; i++) {
+                long start = i * size;
+                long end = i == segmentCount - 1 ? length - 1 : start + size - 1;
+                segments.add(new Segment(start, end, new AtomicLong()));
+            }
+
+            return new Progress(length, segments);
+        }
+
+        static Progress load(Path path, long length) {
+            if (!Files.exists(path)) {
+                return null;
+            }
+
+            try {
+                List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+                if (lines.isEmpty() || Long.parseLong(lines.get(0).trim()) != length) {
+                    return null;
+                }
+
+                List<Segment> segments = new ArrayList<>();
+                for (String line : lines.subList(1, lines.size())) {
+                    String[] parts = line.trim().split(" ");
+                    segments.add(new Segment(
+                            Long.parseLong(parts[0]),
+                            Long.parseLong(parts[1]),
+                            new AtomicLong(Long.parseLong(parts[2]))));
+                }
+
+                return segments.isEmpty() ? null : new Progress(length, segments);
+            } catch (Exception e) {
+                log.warn("Ignoring unreadable download progress [{}]: {}", path, e.getMessage());
+                return null;
+            }
+        }
+
+        long written() {
+            return segments.stream().mapToLong(segment -> segment.written.get()).sum();
+        }
+
+        synchronized void save(Path path) throws IOException {
+            StringBuilder sb = new StringBuilder().append(length).append('\n');
+            for (Segment segment : segments) {
+                sb.append(segment.start)
+                        .append(' ')
+                        .append(segment.end)
+                        .append(' ')
+                        .append(segment.written.get())
+                        .append('\n');
+            }
+
+            Path tmp = Path.of(path + ".tmp");
+            Files.writeString(tmp, sb, StandardCharsets.UTF_8);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
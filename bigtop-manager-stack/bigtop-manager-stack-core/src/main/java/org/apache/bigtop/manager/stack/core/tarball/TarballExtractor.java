@@ -27,54 +27,88 @@ import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.FileOutputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.function.Function;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 public class TarballExtractor {
 
+    /**
+     * Files up to this size are read into memory and written by the writer pool
+     */
+    private static final int MAX_BUFFERED_FILE_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Upper bound of file content held in memory while waiting for the writers
+     */
+    private static final int MAX_BUFFERED_BYTES = 64 * 1024 * 1024;
+
+    private static final AtomicInteger WRITER_COUNT = new AtomicInteger();
+
+    private static final ExecutorService WRITERS = Executors.newFixedThreadPool(
+            Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors())), r -> {
+                Thread thread = new Thread(r, "tarball-writer-" + WRITER_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
     public static void extractTarball(String source, String dest) {
         extractTarball(source, dest, 0);
     }
 
     public static void extractTarball(String source, String dest, int skipLevels) {
         Path sourcePath = Paths.get(source);
-        Path destPath = Paths.get(dest);
 
         if (!Files.exists(sourcePath) || !Files.isRegularFile(sourcePath)) {
             log.error("Source file does not exist or is not a file: {}", source);
             throw new IllegalArgumentException("Source file does not exist or is not a file: " + source);
         }
 
-        if (!Files.exists(destPath)) {
-            try {
-                Files.createDirectories(destPath);
-            } catch (IOException e) {
-                log.error("Failed to create destination directory: {}", dest, e);
-                throw new StackException(e);
-            }
+        try (InputStream fis = Files.newInputStream(sourcePath)) {
+            extractTarball(fis, sourcePath.getFileName().toString(), dest, skipLevels);
+        } catch (IOException e) {
+            log.error("Error reading file: {}", source, e);
+            throw new StackException(e);
         }
+    }
 
-        Function<TarArchiveInputStream, Boolean> func = ais -> extract(ais, destPath, skipLevels);
+    /**
+     * Extract a tarball from a stream, e.g. while it's being downloaded, the file name tells the compression.
+     */
+    public static void extractTarball(InputStream inputStream, String fileName, String dest, int skipLevels) {
+        Path destPath = Paths.get(dest);
+        createDirectories(destPath);
 
-        String sourceFileName = sourcePath.getFileName().toString();
-        if (isTar(sourceFileName)) {
-            extractTar(sourcePath, func);
-        } else if (isTarGz(source)) {
-            extractTarGz(sourcePath, func);
-        } else if (isTarXz(source)) {
-            extractTarXz(sourcePath, func);
+        if (isTar(fileName)) {
+            extractTar(inputStream, destPath, skipLevels);
+        } else if (isTarGz(fileName)) {
+            extractTarGz(inputStream, destPath, skipLevels);
+        } else if (isTarXz(fileName)) {
+            extractTarXz(inputStream, destPath, skipLevels);
         } else {
-            log.error("Unsupported file type: {}", source);
+            log.error("Unsupported file type: {}", fileName);
         }
     }
 
-    private static boolean extract(TarArchiveInputStream ais, Path destDir, int skipLevels) {
+    private static void extract(TarArchiveInputStream ais, Path destDir, int skipLevels) {
+        Semaphore buffered = new Semaphore(MAX_BUFFERED_BYTES);
+        List<Future<?>> writes = new ArrayList<>();
+        Set<Path> written = new HashSet<>();
         try {
             TarArchiveEntry entry;
             while ((entry = ais.getNextEntry()) != null) {
@@ -92,17 +126,71 @@ public class TarballExtractor {
 
                 if (entry.isDirectory()) {
                     createDirectories(outputPath);
-                } else if (entry.isSymbolicLink()) {
-                    createSymbolicLink(outputPath, entry.getLinkName());
+                    continue;
+                }
+
+                if (!written.add(outputPath)) {
+                    // Later entries of the same path win, wait for the pending write before overriding it
+                    await(writes);
+                }
+
+                if (entry.isSymbolicLink()) {
+                    createSymbolicLink(destDir, outputPath, entry.getLinkName());
+                } else if (entry.getSize() <= MAX_BUFFERED_FILE_SIZE) {
+                    int size = (int) entry.getSize();
+                    buffered.acquire(size);
+                    byte[] content = ais.readNBytes(size);
+                    writes.add(WRITERS.submit(() -> {
+                        try {
+                            createFile(outputPath, content);
+                        } finally {
+                            buffered.release(size);
+                        }
+                    }));
                 } else {
                     createFile(outputPath, ais);
                 }
             }
+
+            await(writes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(writes);
+            throw new StackException(e);
         } catch (Exception e) {
             log.error("Error extracting archive", e);
-            throw new StackException(e);
+            cancel(writes);
+            throw e instanceof StackException se ? se : new StackException(e);
+        }
+    }
+
+    /**
+     * Stop the pending writes and wait for the running ones, so nothing writes to the destination afterward.
+     */
+    private static void cancel(List<Future<?>> writes) {
+        for (Future<?> write : writes) {
+            write.cancel(false);
+        }
+
+        for (Future<?> write : writes) {
+            try {
+                write.get();
+            } catch (Exception ignored) {
+                // Already failed or cancelled
+            }
         }
-        return true;
+    }
+
+    private static void await(List<Future<?>> writes) throws InterruptedException {
+        try {
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof StackException se ? se : new StackException(e.getCause());
+        }
+
+        writes.clear();
     }
 
     private static void createDirectories(Path path) {
@@ -116,10 +204,18 @@ public class TarballExtractor {
         }
     }
 
-    private static void createSymbolicLink(Path linkPath, String targetName) {
-        Path targetPath = linkPath.getParent().resolve(targetName).normalize();
+    /**
+     * Links are created with the target as it is in the archive, relative targets keep working once
+     * the extracted dir is moved, but must not point outside the dir.
+     */
+    private static void createSymbolicLink(Path destDir, Path linkPath, String targetName) {
+        Path targetPath = Paths.get(targetName);
         if (!targetPath.isAbsolute()) {
-            targetPath = linkPath.getParent().resolve(targetPath).normalize();
+            Path resolvedPath = linkPath.getParent().resolve(targetPath).normalize();
+            if (!resolvedPath.startsWith(destDir.normalize())) {
+                log.error("Symbolic link {} points outside of {}: {}", linkPath, destDir, targetName);
+                throw new StackException("Symbolic link " + linkPath + " points outside of " + destDir);
+            }
         }
 
         createDirectories(linkPath.getParent());
@@ -132,49 +228,61 @@ public class TarballExtractor {
         }
     }
 
+    private static void createFile(Path filePath, byte[] content) {
+        createDirectories(filePath.getParent());
+
+        try {
+            Files.write(filePath, content);
+        } catch (IOException e) {
+            log.error("Failed to create file: {}", filePath, e);
+            throw new StackException(e);
+        }
+    }
+
     private static void createFile(Path filePath, InputStream inputStream) {
         createDirectories(filePath.getParent());
 
-        try (FileOutputStream fos = new FileOutputStream(filePath.toFile())) {
-            inputStream.transferTo(fos);
+        try (OutputStream os = Files.newOutputStream(filePath)) {
+            inputStream.transferTo(os);
         } catch (IOException e) {
             log.error("Failed to create file: {}", filePath, e);
             throw new StackException(e);
         }
     }
 
-    private static void extractTar(Path tarball, Function<TarArchiveInputStream, Boolean> func) {
-        try (InputStream fis = Files.newInputStream(tarball);
-                TarArchiveInputStream tis = new TarArchiveInputStream(fis)) {
-            func.apply(tis);
-        } catch (Exception e) {
+    private static void extractTar(InputStream is, Path destDir, int skipLevels) {
+        try (TarArchiveInputStream tis = new TarArchiveInputStream(buffered(is))) {
+            extract(tis, destDir, skipLevels);
+        } catch (IOException e) {
             log.error("Error processing tar file", e);
             throw new StackException(e);
         }
     }
 
-    private static void extractTarGz(Path tarball, Function<TarArchiveInputStream, Boolean> func) {
-        try (InputStream fis = Files.newInputStream(tarball);
-                GzipCompressorInputStream gis = new GzipCompressorInputStream(fis);
+    private static void extractTarGz(InputStream is, Path destDir, int skipLevels) {
+        try (GzipCompressorInputStream gis = new GzipCompressorInputStream(buffered(is));
                 TarArchiveInputStream tis = new TarArchiveInputStream(gis)) {
-            func.apply(tis);
-        } catch (Exception e) {
+            extract(tis, destDir, skipLevels);
+        } catch (IOException e) {
             log.error("Error processing tar.gz file", e);
             throw new StackException(e);
         }
     }
 
-    private static void extractTarXz(Path tarball, Function<TarArchiveInputStream, Boolean> func) {
-        try (InputStream fis = Files.newInputStream(tarball);
-                XZCompressorInputStream xzis = new XZCompressorInputStream(fis);
+    private static void extractTarXz(InputStream is, Path destDir, int skipLevels) {
+        try (XZCompressorInputStream xzis = new XZCompressorInputStream(buffered(is));
                 TarArchiveInputStream tis = new TarArchiveInputStream(xzis)) {
-            func.apply(tis);
-        } catch (Exception e) {
+            extract(tis, destDir, skipLevels);
+        } catch (IOException e) {
             log.error("Error processing tar.xz file", e);
             throw new StackException(e);
         }
     }
 
+    private static InputStream buffered(InputStream is) {
+        return new BufferedInputStream(is, ChecksumValidator.BUFFER_SIZE);
+    }
+
     private static boolean isTar(String filePath) {
         return filePath.endsWith(".tar");
     }
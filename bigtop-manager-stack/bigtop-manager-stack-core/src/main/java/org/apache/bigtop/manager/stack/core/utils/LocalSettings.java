@@ -19,17 +19,17 @@
 package org.apache.bigtop.manager.stack.core.utils;
 
 import org.apache.bigtop.manager.common.constants.CacheFiles;
-import org.apache.bigtop.manager.common.utils.JsonUtils;
+import org.apache.bigtop.manager.common.utils.NetUtils;
 import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
 import org.apache.bigtop.manager.common.utils.os.OSDetection;
 import org.apache.bigtop.manager.grpc.pojo.ClusterInfo;
 import org.apache.bigtop.manager.grpc.pojo.RepoInfo;
 import org.apache.bigtop.manager.stack.core.exception.StackException;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,14 +46,10 @@ public class LocalSettings {
         Map<String, Object> configDataMap = new HashMap<>();
         File file = createFile(ProjectPathUtils.getAgentCachePath() + CacheFiles.CONFIGURATIONS_INFO);
         try {
-            if (file.exists()) {
-                Map<String, Map<String, Object>> configJson = JsonUtils.readFromFile(file, new TypeReference<>() {});
-                Object configData =
-                        configJson.getOrDefault(service, new HashMap<>()).get(type);
-                if (configData != null) {
-                    configDataMap = JsonUtils.readFromString(configData.toString(), new TypeReference<>() {});
-                }
-            }
+            // Params classes enrich the returned map in place, so hand out a copy of the shared one
+            configDataMap.putAll(LocalSettingsCache.configurations(file)
+                    .getOrDefault(service, Map.of())
+                    .getOrDefault(type, Map.of()));
         } catch (Exception e) {
             log.warn("{} parse error", CacheFiles.CONFIGURATIONS_INFO, e);
         }
@@ -62,34 +58,35 @@ public class LocalSettings {
     }
 
     public static List<String> hosts(String componentName) {
-        return hosts().getOrDefault(componentName, List.of());
+        File file = createFile(ProjectPathUtils.getAgentCachePath() + CacheFiles.HOSTS_INFO);
+        // Setup classes sort the returned list in place, so hand out a copy of the shared one
+        return new ArrayList<>(LocalSettingsCache.hosts(file).getOrDefault(componentName, List.of()));
     }
 
     public static Map<String, List<String>> hosts() {
-        Map<String, List<String>> hostJson = new HashMap<>();
         File file = createFile(ProjectPathUtils.getAgentCachePath() + CacheFiles.HOSTS_INFO);
-        if (file.exists()) {
-            hostJson = JsonUtils.readFromFile(file, new TypeReference<>() {});
-        }
-        return hostJson;
+        Map<String, List<String>> hosts = new HashMap<>();
+        LocalSettingsCache.hosts(file)
+                .forEach((component, hostList) -> hosts.put(component, new ArrayList<>(hostList)));
+        return hosts;
     }
 
     public static Map<String, Object> basicInfo() {
-        Map<String, Object> settings = new HashMap<>();
         File file = createFile(ProjectPathUtils.getAgentCachePath() + CacheFiles.SETTINGS_INFO);
-        if (file.exists()) {
-            settings = JsonUtils.readFromFile(file, new TypeReference<>() {});
-        }
-        return settings;
+        return new HashMap<>(LocalSettingsCache.basicInfo(file));
     }
 
     public static Map<String, String> users() {
-        Map<String, String> userMap = new HashMap<>();
         File file = createFile(ProjectPathUtils.getAgentCachePath() + CacheFiles.USERS_INFO);
-        if (file.exists()) {
-            userMap = JsonUtils.readFromFile(file, new TypeReference<>() {});
-        }
-        return userMap;
+        return LocalSettingsCache.users(file);
+    }
+
+    /**
+     * @return "hostname:grpcPort" of the peers this host fetches packages from, nearest first
+     */
+    public static List<String> packagePeers() {
+        File file = createFile(ProjectPathUtils.getAgentCachePath() + CacheFiles.PACKAGE_PEERS_INFO);
+        return LocalSettingsCache.packagePeers(file).getOrDefault(NetUtils.getHostname(), List.of());
     }
 
     public static List<String> packages() {
@@ -109,21 +106,41 @@ public class LocalSettings {
     }
 
     public static List<RepoInfo> repos() {
-        List<RepoInfo> repoInfoList = List.of();
         File file = createFile(ProjectPathUtils.getAgentCachePath() + CacheFiles.REPOS_INFO);
-        if (file.exists()) {
-            repoInfoList = JsonUtils.readFromFile(file, new TypeReference<>() {});
-        }
-        return repoInfoList;
+        return LocalSettingsCache.repos(file);
     }
 
     public static ClusterInfo cluster() {
-        ClusterInfo clusterInfo = new ClusterInfo();
         File file = createFile(ProjectPathUtils.getAgentCachePath() + CacheFiles.CLUSTER_INFO);
-        if (file.exists()) {
-            clusterInfo = JsonUtils.readFromFile(file, new TypeReference<>() {});
+        return LocalSettingsCache.cluster(file);
+    }
+
+    /**
+     * Drop all parsed cache files, the next call of each method reads its file again.
+     * The agent calls this after rewriting the cache files, in case a rewrite keeps both mtime and size.
+     */
+    public static void invalidate() {
+        LocalSettingsCache.clear();
+    }
+
+    /**
+     * A value that changes whenever a cache file is rewritten or the cache is invalidated,
+     * for callers that keep objects built from these settings.
+     */
+    public static long stamp() {
+        long stamp = LocalSettingsCache.generation();
+        for (String fileName : List.of(
+                CacheFiles.CONFIGURATIONS_INFO,
+                CacheFiles.HOSTS_INFO,
+                CacheFiles.SETTINGS_INFO,
+                CacheFiles.USERS_INFO,
+                CacheFiles.PACKAGE_PEERS_INFO,
+                CacheFiles.REPOS_INFO,
+                CacheFiles.CLUSTER_INFO)) {
+            File file = createFile(ProjectPathUtils.getAgentCachePath() + fileName);
+            stamp = 31 * (31 * stamp + file.lastModified()) + file.length();
         }
-        return clusterInfo;
+        return stamp;
     }
 
     protected static File createFile(String fileName) {
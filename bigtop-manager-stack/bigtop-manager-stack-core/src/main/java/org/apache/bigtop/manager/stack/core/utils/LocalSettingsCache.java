@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.core.utils;
+
+import org.apache.bigtop.manager.common.constants.CacheFiles;
+import org.apache.bigtop.manager.common.utils.JsonUtils;
+import org.apache.bigtop.manager.grpc.pojo.ClusterInfo;
+import org.apache.bigtop.manager.grpc.pojo.RepoInfo;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Parsed agent cache files shared by all {@link LocalSettings} callers.
+ * An entry is reused until the file's mtime or size changes, values are read-only.
+ */
+@Slf4j
+class LocalSettingsCache {
+
+    private static final Map<String, CachedFile> CACHE = new ConcurrentHashMap<>();
+
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    /**
+     * @return service name -> config type -> properties
+     */
+    static Map<String, Map<String, Map<String, Object>>> configurations(File file) {
+        return load(file, LocalSettingsCache::indexConfigurations, Map.of());
+    }
+
+    static Map<String, List<String>> hosts(File file) {
+        return load(file, LocalSettingsCache::readListMap, Map.of());
+    }
+
+    static Map<String, List<String>> packagePeers(File file) {
+        return load(file, LocalSettingsCache::readListMap, Map.of());
+    }
+
+    static Map<String, Object> basicInfo(File file) {
+        return load(
+                file,
+                f -> Collections.unmodifiableMap(
+                        JsonUtils.readFromFile(f, new TypeReference<Map<String, Object>>() {})),
+                Map.of());
+    }
+
+    static Map<String, String> users(File file) {
+        return load(
+                file,
+                f -> Collections.unmodifiableMap(
+                        JsonUtils.readFromFile(f, new TypeReference<Map<String, String>>() {})),
+                Map.of());
+    }
+
+    static List<RepoInfo> repos(File file) {
+        return load(
+                file,
+                f -> Collections.unmodifiableList(JsonUtils.readFromFile(f, new TypeReference<List<RepoInfo>>() {})),
+                List.of());
+    }
+
+    static ClusterInfo cluster(File file) {
+        return load(file, f -> JsonUtils.readFromFile(f, new TypeReference<ClusterInfo>() {}), new ClusterInfo());
+    }
+
+    static void clear() {
+        CACHE.clear();
+        GENERATION.incrementAndGet();
+    }
+
+    /**
+     * @return a counter bumped by every {@link #clear()}
+     */
+    static long generation() {
+        return GENERATION.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T load(File file, Function<File, T> parser, T defaultValue) {
+        if (!file.exists()) {
+            return defaultValue;
+        }
+
+        String path = file.getPath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        if (path == null || lastModified == 0L) {
+            // Modification time unknown, nothing to validate a cached value against
+            return parser.apply(file);
+        }
+
+        CachedFile cached = CACHE.get(path);
+        if (cached != null && cached.lastModified() == lastModified && cached.length() == length) {
+            return (T) cached.value();
+        }
+
+        T value = parser.apply(file);
+        CACHE.put(path, new CachedFile(lastModified, length, value));
+        return value;
+    }
+
+    private static Map<String, List<String>> readListMap(File file) {
+        Map<String, List<String>> json = JsonUtils.readFromFile(file, new TypeReference<>() {});
+        Map<String, List<String>> map = new HashMap<>();
+        json.forEach((k, v) -> map.put(k, Collections.unmodifiableList(v)));
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static Map<String, Map<String, Map<String, Object>>> indexConfigurations(File file) {
+        Map<String, Map<String, Object>> configJson;
+        try {
+            configJson = JsonUtils.readFromFile(file, new TypeReference<>() {});
+        } catch (Exception e) {
+            log.warn("{} parse error", CacheFiles.CONFIGURATIONS_INFO, e);
+            return Map.of();
+        }
+
+        Map<String, Map<String, Map<String, Object>>> index = new HashMap<>();
+        configJson.forEach((service, types) -> {
+            Map<String, Map<String, Object>> typeIndex = new HashMap<>();
+            types.forEach((type, configData) -> {
+                if (configData == null) {
+                    return;
+                }
+
+                try {
+                    Map<String, Object> configDataMap =
+                            JsonUtils.readFromString(configData.toString(), new TypeReference<>() {});
+                    typeIndex.put(type, Collections.unmodifiableMap(configDataMap));
+                } catch (Exception e) {
+                    log.warn("{} parse error, service: {}, type: {}", CacheFiles.CONFIGURATIONS_INFO, service, type, e);
+                }
+            });
+            index.put(service, Collections.unmodifiableMap(typeIndex));
+        });
+        return Collections.unmodifiableMap(index);
+    }
+
+    private record CachedFile(long lastModified, long length, Object value) {}
+}
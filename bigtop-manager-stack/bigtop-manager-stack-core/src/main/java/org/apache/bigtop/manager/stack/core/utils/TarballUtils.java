@@ -19,31 +19,75 @@
 package org.apache.bigtop.manager.stack.core.utils;
 
 import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
-import org.apache.bigtop.manager.stack.core.tarball.FileDownloader;
+import org.apache.bigtop.manager.stack.core.exception.StackException;
+import org.apache.bigtop.manager.stack.core.tarball.PackageCache;
 import org.apache.bigtop.manager.stack.core.tarball.TarballExtractor;
 
+import org.apache.commons.io.FileUtils;
+
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 @Slf4j
 public class TarballUtils {
 
-    public static void installPackage(
-            String repoUrl, String stackHome, String serviceHome, PackageInfo packageInfo, Integer skipLevels) {
+    private static final String STAGING_SUFFIX = ".staging";
+
+    /**
+     * Download the package to the package cache if needed and extract it to the service home.
+     * <p>
+     * The content is extracted while it's being downloaded and checksummed, into a staging dir next to
+     * the service home which is renamed when the checksum matches, so a failed install leaves no service home.
+     */
+    public static void installPackage(String repoUrl, String serviceHome, PackageInfo packageInfo, Integer skipLevels) {
         if (Files.exists(Path.of(serviceHome))) {
             log.info("Service home [{}] exists, skip downloading...", serviceHome);
             return;
         }
 
-        String remoteUrl = repoUrl + File.separator + packageInfo.getName();
-        File localFile = new File(stackHome + File.separator + packageInfo.getName());
-        FileDownloader.download(remoteUrl, stackHome, packageInfo);
+        Path servicePath = Path.of(serviceHome).toAbsolutePath();
+        Path stagingPath = servicePath.resolveSibling(servicePath.getFileName() + STAGING_SUFFIX);
+
+        log.info("Extracting [{}] to [{}]", packageInfo.getName(), serviceHome);
+        try {
+            PackageCache.fetch(repoUrl, packageInfo, is -> {
+                // Called again on every retry, start from an empty dir each time
+                deleteDirectory(stagingPath);
+                TarballExtractor.extractTarball(is, packageInfo.getName(), stagingPath.toString(), skipLevels);
+            });
 
-        log.info("Extracting [{}] to [{}]", localFile.getAbsolutePath(), serviceHome);
-        TarballExtractor.extractTarball(localFile.getAbsolutePath(), serviceHome, skipLevels);
-        log.info("File [{}] successfully extracted to [{}]", localFile.getAbsolutePath(), serviceHome);
+            move(stagingPath, servicePath);
+        } finally {
+            deleteDirectory(stagingPath);
+        }
+
+        log.info("File [{}] successfully extracted to [{}]", packageInfo.getName(), serviceHome);
+    }
+
+    private static void move(Path source, Path target) {
+        try {
+            try {
+                Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(source, target);
+            }
+        } catch (IOException e) {
+            log.error("Failed to move [{}] to [{}]", source, target, e);
+            throw new StackException(e);
+        }
+    }
+
+    private static void deleteDirectory(Path path) {
+        try {
+            FileUtils.deleteDirectory(path.toFile());
+        } catch (IOException e) {
+            log.error("Failed to delete directory: {}", path, e);
+            throw new StackException(e);
+        }
     }
 }
@@ -20,6 +20,7 @@ package org.apache.bigtop.manager.stack.core.utils.linux;
 
 import org.apache.bigtop.manager.common.constants.Constants;
 import org.apache.bigtop.manager.common.constants.MessageConstants;
+import org.apache.bigtop.manager.common.shell.OutputCapture;
 import org.apache.bigtop.manager.common.shell.ShellExecutor;
 import org.apache.bigtop.manager.common.shell.ShellResult;
 import org.apache.bigtop.manager.common.utils.JsonUtils;
@@ -33,14 +34,26 @@ import org.apache.commons.lang3.StringUtils;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.GroupPrincipal;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.nio.file.attribute.UserPrincipalLookupService;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Only support Linux
@@ -94,9 +107,7 @@ public class LinuxFileUtils {
                 break;
         }
 
-        moveFile(tmpPath, filename);
-        updateOwner(filename, owner, group, false);
-        updatePermissions(filename, permissions, false);
+        installFile(tmpPath, filename, owner, group, permissions);
     }
 
     public static void toFileByTemplate(
@@ -132,9 +143,7 @@ public class LinuxFileUtils {
         String tmpPath = "/tmp/" + generateRandomFileName();
         TemplateUtils.map2CustomTemplate(template, tmpPath, modelMap, paramMap);
 
-        moveFile(tmpPath, filename);
-        updateOwner(filename, owner, group, false);
-        updatePermissions(filename, permissions, false);
+        installFile(tmpPath, filename, owner, group, permissions);
     }
 
     public static String generateRandomFileName() {
@@ -170,19 +179,35 @@ public class LinuxFileUtils {
             return;
         }
 
-        List<String> builderParameters = new ArrayList<>();
-        builderParameters.add("mkdir");
-        builderParameters.add("-p");
-        builderParameters.add(dirPath);
+        if (!isRoot() && !recursive) {
+            // One privileged call instead of mkdir, chown and chmod
+            List<String> builderParameters = new ArrayList<>();
+            builderParameters.add("install");
+            builderParameters.add("-d");
+            builderParameters.add("-o");
+            builderParameters.add(StringUtils.defaultIfBlank(owner, "root"));
+            builderParameters.add("-g");
+            builderParameters.add(StringUtils.defaultIfBlank(group, "root"));
+            builderParameters.add("-m");
+            builderParameters.add(StringUtils.defaultIfBlank(permissions, Constants.PERMISSION_644));
+            builderParameters.add(dirPath);
+            execOrThrow(builderParameters, "Failed to create directory");
+            return;
+        }
 
-        try {
-            ShellResult shellResult = sudoExecCmd(builderParameters);
-            if (shellResult.getExitCode() != MessageConstants.SUCCESS_CODE) {
-                log.error(shellResult.formatMessage("Failed to create directory"));
-                throw new StackException(shellResult.getErrMsg());
+        if (isRoot()) {
+            try {
+                Files.createDirectories(path);
+            } catch (IOException e) {
+                log.error("Failed to create directory: [{}]", dirPath, e);
+                throw new StackException(e);
             }
-        } catch (IOException e) {
-            throw new StackException(e);
+        } else {
+            List<String> builderParameters = new ArrayList<>();
+            builderParameters.add("mkdir");
+            builderParameters.add("-p");
+            builderParameters.add(dirPath);
+            execOrThrow(builderParameters, "Failed to create directory");
         }
 
         updateOwner(dirPath, owner, group, recursive);
@@ -267,7 +292,7 @@ public class LinuxFileUtils {
         builderParameters.add(source);
 
         try {
-            ShellResult shellResult = sudoExecCmd(builderParameters);
+            ShellResult shellResult = sudoExecCmd(builderParameters, OutputCapture.FULL);
             if (shellResult.getExitCode() != MessageConstants.SUCCESS_CODE) {
                 throw new StackException(shellResult.getErrMsg());
             }
@@ -290,7 +315,7 @@ public class LinuxFileUtils {
         builderParameters.add(source);
 
         try {
-            ShellResult shellResult = sudoExecCmd(builderParameters);
+            ShellResult shellResult = sudoExecCmd(builderParameters, OutputCapture.FULL);
             if (shellResult.getExitCode() != MessageConstants.SUCCESS_CODE) {
                 throw new StackException(shellResult.getErrMsg());
             }
@@ -352,6 +377,21 @@ public class LinuxFileUtils {
 
         permissions = StringUtils.isBlank(permissions) ? Constants.PERMISSION_644 : permissions;
 
+        Set<PosixFilePermission> posixPermissions = toPosixPermissions(permissions);
+        if (posixPermissions != null) {
+            try {
+                walk(Paths.get(dir), recursive, (path, root) -> {
+                    // Like chmod -R, links met during the walk are skipped, their mode is meaningless
+                    if (root || !Files.isSymbolicLink(path)) {
+                        Files.setPosixFilePermissions(path, posixPermissions);
+                    }
+                });
+                return;
+            } catch (IOException e) {
+                log.debug("Unable to change permissions of [{}] in process, using chmod: {}", dir, e.getMessage());
+            }
+        }
+
         List<String> builderParameters = new ArrayList<>();
         builderParameters.add("chmod");
         if (recursive && Files.isDirectory(Paths.get(dir))) {
@@ -387,6 +427,22 @@ public class LinuxFileUtils {
         owner = StringUtils.isBlank(owner) ? "root" : owner;
         group = StringUtils.isBlank(group) ? "root" : group;
 
+        try {
+            UserPrincipalLookupService lookupService = FileSystems.getDefault().getUserPrincipalLookupService();
+            UserPrincipal userPrincipal = lookupService.lookupPrincipalByName(owner);
+            GroupPrincipal groupPrincipal = lookupService.lookupPrincipalByGroupName(group);
+            walk(Paths.get(dir), recursive, (path, root) -> {
+                // Like chown -R, links met during the walk are changed themselves, not their targets
+                LinkOption[] options = root ? new LinkOption[0] : new LinkOption[] {LinkOption.NOFOLLOW_LINKS};
+                PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class, options);
+                view.setOwner(userPrincipal);
+                view.setGroup(groupPrincipal);
+            });
+            return;
+        } catch (IOException e) {
+            log.debug("Unable to change owner of [{}] in process, using chown: {}", dir, e.getMessage());
+        }
+
         List<String> builderParameters = new ArrayList<>();
 
         builderParameters.add("chown");
@@ -406,15 +462,124 @@ public class LinuxFileUtils {
         }
     }
 
+    /**
+     * Move a generated file to its destination with the given owner and permissions.
+     * As root this is done in process, otherwise with a single privileged {@code install} call.
+     */
+    private static void installFile(String source, String dest, String owner, String group, String permissions) {
+        if (isRoot()) {
+            try {
+                Files.move(Paths.get(source), Paths.get(dest), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new StackException(e);
+            }
+
+            updateOwner(dest, owner, group, false);
+            updatePermissions(dest, permissions, false);
+            return;
+        }
+
+        List<String> builderParameters = new ArrayList<>();
+        builderParameters.add("install");
+        builderParameters.add("-o");
+        builderParameters.add(StringUtils.defaultIfBlank(owner, "root"));
+        builderParameters.add("-g");
+        builderParameters.add(StringUtils.defaultIfBlank(group, "root"));
+        builderParameters.add("-m");
+        builderParameters.add(StringUtils.defaultIfBlank(permissions, Constants.PERMISSION_644));
+        builderParameters.add(source);
+        builderParameters.add(dest);
+        execOrThrow(builderParameters, "Failed to install file");
+
+        try {
+            Files.deleteIfExists(Paths.get(source));
+        } catch (IOException e) {
+            log.warn("Failed to remove temporary file: [{}]", source, e);
+        }
+    }
+
+    /**
+     * Apply the action to the path, and with recursive to everything below it in parallel.
+     */
+    private static void walk(Path path, boolean recursive, PathAction action) throws IOException {
+        action.apply(path, true);
+        if (!recursive || !Files.isDirectory(path)) {
+            return;
+        }
+
+        try (Stream<Path> paths = Files.walk(path)) {
+            paths.filter(p -> !p.equals(path)).parallel().forEach(p -> {
+                try {
+                    action.apply(p, false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @param permissions octal {@code 755} or {@code rwxr-xr-x}
+     * @return null if the permissions can only be applied by chmod, e.g. symbolic modes or setuid bits
+     */
+    private static Set<PosixFilePermission> toPosixPermissions(String permissions) {
+        if (permissions.matches("0?[0-7]{3}")) {
+            String octal = permissions.substring(permissions.length() - 3);
+            StringBuilder sb = new StringBuilder();
+            for (char c : octal.toCharArray()) {
+                int bits = c - '0';
+                sb.append((bits & 4) != 0 ? 'r' : '-');
+                sb.append((bits & 2) != 0 ? 'w' : '-');
+                sb.append((bits & 1) != 0 ? 'x' : '-');
+            }
+            return PosixFilePermissions.fromString(sb.toString());
+        }
+
+        if (permissions.matches("[r-][w-][x-][r-][w-][x-][r-][w-][x-]")) {
+            return PosixFilePermissions.fromString(permissions);
+        }
+
+        return null;
+    }
+
+    private static void execOrThrow(List<String> params, String errorMessage) {
+        try {
+            ShellResult shellResult = sudoExecCmd(params);
+            if (shellResult.getExitCode() != MessageConstants.SUCCESS_CODE) {
+                log.error(shellResult.formatMessage(errorMessage));
+                throw new StackException(shellResult.getErrMsg());
+            }
+        } catch (IOException e) {
+            throw new StackException(e);
+        }
+    }
+
+    static boolean isRoot() {
+        return "root".equals(System.getProperty("user.name"));
+    }
+
     private static ShellResult sudoExecCmd(List<String> params) throws IOException {
-        if ("root".equals(System.getProperty("user.name"))) {
-            return ShellExecutor.execCommand(params);
+        // Only the error message of these commands is of interest
+        return sudoExecCmd(params, OutputCapture.TAIL);
+    }
+
+    private static ShellResult sudoExecCmd(List<String> params, OutputCapture outputCapture) throws IOException {
+        if (isRoot()) {
+            return ShellExecutor.execCommand(params, outputCapture);
         } else {
             List<String> sudoParams = new ArrayList<>();
             sudoParams.add("sudo");
             sudoParams.addAll(params);
 
-            return ShellExecutor.execCommand(sudoParams);
+            return ShellExecutor.execCommand(sudoParams, outputCapture);
         }
     }
+
+    @FunctionalInterface
+    private interface PathAction {
+
+        void apply(Path path, boolean root) throws IOException;
+    }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.bigtop.manager.stack.core.utils.linux;
 
+import org.apache.bigtop.manager.common.constants.MessageConstants;
 import org.apache.bigtop.manager.common.shell.ShellExecutor;
 import org.apache.bigtop.manager.common.shell.ShellResult;
 
@@ -29,9 +30,13 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.apache.bigtop.manager.common.constants.Constants.ROOT_USER;
 
@@ -39,6 +44,11 @@ import static org.apache.bigtop.manager.common.constants.Constants.ROOT_USER;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class LinuxOSUtils {
 
+    /**
+     * Pids read from pid files, reused until the file's mtime or size changes
+     */
+    private static final Map<String, PidFile> PID_FILES = new ConcurrentHashMap<>();
+
     /**
      * Execute command with root user
      *
@@ -113,18 +123,43 @@ public class LinuxOSUtils {
             log.warn("Pid file {} is empty or does not exist", filepath);
             return new ShellResult(-1, "", "Component is not running");
         }
-        int pid;
+        long pid;
         try {
-            pid = Integer.parseInt(LinuxFileUtils.readFile(filepath).replaceAll("\r|\n", ""));
+            pid = readPid(file);
         } catch (Exception e) {
             log.warn("Pid file {} does not exist or does not contain a process id number, error", filepath, e);
             return new ShellResult(-1, "", "Component is not running");
         }
+
+        // Answers like kill -0 by looking at /proc, without forking sudo for every status check
+        if (ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
+            return new ShellResult(MessageConstants.SUCCESS_CODE, "", "");
+        }
+
+        log.debug("Process with pid {} is not running. Stale pid file at {}", pid, filepath);
+        return new ShellResult(-1, "", "Component is not running");
+    }
+
+    private static long readPid(File file) throws IOException {
+        String path = file.getPath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        PidFile cached = PID_FILES.get(path);
+        if (cached != null && cached.lastModified() == lastModified && cached.length() == length) {
+            return cached.pid();
+        }
+
+        String content;
         try {
-            return execCmd("sudo kill -0 " + pid);
-        } catch (IOException e) {
-            log.warn("Process with pid {} is not running. Stale pid file at {}, error", pid, filepath, e);
-            return new ShellResult(-1, "", "Component is not running");
+            content = Files.readString(file.toPath());
+        } catch (AccessDeniedException e) {
+            content = LinuxFileUtils.readFile(path);
         }
+
+        long pid = Long.parseLong(content.replaceAll("\r|\n", ""));
+        PID_FILES.put(path, new PidFile(lastModified, length, pid));
+        return pid;
     }
+
+    private record PidFile(long lastModified, long length, long pid) {}
 }
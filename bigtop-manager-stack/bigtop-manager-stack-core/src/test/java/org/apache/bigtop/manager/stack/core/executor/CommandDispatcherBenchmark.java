@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.core.executor;
+
+import org.apache.bigtop.manager.common.shell.ShellResult;
+import org.apache.bigtop.manager.common.utils.CaseUtils;
+import org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload;
+import org.apache.bigtop.manager.stack.core.annotations.GlobalParams;
+import org.apache.bigtop.manager.stack.core.spi.param.BaseParams;
+import org.apache.bigtop.manager.stack.core.spi.param.Params;
+import org.apache.bigtop.manager.stack.core.spi.script.AbstractServerScript;
+import org.apache.bigtop.manager.stack.core.spi.script.Script;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the dispatch cost of one command: building the params with their global params and invoking the script.
+ * {@link #reflection()} is the lookup StackExecutor used to do on every call, {@link #dispatchTable()} goes through
+ * {@link CommandDispatcher}. The script and params do no work, so only the dispatch overhead is left.
+ * <p>
+ * Run {@link #main(String[])} from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandDispatcherBenchmark {
+
+    private static final String COMMAND = "rebalance_data";
+
+    private Script script;
+
+    private Params prototype;
+
+    private CommandDispatcher dispatcher;
+
+    private ComponentCommandPayload payload;
+
+    @Setup
+    public void setUp() {
+        script = new BenchmarkScript();
+        prototype = new BenchmarkParams(null);
+        dispatcher = new CommandDispatcher(Map.of("benchmark_component", script), Map.of("benchmark", prototype));
+
+        payload = new ComponentCommandPayload();
+        payload.setServiceName("benchmark");
+        payload.setComponentName("benchmark_component");
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public ShellResult reflection() throws Exception {
+        String methodName = CaseUtils.toCamelCase(COMMAND, CaseUtils.SEPARATOR_UNDERSCORE, false);
+        Method method = script.getClass().getMethod(methodName, Params.class);
+
+        BenchmarkParams params = (BenchmarkParams) prototype
+                .getClass()
+                .getDeclaredConstructor(ComponentCommandPayload.class)
+                .newInstance(payload);
+        Map<String, Object> globalParams = new HashMap<>();
+        for (Method declaredMethod : params.getClass().getDeclaredMethods()) {
+            if (declaredMethod.isAnnotationPresent(GlobalParams.class) && declaredMethod.getParameterCount() == 0) {
+                globalParams.putAll((Map<String, Object>) declaredMethod.invoke(params));
+            }
+        }
+        params.putAll(globalParams);
+        params.getGlobalParamsMap();
+
+        return (ShellResult) method.invoke(script, params);
+    }
+
+    @Benchmark
+    public ShellResult dispatchTable() throws Exception {
+        Params params = dispatcher.createParams(payload);
+        return dispatcher.invoke(dispatcher.getCommand("benchmark_component", COMMAND), params);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CommandDispatcherBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    public static class BenchmarkScript extends AbstractServerScript {
+
+        private static final ShellResult RESULT = ShellResult.success();
+
+        @Override
+        public ShellResult start(Params params) {
+            return RESULT;
+        }
+
+        @Override
+        public ShellResult stop(Params params) {
+            return RESULT;
+        }
+
+        @Override
+        public ShellResult status(Params params) {
+            return RESULT;
+        }
+
+        public ShellResult rebalanceData(Params params) {
+            return RESULT;
+        }
+
+        @Override
+        public String getComponentName() {
+            return "benchmark_component";
+        }
+    }
+
+    public static class BenchmarkParams extends BaseParams {
+
+        public BenchmarkParams(ComponentCommandPayload payload) {
+            super(payload);
+        }
+
+        @GlobalParams
+        public Map<String, Object> siteParams() {
+            return Map.of("data_dir", "/data", "log_dir", "/var/log");
+        }
+
+        @GlobalParams
+        public Map<String, Object> envParams() {
+            return Map.of("heap_size", "1024m");
+        }
+
+        @GlobalParams
+        public Map<String, Object> limitsParams() {
+            return Map.of("nofile", "65535");
+        }
+
+        public void putAll(Map<String, Object> params) {
+            globalParamsMap.putAll(params);
+            globalParamsMap.remove("content");
+        }
+
+        @Override
+        public String getServiceName() {
+            return "benchmark";
+        }
+    }
+}
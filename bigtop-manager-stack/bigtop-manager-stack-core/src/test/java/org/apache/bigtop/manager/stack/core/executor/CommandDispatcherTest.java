@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.core.executor;
+
+import org.apache.bigtop.manager.common.shell.ShellResult;
+import org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload;
+import org.apache.bigtop.manager.stack.core.annotations.GlobalParams;
+import org.apache.bigtop.manager.stack.core.exception.StackException;
+import org.apache.bigtop.manager.stack.core.spi.param.BaseParams;
+import org.apache.bigtop.manager.stack.core.spi.param.Params;
+import org.apache.bigtop.manager.stack.core.spi.script.AbstractServerScript;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CommandDispatcherTest {
+
+    private final CommandDispatcher dispatcher = new CommandDispatcher(
+            Map.of("mock_component", new MockScript()), Map.of("mock_service", new MockParams(null)));
+
+    @Test
+    public void testInvokeCommand() throws Exception {
+        ComponentCommandPayload payload = new ComponentCommandPayload();
+        payload.setServiceName("mock_service");
+        Params params = dispatcher.createParams(payload);
+
+        assertInstanceOf(MockParams.class, params);
+        assertEquals("mock", ((MockParams) params).getGlobalParam("mock_key"));
+
+        MethodHandle start = dispatcher.getCommand("mock_component", "start");
+        assertEquals("start", dispatcher.invoke(start, params).getOutput());
+
+        MethodHandle custom = dispatcher.getCommand("mock_component", "custom_command");
+        assertEquals("customCommand", dispatcher.invoke(custom, params).getOutput());
+    }
+
+    @Test
+    public void testMissingCommand() {
+        assertThrows(StackException.class, () -> dispatcher.getCommand("mock_component", "unknown_command"));
+        assertThrows(StackException.class, () -> dispatcher.getCommand("unknown_component", "start"));
+
+        ComponentCommandPayload payload = new ComponentCommandPayload();
+        payload.setServiceName("unknown_service");
+        assertThrows(StackException.class, () -> dispatcher.createParams(payload));
+    }
+
+    @Test
+    public void testCommandExceptionPropagated() throws Exception {
+        ComponentCommandPayload payload = new ComponentCommandPayload();
+        payload.setServiceName("mock_service");
+        Params params = dispatcher.createParams(payload);
+
+        MethodHandle fail = dispatcher.getCommand("mock_component", "fail");
+        assertThrows(IllegalStateException.class, () -> dispatcher.invoke(fail, params));
+    }
+
+    public static class MockScript extends AbstractServerScript {
+
+        @Override
+        public ShellResult start(Params params) {
+            return new ShellResult(0, "start", "");
+        }
+
+        @Override
+        public ShellResult stop(Params params) {
+            return ShellResult.success();
+        }
+
+        @Override
+        public ShellResult status(Params params) {
+            return ShellResult.success();
+        }
+
+        public ShellResult customCommand(Params params) {
+            return new ShellResult(0, "customCommand", "");
+        }
+
+        public ShellResult fail(Params params) {
+            throw new IllegalStateException("fail");
+        }
+
+        @Override
+        public String getComponentName() {
+            return "mock_component";
+        }
+    }
+
+    public static class MockParams extends BaseParams {
+
+        public MockParams(ComponentCommandPayload payload) {
+            super(payload);
+        }
+
+        @GlobalParams
+        public Map<String, Object> mockParams() {
+            return Map.of("mock_key", "mock");
+        }
+
+        @Override
+        public String getServiceName() {
+            return "mock_service";
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.core.executor;
+
+import org.apache.bigtop.manager.common.enums.Command;
+import org.apache.bigtop.manager.common.shell.ShellResult;
+import org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload;
+import org.apache.bigtop.manager.stack.core.spi.param.BaseParams;
+import org.apache.bigtop.manager.stack.core.spi.param.Params;
+import org.apache.bigtop.manager.stack.core.spi.script.AbstractServerScript;
+import org.apache.bigtop.manager.stack.core.spi.script.Script;
+import org.apache.bigtop.manager.stack.core.utils.LocalSettings;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import com.google.auto.service.AutoService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mockStatic;
+
+public class StackExecutorTest {
+
+    /**
+     * Params passed to every status check of {@link MockScript}
+     */
+    private static final List<Params> STATUS_CHECKS = new CopyOnWriteArrayList<>();
+
+    private MockedStatic<LocalSettings> localSettingsMockedStatic;
+
+    @BeforeEach
+    public void setUp() {
+        STATUS_CHECKS.clear();
+        localSettingsMockedStatic = mockStatic(LocalSettings.class);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        localSettingsMockedStatic.close();
+    }
+
+    @Test
+    public void testStatusParamsReused() {
+        localSettingsMockedStatic.when(LocalSettings::stamp).thenReturn(1L);
+        ComponentCommandPayload payload = payload("3.3.0");
+
+        assertEquals(0, StackExecutor.execute(payload).getExitCode());
+        assertEquals(0, StackExecutor.execute(payload("3.3.0")).getExitCode());
+        assertEquals(2, STATUS_CHECKS.size());
+        assertSame(STATUS_CHECKS.get(0), STATUS_CHECKS.get(1));
+
+        // A payload for another stack version gets its own params
+        StackExecutor.execute(payload("3.4.0"));
+        assertNotSame(STATUS_CHECKS.get(1), STATUS_CHECKS.get(2));
+        assertEquals("3.4.0", ((MockParams) STATUS_CHECKS.get(2)).stackVersion());
+
+        ComponentCommandPayload otherHosts = payload("3.4.0");
+        otherHosts.setClusterHosts(Map.of("cluster", List.of("host1")));
+        StackExecutor.execute(otherHosts);
+        assertNotSame(STATUS_CHECKS.get(2), STATUS_CHECKS.get(3));
+        StackExecutor.execute(otherHosts);
+        assertSame(STATUS_CHECKS.get(3), STATUS_CHECKS.get(4));
+
+        // Local settings rewritten
+        localSettingsMockedStatic.when(LocalSettings::stamp).thenReturn(2L);
+        StackExecutor.execute(otherHosts);
+        assertNotSame(STATUS_CHECKS.get(4), STATUS_CHECKS.get(5));
+        StackExecutor.execute(otherHosts);
+        assertSame(STATUS_CHECKS.get(5), STATUS_CHECKS.get(6));
+    }
+
+    private ComponentCommandPayload payload(String stackVersion) {
+        ComponentCommandPayload payload = new ComponentCommandPayload();
+        payload.setServiceName("executor_mock_service");
+        payload.setComponentName("executor_mock_component");
+        payload.setServiceUser("mock");
+        payload.setCommand(Command.STATUS.getCode());
+        payload.setStackName("bigtop");
+        payload.setStackVersion(stackVersion);
+        return payload;
+    }
+
+    @AutoService(Script.class)
+    public static class MockScript extends AbstractServerScript {
+
+        @Override
+        public ShellResult start(Params params) {
+            return ShellResult.success();
+        }
+
+        @Override
+        public ShellResult stop(Params params) {
+            return ShellResult.success();
+        }
+
+        @Override
+        public ShellResult status(Params params) {
+            STATUS_CHECKS.add(params);
+            return ShellResult.success();
+        }
+
+        @Override
+        public String getComponentName() {
+            return "executor_mock_component";
+        }
+    }
+
+    @AutoService(Params.class)
+    public static class MockParams extends BaseParams {
+
+        public MockParams() {
+            super(null);
+        }
+
+        public MockParams(ComponentCommandPayload payload) {
+            super(payload);
+        }
+
+        public String stackVersion() {
+            return payload.getStackVersion();
+        }
+
+        @Override
+        public String getServiceName() {
+            return "executor_mock_service";
+        }
+    }
+}
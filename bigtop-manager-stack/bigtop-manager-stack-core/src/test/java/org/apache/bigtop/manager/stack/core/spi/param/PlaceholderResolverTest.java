@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.core.spi.param;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PlaceholderResolverTest {
+
+    @Test
+    public void testResolveChained() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("root", "/opt");
+        params.put("home", "${root}/hadoop");
+        params.put("conf", "${home}/etc");
+        params.put("log", "${home}/logs:${conf}");
+        PlaceholderResolver.resolve(params);
+
+        assertEquals("/opt/hadoop", params.get("home"));
+        assertEquals("/opt/hadoop/etc", params.get("conf"));
+        assertEquals("/opt/hadoop/logs:/opt/hadoop/etc", params.get("log"));
+    }
+
+    @Test
+    public void testResolveNested() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("prefix", "hdfs");
+        params.put("hdfs_dir", "/data/hdfs");
+        params.put("dir", "${${prefix}_dir}/current");
+        PlaceholderResolver.resolve(params);
+
+        assertEquals("/data/hdfs/current", params.get("dir"));
+    }
+
+    @Test
+    public void testUnresolvedLeftAsIs() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("home", "/opt");
+        params.put("missing", "${not_exists}/${home}");
+        params.put("unclosed", "${home/${home}");
+        params.put("brace", "a}b");
+        PlaceholderResolver.resolve(params);
+
+        assertEquals("${not_exists}//opt", params.get("missing"));
+        assertEquals("${home//opt", params.get("unclosed"));
+        assertEquals("a}b", params.get("brace"));
+    }
+
+    @Test
+    public void testCircularReference() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("a", "${b}");
+        params.put("b", "${a}");
+        params.put("self", "x${self}");
+        params.put("c", "${d}");
+        params.put("d", "value");
+        PlaceholderResolver.resolve(params);
+
+        assertEquals("value", params.get("c"));
+        assertEquals("x${self}", params.get("self"));
+    }
+
+    @Test
+    public void testNonStringValues() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("hosts", List.of("host1", "host2"));
+        params.put("port", 8020);
+        params.put("address", "${hosts}:${port}");
+        PlaceholderResolver.resolve(params);
+
+        assertEquals(List.of("host1", "host2"), params.get("hosts"));
+        assertEquals("[host1, host2]:8020", params.get("address"));
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.core.tarball;
+
+import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
+import org.apache.bigtop.manager.stack.core.exception.StackException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FileDownloaderTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private HttpServer server;
+
+    private final byte[] content = new byte[3 * 1024 * 1024 + 17];
+
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        new Random(42).nextBytes(content);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/repo/", this::serve);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testDownloadWithConsumer() throws Exception {
+        ByteArrayOutputStream consumed = new ByteArrayOutputStream();
+        FileDownloader.download(url(), tempDir.toString(), packageInfo(sha256(content)), is -> {
+            try {
+                is.transferTo(consumed);
+            } catch (IOException e) {
+                throw new StackException(e);
+            }
+        });
+
+        assertArrayEquals(content, Files.readAllBytes(tempDir.resolve("test.tar.gz")));
+        assertArrayEquals(content, consumed.toByteArray());
+        assertFalse(Files.exists(tempDir.resolve("test.tar.gz.part")));
+    }
+
+    @Test
+    public void testResumeDownload() throws Exception {
+        int offset = 1024 * 1024;
+        Files.write(tempDir.resolve("test.tar.gz.part"), Arrays.copyOf(content, offset));
+
+        ByteArrayOutputStream consumed = new ByteArrayOutputStream();
+        FileDownloader.download(url(), tempDir.toString(), packageInfo(sha256(content)), is -> {
+            try {
+                is.transferTo(consumed);
+            } catch (IOException e) {
+                throw new StackException(e);
+            }
+        });
+
+        assertEquals(List.of("bytes=" + offset + "-"), ranges);
+        assertArrayEquals(content, Files.readAllBytes(tempDir.resolve("test.tar.gz")));
+        // The consumer still sees the whole content
+        assertArrayEquals(content, consumed.toByteArray());
+    }
+
+    @Test
+    public void testExistingFileNotDownloaded() throws Exception {
+        Files.write(tempDir.resolve("test.tar.gz"), content);
+
+        FileDownloader.download(url(), tempDir.toString(), packageInfo(sha256(content)));
+
+        assertEquals(0, ranges.size());
+    }
+
+    @Test
+    public void testInvalidChecksum() {
+        assertThrows(
+                StackException.class,
+                () -> FileDownloader.download(url(), tempDir.toString(), packageInfo("0123456789abcdef")));
+
+        assertFalse(Files.exists(tempDir.resolve("test.tar.gz")));
+        assertFalse(Files.exists(tempDir.resolve("test.tar.gz.part")));
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        ranges.add(range == null ? "" : range);
+
+        int start = 0;
+        if (range != null) {
+            start = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+            exchange.getResponseHeaders()
+                    .add("Content-Range", "bytes " + start + "-" + (content.length - 1) + "/" + content.length);
+            exchange.sendResponseHeaders(206, content.length - start);
+        } else {
+            exchange.sendResponseHeaders(200, content.length);
+        }
+
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(content, start, content.length - start);
+        }
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/repo/test.tar.gz";
+    }
+
+    private static PackageInfo packageInfo(String checksum) {
+        return new PackageInfo("test.tar.gz", "sha256:" + checksum);
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
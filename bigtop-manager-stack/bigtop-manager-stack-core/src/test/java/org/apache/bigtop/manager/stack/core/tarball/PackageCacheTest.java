@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.core.tarball;
+
+import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
+import org.apache.bigtop.manager.stack.core.exception.StackException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PackageCacheTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testBlobPath() {
+        Path blob = PackageCache.blobPath(new PackageInfo("hadoop.tar.gz", "SHA-256:ABCDEF"));
+        assertEquals(
+                Path.of("sha-256", "abcdef", "hadoop.tar.gz"),
+                blob.subpath(blob.getNameCount() - 3, blob.getNameCount()));
+
+        assertThrows(StackException.class, () -> PackageCache.blobPath(new PackageInfo("hadoop.tar.gz", "abcdef")));
+        assertThrows(
+                StackException.class, () -> PackageCache.blobPath(new PackageInfo("hadoop.tar.gz", "sha-256:../x")));
+        assertThrows(StackException.class, () -> PackageCache.blobPath(new PackageInfo("hadoop.tar.gz", "sha-256:..")));
+        assertThrows(StackException.class, () -> PackageCache.blobPath(new PackageInfo("hadoop.tar.gz", "..:abcdef")));
+        assertThrows(
+                StackException.class, () -> PackageCache.blobPath(new PackageInfo("hadoop.tar.gz", "sha-256:a\\b")));
+        assertThrows(StackException.class, () -> PackageCache.blobPath(new PackageInfo("..", "sha-256:abcdef")));
+        assertThrows(
+                StackException.class, () -> PackageCache.blobPath(new PackageInfo("../../x.tar.gz", "sha-256:abcdef")));
+        assertThrows(
+                StackException.class, () -> PackageCache.blobPath(new PackageInfo("..\\x.tar.gz", "sha-256:abcdef")));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() throws Exception {
+        Path oldest = blob("sha-256/a/a.tar.gz", 100, 1000);
+        Path older = blob("sha-256/b/b.tar.gz", 100, 2000);
+        Path newest = blob("sha-256/c/c.tar.gz", 100, 3000);
+        Path downloading = blob("sha-256/d/d.tar.gz.part", 100, 0);
+
+        PackageCache.evict(tempDir, 250);
+
+        assertFalse(Files.exists(oldest));
+        assertFalse(Files.exists(oldest.getParent()));
+        assertFalse(PackageCache.LOCKS.containsKey(oldest.toString()));
+        assertTrue(Files.exists(older));
+        assertTrue(Files.exists(newest));
+        assertTrue(Files.exists(downloading));
+
+        // The package just used stays even if it's larger than the cache
+        PackageCache.evict(tempDir, 10);
+        assertFalse(Files.exists(older));
+        assertFalse(PackageCache.LOCKS.containsKey(older.toString()));
+        assertTrue(Files.exists(newest));
+    }
+
+    @Test
+    public void testFetchFromPeers() throws Exception {
+        byte[] content = new byte[100_000];
+        new Random(1).nextBytes(content);
+        String checksum = "sha-256:"
+                + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        PackageInfo packageInfo = new PackageInfo("hadoop.tar.gz", checksum);
+
+        List<Long> offsets = new ArrayList<>();
+        PackageSource peers = (repoUrl, info, offset, visited) -> {
+            assertEquals(Set.of("host2"), visited);
+            offsets.add(offset);
+            InputStream is = new ByteArrayInputStream(content, (int) offset, content.length - (int) offset);
+            if (offset > 0) {
+                return is;
+            }
+
+            // The first peer drops in the middle, the rest is fetched from where it stopped
+            return new FilterInputStream(is) {
+                private int read;
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (read >= 40_000) {
+                        throw new IOException("Connection reset");
+                    }
+
+                    int n = super.read(b, off, Math.min(len, 40_000 - read));
+                    read += n;
+                    return n;
+                }
+            };
+        };
+
+        String originalUserHome = System.getProperty("user.home");
+        System.setProperty("user.home", tempDir.resolve("home").toString());
+        PackageCache.setPeerSource(peers);
+        try {
+            // The repo is not reachable, the package must come from the peers
+            Path blob = PackageCache.fetch("http://127.0.0.1:1", packageInfo, null, Set.of("host2"));
+            assertArrayEquals(content, Files.readAllBytes(blob));
+            assertEquals(List.of(0L, 40_000L), offsets);
+            assertFalse(Files.exists(Path.of(blob + ".peer.part")));
+
+            // Cached now, peers are not asked again
+            PackageCache.fetch("http://127.0.0.1:1", packageInfo, null, Set.of("host2"));
+            assertEquals(2, offsets.size());
+        } finally {
+            PackageCache.setPeerSource(null);
+            System.setProperty("user.home", originalUserHome);
+        }
+    }
+
+    private Path blob(String name, int size, long lastUsed) throws Exception {
+        Path path = tempDir.resolve(name);
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[size]);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(lastUsed));
+        return path;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.core.tarball;
+
+import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SegmentedDownloaderTest {
+
+    private static final int LENGTH = 4 * 1024 * 1024 + 3;
+
+    @TempDir
+    private Path tempDir;
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private final byte[] content = new byte[LENGTH];
+
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+
+    /**
+     * Number of requests for the last segment which are cut off halfway
+     */
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private long failingStart = -1;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        new Random(42).nextBytes(content);
+
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/repo/", this::serve);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testProbe() {
+        assertEquals(LENGTH, SegmentedDownloader.probe(url()));
+        assertEquals(1, SegmentedDownloader.segments(LENGTH));
+        assertEquals(2, SegmentedDownloader.segments(2 * SegmentedDownloader.MIN_SEGMENT_SIZE));
+        assertEquals(
+                SegmentedDownloader.DEFAULT_SEGMENTS,
+                SegmentedDownloader.segments(100 * SegmentedDownloader.MIN_SEGMENT_SIZE));
+    }
+
+    @Test
+    public void testDownloadSegments() throws Exception {
+        Path partPath = tempDir.resolve("test.tar.gz.part");
+        SegmentedDownloader.download(url(), partPath, LENGTH, 4);
+
+        assertArrayEquals(content, Files.readAllBytes(partPath));
+        assertEquals(4, ranges.size());
+        assertTrue(ranges.contains("bytes=0-1048575"));
+        assertTrue(ranges.contains("bytes=3145728-4194306"));
+        assertFalse(Files.exists(SegmentedDownloader.progressPath(partPath)));
+    }
+
+    @Test
+    public void testResumeSegments() throws Exception {
+        Path partPath = tempDir.resolve("test.tar.gz.part");
+        failingStart = 3145728;
+        failures.set(3);
+
+        assertThrows(IOException.class, () -> SegmentedDownloader.download(url(), partPath, LENGTH, 4));
+        assertTrue(Files.exists(SegmentedDownloader.progressPath(partPath)));
+
+        ranges.clear();
+        SegmentedDownloader.download(url(), partPath, LENGTH, 4);
+
+        // Only the rest of the failed segment is fetched again
+        assertEquals(1, ranges.size());
+        long resumedFrom = Long.parseLong(
+                ranges.get(0).substring("bytes=".length(), ranges.get(0).indexOf('-')));
+        assertTrue(resumedFrom > failingStart);
+        assertArrayEquals(content, Files.readAllBytes(partPath));
+        assertFalse(Files.exists(SegmentedDownloader.progressPath(partPath)));
+    }
+
+    @Test
+    public void testFailedSegmentStopsOthers() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        server.removeContext("/repo/");
+        server.createContext("/repo/", exchange -> {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            ranges.add(range);
+            if (range.startsWith("bytes=0-")) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+
+            // The other segments hang halfway until the test lets them go on
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(bounds[0]);
+            int length = Integer.parseInt(bounds[1]) - start + 1;
+            exchange.sendResponseHeaders(206, length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(content, start, length / 2);
+                os.flush();
+                stalled.await();
+                os.write(content, start + length / 2, length - length / 2);
+            } catch (InterruptedException | IOException e) {
+                // Closed by the client
+            }
+        });
+
+        Path partPath = tempDir.resolve("test.tar.gz.part");
+        assertThrows(IOException.class, () -> SegmentedDownloader.download(url(), partPath, LENGTH, 4));
+        int requests = ranges.size();
+
+        // Segments still running would get the rest now, fail to write it to the closed file and retry
+        stalled.countDown();
+        Thread.sleep(500);
+        assertEquals(requests, ranges.size());
+    }
+
+    @Test
+    public void testFileDownloaderUsesSegments() throws Exception {
+        byte[] large = new byte[(int) (2 * SegmentedDownloader.MIN_SEGMENT_SIZE)];
+        System.arraycopy(content, 0, large, 0, content.length);
+        System.arraycopy(content, 0, large, large.length - content.length, content.length);
+        server.removeContext("/repo/");
+        server.createContext("/repo/", exchange -> serve(exchange, large));
+
+        String checksum =
+                HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(large));
+        FileDownloader.download(url(), tempDir.toString(), new PackageInfo("test.tar.gz", "sha256:" + checksum));
+
+        assertArrayEquals(large, Files.readAllBytes(tempDir.resolve("test.tar.gz")));
+        assertEquals(2, ranges.stream().filter(range -> !range.isEmpty()).count());
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        serve(exchange, content);
+    }
+
+    private void serve(HttpExchange exchange, byte[] bytes) throws IOException {
+        exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().add("Content-Length", String.valueOf(bytes.length));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        ranges.add(range == null ? "" : range);
+        if (range == null) {
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+            return;
+        }
+
+        String[] bounds = range.substring("bytes=".length()).split("-");
+        int start = Integer.parseInt(bounds[0]);
+        int end = Integer.parseInt(bounds[1]);
+        int length = end - start + 1;
+        exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + bytes.length);
+
+        // Cut the response off after half the range, chunked so the client sees a clean end of stream
+        boolean fail = start >= failingStart && failingStart >= 0 && failures.getAndDecrement() > 0;
+        exchange.sendResponseHeaders(206, fail ? 0 : length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes, start, fail ? length / 2 : length);
+        }
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/repo/test.tar.gz";
+    }
+}
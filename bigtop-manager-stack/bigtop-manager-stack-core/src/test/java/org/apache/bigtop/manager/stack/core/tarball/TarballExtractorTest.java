@@ -33,9 +33,12 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TarballExtractorTest {
@@ -124,6 +127,16 @@ public class TarballExtractorTest {
         assertEquals("test.txt", targetPath.toString());
     }
 
+    @Test
+    public void testExtractSymbolicLinkOutsideDest() throws IOException {
+        Path tarFile = tempDir.resolve("test.tar");
+        createTarFileWithSymbolicLink(tarFile, "../outside.txt", "link_to_outside.txt");
+
+        assertThrows(
+                StackException.class, () -> TarballExtractor.extractTarball(tarFile.toString(), destDir.toString()));
+        assertFalse(Files.exists(destDir.resolve("link_to_outside.txt"), LinkOption.NOFOLLOW_LINKS));
+    }
+
     private void createTarFile(Path tarFile, String entryName, byte[] content) throws IOException {
         try (FileOutputStream fos = new FileOutputStream(tarFile.toFile());
                 TarArchiveOutputStream tos = new TarArchiveOutputStream(fos)) {
@@ -26,17 +26,23 @@ import org.apache.bigtop.manager.grpc.pojo.RepoInfo;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.MockedStatic;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
@@ -130,6 +136,33 @@ public class LocalSettingsTest {
         assertEquals(expectedHosts, LocalSettings.hosts(componentName));
     }
 
+    @Test
+    public void testHostsReturnCopies(@TempDir Path tempDir) throws Exception {
+        Files.writeString(tempDir.resolve("hosts.json"), "{\"zookeeper_server\":[\"host3\",\"host1\",\"host2\"]}");
+
+        localSettingsMockedStatic.when(ProjectPathUtils::getAgentCachePath).thenReturn(tempDir.toString());
+        localSettingsMockedStatic
+                .when(() -> LocalSettings.createFile(anyString()))
+                .thenCallRealMethod();
+        localSettingsMockedStatic
+                .when(() -> JsonUtils.readFromFile(any(File.class), any(TypeReference.class)))
+                .thenCallRealMethod();
+        localSettingsMockedStatic.when(() -> LocalSettings.hosts(anyString())).thenCallRealMethod();
+        localSettingsMockedStatic.when(LocalSettings::hosts).thenCallRealMethod();
+        localSettingsMockedStatic.when(LocalSettings::invalidate).thenCallRealMethod();
+        LocalSettings.invalidate();
+
+        // Setup classes sort the host list in place
+        LocalSettings.hosts("zookeeper_server").sort(String::compareToIgnoreCase);
+        LocalSettings.hosts().get("zookeeper_server").sort(String::compareToIgnoreCase);
+        LocalSettings.hosts().remove("zookeeper_server");
+
+        assertEquals(List.of("host3", "host1", "host2"), LocalSettings.hosts("zookeeper_server"));
+        assertEquals(List.of("host3", "host1", "host2"), LocalSettings.hosts().get("zookeeper_server"));
+
+        LocalSettings.invalidate();
+    }
+
     @Test
     public void testBasicInfo() {
         Map<String, Object> settingsData = new HashMap<>();
@@ -216,6 +249,63 @@ public class LocalSettingsTest {
         assertEquals(expectedClusterInfo, LocalSettings.cluster());
     }
 
+    @Test
+    public void testConfigurationsReloadedOnChange(@TempDir Path tempDir) throws Exception {
+        Path configFile = tempDir.resolve("configurations.json");
+        Files.writeString(configFile, "{\"serviceA\":{\"typeA\":\"{\\\"keyA\\\":\\\"valueA\\\"}\"}}");
+
+        localSettingsMockedStatic.when(ProjectPathUtils::getAgentCachePath).thenReturn(tempDir.toString());
+        localSettingsMockedStatic
+                .when(() -> LocalSettings.createFile(anyString()))
+                .thenCallRealMethod();
+        localSettingsMockedStatic
+                .when(() -> JsonUtils.readFromFile(any(File.class), any(TypeReference.class)))
+                .thenCallRealMethod();
+        localSettingsMockedStatic
+                .when(() -> JsonUtils.readFromString(anyString(), any(TypeReference.class)))
+                .thenCallRealMethod();
+        localSettingsMockedStatic
+                .when(() -> LocalSettings.configurations(anyString(), anyString()))
+                .thenCallRealMethod();
+        localSettingsMockedStatic.when(LocalSettings::invalidate).thenCallRealMethod();
+        LocalSettings.invalidate();
+
+        Map<String, Object> first = LocalSettings.configurations("serviceA", "typeA");
+        assertEquals("valueA", first.get("keyA"));
+
+        // Callers get their own copy, changing it must not leak into the cache
+        first.put("keyA", "changed");
+        assertEquals("valueA", LocalSettings.configurations("serviceA", "typeA").get("keyA"));
+
+        Files.writeString(configFile, "{\"serviceA\":{\"typeA\":\"{\\\"keyA\\\":\\\"valueB\\\"}\"}}");
+        Files.setLastModifiedTime(
+                configFile, FileTime.fromMillis(configFile.toFile().lastModified() + 1000));
+        assertEquals("valueB", LocalSettings.configurations("serviceA", "typeA").get("keyA"));
+        assertTrue(LocalSettings.configurations("serviceB", "typeA").isEmpty());
+
+        LocalSettings.invalidate();
+    }
+
+    @Test
+    public void testStampChangesWhenReposRewritten(@TempDir Path tempDir) throws Exception {
+        Path reposFile = tempDir.resolve("repos.json");
+        Files.writeString(reposFile, "[]");
+
+        localSettingsMockedStatic.when(ProjectPathUtils::getAgentCachePath).thenReturn(tempDir.toString());
+        localSettingsMockedStatic
+                .when(() -> LocalSettings.createFile(anyString()))
+                .thenCallRealMethod();
+        localSettingsMockedStatic.when(LocalSettings::stamp).thenCallRealMethod();
+
+        long before = LocalSettings.stamp();
+        assertEquals(before, LocalSettings.stamp());
+
+        Files.writeString(reposFile, "[{\"name\":\"repo1\"}]");
+        Files.setLastModifiedTime(
+                reposFile, FileTime.fromMillis(reposFile.toFile().lastModified() + 1000));
+        assertNotEquals(before, LocalSettings.stamp());
+    }
+
     @Test
     public void testPackages() {
         List<String> expectedPackages = List.of();
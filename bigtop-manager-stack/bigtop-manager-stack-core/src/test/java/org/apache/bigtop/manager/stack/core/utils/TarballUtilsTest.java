@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.core.utils;
+
+import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
+import org.apache.bigtop.manager.stack.core.exception.StackException;
+import org.apache.bigtop.manager.stack.core.tarball.PackageCache;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.io.FileUtils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TarballUtilsTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private HttpServer server;
+
+    private byte[] tarball;
+
+    private String originalUserHome;
+
+    private final AtomicInteger downloads = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tarball = createTarGz();
+
+        // The package cache lives in the user home
+        originalUserHome = System.getProperty("user.home");
+        System.setProperty("user.home", tempDir.resolve("home").toString());
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/repo/", exchange -> {
+            if ("GET".equals(exchange.getRequestMethod())) {
+                downloads.incrementAndGet();
+            }
+
+            exchange.sendResponseHeaders(200, tarball.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(tarball);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+        System.setProperty("user.home", originalUserHome);
+    }
+
+    @Test
+    public void testInstallPackage() throws Exception {
+        Path stackHome = tempDir.resolve("services");
+        Path serviceHome = stackHome.resolve("hadoop");
+        PackageInfo packageInfo = new PackageInfo("hadoop.tar.gz", "sha256:" + sha256(tarball));
+
+        TarballUtils.installPackage(repoUrl(), serviceHome.toString(), packageInfo, 1);
+
+        assertEquals("hadoop", Files.readString(serviceHome.resolve("bin/hadoop")));
+        assertEquals("small", Files.readString(serviceHome.resolve("etc/small.xml")));
+        assertEquals(5 * 1024 * 1024, Files.size(serviceHome.resolve("share/large.jar")));
+        assertTrue(Files.exists(PackageCache.blobPath(packageInfo)));
+        assertFalse(Files.exists(stackHome.resolve("hadoop.staging")));
+    }
+
+    @Test
+    public void testInstallPackageWithSymbolicLinks() throws Exception {
+        Path stackHome = tempDir.resolve("services");
+        Path serviceHome = stackHome.resolve("hadoop");
+        PackageInfo packageInfo = new PackageInfo("hadoop.tar.gz", "sha256:" + sha256(tarball));
+
+        TarballUtils.installPackage(repoUrl(), serviceHome.toString(), packageInfo, 1);
+
+        // Links still resolve once the staging dir is renamed to the service home
+        Path library = serviceHome.resolve("lib/native/libhadoop.so");
+        assertTrue(Files.isSymbolicLink(library));
+        Path libraryTarget = library.getParent().resolve(Files.readSymbolicLink(library));
+        assertTrue(libraryTarget.toRealPath().startsWith(serviceHome.toRealPath()));
+        assertEquals("native", Files.readString(library));
+
+        Path current = serviceHome.resolve("bin/current");
+        Path currentTarget = current.getParent().resolve(Files.readSymbolicLink(current));
+        assertTrue(currentTarget.toRealPath().startsWith(serviceHome.toRealPath()));
+        assertTrue(Files.exists(current.resolve("large.jar")));
+    }
+
+    @Test
+    public void testReinstallFromCache() throws Exception {
+        Path stackHome = tempDir.resolve("services");
+        PackageInfo packageInfo = new PackageInfo("hadoop.tar.gz", "sha256:" + sha256(tarball));
+
+        TarballUtils.installPackage(repoUrl(), stackHome.resolve("hadoop").toString(), packageInfo, 1);
+        FileUtils.deleteDirectory(stackHome.resolve("hadoop").toFile());
+        TarballUtils.installPackage(repoUrl(), stackHome.resolve("hadoop").toString(), packageInfo, 1);
+        TarballUtils.installPackage(repoUrl(), stackHome.resolve("another").toString(), packageInfo, 0);
+
+        assertEquals(1, downloads.get());
+        assertEquals("hadoop", Files.readString(stackHome.resolve("hadoop/bin/hadoop")));
+        assertEquals("hadoop", Files.readString(stackHome.resolve("another/hadoop-3.3.6/bin/hadoop")));
+    }
+
+    @Test
+    public void testInstallPackageInvalidChecksum() {
+        Path stackHome = tempDir.resolve("services");
+        Path serviceHome = stackHome.resolve("hadoop");
+        PackageInfo packageInfo = new PackageInfo("hadoop.tar.gz", "sha256:0123456789abcdef");
+
+        assertThrows(
+                StackException.class,
+                () -> TarballUtils.installPackage(repoUrl(), serviceHome.toString(), packageInfo, 1));
+
+        assertFalse(Files.exists(serviceHome));
+        assertFalse(Files.exists(stackHome.resolve("hadoop.staging")));
+    }
+
+    private String repoUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/repo";
+    }
+
+    private static byte[] createTarGz() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (GzipCompressorOutputStream gzos = new GzipCompressorOutputStream(bos);
+                TarArchiveOutputStream tos = new TarArchiveOutputStream(gzos)) {
+            tos.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            putEntry(tos, "hadoop-3.3.6/bin/hadoop", "hadoop".getBytes(StandardCharsets.UTF_8));
+            putEntry(tos, "hadoop-3.3.6/etc/small.xml", "small".getBytes(StandardCharsets.UTF_8));
+            putEntry(tos, "hadoop-3.3.6/share/large.jar", new byte[5 * 1024 * 1024]);
+            putEntry(tos, "hadoop-3.3.6/lib/native/libhadoop.so.1.0.0", "native".getBytes(StandardCharsets.UTF_8));
+            putLink(tos, "hadoop-3.3.6/lib/native/libhadoop.so", "libhadoop.so.1.0.0");
+            putLink(tos, "hadoop-3.3.6/bin/current", "../share");
+        }
+
+        return bos.toByteArray();
+    }
+
+    private static void putEntry(TarArchiveOutputStream tos, String name, byte[] content) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(content.length);
+        tos.putArchiveEntry(entry);
+        tos.write(content);
+        tos.closeArchiveEntry();
+    }
+
+    private static void putLink(TarArchiveOutputStream tos, String name, String target) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name, TarArchiveEntry.LF_SYMLINK);
+        entry.setLinkName(target);
+        tos.putArchiveEntry(entry);
+        tos.closeArchiveEntry();
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
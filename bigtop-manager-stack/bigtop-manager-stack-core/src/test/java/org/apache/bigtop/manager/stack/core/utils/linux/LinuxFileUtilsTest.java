@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.stack.core.utils.linux;
+
+import org.apache.bigtop.manager.common.shell.OutputCapture;
+import org.apache.bigtop.manager.common.shell.ShellExecutor;
+import org.apache.bigtop.manager.common.shell.ShellResult;
+import org.apache.bigtop.manager.stack.core.enums.ConfigType;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+
+public class LinuxFileUtilsTest {
+
+    private MockedStatic<ShellExecutor> mockShellExecutor;
+
+    @TempDir
+    private Path tempDir;
+
+    @BeforeEach
+    public void setUp() {
+        mockShellExecutor = mockStatic(ShellExecutor.class);
+        mockShellExecutor
+                .when(() -> ShellExecutor.execCommand(anyList(), any(OutputCapture.class)))
+                .thenReturn(new ShellResult(0, "", ""));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockShellExecutor.close();
+    }
+
+    @Test
+    public void testUpdatePermissionsRecursively() throws Exception {
+        Path dir = Files.createDirectories(tempDir.resolve("conf/sub"));
+        Path file = Files.createFile(dir.resolve("file.xml"));
+        Path outside = Files.createFile(tempDir.resolve("outside"));
+        Files.setPosixFilePermissions(outside, PosixFilePermissions.fromString("rw-------"));
+        Files.createSymbolicLink(dir.resolve("link"), outside);
+
+        LinuxFileUtils.updatePermissions(tempDir.resolve("conf").toString(), "750", true);
+
+        assertEquals("rwxr-x---", permissions(tempDir.resolve("conf")));
+        assertEquals("rwxr-x---", permissions(dir));
+        assertEquals("rwxr-x---", permissions(file));
+        assertEquals("rw-------", permissions(outside));
+        mockShellExecutor.verify(() -> ShellExecutor.execCommand(anyList(), any(OutputCapture.class)), never());
+    }
+
+    @Test
+    public void testUpdatePermissionsWithSymbolicModeUsesChmod() {
+        String dir = tempDir.toString();
+        LinuxFileUtils.updatePermissions(dir, "u+x", false);
+
+        ArgumentCaptor<List<String>> captor = ArgumentCaptor.forClass(List.class);
+        mockShellExecutor.verify(() -> ShellExecutor.execCommand(captor.capture(), any(OutputCapture.class)));
+        List<String> params = captor.getValue();
+        assertEquals(List.of("chmod", "u+x", dir), params.subList(params.size() - 3, params.size()));
+    }
+
+    @Test
+    public void testUpdateOwnerInProcess() throws Exception {
+        Path file = Files.createFile(tempDir.resolve("file.xml"));
+        PosixFileAttributes attributes = Files.readAttributes(file, PosixFileAttributes.class);
+
+        LinuxFileUtils.updateOwner(
+                tempDir.toString(),
+                attributes.owner().getName(),
+                attributes.group().getName(),
+                true);
+
+        mockShellExecutor.verify(() -> ShellExecutor.execCommand(anyList(), any(OutputCapture.class)), never());
+    }
+
+    @Test
+    public void testToFileWithoutRootUsesSingleInstall() {
+        try (MockedStatic<LinuxFileUtils> linuxFileUtils = mockStatic(LinuxFileUtils.class, CALLS_REAL_METHODS)) {
+            linuxFileUtils.when(LinuxFileUtils::isRoot).thenReturn(false);
+
+            String dest = tempDir.resolve("conf.json").toString();
+            LinuxFileUtils.toFile(ConfigType.JSON, dest, "hdfs", "hadoop", "644", Map.of("key", "value"));
+
+            ArgumentCaptor<List<String>> captor = ArgumentCaptor.forClass(List.class);
+            mockShellExecutor.verify(() -> ShellExecutor.execCommand(captor.capture(), any(OutputCapture.class)));
+            List<String> params = captor.getValue();
+            assertEquals(List.of("sudo", "install", "-o", "hdfs", "-g", "hadoop", "-m", "644"), params.subList(0, 8));
+            assertEquals(dest, params.get(9));
+            assertFalse(Files.exists(Path.of(params.get(8))));
+        }
+    }
+
+    private String permissions(Path path) throws Exception {
+        return PosixFilePermissions.toString(Files.getPosixFilePermissions(path));
+    }
+}
@@ -24,10 +24,14 @@ import org.apache.bigtop.manager.common.shell.ShellResult;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -35,6 +39,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 
 public class LinuxOSUtilsTest {
 
@@ -156,6 +161,21 @@ public class LinuxOSUtilsTest {
         assertTrue(result.getErrMsg().contains("Component is not running"));
     }
 
+    @Test
+    public void testCheckProcessInProcess(@TempDir Path tempDir) throws Exception {
+        Path pidFile = tempDir.resolve("component.pid");
+        Files.writeString(pidFile, ProcessHandle.current().pid() + "\n");
+        assertEquals(0, LinuxOSUtils.checkProcess(pidFile.toString()).getExitCode());
+
+        Process exited = new ProcessBuilder("true").start();
+        exited.waitFor();
+        Files.writeString(pidFile, String.valueOf(exited.pid()));
+        Files.setLastModifiedTime(pidFile, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+        assertEquals(-1, LinuxOSUtils.checkProcess(pidFile.toString()).getExitCode());
+
+        mockShellExecutor.verify(() -> ShellExecutor.execCommand(anyList()), never());
+    }
+
     @Test
     public void testExecCmd() throws IOException {
         String command = "echo Hello";